@@ -1,19 +1,75 @@
 package com.gastos.gastos_compartidos.config;
 
+import com.gastos.gastos_compartidos.service.ReporteMensualCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+import java.time.YearMonth;
+
+/**
+ * Cachés en memoria con Caffeine. Todas registran estadísticas, que actuator publica como
+ * métricas cache.gets (hit/miss), cache.puts y cache.evictions por nombre de caché.
+ */
 @Configuration
 @EnableCaching
 public class CacheConfig {
 
+    public static final String REPORTES_MES = "reportes-mes";
+
+    @Value("${app.cache.max-entradas:10000}")
+    private long maxEntradas;
+
+    @Value("${app.cache.reportes-mes.max-entradas:5000}")
+    private long maxReportesMes;
+
+    @Value("${app.cache.reportes-mes.ttl-mes-abierto:5m}")
+    private Duration ttlMesAbierto;
+
     @Bean
     public CacheManager cacheManager() {
-        return new ConcurrentMapCacheManager(
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(
                 "categorias",
                 "usuario-perfil");
+        cacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumSize(maxEntradas)
+                .recordStats());
+        cacheManager.registerCustomCache(REPORTES_MES, Caffeine.newBuilder()
+                .maximumSize(maxReportesMes)
+                .expireAfter(new ExpiracionReporteMes(ttlMesAbierto))
+                .recordStats()
+                .build());
+        return cacheManager;
+    }
+
+    /**
+     * Los meses cerrados no vencen: solo salen por tamaño o por invalidación explícita
+     * (ver ReporteMensualCache). El mes en curso, y cualquiera posterior, vence tras el TTL.
+     */
+    private record ExpiracionReporteMes(Duration ttlMesAbierto) implements Expiry<Object, Object> {
+
+        @Override
+        public long expireAfterCreate(Object clave, Object valor, long ahora) {
+            if (clave instanceof ReporteMensualCache.Clave c && c.mes().isBefore(YearMonth.now())) {
+                return Long.MAX_VALUE;
+            }
+            return ttlMesAbierto.toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(Object clave, Object valor, long ahora, long duracionActual) {
+            return expireAfterCreate(clave, valor, ahora);
+        }
+
+        @Override
+        public long expireAfterRead(Object clave, Object valor, long ahora, long duracionActual) {
+            return duracionActual;
+        }
     }
 }
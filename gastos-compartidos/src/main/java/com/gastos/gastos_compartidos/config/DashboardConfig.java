@@ -0,0 +1,39 @@
+package com.gastos.gastos_compartidos.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Pool acotado para consultar en paralelo las secciones del dashboard. Spring lo inicializa
+ * y al apagar deja terminar las secciones en curso (como mucho el timeout del dashboard).
+ */
+@Configuration
+public class DashboardConfig {
+
+    @Value("${app.dashboard.hilos:8}")
+    private int hilos;
+
+    @Value("${app.dashboard.timeout-ms:5000}")
+    private long timeoutMs;
+
+    @Bean
+    public ThreadPoolTaskExecutor dashboardExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(hilos);
+        executor.setMaxPoolSize(hilos);
+        executor.setQueueCapacity(hilos * 25);
+        executor.setKeepAliveSeconds(60);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setThreadNamePrefix("dashboard-");
+        executor.setDaemon(true);
+        // Con la cola llena la sección corre en el hilo de la petición: se degrada, no se rechaza
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationMillis(timeoutMs);
+        return executor;
+    }
+}
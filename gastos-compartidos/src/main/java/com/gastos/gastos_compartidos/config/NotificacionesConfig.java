@@ -0,0 +1,62 @@
+package com.gastos.gastos_compartidos.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Pool acotado para las notificaciones posteriores al commit de un gasto. Con la cola llena la
+ * notificación se descarta y se cuenta (notificaciones.gasto.rechazadas); al apagar, Spring deja
+ * drenar la cola antes de destruir los servicios que las envían.
+ */
+@Configuration
+@Slf4j
+public class NotificacionesConfig {
+
+    @Value("${app.notificaciones.hilos:2}")
+    private int hilos;
+
+    @Value("${app.notificaciones.cola:500}")
+    private int capacidadCola;
+
+    @Value("${app.notificaciones.drenado-ms:10000}")
+    private long drenadoMs;
+
+    @Bean
+    public ThreadPoolTaskExecutor notificacionesExecutor(MeterRegistry meterRegistry) {
+        Counter rechazadas = meterRegistry.counter("notificaciones.gasto.rechazadas");
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(hilos);
+        executor.setMaxPoolSize(hilos);
+        executor.setQueueCapacity(capacidadCola);
+        executor.setKeepAliveSeconds(60);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setThreadNamePrefix("notificaciones-");
+        // Son avisos de mejor esfuerzo: no deben frenar el registro de gastos
+        executor.setRejectedExecutionHandler((tarea, pool) -> {
+            rechazadas.increment();
+            log.warn("Cola de notificaciones llena ({} pendientes); notificación descartada", pool.getQueue().size());
+        });
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationMillis(drenadoMs);
+        return executor;
+    }
+
+    /**
+     * Tamaño del pool, cola, tareas activas y completadas en /actuator/metrics (executor.*). Los
+     * MeterBinder se enlazan con el contexto ya iniciado, así el pool subyacente ya existe.
+     */
+    @Bean
+    public MeterBinder notificacionesExecutorMetrics(ThreadPoolTaskExecutor notificacionesExecutor) {
+        return registry -> new ExecutorServiceMetrics(notificacionesExecutor.getThreadPoolExecutor(),
+                "notificaciones", Tags.empty()).bindTo(registry);
+    }
+}
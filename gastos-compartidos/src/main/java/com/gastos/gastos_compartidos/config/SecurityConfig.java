@@ -22,6 +22,7 @@ import com.gastos.gastos_compartidos.security.CustomUserDetailsService;
 import com.gastos.gastos_compartidos.security.JwtAuthenticationFilter;
 import com.gastos.gastos_compartidos.security.JwtTokenProvider;
 
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 
 @Configuration
@@ -70,6 +71,8 @@ public class SecurityConfig {
                         .contentTypeOptions(content -> {
                         }))
                 .authorizeHttpRequests(authz -> authz
+                        // El despacho ASYNC (respuestas en streaming) ya se autorizó en la petición original
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers("/api/auth/**").permitAll()
                         .requestMatchers("/api/public/**").permitAll()
                         .requestMatchers("/swagger-ui/**", "/v3/api-docs/**", "/swagger-ui.html").permitAll()
@@ -104,7 +107,7 @@ public class SecurityConfig {
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS", "PATCH", "HEAD"));
 
         configuration.setAllowedHeaders(Arrays.asList("*"));
-        configuration.setExposedHeaders(Arrays.asList("Authorization", "Content-Type", "X-Total-Count"));
+        configuration.setExposedHeaders(Arrays.asList("Authorization", "Content-Type", "X-Total-Count", "Server-Timing", "ETag"));
         configuration.setAllowCredentials(true);
 
         configuration.setMaxAge(86400L);
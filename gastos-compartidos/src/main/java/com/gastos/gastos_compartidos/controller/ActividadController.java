@@ -0,0 +1,33 @@
+package com.gastos.gastos_compartidos.controller;
+
+import com.gastos.gastos_compartidos.security.CustomUserDetails;
+import com.gastos.gastos_compartidos.service.ActividadParejaService;
+import com.gastos.gastos_compartidos.service.ParejaService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/actividad")
+@RequiredArgsConstructor
+@Tag(name = "Actividad", description = "Feed en vivo de la actividad de la pareja")
+@SecurityRequirement(name = "bearer-jwt")
+public class ActividadController {
+
+    private final ActividadParejaService actividadParejaService;
+    private final ParejaService parejaService;
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Feed de actividad (SSE)", description = "Eventos de gastos, pagos y presupuestos de la pareja en cuanto se confirman; el nombre del evento es el tipo y los datos van en JSON. Envía un comentario de heartbeat cada ~25 s")
+    public SseEmitter stream(@AuthenticationPrincipal CustomUserDetails currentUser) {
+        Long parejaId = parejaService.obtenerParejaDelUsuario(currentUser.getId()).getId();
+        return actividadParejaService.suscribir(currentUser.getId(), parejaId);
+    }
+}
@@ -0,0 +1,42 @@
+package com.gastos.gastos_compartidos.controller;
+
+import com.gastos.gastos_compartidos.dto.DashboardDTO;
+import com.gastos.gastos_compartidos.security.CustomUserDetails;
+import com.gastos.gastos_compartidos.service.DashboardService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/api/dashboard")
+@RequiredArgsConstructor
+@Tag(name = "Dashboard", description = "Datos de la pantalla de inicio en una sola llamada")
+@SecurityRequirement(name = "bearer-jwt")
+public class DashboardController {
+
+    private final DashboardService dashboardService;
+
+    @GetMapping
+    @Operation(summary = "Obtener dashboard", description = "Gastos recientes, resumen de gastos, presupuestos activos, resumen de pagos y de deudas. "
+            + "El tiempo de cada sección se informa en la cabecera Server-Timing")
+    public ResponseEntity<DashboardDTO> obtenerDashboard(@AuthenticationPrincipal CustomUserDetails currentUser) {
+        DashboardService.Resultado resultado = dashboardService.obtenerDashboard(currentUser.getId());
+
+        String serverTiming = resultado.tiempos().entrySet().stream()
+                .map(e -> String.format(Locale.ROOT, "%s;dur=%.1f", e.getKey(), e.getValue()))
+                .collect(Collectors.joining(", "));
+
+        return ResponseEntity.ok()
+                .header("Server-Timing", serverTiming)
+                .body(resultado.dashboard());
+    }
+}
@@ -5,6 +5,7 @@ import com.gastos.gastos_compartidos.entity.AuditAction;
 import com.gastos.gastos_compartidos.security.CustomUserDetails;
 import com.gastos.gastos_compartidos.service.AuditService;
 import com.gastos.gastos_compartidos.service.DeudaService;
+import com.gastos.gastos_compartidos.service.ListadoStreamingService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -15,9 +16,11 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import java.util.List;
 
 @RestController
@@ -29,6 +32,7 @@ public class DeudaController {
 
     private final DeudaService deudaService;
     private final AuditService auditService;
+    private final ListadoStreamingService listadoStreamingService;
 
     // ==================== DEUDAS ====================
 
@@ -55,6 +59,26 @@ public class DeudaController {
         return ResponseEntity.ok(deudas);
     }
 
+    @GetMapping("/cursor")
+    @Operation(summary = "Listar deudas (cursor)", description = "Obtiene las deudas del usuario por cursor, sin total; para scroll infinito")
+    public ResponseEntity<CursorPageDTO<DeudaResponseDTO>> obtenerDeudasCursor(
+            @AuthenticationPrincipal CustomUserDetails currentUser,
+            @RequestParam(required = false, defaultValue = "false") boolean soloActivas,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int tamano) {
+        return ResponseEntity.ok(deudaService.obtenerDeudasUsuarioCursor(currentUser.getId(), soloActivas, cursor,
+                tamano));
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Todas las deudas (streaming)", description = "Lista completa de deudas del usuario escrita a medida que se lee")
+    public ResponseEntity<StreamingResponseBody> obtenerDeudasStream(
+            @AuthenticationPrincipal CustomUserDetails currentUser) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(listadoStreamingService.deudas(currentUser.getId()));
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Obtener deuda", description = "Obtiene el detalle de una deuda con sus últimos abonos")
     public ResponseEntity<DeudaResponseDTO> obtenerDeuda(
@@ -126,6 +150,16 @@ public class DeudaController {
         return ResponseEntity.ok(deudaService.obtenerAbonosDeuda(currentUser.getId(), deudaId));
     }
 
+    @GetMapping(value = "/{deudaId}/abonos/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Listar abonos (streaming)", description = "Historial completo de abonos de una deuda escrito a medida que se lee")
+    public ResponseEntity<StreamingResponseBody> obtenerAbonosStream(
+            @AuthenticationPrincipal CustomUserDetails currentUser,
+            @PathVariable Long deudaId) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(listadoStreamingService.abonos(currentUser.getId(), deudaId));
+    }
+
     @DeleteMapping("/{deudaId}/abonos/{abonoId}")
     @Operation(summary = "Eliminar abono", description = "Elimina un abono y restaura el saldo de la deuda")
     public ResponseEntity<Void> eliminarAbono(
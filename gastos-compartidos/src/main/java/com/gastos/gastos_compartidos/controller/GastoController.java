@@ -6,7 +6,9 @@ import java.util.Map;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -18,14 +20,25 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.gastos.gastos_compartidos.dto.AnomaliaGastoDTO;
+import com.gastos.gastos_compartidos.dto.CursorPageDTO;
 import com.gastos.gastos_compartidos.dto.GastoCreateDTO;
+import com.gastos.gastos_compartidos.dto.GastoFiltroDTO;
 import com.gastos.gastos_compartidos.dto.GastoResponseDTO;
+import com.gastos.gastos_compartidos.dto.ImportacionResultadoDTO;
 import com.gastos.gastos_compartidos.entity.AuditAction;
 import com.gastos.gastos_compartidos.security.CustomUserDetails;
+import com.gastos.gastos_compartidos.service.AnomaliaService;
 import com.gastos.gastos_compartidos.service.AuditService;
 import com.gastos.gastos_compartidos.service.GastoService;
+import com.gastos.gastos_compartidos.service.ImportacionService;
+import com.gastos.gastos_compartidos.service.ListadoStreamingService;
 import com.gastos.gastos_compartidos.service.ParejaService;
+import com.gastos.gastos_compartidos.service.VersionDatosService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
@@ -44,6 +57,10 @@ public class GastoController {
     private final GastoService gastoService;
     private final ParejaService parejaService;
     private final AuditService auditService;
+    private final ImportacionService importacionService;
+    private final VersionDatosService versionDatosService;
+    private final ListadoStreamingService listadoStreamingService;
+    private final AnomaliaService anomaliaService;
 
     @PostMapping
     @Operation(summary = "Crear nuevo gasto", description = "Registra un nuevo gasto con su división entre usuarios")
@@ -58,6 +75,22 @@ public class GastoController {
         return ResponseEntity.status(HttpStatus.CREATED).body(gasto);
     }
 
+    @PostMapping(value = "/importar", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(summary = "Importar extracto bancario", description = "Crea un gasto por cada cargo de un archivo CSV, OFX o XLSX; si compartido=true se divide en partes iguales con la pareja")
+    public ResponseEntity<ImportacionResultadoDTO> importarExtracto(
+            @AuthenticationPrincipal CustomUserDetails currentUser,
+            @RequestParam("file") MultipartFile file,
+            @RequestParam Long categoriaId,
+            @RequestParam(defaultValue = "false") boolean compartido,
+            HttpServletRequest httpRequest) {
+
+        ImportacionResultadoDTO resultado = importacionService.importar(currentUser.getId(), file, categoriaId, compartido);
+        auditService.registrar(currentUser.getId(), AuditAction.CREATE, "gastos", null, null, null,
+                "Importación de " + resultado.getImportadas() + " gastos desde " + file.getOriginalFilename(),
+                httpRequest);
+        return ResponseEntity.ok(resultado);
+    }
+
     @PutMapping("/{gastoId}")
     @Operation(summary = "Actualizar gasto", description = "Actualiza un gasto existente (solo el usuario que lo registró puede hacerlo)")
     public ResponseEntity<GastoResponseDTO> actualizarGasto(
@@ -81,13 +114,60 @@ public class GastoController {
     }
 
     @GetMapping
-    @Operation(summary = "Obtener gastos del usuario (paginado)", description = "Lista los gastos del usuario autenticado con paginación")
+    @Operation(summary = "Obtener gastos del usuario (paginado)", description = "Lista los gastos del usuario autenticado con paginación; responde 304 si If-None-Match coincide con el ETag vigente")
     public ResponseEntity<Page<GastoResponseDTO>> obtenerGastosDelUsuario(
             @AuthenticationPrincipal CustomUserDetails currentUser,
-            @PageableDefault(size = 20) Pageable pageable) {
+            @PageableDefault(size = 20) Pageable pageable,
+            WebRequest webRequest) {
+
+        String etag = versionDatosService.etag(currentUser.getId());
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
 
         Page<GastoResponseDTO> gastos = gastoService.obtenerGastosPorUsuarioPaginado(currentUser.getId(), pageable);
-        return ResponseEntity.ok(gastos);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate()).eTag(etag).body(gastos);
+    }
+
+    @GetMapping("/cursor")
+    @Operation(summary = "Obtener gastos del usuario (cursor)", description = "Lista los gastos del usuario autenticado por cursor, sin total; para scroll infinito")
+    public ResponseEntity<CursorPageDTO<GastoResponseDTO>> obtenerGastosDelUsuarioCursor(
+            @AuthenticationPrincipal CustomUserDetails currentUser,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int tamano) {
+
+        return ResponseEntity.ok(gastoService.obtenerGastosPorUsuarioCursor(currentUser.getId(), cursor, tamano));
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Todos los gastos (streaming)", description = "Gastos individuales del usuario y de la pareja, con sus splits, escritos a medida que se leen; para exportar o sincronizar historiales grandes")
+    public ResponseEntity<StreamingResponseBody> obtenerTodosLosGastosStream(
+            @AuthenticationPrincipal CustomUserDetails currentUser) {
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(listadoStreamingService.gastosVisibles(currentUser.getId()));
+    }
+
+    @GetMapping("/filtrar")
+    @Operation(summary = "Filtrar gastos", description = "Historial con filtros combinables: rango de monto, categorías, quién registró, rango de fechas y compartido/individual")
+    public ResponseEntity<Page<GastoResponseDTO>> filtrarGastos(
+            @AuthenticationPrincipal CustomUserDetails currentUser,
+            GastoFiltroDTO filtro,
+            @PageableDefault(size = 20) Pageable pageable) {
+
+        return ResponseEntity.ok(gastoService.filtrarGastos(currentUser.getId(), filtro, pageable));
+    }
+
+    @GetMapping("/buscar")
+    @Operation(summary = "Buscar gastos", description = "Búsqueda de texto completo en descripción y notas, ordenada por relevancia y paginada por cursor")
+    public ResponseEntity<CursorPageDTO<GastoResponseDTO>> buscarGastos(
+            @AuthenticationPrincipal CustomUserDetails currentUser,
+            @RequestParam String q,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int tamano) {
+
+        return ResponseEntity.ok(gastoService.buscarGastos(currentUser.getId(), q, cursor, tamano));
     }
 
     @GetMapping("/recientes")
@@ -120,6 +200,17 @@ public class GastoController {
         return ResponseEntity.ok(gastos);
     }
 
+    @GetMapping("/pareja/cursor")
+    @Operation(summary = "Obtener gastos de la pareja (cursor)", description = "Lista los gastos de la pareja por cursor, sin total; para scroll infinito")
+    public ResponseEntity<CursorPageDTO<GastoResponseDTO>> obtenerGastosPorParejaCursor(
+            @AuthenticationPrincipal CustomUserDetails currentUser,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int tamano) {
+
+        Long parejaId = parejaService.obtenerParejaDelUsuario(currentUser.getId()).getId();
+        return ResponseEntity.ok(gastoService.obtenerGastosPorParejaCursor(parejaId, cursor, tamano));
+    }
+
     @GetMapping("/pareja/mes")
     @Operation(summary = "Obtener gastos del mes", description = "Lista los gastos de la pareja para un mes específico")
     public ResponseEntity<List<GastoResponseDTO>> obtenerGastosPorMes(
@@ -132,6 +223,16 @@ public class GastoController {
         return ResponseEntity.ok(gastos);
     }
 
+    @GetMapping("/pareja/anomalias")
+    @Operation(summary = "Obtener gastos inusuales", description = "Lista los gastos recientes de la pareja que quedaron muy por encima de lo habitual en su categoría")
+    public ResponseEntity<List<AnomaliaGastoDTO>> obtenerAnomalias(
+            @AuthenticationPrincipal CustomUserDetails currentUser,
+            @RequestParam(defaultValue = "20") int limite) {
+
+        Long parejaId = parejaService.obtenerParejaDelUsuario(currentUser.getId()).getId();
+        return ResponseEntity.ok(anomaliaService.obtenerRecientes(parejaId, limite));
+    }
+
     @DeleteMapping("/{gastoId}")
     @Operation(summary = "Eliminar un gasto", description = "Elimina un gasto (solo el usuario que lo registró puede hacerlo)")
     public ResponseEntity<?> eliminarGasto(
@@ -1,12 +1,16 @@
 package com.gastos.gastos_compartidos.controller;
 
+import com.gastos.gastos_compartidos.dto.BalanceHistorialDTO;
+import com.gastos.gastos_compartidos.dto.CursorPageDTO;
 import com.gastos.gastos_compartidos.dto.PagoCreateDTO;
 import com.gastos.gastos_compartidos.dto.PagoResponseDTO;
+import com.gastos.gastos_compartidos.dto.PuntoBalanceDTO;
 import com.gastos.gastos_compartidos.dto.ResumenDeudaDTO;
 import com.gastos.gastos_compartidos.entity.AuditAction;
 import com.gastos.gastos_compartidos.security.CustomUserDetails;
 import com.gastos.gastos_compartidos.service.AuditService;
 import com.gastos.gastos_compartidos.service.PagoService;
+import com.gastos.gastos_compartidos.service.VersionDatosService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -16,10 +20,15 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.LocalDate;
 
 @RestController
 @RequestMapping("/api/pagos")
@@ -30,6 +39,7 @@ public class PagoController {
 
     private final PagoService pagoService;
     private final AuditService auditService;
+    private final VersionDatosService versionDatosService;
 
     @PostMapping
     @Operation(summary = "Registrar un pago", description = "Registra un pago/abono de un usuario a otro de la misma pareja")
@@ -54,6 +64,16 @@ public class PagoController {
         return ResponseEntity.ok(pagos);
     }
 
+    @GetMapping("/cursor")
+    @Operation(summary = "Obtener historial de pagos (cursor)", description = "Obtiene los pagos de la pareja por cursor, sin total; para scroll infinito")
+    public ResponseEntity<CursorPageDTO<PagoResponseDTO>> obtenerHistorialPagosCursor(
+            @AuthenticationPrincipal CustomUserDetails currentUser,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int tamano) {
+
+        return ResponseEntity.ok(pagoService.obtenerHistorialPagosCursor(currentUser.getId(), cursor, tamano));
+    }
+
     @GetMapping("/{pagoId}")
     @Operation(summary = "Obtener pago por ID", description = "Obtiene los detalles de un pago específico")
     public ResponseEntity<PagoResponseDTO> obtenerPagoPorId(
@@ -79,11 +99,40 @@ public class PagoController {
     }
 
     @GetMapping("/resumen")
-    @Operation(summary = "Obtener resumen de deuda", description = "Calcula y retorna el balance completo de deudas de la pareja")
+    @Operation(summary = "Obtener resumen de deuda", description = "Calcula y retorna el balance completo de deudas de la pareja; responde 304 si If-None-Match coincide con el ETag vigente")
     public ResponseEntity<ResumenDeudaDTO> obtenerResumenDeuda(
-            @AuthenticationPrincipal CustomUserDetails currentUser) {
+            @AuthenticationPrincipal CustomUserDetails currentUser,
+            WebRequest webRequest) {
+
+        String etag = versionDatosService.etag(currentUser.getId());
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
 
         ResumenDeudaDTO resumen = pagoService.calcularResumenDeuda(currentUser.getId());
-        return ResponseEntity.ok(resumen);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate()).eTag(etag).body(resumen);
+    }
+
+    @GetMapping("/balance")
+    @Operation(summary = "Balance en una fecha", description = "Saldo de cada miembro al cierre del día indicado (por defecto hoy)")
+    public ResponseEntity<PuntoBalanceDTO> obtenerBalanceEnFecha(
+            @AuthenticationPrincipal CustomUserDetails currentUser,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha) {
+
+        LocalDate dia = fecha != null ? fecha : LocalDate.now();
+        return ResponseEntity.ok(pagoService.obtenerBalanceEnFecha(currentUser.getId(), dia));
+    }
+
+    @GetMapping("/balance/historial")
+    @Operation(summary = "Evolución del balance", description = "Saldo de cada miembro al cierre de cada día, semana o mes del rango (por defecto los últimos 12 meses por semana)")
+    public ResponseEntity<BalanceHistorialDTO> obtenerHistorialBalance(
+            @AuthenticationPrincipal CustomUserDetails currentUser,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            @RequestParam(defaultValue = "SEMANA") BalanceHistorialDTO.Agrupacion agrupacion) {
+
+        LocalDate fin = hasta != null ? hasta : LocalDate.now();
+        LocalDate inicio = desde != null ? desde : fin.minusMonths(12);
+        return ResponseEntity.ok(pagoService.obtenerHistorialBalance(currentUser.getId(), inicio, fin, agrupacion));
     }
 }
@@ -2,18 +2,24 @@ package com.gastos.gastos_compartidos.controller;
 
 import com.gastos.gastos_compartidos.dto.PresupuestoCreateDTO;
 import com.gastos.gastos_compartidos.dto.PresupuestoResponseDTO;
+import com.gastos.gastos_compartidos.dto.PronosticoGastoDTO;
 import com.gastos.gastos_compartidos.entity.AuditAction;
+import com.gastos.gastos_compartidos.entity.PeriodoPresupuesto;
 import com.gastos.gastos_compartidos.service.AuditService;
 import com.gastos.gastos_compartidos.service.PresupuestoService;
+import com.gastos.gastos_compartidos.service.PronosticoService;
+import com.gastos.gastos_compartidos.service.VersionDatosService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import com.gastos.gastos_compartidos.security.CustomUserDetails;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -25,11 +31,23 @@ public class PresupuestoController {
 
     private final PresupuestoService presupuestoService;
     private final AuditService auditService;
+    private final VersionDatosService versionDatosService;
+    private final PronosticoService pronosticoService;
 
     @GetMapping
-    @Operation(summary = "Listar presupuestos", description = "Obtiene todos los presupuestos del usuario")
-    public ResponseEntity<List<PresupuestoResponseDTO>> listar(@AuthenticationPrincipal CustomUserDetails currentUser) {
-        return ResponseEntity.ok(presupuestoService.obtenerPorUsuario(currentUser.getId()));
+    @Operation(summary = "Listar presupuestos", description = "Obtiene todos los presupuestos del usuario; responde 304 si If-None-Match coincide con el ETag vigente")
+    public ResponseEntity<List<PresupuestoResponseDTO>> listar(@AuthenticationPrincipal CustomUserDetails currentUser,
+            WebRequest webRequest) {
+
+        String etag = versionDatosService.etag(currentUser.getId());
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .eTag(etag)
+                .body(presupuestoService.obtenerPorUsuario(currentUser.getId()));
     }
 
     @GetMapping("/activos")
@@ -39,6 +57,14 @@ public class PresupuestoController {
         return ResponseEntity.ok(presupuestoService.obtenerActivosPorUsuario(currentUser.getId()));
     }
 
+    @GetMapping("/pronostico")
+    @Operation(summary = "Pronóstico de gasto", description = "Gasto proyectado al cierre del período en curso, total y por categoría: lo gastado, los gastos recurrentes pendientes y la tendencia reciente")
+    public ResponseEntity<List<PronosticoGastoDTO>> pronostico(
+            @AuthenticationPrincipal CustomUserDetails currentUser,
+            @RequestParam(defaultValue = "MENSUAL") PeriodoPresupuesto periodo) {
+        return ResponseEntity.ok(pronosticoService.obtenerPorUsuario(currentUser.getId(), periodo));
+    }
+
     @PostMapping
     @Operation(summary = "Crear presupuesto")
     public ResponseEntity<PresupuestoResponseDTO> crear(
@@ -1,24 +1,31 @@
 package com.gastos.gastos_compartidos.controller;
 
+import com.gastos.gastos_compartidos.dto.AnaliticaDTO;
 import com.gastos.gastos_compartidos.dto.ReporteDTO;
+import com.gastos.gastos_compartidos.dto.TendenciaMensualDTO;
 import com.gastos.gastos_compartidos.security.CustomUserDetails;
+import com.gastos.gastos_compartidos.service.AnaliticaService;
 import com.gastos.gastos_compartidos.service.ExportService;
 import com.gastos.gastos_compartidos.service.ReporteService;
 import com.gastos.gastos_compartidos.service.ParejaService;
+import com.gastos.gastos_compartidos.service.VersionDatosService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.IOException;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/reportes")
@@ -30,17 +37,25 @@ public class ReporteController {
         private final ReporteService reporteService;
         private final ParejaService parejaService;
         private final ExportService exportService;
+        private final VersionDatosService versionDatosService;
+        private final AnaliticaService analiticaService;
 
         @GetMapping("/mes")
-        @Operation(summary = "Reporte mensual", description = "Genera un reporte del mes actual con resumen de gastos y deudas")
+        @Operation(summary = "Reporte mensual", description = "Genera un reporte del mes actual con resumen de gastos y deudas; responde 304 si If-None-Match coincide con el ETag vigente")
         public ResponseEntity<ReporteDTO> obtenerReporteMes(
                         @AuthenticationPrincipal CustomUserDetails currentUser,
                         @RequestParam int ano,
-                        @RequestParam int mes) {
+                        @RequestParam int mes,
+                        WebRequest webRequest) {
+
+                String etag = versionDatosService.etag(currentUser.getId());
+                if (webRequest.checkNotModified(etag)) {
+                        return null;
+                }
 
                 Long parejaId = parejaService.obtenerParejaDelUsuario(currentUser.getId()).getId();
-                ReporteDTO reporte = reporteService.generarReporteMensual(parejaId, ano, mes);
-                return ResponseEntity.ok(reporte);
+                ReporteDTO reporte = reporteService.obtenerReporteMensual(parejaId, ano, mes);
+                return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate()).eTag(etag).body(reporte);
         }
 
         @GetMapping("/exportar/pdf")
@@ -63,15 +78,14 @@ public class ReporteController {
         }
 
         @GetMapping("/exportar/excel")
-        @Operation(summary = "Exportar gastos a Excel", description = "Genera un archivo Excel con los gastos del período indicado")
-        public ResponseEntity<byte[]> exportarExcel(
+        @Operation(summary = "Exportar gastos a Excel", description = "Genera un archivo Excel con los gastos del período indicado; se escribe en streaming, sin cargar el período en memoria")
+        public ResponseEntity<StreamingResponseBody> exportarExcel(
                         @AuthenticationPrincipal CustomUserDetails currentUser,
                         @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
-                        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta)
-                        throws IOException {
+                        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta) {
 
                 Long parejaId = parejaService.obtenerParejaDelUsuario(currentUser.getId()).getId();
-                byte[] excel = exportService.generarExcelGastos(parejaId, desde, hasta);
+                StreamingResponseBody excel = exportService.excelGastos(parejaId, desde, hasta);
 
                 String filename = "gastos_" + desde.format(DateTimeFormatter.BASIC_ISO_DATE)
                                 + "_" + hasta.format(DateTimeFormatter.BASIC_ISO_DATE) + ".xlsx";
@@ -84,38 +98,30 @@ public class ReporteController {
         }
 
         @GetMapping("/tendencia")
-        @Operation(summary = "Tendencia mensual", description = "Devuelve totales de gasto por mes de los últimos N meses")
-        public ResponseEntity<?> obtenerTendencia(
+        @Operation(summary = "Tendencia mensual", description = "Devuelve totales de gasto por mes de los últimos N meses (máx. 120), con los meses sin gastos en cero. agrupacion=CATEGORIA o USUARIO agrega el desglose de cada mes")
+        public ResponseEntity<List<TendenciaMensualDTO>> obtenerTendencia(
                         @AuthenticationPrincipal CustomUserDetails currentUser,
-                        @RequestParam(defaultValue = "6") int meses) {
+                        @RequestParam(defaultValue = "6") int meses,
+                        @RequestParam(defaultValue = "TOTAL") TendenciaMensualDTO.Agrupacion agrupacion) {
 
                 Long parejaId = parejaService.obtenerParejaDelUsuario(currentUser.getId()).getId();
+                return ResponseEntity.ok(reporteService.obtenerTendencia(parejaId, meses, agrupacion));
+        }
 
-                java.util.List<java.util.Map<String, Object>> tendencia = new java.util.ArrayList<>();
-
-                for (int i = meses - 1; i >= 0; i--) {
-                        java.time.YearMonth ym = java.time.YearMonth.now().minusMonths(i);
-                        LocalDate inicio = ym.atDay(1);
-                        LocalDate fin = ym.atEndOfMonth();
-
-                        java.util.List<com.gastos.gastos_compartidos.entity.Gasto> gastos = reporteService
-                                        .obtenerGastosPorRango(parejaId,
-                                                        inicio.atStartOfDay(), fin.atTime(23, 59, 59));
-
-                        java.math.BigDecimal total = gastos.stream()
-                                        .map(com.gastos.gastos_compartidos.entity.Gasto::getMonto)
-                                        .reduce(java.math.BigDecimal.ZERO, java.math.BigDecimal::add);
-
-                        tendencia.add(java.util.Map.of(
-                                        "mes", ym.getMonthValue(),
-                                        "anio", ym.getYear(),
-                                        "nombreMes",
-                                        ym.getMonth().getDisplayName(java.time.format.TextStyle.SHORT,
-                                                        new java.util.Locale("es", "CL")),
-                                        "total", total,
-                                        "cantidadGastos", gastos.size()));
+        @GetMapping("/analitica")
+        @Operation(summary = "Analítica mensual", description = "Series de los últimos N meses (máx. 120): totales, promedios móviles de 3 y 12 meses, variación anual, participación de cada categoría y proporción de cada miembro. Responde 304 si If-None-Match coincide con el ETag vigente")
+        public ResponseEntity<AnaliticaDTO> obtenerAnalitica(
+                        @AuthenticationPrincipal CustomUserDetails currentUser,
+                        @RequestParam(defaultValue = "36") int meses,
+                        WebRequest webRequest) {
+
+                String etag = versionDatosService.etag(currentUser.getId());
+                if (webRequest.checkNotModified(etag)) {
+                        return null;
                 }
 
-                return ResponseEntity.ok(tendencia);
+                Long parejaId = parejaService.obtenerParejaDelUsuario(currentUser.getId()).getId();
+                AnaliticaDTO analitica = analiticaService.obtenerAnalitica(parejaId, meses);
+                return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate()).eTag(etag).body(analitica);
         }
 }
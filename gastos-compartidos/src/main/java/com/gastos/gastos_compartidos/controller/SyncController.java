@@ -0,0 +1,34 @@
+package com.gastos.gastos_compartidos.controller;
+
+import com.gastos.gastos_compartidos.dto.SyncCambiosDTO;
+import com.gastos.gastos_compartidos.security.CustomUserDetails;
+import com.gastos.gastos_compartidos.service.SyncService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/sync")
+@RequiredArgsConstructor
+@Tag(name = "Sincronización", description = "Cambios incrementales para la caché offline")
+@SecurityRequirement(name = "bearer-jwt")
+public class SyncController {
+
+    private final SyncService syncService;
+
+    @GetMapping("/changes")
+    @Operation(summary = "Cambios desde el último token", description = "Gastos, pagos, deudas, abonos y presupuestos creados, modificados o eliminados desde el token; sin token devuelve todo. La respuesta trae el token para la próxima llamada")
+    public ResponseEntity<SyncCambiosDTO> obtenerCambios(
+            @AuthenticationPrincipal CustomUserDetails currentUser,
+            @RequestParam(required = false) String since) {
+
+        return ResponseEntity.ok(syncService.obtenerCambios(currentUser.getId(), since));
+    }
+}
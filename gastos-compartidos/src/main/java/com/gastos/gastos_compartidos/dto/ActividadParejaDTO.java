@@ -0,0 +1,39 @@
+package com.gastos.gastos_compartidos.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Evento del feed en vivo de la pareja (GET /api/actividad/stream). destinatarioId null
+ * significa toda la pareja; si no, solo ese usuario lo recibe (alertas de presupuesto).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ActividadParejaDTO {
+
+    public enum Tipo {
+        GASTO_CREADO,
+        GASTO_ACTUALIZADO,
+        GASTO_ELIMINADO,
+        PAGO_REGISTRADO,
+        PAGO_CANCELADO,
+        PRESUPUESTO_ALERTA,
+        PRESUPUESTO_EXCEDIDO
+    }
+
+    private Tipo tipo;
+    private Long parejaId;
+    private Long usuarioId; // Quién hizo el cambio
+    private Long destinatarioId;
+    private Long entidadId;
+    private String descripcion;
+    private BigDecimal monto;
+    private LocalDateTime fecha;
+}
@@ -0,0 +1,57 @@
+package com.gastos.gastos_compartidos.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Series mensuales de la pareja. Todas las listas están alineadas con periodos ('YYYY-MM',
+ * en orden cronológico). Los promedios móviles y la variación anual consideran también los
+ * 12 meses anteriores al rango; son null cuando el mes de comparación no tiene gastos.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AnaliticaDTO {
+
+    private Long parejaId;
+    private List<String> periodos;
+    private List<BigDecimal> totales;
+    private List<Long> cantidades;
+    private List<BigDecimal> promedioMovil3;
+    private List<BigDecimal> promedioMovil12;
+    private List<Double> variacionAnual; // % respecto del mismo mes del año anterior
+    private List<SerieCategoria> categorias;
+    private List<SerieMiembro> miembros;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class SerieCategoria {
+        private Long categoriaId; // null para "Sin categoría"
+        private String nombre;
+        private String icono;
+        private String color;
+        private BigDecimal totalPeriodo;
+        private List<BigDecimal> totales;
+        private List<Double> participacion; // % del total de cada mes
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class SerieMiembro {
+        private Long usuarioId;
+        private String nombre;
+        private BigDecimal totalPeriodo;
+        private List<BigDecimal> totales;   // Gastos que registró (los que pagó en la compra)
+        private List<Double> proporcion;    // % del total de cada mes
+    }
+}
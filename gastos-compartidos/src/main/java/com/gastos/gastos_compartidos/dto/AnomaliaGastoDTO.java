@@ -0,0 +1,51 @@
+package com.gastos.gastos_compartidos.dto;
+
+import com.gastos.gastos_compartidos.entity.AnomaliaGasto;
+import com.gastos.gastos_compartidos.entity.Gasto;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Gasto inusual para su categoría. montoTipico es el monto habitual de la categoría al
+ * momento de registrarlo y puntaje cuántas desviaciones estándar quedó por encima.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AnomaliaGastoDTO {
+
+    private Long gastoId;
+    private String descripcion;
+    private BigDecimal monto;
+    private BigDecimal montoTipico;
+    private double puntaje;
+    private Long categoriaId;
+    private String categoriaNombre;
+    private Long usuarioId;
+    private String usuarioNombre;
+    private LocalDateTime fechaGasto;
+    private LocalDateTime fechaDeteccion;
+
+    public static AnomaliaGastoDTO fromEntity(AnomaliaGasto anomalia) {
+        Gasto gasto = anomalia.getGasto();
+        return AnomaliaGastoDTO.builder()
+            .gastoId(gasto.getId())
+            .descripcion(gasto.getDescripcion())
+            .monto(gasto.getMonto())
+            .montoTipico(anomalia.getMontoTipico())
+            .puntaje(anomalia.getPuntaje())
+            .categoriaId(gasto.getCategoria() != null ? gasto.getCategoria().getId() : null)
+            .categoriaNombre(gasto.getCategoria() != null ? gasto.getCategoria().getNombre() : null)
+            .usuarioId(gasto.getUsuario().getId())
+            .usuarioNombre(gasto.getUsuario().getNombre())
+            .fechaGasto(gasto.getFechaGasto())
+            .fechaDeteccion(anomalia.getFechaDeteccion())
+            .build();
+    }
+}
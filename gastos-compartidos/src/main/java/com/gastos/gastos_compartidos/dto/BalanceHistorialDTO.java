@@ -0,0 +1,29 @@
+package com.gastos.gastos_compartidos.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BalanceHistorialDTO {
+
+    private Long parejaId;
+    private LocalDate desde;
+    private LocalDate hasta;
+    private Agrupacion agrupacion;
+    private List<UsuarioResponseDTO> usuarios;
+    private List<PuntoBalanceDTO> puntos;   // Un punto por periodo, en orden cronológico
+
+    public enum Agrupacion {
+        DIA,
+        SEMANA,
+        MES
+    }
+}
@@ -0,0 +1,116 @@
+package com.gastos.gastos_compartidos.dto;
+
+import com.gastos.gastos_compartidos.exception.BadRequestException;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Página de resultados por cursor (keyset). No incluye total: siguienteCursor es null
+ * cuando no hay más resultados. El cursor es opaco para el cliente.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CursorPageDTO<T> {
+
+    public static final int TAMANO_MAXIMO = 100;
+
+    private List<T> contenido;
+    private String siguienteCursor;
+    private boolean hayMas;
+
+    public static int normalizarTamano(int tamano) {
+        return Math.max(1, Math.min(tamano, TAMANO_MAXIMO));
+    }
+
+    /**
+     * Arma la página a partir de una consulta que pidió tamano + 1 filas: la fila extra
+     * solo indica que hay más resultados.
+     */
+    public static <E, T> CursorPageDTO<T> de(List<E> filas, int tamano, Function<E, ? extends Posicion> cursorDe,
+            Function<E, T> mapper) {
+        boolean hayMas = filas.size() > tamano;
+        List<E> pagina = hayMas ? filas.subList(0, tamano) : filas;
+        String siguiente = hayMas ? cursorDe.apply(pagina.get(pagina.size() - 1)).codificar() : null;
+
+        return CursorPageDTO.<T>builder()
+                .contenido(pagina.stream().map(mapper).collect(Collectors.toList()))
+                .siguienteCursor(siguiente)
+                .hayMas(hayMas)
+                .build();
+    }
+
+    /**
+     * Posición del último elemento entregado, codificada como cursor opaco.
+     */
+    public interface Posicion {
+        String codificar();
+    }
+
+    /**
+     * Posición (fecha, id) del último elemento entregado; la página siguiente empieza
+     * estrictamente después en orden (fecha DESC, id DESC).
+     */
+    public record Cursor(LocalDateTime fecha, Long id) implements Posicion {
+
+        // Antes de cualquier fila: se usa para la primera página
+        public static final Cursor INICIO = new Cursor(LocalDateTime.of(9999, 12, 31, 23, 59, 59), Long.MAX_VALUE);
+
+        public String codificar() {
+            String valor = fecha + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+        }
+
+        public static Cursor decodificar(String cursor) {
+            if (cursor == null || cursor.isBlank()) {
+                return INICIO;
+            }
+            try {
+                String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separador = valor.lastIndexOf('|');
+                return new Cursor(LocalDateTime.parse(valor.substring(0, separador)),
+                        Long.parseLong(valor.substring(separador + 1)));
+            } catch (RuntimeException e) {
+                throw new BadRequestException("Cursor inválido");
+            }
+        }
+    }
+
+    /**
+     * Posición en resultados ordenados por relevancia: (rango DESC, fecha DESC, id DESC).
+     * El rango viaja con su valor float exacto para que la comparación en SQL sea estable.
+     */
+    public record CursorRanking(float rango, LocalDateTime fecha, Long id) implements Posicion {
+
+        public static final CursorRanking INICIO = new CursorRanking(Float.MAX_VALUE, Cursor.INICIO.fecha(),
+                Cursor.INICIO.id());
+
+        public String codificar() {
+            String valor = rango + "|" + fecha + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+        }
+
+        public static CursorRanking decodificar(String cursor) {
+            if (cursor == null || cursor.isBlank()) {
+                return INICIO;
+            }
+            try {
+                String[] partes = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+                return new CursorRanking(Float.parseFloat(partes[0]), LocalDateTime.parse(partes[1]),
+                        Long.parseLong(partes[2]));
+            } catch (RuntimeException e) {
+                throw new BadRequestException("Cursor inválido");
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.gastos.gastos_compartidos.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Todo lo que la pantalla de inicio necesita en una sola respuesta.
+ * Una sección que falla queda en null y su motivo aparece en errores.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DashboardDTO {
+
+    private Long usuarioId;
+    private Long parejaId;
+
+    private List<GastoResponseDTO> gastosRecientes;
+    private Map<String, Object> resumenGastos;
+    private List<PresupuestoResponseDTO> presupuestosActivos;
+    private ResumenDeudaDTO resumenPagos;      // null si el usuario no tiene pareja
+    private ResumenDeudasDTO resumenDeudas;
+
+    private Map<String, String> errores;       // sección -> motivo
+}
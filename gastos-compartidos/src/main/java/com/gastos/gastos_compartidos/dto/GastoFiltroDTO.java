@@ -0,0 +1,35 @@
+package com.gastos.gastos_compartidos.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Filtros combinables para el historial de gastos; los campos nulos no filtran.
+ * Se enlaza desde los parámetros de la URL (?montoMin=...&categoriaIds=1,2&...).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class GastoFiltroDTO {
+
+    private BigDecimal montoMin;
+    private BigDecimal montoMax;
+    private List<Long> categoriaIds;
+    private Long registradoPor;     // ID del usuario que registró el gasto
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate desde;        // Inclusive
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate hasta;        // Inclusive
+
+    private Boolean compartido;     // true: con división entre miembros; false: sin división
+}
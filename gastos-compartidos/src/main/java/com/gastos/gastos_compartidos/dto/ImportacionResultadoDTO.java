@@ -0,0 +1,41 @@
+package com.gastos.gastos_compartidos.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Resultado de importar un extracto bancario. Las filas importadas solo se cuentan;
+ * cada fila rechazada u omitida aparece en filas con su motivo (hasta un máximo,
+ * indicado por filasTruncadas).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ImportacionResultadoDTO {
+
+    public enum EstadoFila {
+        RECHAZADA, // Error de formato o validación
+        OMITIDA    // Abono a la cuenta, no es un gasto
+    }
+
+    public record FilaImportacionDTO(int fila, EstadoFila estado, String motivo) {
+    }
+
+    private String formato;
+    private int totalFilas;
+    private int importadas;
+    private int rechazadas;
+    private int omitidas;
+    private BigDecimal montoImportado;
+    private boolean compartido;
+
+    private List<FilaImportacionDTO> filas;
+    private boolean filasTruncadas;
+    private long duracionMs;
+}
@@ -0,0 +1,10 @@
+package com.gastos.gastos_compartidos.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Pago completado reducido a lo necesario para recorrer el balance en orden de fecha.
+ */
+public record MovimientoPagoDTO(LocalDateTime fecha, Long pagadorId, Long receptorId, BigDecimal monto) {
+}
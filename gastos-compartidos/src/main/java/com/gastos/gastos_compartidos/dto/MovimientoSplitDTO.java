@@ -0,0 +1,13 @@
+package com.gastos.gastos_compartidos.dto;
+
+import com.gastos.gastos_compartidos.entity.GastoSplit;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Split de un gasto reducido a lo necesario para recorrer el balance en orden de fecha.
+ */
+public record MovimientoSplitDTO(LocalDateTime fecha, Long usuarioId, Long registradorId, GastoSplit.TipoSplit tipo,
+        BigDecimal monto) {
+}
@@ -22,6 +22,8 @@ public class PresupuestoResponseDTO {
     private BigDecimal gastado;
     private BigDecimal disponible;
     private double porcentajeUsado;
+    private BigDecimal proyectado; // Gasto estimado al cierre del período (ver PronosticoService)
+    private double porcentajeProyectado;
     private PeriodoPresupuesto periodo;
     private Boolean activo;
     private String notas;
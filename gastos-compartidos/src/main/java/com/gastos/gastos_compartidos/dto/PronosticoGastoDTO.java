@@ -0,0 +1,46 @@
+package com.gastos.gastos_compartidos.dto;
+
+import com.gastos.gastos_compartidos.entity.PeriodoPresupuesto;
+import com.gastos.gastos_compartidos.entity.PronosticoGasto;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Gasto proyectado al cierre del período: gastado + recurrente + tendencia. Sin categoría
+ * es el total del usuario.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PronosticoGastoDTO {
+
+    private Long categoriaId;
+    private String categoriaNombre;
+    private PeriodoPresupuesto periodo;
+    private LocalDate inicio;
+    private LocalDate fin;
+    private BigDecimal gastado;
+    private BigDecimal recurrente;
+    private BigDecimal tendencia;
+    private BigDecimal proyectado;
+
+    public static PronosticoGastoDTO fromEntity(PronosticoGasto pronostico) {
+        return PronosticoGastoDTO.builder()
+            .categoriaId(pronostico.getCategoria() != null ? pronostico.getCategoria().getId() : null)
+            .categoriaNombre(pronostico.getCategoria() != null ? pronostico.getCategoria().getNombre() : "Total General")
+            .periodo(pronostico.getPeriodo())
+            .inicio(pronostico.getInicio())
+            .fin(pronostico.getFin())
+            .gastado(pronostico.getGastado())
+            .recurrente(pronostico.getRecurrente())
+            .tendencia(pronostico.getTendencia())
+            .proyectado(pronostico.getProyectado())
+            .build();
+    }
+}
@@ -0,0 +1,20 @@
+package com.gastos.gastos_compartidos.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PuntoBalanceDTO {
+
+    private LocalDate fecha;                // Último día del periodo (día, semana o mes), o hasta si es anterior
+    private Map<Long, BigDecimal> saldos;   // usuarioId -> saldo al cierre del periodo (positivo = acreedor)
+}
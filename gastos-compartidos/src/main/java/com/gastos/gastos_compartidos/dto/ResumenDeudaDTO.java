@@ -36,6 +36,10 @@ public class ResumenDeudaDTO {
     private UsuarioResponseDTO acreedor;   // A quien se le debe
     private BigDecimal saldoPendiente;     // Monto que se debe
 
+    // Grupo completo (N miembros)
+    private List<SaldoMiembroDTO> saldosMiembros;     // Saldo neto de cada miembro
+    private List<TransferenciaDTO> transferencias;    // Mínimo de transferencias para saldar el grupo
+
     // Información adicional
     private LocalDateTime ultimoPago;
     private List<PagoResponseDTO> historialReciente;  // Últimos 5 pagos
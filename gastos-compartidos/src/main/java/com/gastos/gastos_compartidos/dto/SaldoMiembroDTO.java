@@ -0,0 +1,18 @@
+package com.gastos.gastos_compartidos.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SaldoMiembroDTO {
+
+    private UsuarioResponseDTO usuario;
+    private BigDecimal saldo;  // Positivo = le deben, negativo = debe
+}
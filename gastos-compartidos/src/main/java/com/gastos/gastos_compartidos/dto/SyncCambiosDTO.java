@@ -0,0 +1,80 @@
+package com.gastos.gastos_compartidos.dto;
+
+import com.gastos.gastos_compartidos.exception.BadRequestException;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Cambios desde el último token de sincronización. Las listas traen el estado actual de
+ * cada registro creado o modificado (los gastos con todos sus splits; los pagos cancelados
+ * vienen con su estado) y los *Eliminados solo los ids. Presupuestos viene siempre completo
+ * porque su porcentaje usado cambia con los gastos. Si completo es true el cliente debe
+ * descartar su caché y quedarse solo con esta respuesta.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SyncCambiosDTO {
+
+    private String token;
+    private boolean completo;
+    private boolean sinCambios;
+
+    private List<GastoResponseDTO> gastos;
+    private List<Long> gastosEliminados;
+    private List<PagoResponseDTO> pagos;
+    private List<DeudaResponseDTO> deudas;
+    private List<Long> deudasEliminadas;
+    private List<AbonoDeudaResponseDTO> abonos;
+    private List<Long> abonosEliminados;
+    private List<PresupuestoResponseDTO> presupuestos;
+
+    public static SyncCambiosDTO sinCambios(String token) {
+        return SyncCambiosDTO.builder()
+                .token(token)
+                .sinCambios(true)
+                .gastos(List.of())
+                .gastosEliminados(List.of())
+                .pagos(List.of())
+                .deudas(List.of())
+                .deudasEliminadas(List.of())
+                .abonos(List.of())
+                .abonosEliminados(List.of())
+                .build();
+    }
+
+    /**
+     * Desde cuándo leer en la próxima sincronización y con qué versiones de datos se generó
+     * (si no cambiaron no hay nada que leer). Opaco para el cliente.
+     */
+    public record Token(LocalDateTime desde, Long parejaId, long versionPareja, long versionUsuario) {
+
+        public String codificar() {
+            String valor = desde + "|" + (parejaId != null ? parejaId : "") + "|" + versionPareja + "|" + versionUsuario;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+        }
+
+        public static Token decodificar(String token) {
+            if (token == null || token.isBlank()) {
+                return null;
+            }
+            try {
+                String[] partes = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\\|", -1);
+                return new Token(LocalDateTime.parse(partes[0]),
+                        partes[1].isEmpty() ? null : Long.parseLong(partes[1]),
+                        Long.parseLong(partes[2]),
+                        Long.parseLong(partes[3]));
+            } catch (RuntimeException e) {
+                throw new BadRequestException("Token de sincronización inválido");
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.gastos.gastos_compartidos.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Total de gastos de la pareja en un mes. Los meses sin gastos vienen en cero. desglose
+ * solo viene si se pidió agrupar por categoría o por usuario.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TendenciaMensualDTO {
+
+    private int mes;
+    private int anio;
+    private String nombreMes;
+    private BigDecimal total;
+    private long cantidadGastos;
+    private List<Desglose> desglose;
+
+    public enum Agrupacion {
+        TOTAL,
+        CATEGORIA,
+        USUARIO
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Desglose {
+        // categoriaId o usuarioId según la agrupación; null para "Sin categoría"
+        private Long id;
+        private String nombre;
+        private String color;
+        private BigDecimal total;
+        private long cantidad;
+    }
+}
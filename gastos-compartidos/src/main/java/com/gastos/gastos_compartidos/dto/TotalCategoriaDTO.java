@@ -0,0 +1,11 @@
+package com.gastos.gastos_compartidos.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Suma y cantidad de gastos por categoría, calculados en la base de datos.
+ * categoriaId es null para los gastos sin categoría.
+ */
+public record TotalCategoriaDTO(Long categoriaId, String nombre, String icono, String color,
+        BigDecimal total, Long cantidad) {
+}
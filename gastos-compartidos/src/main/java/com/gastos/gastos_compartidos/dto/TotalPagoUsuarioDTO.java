@@ -0,0 +1,9 @@
+package com.gastos.gastos_compartidos.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Total de pagos completados entre un pagador y un receptor, calculado en la base de datos.
+ */
+public record TotalPagoUsuarioDTO(Long pagadorId, Long receptorId, BigDecimal total) {
+}
@@ -0,0 +1,10 @@
+package com.gastos.gastos_compartidos.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Totales de un usuario en un mes según el resumen mensual: lo que registró (total y
+ * cantidad de gastos) y lo que pagó de su parte (splits PAGO).
+ */
+public record TotalResumenUsuarioDTO(Long usuarioId, BigDecimal total, Long cantidad, BigDecimal pagado) {
+}
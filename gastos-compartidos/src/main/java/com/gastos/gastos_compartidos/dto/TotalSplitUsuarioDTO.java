@@ -0,0 +1,12 @@
+package com.gastos.gastos_compartidos.dto;
+
+import com.gastos.gastos_compartidos.entity.GastoSplit;
+
+import java.math.BigDecimal;
+
+/**
+ * Total de splits de un usuario por tipo (DEBE/PAGO) y por quien registró el gasto,
+ * calculado en la base de datos.
+ */
+public record TotalSplitUsuarioDTO(Long usuarioId, Long registradorId, GastoSplit.TipoSplit tipo, BigDecimal total) {
+}
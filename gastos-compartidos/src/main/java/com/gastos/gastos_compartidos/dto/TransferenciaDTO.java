@@ -0,0 +1,19 @@
+package com.gastos.gastos_compartidos.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TransferenciaDTO {
+
+    private UsuarioResponseDTO deudor;    // Quien paga
+    private UsuarioResponseDTO acreedor;  // Quien recibe
+    private BigDecimal monto;
+}
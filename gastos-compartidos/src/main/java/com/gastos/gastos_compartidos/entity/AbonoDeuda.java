@@ -16,7 +16,8 @@ import java.time.LocalDateTime;
 public class AbonoDeuda {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "abonos_deuda_seq")
+    @SequenceGenerator(name = "abonos_deuda_seq", sequenceName = "abonos_deuda_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -0,0 +1,47 @@
+package com.gastos.gastos_compartidos.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Gasto que al registrarse quedó muy por encima de lo habitual en su categoría para la pareja.
+ */
+@Entity
+@Table(name = "anomalias_gasto")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AnomaliaGasto {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "anomalias_gasto_seq")
+    @SequenceGenerator(name = "anomalias_gasto_seq", sequenceName = "anomalias_gasto_id_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "gasto_id", nullable = false)
+    private Gasto gasto;
+
+    @Column(name = "pareja_id", nullable = false)
+    private Long parejaId;
+
+    @Column(nullable = false)
+    private double puntaje; // Desviaciones estándar sobre la media, en escala logarítmica
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal montoTipico;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime fechaDeteccion;
+
+    @PrePersist
+    protected void onCreate() {
+        fechaDeteccion = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,66 @@
+package com.gastos.gastos_compartidos.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Balance acumulado de un usuario al cierre de un mes (periodo = primer día del mes).
+ * Sirve como punto de partida para recalcular el balance sumando solo el periodo abierto.
+ */
+@Entity
+@Table(name = "balance_checkpoint", uniqueConstraints = @UniqueConstraint(columnNames = { "pareja_id", "usuario_id",
+        "periodo" }))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BalanceCheckpoint {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "balance_checkpoint_seq")
+    @SequenceGenerator(name = "balance_checkpoint_seq", sequenceName = "balance_checkpoint_id_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "pareja_id", nullable = false)
+    private Long parejaId;
+
+    @Column(name = "usuario_id", nullable = false)
+    private Long usuarioId;
+
+    @Column(nullable = false)
+    private LocalDate periodo;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    @Builder.Default
+    private BigDecimal totalDebe = BigDecimal.ZERO;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    @Builder.Default
+    private BigDecimal totalPagado = BigDecimal.ZERO;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    @Builder.Default
+    private BigDecimal totalAFavor = BigDecimal.ZERO;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    @Builder.Default
+    private BigDecimal abonosRealizados = BigDecimal.ZERO;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    @Builder.Default
+    private BigDecimal abonosRecibidos = BigDecimal.ZERO;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime fechaCreacion;
+
+    @PrePersist
+    protected void onCreate() {
+        fechaCreacion = LocalDateTime.now();
+    }
+}
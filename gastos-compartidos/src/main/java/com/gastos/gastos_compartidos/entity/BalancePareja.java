@@ -0,0 +1,64 @@
+package com.gastos.gastos_compartidos.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Balance materializado de un usuario dentro de su pareja.
+ * Se actualiza en la misma transacción que cada gasto, split y pago
+ * (ver BalanceService), por lo que el resumen de deuda no necesita
+ * recorrer el historial completo.
+ */
+@Entity
+@Table(name = "balance_pareja", uniqueConstraints = @UniqueConstraint(columnNames = { "pareja_id", "usuario_id" }))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BalancePareja {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "balance_pareja_seq")
+    @SequenceGenerator(name = "balance_pareja_seq", sequenceName = "balance_pareja_id_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "pareja_id", nullable = false)
+    private Long parejaId;
+
+    @Column(name = "usuario_id", nullable = false)
+    private Long usuarioId;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    @Builder.Default
+    private BigDecimal totalDebe = BigDecimal.ZERO; // Splits DEBE
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    @Builder.Default
+    private BigDecimal totalPagado = BigDecimal.ZERO; // Splits PAGO
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    @Builder.Default
+    private BigDecimal totalAFavor = BigDecimal.ZERO; // Splits DEBE de otros en gastos que registró
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    @Builder.Default
+    private BigDecimal abonosRealizados = BigDecimal.ZERO; // Pagos donde es pagador
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    @Builder.Default
+    private BigDecimal abonosRecibidos = BigDecimal.ZERO; // Pagos donde es receptor
+
+    @Column(nullable = false)
+    private LocalDateTime fechaActualizacion;
+
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        fechaActualizacion = LocalDateTime.now();
+    }
+}
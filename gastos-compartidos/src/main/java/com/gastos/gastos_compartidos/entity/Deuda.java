@@ -18,7 +18,8 @@ import java.util.List;
 public class Deuda {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "deudas_seq")
+    @SequenceGenerator(name = "deudas_seq", sequenceName = "deudas_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -0,0 +1,46 @@
+package com.gastos.gastos_compartidos.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * Estadística acumulada (Welford) del logaritmo del monto de los gastos vigentes de una
+ * pareja en una categoría. Solo se escribe con los upserts de
+ * EstadisticaCategoriaRepository (ver AnomaliaService).
+ */
+@Entity
+@Table(name = "estadistica_categoria", uniqueConstraints = @UniqueConstraint(columnNames = { "pareja_id",
+        "categoria_id" }))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EstadisticaCategoria {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "estadistica_categoria_seq")
+    @SequenceGenerator(name = "estadistica_categoria_seq", sequenceName = "estadistica_categoria_id_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "pareja_id", nullable = false)
+    private Long parejaId;
+
+    @Column(name = "categoria_id", nullable = false)
+    private Long categoriaId;
+
+    @Column(nullable = false)
+    private long cantidad;
+
+    @Column(nullable = false)
+    private double media;
+
+    @Column(nullable = false)
+    private double m2; // Suma de cuadrados de las diferencias con la media
+
+    @Column(nullable = false)
+    private LocalDateTime fechaActualizacion;
+}
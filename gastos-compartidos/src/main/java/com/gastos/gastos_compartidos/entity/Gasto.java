@@ -23,7 +23,8 @@ import java.util.List;
 public class Gasto {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "gastos_seq")
+    @SequenceGenerator(name = "gastos_seq", sequenceName = "gastos_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -53,6 +54,10 @@ public class Gasto {
     @JoinColumn(name = "categoria_id")
     private Categoria categoria;
 
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "gasto_recurrente_id")
+    private GastoRecurrente gastoRecurrente; // Solo en los gastos generados por un recurrente
+
     @Builder.Default
     @OneToMany(mappedBy = "gasto", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<GastoSplit> splits = new ArrayList<>();
@@ -16,7 +16,8 @@ import java.time.LocalDateTime;
 public class GastoRecurrente {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "gastos_recurrentes_seq")
+    @SequenceGenerator(name = "gastos_recurrentes_seq", sequenceName = "gastos_recurrentes_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -17,7 +17,8 @@ import java.time.LocalDateTime;
 public class GastoSplit {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "gasto_splits_seq")
+    @SequenceGenerator(name = "gasto_splits_seq", sequenceName = "gasto_splits_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
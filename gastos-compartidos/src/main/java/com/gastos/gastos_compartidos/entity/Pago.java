@@ -17,7 +17,8 @@ import java.time.LocalDateTime;
 public class Pago {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pagos_seq")
+    @SequenceGenerator(name = "pagos_seq", sequenceName = "pagos_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
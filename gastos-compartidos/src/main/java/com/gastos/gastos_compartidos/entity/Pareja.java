@@ -19,7 +19,8 @@ import java.util.UUID;
 public class Pareja {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "parejas_seq")
+    @SequenceGenerator(name = "parejas_seq", sequenceName = "parejas_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, unique = true)
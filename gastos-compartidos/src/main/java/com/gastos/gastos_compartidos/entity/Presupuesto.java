@@ -19,7 +19,8 @@ import java.time.LocalDateTime;
 public class Presupuesto {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "presupuestos_seq")
+    @SequenceGenerator(name = "presupuestos_seq", sequenceName = "presupuestos_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
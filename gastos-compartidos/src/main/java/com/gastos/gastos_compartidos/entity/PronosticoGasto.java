@@ -0,0 +1,61 @@
+package com.gastos.gastos_compartidos.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Gasto proyectado al cierre del período en curso para un usuario y categoría (null = total).
+ * Solo lo escribe PronosticoService.
+ */
+@Entity
+@Table(name = "pronostico_gasto")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PronosticoGasto {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pronostico_gasto_seq")
+    @SequenceGenerator(name = "pronostico_gasto_seq", sequenceName = "pronostico_gasto_id_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "usuario_id", nullable = false)
+    private Long usuarioId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "categoria_id")
+    private Categoria categoria; // null = todas las categorías
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private PeriodoPresupuesto periodo;
+
+    @Column(nullable = false)
+    private LocalDate inicio;
+
+    @Column(nullable = false)
+    private LocalDate fin; // exclusivo
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal gastado;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal recurrente; // Ejecuciones pendientes de gastos recurrentes antes de fin
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal tendencia; // Gasto diario reciente por los días que faltan
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal proyectado;
+
+    @Column(nullable = false)
+    private LocalDateTime fechaActualizacion;
+}
@@ -17,7 +17,8 @@ import java.time.LocalDateTime;
 public class PushSubscription {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "push_subscriptions_seq")
+    @SequenceGenerator(name = "push_subscriptions_seq", sequenceName = "push_subscriptions_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -0,0 +1,52 @@
+package com.gastos.gastos_compartidos.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Totales de un mes (periodo = primer día del mes) por pareja, usuario y categoría.
+ * total y cantidad son de los gastos que registró el usuario; pagado, de sus splits PAGO.
+ * Solo se escribe con los upserts de ResumenGastoMensualRepository (ver ResumenMensualService).
+ */
+@Entity
+@Table(name = "resumen_gastos_mensual")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ResumenGastoMensual {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "resumen_gastos_mensual_seq")
+    @SequenceGenerator(name = "resumen_gastos_mensual_seq", sequenceName = "resumen_gastos_mensual_id_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "pareja_id")
+    private Long parejaId; // null para gastos individuales
+
+    @Column(name = "usuario_id", nullable = false)
+    private Long usuarioId;
+
+    @Column(name = "categoria_id")
+    private Long categoriaId;
+
+    @Column(nullable = false)
+    private LocalDate periodo;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    @Builder.Default
+    private BigDecimal total = BigDecimal.ZERO;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Integer cantidad = 0;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    @Builder.Default
+    private BigDecimal pagado = BigDecimal.ZERO;
+}
@@ -8,6 +8,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -35,6 +36,10 @@ public interface AbonoDeudaRepository extends JpaRepository<AbonoDeuda, Long> {
     @Query("SELECT COALESCE(SUM(a.monto), 0) FROM AbonoDeuda a WHERE a.deuda.usuario.id = :usuarioId AND MONTH(a.fechaPago) = :mes AND YEAR(a.fechaPago) = :ano")
     BigDecimal calcularTotalAbonadoMes(@Param("usuarioId") Long usuarioId, @Param("mes") int mes, @Param("ano") int ano);
 
+    // Abonos registrados desde una fecha, para sincronización (los abonos no se editan)
+    @Query("SELECT a FROM AbonoDeuda a JOIN FETCH a.deuda d WHERE d.usuario.id = :usuarioId AND a.fechaCreacion > :desde")
+    List<AbonoDeuda> findCreadosDesde(@Param("usuarioId") Long usuarioId, @Param("desde") LocalDateTime desde);
+
     // Últimos abonos del usuario (para dashboard)
     @Query("SELECT a FROM AbonoDeuda a WHERE a.deuda.usuario.id = :usuarioId ORDER BY a.fechaPago DESC")
     List<AbonoDeuda> findUltimosAbonosUsuario(@Param("usuarioId") Long usuarioId, Pageable pageable);
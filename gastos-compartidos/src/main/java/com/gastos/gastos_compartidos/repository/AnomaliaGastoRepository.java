@@ -0,0 +1,19 @@
+package com.gastos.gastos_compartidos.repository;
+
+import com.gastos.gastos_compartidos.entity.AnomaliaGasto;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface AnomaliaGastoRepository extends JpaRepository<AnomaliaGasto, Long> {
+
+    // Los gastos eliminados quedan fuera por el @SQLRestriction de Gasto
+    @Query("SELECT a FROM AnomaliaGasto a JOIN FETCH a.gasto g JOIN FETCH g.usuario LEFT JOIN FETCH g.categoria " +
+            "WHERE a.parejaId = :parejaId ORDER BY a.fechaDeteccion DESC, a.id DESC")
+    List<AnomaliaGasto> findRecientesByParejaId(@Param("parejaId") Long parejaId, Pageable pageable);
+}
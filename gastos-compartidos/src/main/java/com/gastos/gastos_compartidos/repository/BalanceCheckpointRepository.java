@@ -0,0 +1,33 @@
+package com.gastos.gastos_compartidos.repository;
+
+import com.gastos.gastos_compartidos.entity.BalanceCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface BalanceCheckpointRepository extends JpaRepository<BalanceCheckpoint, Long> {
+
+    List<BalanceCheckpoint> findByParejaIdAndPeriodo(Long parejaId, LocalDate periodo);
+
+    // null si la pareja todavía no tiene meses cerrados
+    @Query("SELECT MAX(c.periodo) FROM BalanceCheckpoint c WHERE c.parejaId = :parejaId")
+    LocalDate findUltimoPeriodo(@Param("parejaId") Long parejaId);
+
+    @Query("SELECT MAX(c.periodo) FROM BalanceCheckpoint c WHERE c.parejaId = :parejaId AND c.periodo < :periodo")
+    LocalDate findUltimoPeriodoAntesDe(@Param("parejaId") Long parejaId, @Param("periodo") LocalDate periodo);
+
+    // Al cambiar un mes cerrado, ese checkpoint y todos los posteriores dejan de ser válidos
+    @Modifying
+    @Query("DELETE FROM BalanceCheckpoint c WHERE c.parejaId = :parejaId AND c.periodo >= :periodo")
+    int invalidarDesde(@Param("parejaId") Long parejaId, @Param("periodo") LocalDate periodo);
+
+    @Modifying
+    @Query("DELETE FROM BalanceCheckpoint c WHERE c.parejaId = :parejaId")
+    void eliminarPorPareja(@Param("parejaId") Long parejaId);
+}
@@ -0,0 +1,45 @@
+package com.gastos.gastos_compartidos.repository;
+
+import com.gastos.gastos_compartidos.entity.BalancePareja;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Repository
+public interface BalanceParejaRepository extends JpaRepository<BalancePareja, Long> {
+
+    List<BalancePareja> findByParejaId(Long parejaId);
+
+    // Suma atómica de deltas (upsert) para no perder actualizaciones concurrentes. BalanceService
+    // también lo envía en batch con parámetros nombrados, un miembro por fila
+    String ACUMULAR = "INSERT INTO balance_pareja (pareja_id, usuario_id, total_debe, total_pagado, total_a_favor, " +
+            "abonos_realizados, abonos_recibidos, fecha_actualizacion) " +
+            "VALUES (:parejaId, :usuarioId, :debe, :pagado, :aFavor, :realizados, :recibidos, NOW()) " +
+            "ON CONFLICT (pareja_id, usuario_id) DO UPDATE SET " +
+            "total_debe = balance_pareja.total_debe + EXCLUDED.total_debe, " +
+            "total_pagado = balance_pareja.total_pagado + EXCLUDED.total_pagado, " +
+            "total_a_favor = balance_pareja.total_a_favor + EXCLUDED.total_a_favor, " +
+            "abonos_realizados = balance_pareja.abonos_realizados + EXCLUDED.abonos_realizados, " +
+            "abonos_recibidos = balance_pareja.abonos_recibidos + EXCLUDED.abonos_recibidos, " +
+            "fecha_actualizacion = NOW()";
+
+    @Modifying
+    @Query(value = ACUMULAR, nativeQuery = true)
+    void acumular(
+            @Param("parejaId") Long parejaId,
+            @Param("usuarioId") Long usuarioId,
+            @Param("debe") BigDecimal debe,
+            @Param("pagado") BigDecimal pagado,
+            @Param("aFavor") BigDecimal aFavor,
+            @Param("realizados") BigDecimal realizados,
+            @Param("recibidos") BigDecimal recibidos);
+
+    @Modifying
+    @Query("DELETE FROM BalancePareja b WHERE b.parejaId = :parejaId")
+    void eliminarPorPareja(@Param("parejaId") Long parejaId);
+}
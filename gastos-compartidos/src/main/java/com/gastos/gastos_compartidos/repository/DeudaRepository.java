@@ -10,6 +10,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -18,6 +19,9 @@ public interface DeudaRepository extends JpaRepository<Deuda, Long> {
     // Todas las deudas de un usuario
     List<Deuda> findByUsuarioIdOrderByFechaCreacionDesc(Long usuarioId);
 
+    // Deudas creadas o modificadas desde una fecha, para sincronización
+    List<Deuda> findByUsuarioIdAndFechaActualizacionAfter(Long usuarioId, LocalDateTime desde);
+
     // Deudas activas de un usuario
     List<Deuda> findByUsuarioIdAndEstadoOrderByFechaCreacionDesc(Long usuarioId, EstadoDeuda estado);
 
@@ -38,4 +42,17 @@ public interface DeudaRepository extends JpaRepository<Deuda, Long> {
     // === Paginated queries ===
     Page<Deuda> findByUsuarioIdOrderByFechaCreacionDesc(Long usuarioId, Pageable pageable);
     Page<Deuda> findByUsuarioIdAndEstadoOrderByFechaCreacionDesc(Long usuarioId, EstadoDeuda estado, Pageable pageable);
+
+    // === Keyset (cursor) queries ===
+    @Query(value = "SELECT d.* FROM deudas d WHERE d.usuario_id = :usuarioId " +
+            "AND (d.fecha_creacion, d.id) < (:fecha, :id) " +
+            "ORDER BY d.fecha_creacion DESC, d.id DESC LIMIT :limite", nativeQuery = true)
+    List<Deuda> findByUsuarioIdDespuesDe(@Param("usuarioId") Long usuarioId, @Param("fecha") LocalDateTime fecha,
+            @Param("id") Long id, @Param("limite") int limite);
+
+    @Query(value = "SELECT d.* FROM deudas d WHERE d.usuario_id = :usuarioId AND d.estado = :estado " +
+            "AND (d.fecha_creacion, d.id) < (:fecha, :id) " +
+            "ORDER BY d.fecha_creacion DESC, d.id DESC LIMIT :limite", nativeQuery = true)
+    List<Deuda> findByUsuarioIdAndEstadoDespuesDe(@Param("usuarioId") Long usuarioId, @Param("estado") String estado,
+            @Param("fecha") LocalDateTime fecha, @Param("id") Long id, @Param("limite") int limite);
 }
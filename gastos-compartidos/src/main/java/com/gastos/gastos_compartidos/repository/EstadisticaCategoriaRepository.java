@@ -0,0 +1,72 @@
+package com.gastos.gastos_compartidos.repository;
+
+import com.gastos.gastos_compartidos.entity.EstadisticaCategoria;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface EstadisticaCategoriaRepository extends JpaRepository<EstadisticaCategoria, Long> {
+
+    interface Estadistica {
+        long getCantidad();
+
+        double getMedia();
+
+        double getM2();
+    }
+
+    // Proyección nativa y no la entidad: los upserts no pasan por el contexto de persistencia,
+    // así que una entidad ya cargada quedaría desactualizada dentro de la misma transacción
+    @Query(value = "SELECT cantidad, media, m2 FROM estadistica_categoria " +
+            "WHERE pareja_id = :parejaId AND categoria_id = :categoriaId", nativeQuery = true)
+    Optional<Estadistica> buscar(@Param("parejaId") Long parejaId, @Param("categoriaId") Long categoriaId);
+
+    // Suma atómica de un grupo de n valores con su media y M2 (fórmula de Chan; un gasto
+    // es n = 1, M2 = 0). Todas las expresiones de SET leen los valores anteriores.
+    @Modifying
+    @Query(value = "INSERT INTO estadistica_categoria AS e (pareja_id, categoria_id, cantidad, media, m2, fecha_actualizacion) " +
+            "VALUES (:parejaId, :categoriaId, :cantidad, :media, :m2, NOW()) " +
+            "ON CONFLICT (pareja_id, categoria_id) DO UPDATE SET " +
+            "cantidad = e.cantidad + EXCLUDED.cantidad, " +
+            "media = e.media + (EXCLUDED.media - e.media) * EXCLUDED.cantidad / (e.cantidad + EXCLUDED.cantidad), " +
+            "m2 = e.m2 + EXCLUDED.m2 + (EXCLUDED.media - e.media) * (EXCLUDED.media - e.media) " +
+            "* e.cantidad * EXCLUDED.cantidad / (e.cantidad + EXCLUDED.cantidad), " +
+            "fecha_actualizacion = NOW()", nativeQuery = true)
+    void combinar(
+            @Param("parejaId") Long parejaId,
+            @Param("categoriaId") Long categoriaId,
+            @Param("cantidad") long cantidad,
+            @Param("media") double media,
+            @Param("m2") double m2);
+
+    // Inverso de combinar para un valor (n = 1): media y M2 de los gastos restantes
+    @Modifying
+    @Query(value = "UPDATE estadistica_categoria e SET " +
+            "cantidad = e.cantidad - 1, " +
+            "media = CASE WHEN e.cantidad <= 1 THEN 0 ELSE (e.cantidad * e.media - :valor) / (e.cantidad - 1) END, " +
+            "m2 = CASE WHEN e.cantidad <= 2 THEN 0 ELSE GREATEST(e.m2 - (:valor - e.media) " +
+            "* (:valor - (e.cantidad * e.media - :valor) / (e.cantidad - 1)), 0) END, " +
+            "fecha_actualizacion = NOW() " +
+            "WHERE e.pareja_id = :parejaId AND e.categoria_id = :categoriaId AND e.cantidad > 0", nativeQuery = true)
+    void quitar(
+            @Param("parejaId") Long parejaId,
+            @Param("categoriaId") Long categoriaId,
+            @Param("valor") double valor);
+
+    @Modifying
+    @Query(value = "DELETE FROM estadistica_categoria", nativeQuery = true)
+    void eliminarTodas();
+
+    // VAR_POP * n = M2
+    @Modifying
+    @Query(value = "INSERT INTO estadistica_categoria (pareja_id, categoria_id, cantidad, media, m2, fecha_actualizacion) " +
+            "SELECT pareja_id, categoria_id, COUNT(*), AVG(LN(monto)), COALESCE(VAR_POP(LN(monto)) * COUNT(*), 0), NOW() " +
+            "FROM gastos WHERE deleted_at IS NULL AND pareja_id IS NOT NULL AND categoria_id IS NOT NULL AND monto > 0 " +
+            "GROUP BY pareja_id, categoria_id", nativeQuery = true)
+    int insertarDesdeGastos();
+}
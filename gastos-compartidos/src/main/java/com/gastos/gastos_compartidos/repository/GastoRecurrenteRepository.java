@@ -1,6 +1,7 @@
 package com.gastos.gastos_compartidos.repository;
 
 import com.gastos.gastos_compartidos.entity.GastoRecurrente;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -12,12 +13,15 @@ import java.util.List;
 public interface GastoRecurrenteRepository extends JpaRepository<GastoRecurrente, Long> {
 
     // Gastos recurrentes de un usuario
+    @EntityGraph(attributePaths = {"categoria"})
     List<GastoRecurrente> findByUsuarioIdOrderByProximaEjecucionAsc(Long usuarioId);
 
     // Gastos recurrentes activos de un usuario
+    @EntityGraph(attributePaths = {"categoria"})
     List<GastoRecurrente> findByUsuarioIdAndActivoTrueOrderByProximaEjecucionAsc(Long usuarioId);
 
     // Gastos que deben ejecutarse (próxima ejecución <= hoy y activos)
+    @EntityGraph(attributePaths = {"usuario", "categoria"})
     @Query("SELECT g FROM GastoRecurrente g WHERE g.activo = true AND g.proximaEjecucion <= :fecha")
     List<GastoRecurrente> findPendientesDeEjecutar(@Param("fecha") LocalDate fecha);
 
@@ -25,6 +29,7 @@ public interface GastoRecurrenteRepository extends JpaRepository<GastoRecurrente
     long countByUsuarioIdAndActivoTrue(Long usuarioId);
 
     // Gastos recurrentes que vencen pronto (próximos N días)
+    @EntityGraph(attributePaths = {"categoria"})
     @Query("SELECT g FROM GastoRecurrente g WHERE g.usuario.id = :usuarioId AND g.activo = true AND g.proximaEjecucion BETWEEN :desde AND :hasta ORDER BY g.proximaEjecucion ASC")
     List<GastoRecurrente> findProximosAEjecutar(
             @Param("usuarioId") Long usuarioId,
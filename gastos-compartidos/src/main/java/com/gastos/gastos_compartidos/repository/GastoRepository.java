@@ -1,11 +1,15 @@
 package com.gastos.gastos_compartidos.repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -13,24 +17,34 @@ import org.springframework.stereotype.Repository;
 import com.gastos.gastos_compartidos.entity.Gasto;
 
 @Repository
-public interface GastoRepository extends JpaRepository<Gasto, Long> {
+public interface GastoRepository extends JpaRepository<Gasto, Long>, JpaSpecificationExecutor<Gasto> {
 
+    // Filtro combinable (GastoSpecifications)
+    @Override
+    @EntityGraph(attributePaths = {"usuario", "categoria"})
+    Page<Gasto> findAll(Specification<Gasto> spec, Pageable pageable);
+
+    @EntityGraph(attributePaths = {"usuario", "categoria"})
     @Query("SELECT g FROM Gasto g WHERE g.pareja.id = :parejaId")
     List<Gasto> findByParejaid(@Param("parejaId") Long parejaId);
 
+    @EntityGraph(attributePaths = {"usuario", "categoria"})
     @Query("SELECT g FROM Gasto g WHERE g.pareja.id = :parejaId ORDER BY g.fechaGasto DESC")
     List<Gasto> findByParejaidOrderByFechaGastoDesc(@Param("parejaId") Long parejaId);
 
+    @EntityGraph(attributePaths = {"usuario", "categoria"})
     @Query("SELECT g FROM Gasto g WHERE g.pareja.id = :parejaId AND g.fechaGasto >= :inicio AND g.fechaGasto <= :fin ORDER BY g.fechaGasto DESC")
     List<Gasto> findByParejaidAndFechaRango(
             @Param("parejaId") Long parejaId,
             @Param("inicio") LocalDateTime inicio,
             @Param("fin") LocalDateTime fin);
 
+    @EntityGraph(attributePaths = {"usuario", "categoria"})
     @Query("SELECT g FROM Gasto g WHERE g.usuario.id = :usuarioId AND g.pareja.id = :parejaId")
     List<Gasto> findByUsuarioidAndParejaid(@Param("usuarioId") Long usuarioId, @Param("parejaId") Long parejaId);
 
     // Buscar gastos individuales (sin pareja) de un usuario
+    @EntityGraph(attributePaths = {"usuario", "categoria"})
     @Query("SELECT g FROM Gasto g WHERE g.usuario.id = :usuarioId AND g.pareja IS NULL ORDER BY g.fechaGasto DESC")
     List<Gasto> findByUsuarioIdAndParejaIsNullOrderByFechaGastoDesc(@Param("usuarioId") Long usuarioId);
 
@@ -38,13 +52,89 @@ public interface GastoRepository extends JpaRepository<Gasto, Long> {
 
     // === Paginated queries ===
 
+    @EntityGraph(attributePaths = {"usuario", "categoria"})
     @Query("SELECT g FROM Gasto g WHERE (g.usuario.id = :usuarioId AND g.pareja IS NULL) OR (:parejaId IS NOT NULL AND g.pareja.id = :parejaId) ORDER BY g.fechaGasto DESC")
     Page<Gasto> findGastosDelUsuario(@Param("usuarioId") Long usuarioId, @Param("parejaId") Long parejaId,
             Pageable pageable);
 
+    @EntityGraph(attributePaths = {"usuario", "categoria"})
     @Query("SELECT g FROM Gasto g WHERE g.pareja.id = :parejaId ORDER BY g.fechaGasto DESC")
     Page<Gasto> findByParejaidPaginado(@Param("parejaId") Long parejaId, Pageable pageable);
 
+    // === Keyset (cursor) queries ===
+    // Nativas: cada rama del UNION ALL usa su propio índice parcial (V9). Al ser SQL nativo
+    // no aplica @SQLRestriction, por eso se filtra deleted_at explícitamente.
+    // Tampoco admiten @EntityGraph: usuario, categoría y splits llegan por batch fetch.
+
+    @Query(value = "SELECT * FROM (" +
+            "(SELECT g.* FROM gastos g WHERE g.usuario_id = :usuarioId AND g.pareja_id IS NULL " +
+            "AND g.deleted_at IS NULL AND (g.fecha_gasto, g.id) < (:fecha, :id) " +
+            "ORDER BY g.fecha_gasto DESC, g.id DESC LIMIT :limite) " +
+            "UNION ALL " +
+            "(SELECT g.* FROM gastos g WHERE g.pareja_id = :parejaId " +
+            "AND g.deleted_at IS NULL AND (g.fecha_gasto, g.id) < (:fecha, :id) " +
+            "ORDER BY g.fecha_gasto DESC, g.id DESC LIMIT :limite)" +
+            ") t ORDER BY t.fecha_gasto DESC, t.id DESC LIMIT :limite", nativeQuery = true)
+    List<Gasto> findGastosDelUsuarioDespuesDe(
+            @Param("usuarioId") Long usuarioId,
+            @Param("parejaId") Long parejaId,
+            @Param("fecha") LocalDateTime fecha,
+            @Param("id") Long id,
+            @Param("limite") int limite);
+
+    @Query(value = "SELECT g.* FROM gastos g WHERE g.pareja_id = :parejaId AND g.deleted_at IS NULL " +
+            "AND (g.fecha_gasto, g.id) < (:fecha, :id) " +
+            "ORDER BY g.fecha_gasto DESC, g.id DESC LIMIT :limite", nativeQuery = true)
+    List<Gasto> findByParejaidDespuesDe(
+            @Param("parejaId") Long parejaId,
+            @Param("fecha") LocalDateTime fecha,
+            @Param("id") Long id,
+            @Param("limite") int limite);
+
+    // === Búsqueda de texto completo (V11) ===
+
+    interface ResultadoBusqueda {
+        Long getId();
+
+        Float getRango();
+
+        LocalDateTime getFecha();
+    }
+
+    // Mismo alcance que findGastosDelUsuario, ordenado por relevancia y paginado por
+    // (rango, fecha, id). deleted_at IS NULL permite usar el índice GIN parcial.
+    @Query(value = "SELECT g.id AS id, ts_rank(g.busqueda, q.consulta) AS rango, g.fecha_gasto AS fecha " +
+            "FROM gastos g, websearch_to_tsquery('spanish', :texto) AS q(consulta) " +
+            "WHERE g.busqueda @@ q.consulta AND g.deleted_at IS NULL " +
+            "AND ((g.usuario_id = :usuarioId AND g.pareja_id IS NULL) OR g.pareja_id = :parejaId) " +
+            "AND (ts_rank(g.busqueda, q.consulta), g.fecha_gasto, g.id) < (CAST(:rango AS real), :fecha, :id) " +
+            "ORDER BY rango DESC, g.fecha_gasto DESC, g.id DESC LIMIT :limite", nativeQuery = true)
+    List<ResultadoBusqueda> buscar(
+            @Param("texto") String texto,
+            @Param("usuarioId") Long usuarioId,
+            @Param("parejaId") Long parejaId,
+            @Param("rango") float rango,
+            @Param("fecha") LocalDateTime fecha,
+            @Param("id") Long id,
+            @Param("limite") int limite);
+
+    @EntityGraph(attributePaths = {"usuario", "categoria"})
+    List<Gasto> findByIdIn(Collection<Long> ids);
+
+    // === Sincronización incremental ===
+    @EntityGraph(attributePaths = {"usuario", "categoria"})
+    @Query("SELECT g FROM Gasto g WHERE ((g.usuario.id = :usuarioId AND g.pareja IS NULL) OR g.pareja.id = :parejaId) " +
+            "AND g.fechaActualizacion > :desde")
+    List<Gasto> findModificadosDesde(@Param("usuarioId") Long usuarioId, @Param("parejaId") Long parejaId,
+            @Param("desde") LocalDateTime desde);
+
+    // Nativa: @SQLRestriction oculta los eliminados a JPQL
+    @Query(value = "SELECT g.id FROM gastos g " +
+            "WHERE ((g.usuario_id = :usuarioId AND g.pareja_id IS NULL) OR g.pareja_id = :parejaId) " +
+            "AND g.deleted_at > :desde", nativeQuery = true)
+    List<Long> findIdsEliminadosDesde(@Param("usuarioId") Long usuarioId, @Param("parejaId") Long parejaId,
+            @Param("desde") LocalDateTime desde);
+
     // === Budget queries ===
 
     @Query("SELECT COALESCE(SUM(g.monto), 0) FROM Gasto g WHERE g.usuario.id = :usuarioId " +
@@ -0,0 +1,70 @@
+package com.gastos.gastos_compartidos.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.gastos.gastos_compartidos.entity.Gasto;
+import com.gastos.gastos_compartidos.entity.GastoSplit;
+
+import jakarta.persistence.criteria.Subquery;
+
+/**
+ * Predicados combinables sobre Gasto para el filtro del historial. Cada uno trabaja
+ * sobre columnas directas de gastos (sin joins) para que el planificador pueda usar
+ * los índices de V12; la restricción de soft delete la agrega @SQLRestriction.
+ */
+public final class GastoSpecifications {
+
+    private GastoSpecifications() {
+    }
+
+    // Mismo alcance que findGastosDelUsuario: individuales del usuario + los de su pareja
+    public static Specification<Gasto> visiblesPara(Long usuarioId, Long parejaId) {
+        return (root, query, cb) -> {
+            var individuales = cb.and(
+                    cb.equal(root.get("usuario").get("id"), usuarioId),
+                    cb.isNull(root.get("pareja")));
+            return parejaId == null
+                    ? individuales
+                    : cb.or(individuales, cb.equal(root.get("pareja").get("id"), parejaId));
+        };
+    }
+
+    public static Specification<Gasto> montoDesde(BigDecimal minimo) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("monto"), minimo);
+    }
+
+    public static Specification<Gasto> montoHasta(BigDecimal maximo) {
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("monto"), maximo);
+    }
+
+    public static Specification<Gasto> categoriaEn(Collection<Long> categoriaIds) {
+        return (root, query, cb) -> root.get("categoria").get("id").in(categoriaIds);
+    }
+
+    public static Specification<Gasto> registradoPor(Long usuarioId) {
+        return (root, query, cb) -> cb.equal(root.get("usuario").get("id"), usuarioId);
+    }
+
+    public static Specification<Gasto> fechaDesde(LocalDateTime desde) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("fechaGasto"), desde);
+    }
+
+    // Exclusivo: el servicio pasa el inicio del día siguiente a "hasta"
+    public static Specification<Gasto> fechaAntesDe(LocalDateTime limite) {
+        return (root, query, cb) -> cb.lessThan(root.get("fechaGasto"), limite);
+    }
+
+    // Compartido = tiene splits (un gasto individual puede tener pareja_id pero no se divide)
+    public static Specification<Gasto> compartido(boolean compartido) {
+        return (root, query, cb) -> {
+            Subquery<Long> splits = query.subquery(Long.class);
+            var split = splits.from(GastoSplit.class);
+            splits.select(cb.literal(1L)).where(cb.equal(split.get("gasto"), root));
+            return compartido ? cb.exists(splits) : cb.not(cb.exists(splits));
+        };
+    }
+}
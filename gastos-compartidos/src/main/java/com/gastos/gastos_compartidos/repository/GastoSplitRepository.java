@@ -1,12 +1,19 @@
 package com.gastos.gastos_compartidos.repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.gastos.gastos_compartidos.dto.MovimientoSplitDTO;
+import com.gastos.gastos_compartidos.dto.TotalSplitUsuarioDTO;
 import com.gastos.gastos_compartidos.entity.GastoSplit;
 
 @Repository
@@ -23,4 +30,43 @@ public interface GastoSplitRepository extends JpaRepository<GastoSplit, Long> {
         @Param("usuarioId") Long usuarioId,
         @Param("parejaId") Long parejaId
     );
+
+    // === Aggregate queries ===
+
+    @Query("SELECT new com.gastos.gastos_compartidos.dto.TotalSplitUsuarioDTO(gs.usuario.id, gs.gasto.usuario.id, gs.tipo, SUM(gs.monto)) " +
+        "FROM GastoSplit gs WHERE gs.gasto.pareja.id = :parejaId AND gs.gasto.deletedAt IS NULL " +
+        "GROUP BY gs.usuario.id, gs.gasto.usuario.id, gs.tipo")
+    List<TotalSplitUsuarioDTO> sumarPorUsuarioYTipo(@Param("parejaId") Long parejaId);
+
+    // Intervalo semiabierto [desde, hasta) para cerrar meses sin solapar
+    @Query("SELECT new com.gastos.gastos_compartidos.dto.TotalSplitUsuarioDTO(gs.usuario.id, gs.gasto.usuario.id, gs.tipo, SUM(gs.monto)) " +
+        "FROM GastoSplit gs WHERE gs.gasto.pareja.id = :parejaId AND gs.gasto.deletedAt IS NULL " +
+        "AND gs.gasto.fechaGasto >= :desde AND gs.gasto.fechaGasto < :hasta " +
+        "GROUP BY gs.usuario.id, gs.gasto.usuario.id, gs.tipo")
+    List<TotalSplitUsuarioDTO> sumarPorUsuarioYTipoEntre(
+        @Param("parejaId") Long parejaId,
+        @Param("desde") LocalDateTime desde,
+        @Param("hasta") LocalDateTime hasta
+    );
+
+    @Query("SELECT new com.gastos.gastos_compartidos.dto.TotalSplitUsuarioDTO(gs.usuario.id, gs.gasto.usuario.id, gs.tipo, SUM(gs.monto)) " +
+        "FROM GastoSplit gs WHERE gs.gasto.pareja.id = :parejaId AND gs.gasto.deletedAt IS NULL " +
+        "AND gs.gasto.fechaGasto >= :desde " +
+        "GROUP BY gs.usuario.id, gs.gasto.usuario.id, gs.tipo")
+    List<TotalSplitUsuarioDTO> sumarPorUsuarioYTipoDesde(
+        @Param("parejaId") Long parejaId,
+        @Param("desde") LocalDateTime desde
+    );
+
+    // Recorrido en orden de fecha para el historial de balance; consumir dentro de una transacción
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.gastos.gastos_compartidos.dto.MovimientoSplitDTO(gs.gasto.fechaGasto, gs.usuario.id, gs.gasto.usuario.id, gs.tipo, gs.monto) " +
+        "FROM GastoSplit gs WHERE gs.gasto.pareja.id = :parejaId AND gs.gasto.deletedAt IS NULL " +
+        "AND gs.gasto.fechaGasto >= :desde AND gs.gasto.fechaGasto < :hasta " +
+        "ORDER BY gs.gasto.fechaGasto")
+    Stream<MovimientoSplitDTO> streamMovimientos(
+        @Param("parejaId") Long parejaId,
+        @Param("desde") LocalDateTime desde,
+        @Param("hasta") LocalDateTime hasta
+    );
 }
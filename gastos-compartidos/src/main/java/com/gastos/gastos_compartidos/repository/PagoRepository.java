@@ -1,23 +1,38 @@
 package com.gastos.gastos_compartidos.repository;
 
+import com.gastos.gastos_compartidos.dto.MovimientoPagoDTO;
+import com.gastos.gastos_compartidos.dto.TotalPagoUsuarioDTO;
 import com.gastos.gastos_compartidos.entity.Pago;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface PagoRepository extends JpaRepository<Pago, Long> {
 
     // Obtener todos los pagos de una pareja ordenados por fecha descendente
+    @EntityGraph(attributePaths = {"pagador", "receptor"})
     @Query("SELECT p FROM Pago p WHERE p.pareja.id = :parejaId AND p.estado = 'COMPLETADO' ORDER BY p.fechaPago DESC")
     List<Pago> findByParejaIdOrderByFechaPagoDesc(@Param("parejaId") Long parejaId);
 
+    // Pagos creados o modificados (incluye cancelados) desde una fecha, para sincronización
+    @EntityGraph(attributePaths = {"pagador", "receptor"})
+    @Query("SELECT p FROM Pago p WHERE p.pareja.id = :parejaId AND p.fechaActualizacion > :desde")
+    List<Pago> findModificadosDesde(@Param("parejaId") Long parejaId, @Param("desde") LocalDateTime desde);
+
     // Obtener pagos por periodo (mes y año)
+    @EntityGraph(attributePaths = {"pagador", "receptor"})
     @Query("SELECT p FROM Pago p WHERE p.pareja.id = :parejaId AND p.anoPago = :ano AND p.mesPago = :mes AND p.estado = 'COMPLETADO' ORDER BY p.fechaPago DESC")
     List<Pago> findByParejaIdAndAnoPagoAndMesPago(
             @Param("parejaId") Long parejaId,
@@ -25,6 +40,7 @@ public interface PagoRepository extends JpaRepository<Pago, Long> {
             @Param("mes") Integer mes);
 
     // Obtener pagos donde el usuario es pagador o receptor
+    @EntityGraph(attributePaths = {"pagador", "receptor"})
     @Query("SELECT p FROM Pago p WHERE (p.pagador.id = :usuarioId OR p.receptor.id = :usuarioId) AND p.estado = 'COMPLETADO' ORDER BY p.fechaPago DESC")
     List<Pago> findByPagadorIdOrReceptorId(@Param("usuarioId") Long usuarioId);
 
@@ -35,12 +51,58 @@ public interface PagoRepository extends JpaRepository<Pago, Long> {
             @Param("usuarioId") Long usuarioId);
 
     // Obtener últimos N pagos de una pareja
+    @EntityGraph(attributePaths = {"pagador", "receptor"})
     @Query("SELECT p FROM Pago p WHERE p.pareja.id = :parejaId AND p.estado = 'COMPLETADO' ORDER BY p.fechaPago DESC")
     List<Pago> findTopByParejaIdOrderByFechaPagoDesc(
             @Param("parejaId") Long parejaId,
             Pageable pageable);
 
     // === Paginated queries ===
+    @EntityGraph(attributePaths = {"pagador", "receptor"})
     @Query("SELECT p FROM Pago p WHERE p.pareja.id = :parejaId AND p.estado = 'COMPLETADO' ORDER BY p.fechaPago DESC")
     Page<Pago> findByParejaIdPaginado(@Param("parejaId") Long parejaId, Pageable pageable);
+
+    @Query(value = "SELECT p.* FROM pagos p WHERE p.pareja_id = :parejaId AND p.estado = 'COMPLETADO' " +
+            "AND (p.fecha_pago, p.id) < (:fecha, :id) " +
+            "ORDER BY p.fecha_pago DESC, p.id DESC LIMIT :limite", nativeQuery = true)
+    List<Pago> findByParejaIdDespuesDe(
+            @Param("parejaId") Long parejaId,
+            @Param("fecha") LocalDateTime fecha,
+            @Param("id") Long id,
+            @Param("limite") int limite);
+
+    // === Aggregate queries ===
+    @Query("SELECT new com.gastos.gastos_compartidos.dto.TotalPagoUsuarioDTO(p.pagador.id, p.receptor.id, SUM(p.monto)) " +
+            "FROM Pago p WHERE p.pareja.id = :parejaId AND p.estado = 'COMPLETADO' " +
+            "GROUP BY p.pagador.id, p.receptor.id")
+    List<TotalPagoUsuarioDTO> sumarPorPagadorYReceptor(@Param("parejaId") Long parejaId);
+
+    // Intervalo semiabierto [desde, hasta) para cerrar meses sin solapar
+    @Query("SELECT new com.gastos.gastos_compartidos.dto.TotalPagoUsuarioDTO(p.pagador.id, p.receptor.id, SUM(p.monto)) " +
+            "FROM Pago p WHERE p.pareja.id = :parejaId AND p.estado = 'COMPLETADO' " +
+            "AND p.fechaPago >= :desde AND p.fechaPago < :hasta " +
+            "GROUP BY p.pagador.id, p.receptor.id")
+    List<TotalPagoUsuarioDTO> sumarPorPagadorYReceptorEntre(
+            @Param("parejaId") Long parejaId,
+            @Param("desde") LocalDateTime desde,
+            @Param("hasta") LocalDateTime hasta);
+
+    @Query("SELECT new com.gastos.gastos_compartidos.dto.TotalPagoUsuarioDTO(p.pagador.id, p.receptor.id, SUM(p.monto)) " +
+            "FROM Pago p WHERE p.pareja.id = :parejaId AND p.estado = 'COMPLETADO' " +
+            "AND p.fechaPago >= :desde " +
+            "GROUP BY p.pagador.id, p.receptor.id")
+    List<TotalPagoUsuarioDTO> sumarPorPagadorYReceptorDesde(
+            @Param("parejaId") Long parejaId,
+            @Param("desde") LocalDateTime desde);
+
+    // Recorrido en orden de fecha para el historial de balance; consumir dentro de una transacción
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.gastos.gastos_compartidos.dto.MovimientoPagoDTO(p.fechaPago, p.pagador.id, p.receptor.id, p.monto) " +
+            "FROM Pago p WHERE p.pareja.id = :parejaId AND p.estado = 'COMPLETADO' " +
+            "AND p.fechaPago >= :desde AND p.fechaPago < :hasta " +
+            "ORDER BY p.fechaPago")
+    Stream<MovimientoPagoDTO> streamMovimientos(
+            @Param("parejaId") Long parejaId,
+            @Param("desde") LocalDateTime desde,
+            @Param("hasta") LocalDateTime hasta);
 }
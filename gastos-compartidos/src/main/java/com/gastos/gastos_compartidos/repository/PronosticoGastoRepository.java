@@ -0,0 +1,101 @@
+package com.gastos.gastos_compartidos.repository;
+
+import com.gastos.gastos_compartidos.entity.PronosticoGasto;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface PronosticoGastoRepository extends JpaRepository<PronosticoGasto, Long> {
+
+    // Lectura de los presupuestos y del endpoint: una consulta por usuario_id (uk_pronostico_gasto)
+    @Query("SELECT p FROM PronosticoGasto p LEFT JOIN FETCH p.categoria WHERE p.usuarioId = :usuarioId")
+    List<PronosticoGasto> findByUsuarioId(@Param("usuarioId") Long usuarioId);
+
+    // === Escritura incremental: un gasto mueve gastado y proyectado de los períodos que lo contienen ===
+
+    @Modifying
+    @Query(value = "UPDATE pronostico_gasto SET gastado = gastado + :delta, proyectado = proyectado + :delta, " +
+            "fecha_actualizacion = NOW() " +
+            "WHERE usuario_id = :usuarioId AND categoria_id = :categoriaId AND inicio <= :dia AND fin > :dia",
+            nativeQuery = true)
+    int acumularCategoria(
+            @Param("usuarioId") Long usuarioId,
+            @Param("categoriaId") Long categoriaId,
+            @Param("dia") LocalDate dia,
+            @Param("delta") BigDecimal delta);
+
+    @Modifying
+    @Query(value = "UPDATE pronostico_gasto SET gastado = gastado + :delta, proyectado = proyectado + :delta, " +
+            "fecha_actualizacion = NOW() " +
+            "WHERE usuario_id = :usuarioId AND categoria_id IS NULL AND inicio <= :dia AND fin > :dia",
+            nativeQuery = true)
+    int acumularTotal(
+            @Param("usuarioId") Long usuarioId,
+            @Param("dia") LocalDate dia,
+            @Param("delta") BigDecimal delta);
+
+    // === Cálculo completo ===
+
+    interface GastoCategoria {
+        Long getCategoria();
+
+        BigDecimal getSemana();
+
+        BigDecimal getMes();
+
+        BigDecimal getAnio();
+
+        BigDecimal getHistoria();
+    }
+
+    // Gastado en cada período y gasto reciente sin los gastos generados por recurrentes
+    // (ya entran por su calendario); un solo recorrido por idx de (usuario_id, fecha_gasto)
+    @Query(value = "SELECT categoria_id AS categoria, " +
+            "COALESCE(SUM(monto) FILTER (WHERE fecha_gasto >= :semanaDesde AND fecha_gasto < :semanaHasta), 0) AS semana, " +
+            "COALESCE(SUM(monto) FILTER (WHERE fecha_gasto >= :mesDesde AND fecha_gasto < :mesHasta), 0) AS mes, " +
+            "COALESCE(SUM(monto) FILTER (WHERE fecha_gasto >= :anioDesde AND fecha_gasto < :anioHasta), 0) AS anio, " +
+            "COALESCE(SUM(monto) FILTER (WHERE fecha_gasto >= :historiaDesde AND fecha_gasto < :hoy " +
+            "AND gasto_recurrente_id IS NULL), 0) AS historia " +
+            "FROM gastos " +
+            "WHERE usuario_id = :usuarioId AND deleted_at IS NULL " +
+            "AND fecha_gasto >= LEAST(:semanaDesde, :anioDesde, :historiaDesde) " +
+            "AND fecha_gasto < GREATEST(:semanaHasta, :anioHasta) " +
+            "GROUP BY categoria_id", nativeQuery = true)
+    List<GastoCategoria> sumarPorCategoria(
+            @Param("usuarioId") Long usuarioId,
+            @Param("semanaDesde") LocalDateTime semanaDesde,
+            @Param("semanaHasta") LocalDateTime semanaHasta,
+            @Param("mesDesde") LocalDateTime mesDesde,
+            @Param("mesHasta") LocalDateTime mesHasta,
+            @Param("anioDesde") LocalDateTime anioDesde,
+            @Param("anioHasta") LocalDateTime anioHasta,
+            @Param("historiaDesde") LocalDateTime historiaDesde,
+            @Param("hoy") LocalDateTime hoy);
+
+    // vigentes con la clave de uk_pronostico_gasto (0 = total), así nunca es vacía
+    @Modifying
+    @Query(value = "DELETE FROM pronostico_gasto WHERE usuario_id = :usuarioId " +
+            "AND COALESCE(categoria_id, 0) NOT IN (:vigentes)", nativeQuery = true)
+    void eliminarCategoriasNoVigentes(
+            @Param("usuarioId") Long usuarioId,
+            @Param("vigentes") Collection<Long> vigentes);
+
+    @Modifying
+    @Query(value = "DELETE FROM pronostico_gasto", nativeQuery = true)
+    void eliminarTodos();
+
+    // Usuarios con algo que proyectar: gasto reciente, recurrentes activos o presupuestos activos
+    @Query(value = "SELECT usuario_id FROM gastos WHERE deleted_at IS NULL AND fecha_gasto >= :desde " +
+            "UNION SELECT usuario_id FROM gastos_recurrentes WHERE activo = TRUE " +
+            "UNION SELECT usuario_id FROM presupuestos WHERE activo = TRUE", nativeQuery = true)
+    List<Long> findUsuariosConActividad(@Param("desde") LocalDateTime desde);
+}
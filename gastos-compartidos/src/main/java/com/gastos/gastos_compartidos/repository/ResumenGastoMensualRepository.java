@@ -0,0 +1,173 @@
+package com.gastos.gastos_compartidos.repository;
+
+import com.gastos.gastos_compartidos.dto.TotalCategoriaDTO;
+import com.gastos.gastos_compartidos.dto.TotalResumenUsuarioDTO;
+import com.gastos.gastos_compartidos.entity.ResumenGastoMensual;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface ResumenGastoMensualRepository extends JpaRepository<ResumenGastoMensual, Long> {
+
+    // Aporte de cada gasto vigente y de cada split PAGO a su fila del resumen; base de la
+    // reconstrucción y de la verificación
+    String APORTES = "SELECT g.pareja_id, g.usuario_id, g.categoria_id, " +
+            "CAST(date_trunc('month', g.fecha_gasto) AS DATE) AS periodo, " +
+            "g.monto AS total, 1 AS cantidad, 0 AS pagado " +
+            "FROM gastos g WHERE g.deleted_at IS NULL " +
+            "UNION ALL " +
+            "SELECT g.pareja_id, s.usuario_id, g.categoria_id, " +
+            "CAST(date_trunc('month', g.fecha_gasto) AS DATE), 0, 0, s.monto " +
+            "FROM gasto_splits s JOIN gastos g ON g.id = s.gasto_id " +
+            "WHERE g.deleted_at IS NULL AND s.tipo = 'PAGO'";
+
+    String INSERTAR_DESDE_APORTES = "INSERT INTO resumen_gastos_mensual " +
+            "(pareja_id, usuario_id, categoria_id, periodo, total, cantidad, pagado) " +
+            "SELECT pareja_id, usuario_id, categoria_id, periodo, SUM(total), SUM(cantidad), SUM(pagado) " +
+            "FROM (" + APORTES + ") a ";
+
+    // Suma atómica de deltas (upsert) para no perder actualizaciones concurrentes
+    @Modifying
+    @Query(value = "INSERT INTO resumen_gastos_mensual AS r " +
+            "(pareja_id, usuario_id, categoria_id, periodo, total, cantidad, pagado) " +
+            "VALUES (:parejaId, :usuarioId, :categoriaId, :periodo, :total, :cantidad, :pagado) " +
+            "ON CONFLICT ((COALESCE(pareja_id, 0)), usuario_id, (COALESCE(categoria_id, 0)), periodo) DO UPDATE SET " +
+            "total = r.total + EXCLUDED.total, " +
+            "cantidad = r.cantidad + EXCLUDED.cantidad, " +
+            "pagado = r.pagado + EXCLUDED.pagado", nativeQuery = true)
+    void acumular(
+            @Param("parejaId") Long parejaId,
+            @Param("usuarioId") Long usuarioId,
+            @Param("categoriaId") Long categoriaId,
+            @Param("periodo") LocalDate periodo,
+            @Param("total") BigDecimal total,
+            @Param("cantidad") int cantidad,
+            @Param("pagado") BigDecimal pagado);
+
+    // === Lecturas ===
+
+    List<ResumenGastoMensual> findByParejaIdAndPeriodoBetween(Long parejaId, LocalDate desde, LocalDate hasta);
+
+    @Query("SELECT new com.gastos.gastos_compartidos.dto.TotalResumenUsuarioDTO(r.usuarioId, SUM(r.total), " +
+            "SUM(r.cantidad), SUM(r.pagado)) " +
+            "FROM ResumenGastoMensual r WHERE r.parejaId = :parejaId AND r.periodo = :periodo " +
+            "GROUP BY r.usuarioId")
+    List<TotalResumenUsuarioDTO> sumarPorUsuarioEnPeriodo(
+            @Param("parejaId") Long parejaId,
+            @Param("periodo") LocalDate periodo);
+
+    @Query("SELECT new com.gastos.gastos_compartidos.dto.TotalCategoriaDTO(c.id, c.nombre, c.icono, c.color, " +
+            "SUM(r.total), SUM(r.cantidad)) " +
+            "FROM ResumenGastoMensual r LEFT JOIN Categoria c ON c.id = r.categoriaId " +
+            "WHERE r.parejaId = :parejaId AND r.periodo = :periodo " +
+            "GROUP BY c.id, c.nombre, c.icono, c.color HAVING SUM(r.cantidad) > 0")
+    List<TotalCategoriaDTO> sumarPorCategoriaEnPeriodo(
+            @Param("parejaId") Long parejaId,
+            @Param("periodo") LocalDate periodo);
+
+    // Gastos visibles para el usuario (individuales + pareja), toda la historia
+    @Query("SELECT new com.gastos.gastos_compartidos.dto.TotalCategoriaDTO(c.id, c.nombre, c.icono, c.color, " +
+            "SUM(r.total), SUM(r.cantidad)) " +
+            "FROM ResumenGastoMensual r LEFT JOIN Categoria c ON c.id = r.categoriaId " +
+            "WHERE (r.usuarioId = :usuarioId AND r.parejaId IS NULL) OR (:parejaId IS NOT NULL AND r.parejaId = :parejaId) " +
+            "GROUP BY c.id, c.nombre, c.icono, c.color HAVING SUM(r.cantidad) > 0")
+    List<TotalCategoriaDTO> sumarPorCategoriaDelUsuario(@Param("usuarioId") Long usuarioId,
+            @Param("parejaId") Long parejaId);
+
+    // === Tendencia mensual === (periodo es 'YYYY-MM')
+
+    interface TotalMensual {
+        String getPeriodo();
+
+        Long getClave();
+
+        String getNombre();
+
+        String getColor();
+
+        BigDecimal getTotal();
+
+        Long getCantidad();
+    }
+
+    @Query(value = "SELECT to_char(r.periodo, 'YYYY-MM') AS periodo, " +
+            "SUM(r.total) AS total, SUM(r.cantidad) AS cantidad " +
+            "FROM resumen_gastos_mensual r " +
+            "WHERE r.pareja_id = :parejaId AND r.periodo >= :desde AND r.periodo <= :hasta " +
+            "GROUP BY r.periodo HAVING SUM(r.cantidad) > 0 ORDER BY r.periodo", nativeQuery = true)
+    List<TotalMensual> sumarPorMes(
+            @Param("parejaId") Long parejaId,
+            @Param("desde") LocalDate desde,
+            @Param("hasta") LocalDate hasta);
+
+    @Query(value = "SELECT to_char(r.periodo, 'YYYY-MM') AS periodo, " +
+            "c.id AS clave, c.nombre AS nombre, c.color AS color, " +
+            "SUM(r.total) AS total, SUM(r.cantidad) AS cantidad " +
+            "FROM resumen_gastos_mensual r LEFT JOIN categorias c ON c.id = r.categoria_id " +
+            "WHERE r.pareja_id = :parejaId AND r.periodo >= :desde AND r.periodo <= :hasta " +
+            "GROUP BY r.periodo, c.id, c.nombre, c.color HAVING SUM(r.cantidad) > 0 " +
+            "ORDER BY r.periodo, total DESC", nativeQuery = true)
+    List<TotalMensual> sumarPorMesYCategoria(
+            @Param("parejaId") Long parejaId,
+            @Param("desde") LocalDate desde,
+            @Param("hasta") LocalDate hasta);
+
+    @Query(value = "SELECT to_char(r.periodo, 'YYYY-MM') AS periodo, " +
+            "u.id AS clave, u.nombre AS nombre, " +
+            "SUM(r.total) AS total, SUM(r.cantidad) AS cantidad " +
+            "FROM resumen_gastos_mensual r JOIN usuarios u ON u.id = r.usuario_id " +
+            "WHERE r.pareja_id = :parejaId AND r.periodo >= :desde AND r.periodo <= :hasta " +
+            "GROUP BY r.periodo, u.id, u.nombre HAVING SUM(r.cantidad) > 0 " +
+            "ORDER BY r.periodo, total DESC", nativeQuery = true)
+    List<TotalMensual> sumarPorMesYUsuario(
+            @Param("parejaId") Long parejaId,
+            @Param("desde") LocalDate desde,
+            @Param("hasta") LocalDate hasta);
+
+    // === Reconstrucción y verificación ===
+
+    @Modifying
+    @Query("DELETE FROM ResumenGastoMensual r WHERE r.parejaId = :parejaId")
+    void eliminarPorPareja(@Param("parejaId") Long parejaId);
+
+    @Modifying
+    @Query("DELETE FROM ResumenGastoMensual r WHERE r.usuarioId = :usuarioId AND r.parejaId IS NULL")
+    void eliminarIndividualesDeUsuario(@Param("usuarioId") Long usuarioId);
+
+    @Modifying
+    @Query(value = INSERTAR_DESDE_APORTES + "WHERE a.pareja_id = :parejaId " +
+            "GROUP BY pareja_id, usuario_id, categoria_id, periodo", nativeQuery = true)
+    int insertarDesdeGastosDePareja(@Param("parejaId") Long parejaId);
+
+    @Modifying
+    @Query(value = INSERTAR_DESDE_APORTES + "WHERE a.pareja_id IS NULL AND a.usuario_id = :usuarioId " +
+            "GROUP BY pareja_id, usuario_id, categoria_id, periodo", nativeQuery = true)
+    int insertarDesdeGastosIndividuales(@Param("usuarioId") Long usuarioId);
+
+    interface Diferencia {
+        Long getPareja();
+
+        Long getUsuario();
+    }
+
+    // Ámbitos (pareja, o usuario si pareja es null) cuyo resumen no coincide con los gastos
+    @Query(value = "SELECT DISTINCT COALESCE(e.pareja_id, r.pareja_id) AS pareja, " +
+            "COALESCE(e.usuario_id, r.usuario_id) AS usuario " +
+            "FROM (SELECT pareja_id, usuario_id, categoria_id, periodo, " +
+            "SUM(total) AS total, SUM(cantidad) AS cantidad, SUM(pagado) AS pagado " +
+            "FROM (" + APORTES + ") a GROUP BY pareja_id, usuario_id, categoria_id, periodo) e " +
+            "FULL JOIN (SELECT * FROM resumen_gastos_mensual " +
+            "WHERE total <> 0 OR cantidad <> 0 OR pagado <> 0) r " +
+            "ON COALESCE(e.pareja_id, 0) = COALESCE(r.pareja_id, 0) AND e.usuario_id = r.usuario_id " +
+            "AND COALESCE(e.categoria_id, 0) = COALESCE(r.categoria_id, 0) AND e.periodo = r.periodo " +
+            "WHERE e.total IS DISTINCT FROM r.total OR e.cantidad IS DISTINCT FROM r.cantidad " +
+            "OR e.pagado IS DISTINCT FROM r.pagado", nativeQuery = true)
+    List<Diferencia> buscarDiferencias();
+}
@@ -2,8 +2,11 @@ package com.gastos.gastos_compartidos.repository;
 
 import com.gastos.gastos_compartidos.entity.Usuario;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -14,4 +17,7 @@ public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
     Optional<Usuario> findByGoogleId(String googleId);
 
     boolean existsByEmail(String email);
+
+    @Query("SELECT u.id FROM Usuario u WHERE u.pareja.id = :parejaId ORDER BY u.id")
+    List<Long> findIdsByParejaId(@Param("parejaId") Long parejaId);
 }
@@ -0,0 +1,243 @@
+package com.gastos.gastos_compartidos.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gastos.gastos_compartidos.dto.ActividadParejaDTO;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Feed en vivo de la actividad de la pareja por Server-Sent Events.
+ *
+ * Publicar hace un pg_notify dentro de la transacción del cambio: PostgreSQL lo entrega
+ * solo al hacer commit (y nunca si hay rollback). Cada réplica escucha el canal con una
+ * conexión dedicada y reenvía el evento a sus propias conexiones SSE, así todas las
+ * réplicas ven todos los eventos, incluida la que lo originó.
+ */
+@Service
+@Slf4j
+public class ActividadParejaService {
+
+    static final String CANAL = "actividad_pareja";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    // LISTEN necesita una conexión propia y permanente: no se toma del pool
+    @Value("${spring.datasource.url}")
+    private String url;
+
+    @Value("${spring.datasource.username}")
+    private String username;
+
+    @Value("${spring.datasource.password}")
+    private String password;
+
+    @Value("${app.sse.max-conexiones-por-usuario:3}")
+    private int maxConexionesPorUsuario;
+
+    @Value("${app.sse.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${app.sse.heartbeat-ms:25000}")
+    private long heartbeatMs;
+
+    private final Map<Long, List<Conexion>> conexionesPorPareja = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService programador;
+    private Thread escucha;
+    private volatile boolean activo = true;
+
+    private record Conexion(Long usuarioId, SseEmitter emitter) {
+    }
+
+    public ActividadParejaService(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    void iniciar() {
+        // Un solo hilo para heartbeats y envíos: el hilo de LISTEN solo recibe
+        programador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "sse-envio");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        programador.scheduleAtFixedRate(this::enviarHeartbeat, heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+
+        escucha = new Thread(this::escuchar, "sse-listen");
+        escucha.setDaemon(true);
+        escucha.start();
+    }
+
+    @PreDestroy
+    void detener() {
+        activo = false;
+        escucha.interrupt();
+        programador.shutdownNow();
+        conexionesPorPareja.values().forEach(conexiones -> conexiones.forEach(c -> c.emitter().complete()));
+        conexionesPorPareja.clear();
+    }
+
+    /**
+     * Registra el evento para después del commit de la transacción actual. Fuera de una
+     * transacción se entrega de inmediato.
+     */
+    public void publicar(ActividadParejaDTO evento) {
+        if (evento.getParejaId() == null) {
+            return;
+        }
+        if (evento.getFecha() == null) {
+            evento.setFecha(LocalDateTime.now());
+        }
+        try {
+            jdbcTemplate.queryForList("SELECT pg_notify(?, ?)", CANAL, objectMapper.writeValueAsString(evento));
+        } catch (JsonProcessingException e) {
+            log.error("No se pudo serializar el evento de actividad {}: {}", evento.getTipo(), e.getMessage());
+        }
+    }
+
+    /**
+     * Abre una conexión SSE. Si el usuario ya tiene el máximo de conexiones se cierra la
+     * más antigua: normalmente es una pestaña que quedó abierta.
+     */
+    public SseEmitter suscribir(Long usuarioId, Long parejaId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Conexion conexion = new Conexion(usuarioId, emitter);
+
+        List<Conexion> desplazadas = new ArrayList<>();
+        conexionesPorPareja.compute(parejaId, (id, conexiones) -> {
+            List<Conexion> lista = conexiones != null ? conexiones : new CopyOnWriteArrayList<>();
+            List<Conexion> delUsuario = lista.stream().filter(c -> c.usuarioId().equals(usuarioId)).toList();
+            for (int i = 0; i <= delUsuario.size() - maxConexionesPorUsuario; i++) {
+                desplazadas.add(delUsuario.get(i));
+            }
+            lista.removeAll(desplazadas);
+            lista.add(conexion);
+            return lista;
+        });
+        // Fuera de compute: completar dispara onCompletion, que vuelve a tocar el mapa
+        desplazadas.forEach(c -> c.emitter().complete());
+
+        Runnable quitar = () -> quitar(parejaId, conexion);
+        emitter.onCompletion(quitar);
+        emitter.onTimeout(quitar);
+        emitter.onError(e -> quitar.run());
+
+        try {
+            // Confirma la conexión y fija el tiempo de reconexión del EventSource
+            emitter.send(SseEmitter.event().comment("conectado").reconnectTime(3000));
+        } catch (IOException e) {
+            quitar.run();
+        }
+        return emitter;
+    }
+
+    private void quitar(Long parejaId, Conexion conexion) {
+        conexionesPorPareja.computeIfPresent(parejaId, (id, conexiones) -> {
+            conexiones.remove(conexion);
+            return conexiones.isEmpty() ? null : conexiones;
+        });
+    }
+
+    private void escuchar() {
+        while (activo) {
+            try (Connection conexion = DriverManager.getConnection(url, username, password)) {
+                try (Statement st = conexion.createStatement()) {
+                    st.execute("LISTEN " + CANAL);
+                }
+                PGConnection pg = conexion.unwrap(PGConnection.class);
+                log.info("Escuchando el canal {} para el feed de actividad", CANAL);
+
+                while (activo) {
+                    PGNotification[] notificaciones = pg.getNotifications(10_000);
+                    if (notificaciones != null) {
+                        for (PGNotification notificacion : notificaciones) {
+                            String payload = notificacion.getParameter();
+                            programador.execute(() -> despachar(payload));
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (!activo) {
+                    return;
+                }
+                log.warn("Conexión LISTEN perdida, reintentando en 5 s: {}", e.getMessage());
+                try {
+                    Thread.sleep(5_000);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+            } catch (RuntimeException e) {
+                // RejectedExecutionException al apagar
+                if (!activo) {
+                    return;
+                }
+                log.error("Error en el feed de actividad: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    private void despachar(String payload) {
+        ActividadParejaDTO evento;
+        try {
+            evento = objectMapper.readValue(payload, ActividadParejaDTO.class);
+        } catch (IOException e) {
+            log.warn("Evento de actividad inválido: {}", e.getMessage());
+            return;
+        }
+
+        List<Conexion> conexiones = conexionesPorPareja.get(evento.getParejaId());
+        if (conexiones == null) {
+            return;
+        }
+        for (Conexion conexion : conexiones) {
+            if (evento.getDestinatarioId() != null && !evento.getDestinatarioId().equals(conexion.usuarioId())) {
+                continue;
+            }
+            try {
+                conexion.emitter().send(SseEmitter.event()
+                        .name(evento.getTipo().name())
+                        .data(payload, MediaType.APPLICATION_JSON));
+            } catch (IOException | IllegalStateException e) {
+                quitar(evento.getParejaId(), conexion);
+            }
+        }
+    }
+
+    private void enviarHeartbeat() {
+        conexionesPorPareja.forEach((parejaId, conexiones) -> {
+            for (Conexion conexion : conexiones) {
+                try {
+                    conexion.emitter().send(SseEmitter.event().comment("ping"));
+                } catch (IOException | IllegalStateException e) {
+                    quitar(parejaId, conexion);
+                }
+            }
+        });
+    }
+}
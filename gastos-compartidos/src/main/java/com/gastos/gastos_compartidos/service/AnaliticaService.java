@@ -0,0 +1,249 @@
+package com.gastos.gastos_compartidos.service;
+
+import com.gastos.gastos_compartidos.dto.AnaliticaDTO;
+import com.gastos.gastos_compartidos.entity.Categoria;
+import com.gastos.gastos_compartidos.entity.Pareja;
+import com.gastos.gastos_compartidos.entity.ResumenGastoMensual;
+import com.gastos.gastos_compartidos.exception.BadRequestException;
+import com.gastos.gastos_compartidos.exception.ResourceNotFoundException;
+import com.gastos.gastos_compartidos.repository.CategoriaRepository;
+import com.gastos.gastos_compartidos.repository.ParejaRepository;
+import com.gastos.gastos_compartidos.repository.ResumenGastoMensualRepository;
+import com.gastos.gastos_compartidos.repository.UsuarioRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Analítica de varios años sobre el resumen mensual (V15).
+ *
+ * Las filas del rango se cargan una sola vez en un cubo de long (centavos) indexado por
+ * mes × categoría × miembro; una pasada por el cubo da los totales por mes, categoría y
+ * miembro, y una pasada por los meses arma todas las series. Diez años de una pareja son
+ * unas pocas miles de filas: el costo lo domina la consulta, no el cálculo.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional(readOnly = true)
+public class AnaliticaService {
+
+    private static final int MAX_MESES = 120;
+    // Meses previos al rango que se cargan para promedios móviles y variación anual
+    private static final int HISTORIA_PREVIA = 12;
+
+    private final ResumenGastoMensualRepository resumenRepository;
+    private final ParejaRepository parejaRepository;
+    private final UsuarioRepository usuarioRepository;
+    private final CategoriaRepository categoriaRepository;
+
+    public AnaliticaDTO obtenerAnalitica(Long parejaId, int meses) {
+        if (meses < 1 || meses > MAX_MESES) {
+            throw new BadRequestException("meses debe estar entre 1 y " + MAX_MESES);
+        }
+        Pareja pareja = parejaRepository.findById(parejaId)
+                .orElseThrow(() -> new ResourceNotFoundException("Pareja no encontrada"));
+
+        long inicioCalculo = System.nanoTime();
+        YearMonth hasta = YearMonth.now();
+        YearMonth desde = hasta.minusMonths(meses - 1L);
+        YearMonth inicio = desde.minusMonths(HISTORIA_PREVIA);
+        int totalMeses = meses + HISTORIA_PREVIA;
+
+        List<ResumenGastoMensual> filas = resumenRepository.findByParejaIdAndPeriodoBetween(
+                parejaId, inicio.atDay(1), hasta.atDay(1));
+
+        // Índices de categorías y miembros: los actuales primero, luego los ex miembros con gastos.
+        // Solo cuentan las filas del rango: la historia previa aporta a los totales del mes, pero
+        // una categoría que no aparece en [desde, hasta] no debe figurar con una serie en cero.
+        Map<Long, Integer> indiceMiembro = new LinkedHashMap<>();
+        pareja.getUsuarios().forEach(u -> indiceMiembro.putIfAbsent(u.getId(), indiceMiembro.size()));
+        Map<Long, Integer> indiceCategoria = new LinkedHashMap<>();
+        for (ResumenGastoMensual fila : filas) {
+            if (!YearMonth.from(fila.getPeriodo()).isBefore(desde)) {
+                indiceMiembro.putIfAbsent(fila.getUsuarioId(), indiceMiembro.size());
+                indiceCategoria.putIfAbsent(fila.getCategoriaId(), indiceCategoria.size());
+            }
+        }
+        int nCategorias = Math.max(indiceCategoria.size(), 1);
+        int nMiembros = Math.max(indiceMiembro.size(), 1);
+
+        // Totales por mes de todo lo cargado; cubo [mes][categoría][miembro] en centavos,
+        // aplanado, solo para los meses del rango
+        long[] totalMes = new long[totalMeses];
+        long[] cantidadMes = new long[totalMeses];
+        long[] cubo = new long[meses * nCategorias * nMiembros];
+        for (ResumenGastoMensual fila : filas) {
+            int m = (int) ChronoUnit.MONTHS.between(inicio, YearMonth.from(fila.getPeriodo()));
+            long valor = centavos(fila.getTotal());
+            totalMes[m] += valor;
+            cantidadMes[m] += fila.getCantidad();
+            if (m >= HISTORIA_PREVIA) {
+                int c = indiceCategoria.get(fila.getCategoriaId());
+                int u = indiceMiembro.get(fila.getUsuarioId());
+                cubo[((m - HISTORIA_PREVIA) * nCategorias + c) * nMiembros + u] += valor;
+            }
+        }
+
+        // Una pasada por el cubo: totales por mes × categoría y por mes × miembro
+        long[] totalCategoria = new long[meses * nCategorias];
+        long[] totalMiembro = new long[meses * nMiembros];
+        for (int m = 0; m < meses; m++) {
+            for (int c = 0; c < nCategorias; c++) {
+                int base = (m * nCategorias + c) * nMiembros;
+                for (int u = 0; u < nMiembros; u++) {
+                    long valor = cubo[base + u];
+                    totalCategoria[m * nCategorias + c] += valor;
+                    totalMiembro[m * nMiembros + u] += valor;
+                }
+            }
+        }
+
+        // Sumas acumuladas: cualquier ventana móvil sale en O(1)
+        long[] acumulado = new long[totalMeses + 1];
+        for (int m = 0; m < totalMeses; m++) {
+            acumulado[m + 1] = acumulado[m] + totalMes[m];
+        }
+
+        List<String> periodos = new ArrayList<>(meses);
+        List<BigDecimal> totales = new ArrayList<>(meses);
+        List<Long> cantidades = new ArrayList<>(meses);
+        List<BigDecimal> promedio3 = new ArrayList<>(meses);
+        List<BigDecimal> promedio12 = new ArrayList<>(meses);
+        List<Double> variacionAnual = new ArrayList<>(meses);
+        List<List<BigDecimal>> seriesCategoria = listas(nCategorias, meses);
+        List<List<Double>> participacion = listas(nCategorias, meses);
+        List<List<BigDecimal>> seriesMiembro = listas(nMiembros, meses);
+        List<List<Double>> proporcion = listas(nMiembros, meses);
+        long[] totalPeriodoCategoria = new long[nCategorias];
+        long[] totalPeriodoMiembro = new long[nMiembros];
+
+        for (int m = HISTORIA_PREVIA; m < totalMeses; m++) {
+            periodos.add(inicio.plusMonths(m).toString());
+            totales.add(monto(totalMes[m]));
+            cantidades.add(cantidadMes[m]);
+            promedio3.add(promedio(acumulado, m, 3));
+            promedio12.add(promedio(acumulado, m, 12));
+            long anterior = totalMes[m - 12];
+            variacionAnual.add(anterior == 0 ? null : redondear((totalMes[m] - anterior) * 100.0 / anterior));
+
+            int r = m - HISTORIA_PREVIA;
+            for (int c = 0; c < nCategorias; c++) {
+                long valor = totalCategoria[r * nCategorias + c];
+                totalPeriodoCategoria[c] += valor;
+                seriesCategoria.get(c).add(monto(valor));
+                participacion.get(c).add(porcentaje(valor, totalMes[m]));
+            }
+            for (int u = 0; u < nMiembros; u++) {
+                long valor = totalMiembro[r * nMiembros + u];
+                totalPeriodoMiembro[u] += valor;
+                seriesMiembro.get(u).add(monto(valor));
+                proporcion.get(u).add(porcentaje(valor, totalMes[m]));
+            }
+        }
+
+        AnaliticaDTO analitica = AnaliticaDTO.builder()
+                .parejaId(parejaId)
+                .periodos(periodos)
+                .totales(totales)
+                .cantidades(cantidades)
+                .promedioMovil3(promedio3)
+                .promedioMovil12(promedio12)
+                .variacionAnual(variacionAnual)
+                .categorias(seriesCategorias(indiceCategoria, seriesCategoria, participacion, totalPeriodoCategoria))
+                .miembros(seriesMiembros(pareja, indiceMiembro, seriesMiembro, proporcion, totalPeriodoMiembro))
+                .build();
+
+        log.debug("Analítica de la pareja {}: {} filas, {} meses × {} categorías × {} miembros en {} µs",
+                parejaId, filas.size(), totalMeses, nCategorias, nMiembros,
+                (System.nanoTime() - inicioCalculo) / 1_000);
+        return analitica;
+    }
+
+    private List<AnaliticaDTO.SerieCategoria> seriesCategorias(Map<Long, Integer> indiceCategoria,
+            List<List<BigDecimal>> series, List<List<Double>> participacion, long[] totalPeriodo) {
+        Map<Long, Categoria> categorias = categoriaRepository.findAllById(
+                indiceCategoria.keySet().stream().filter(Objects::nonNull).toList()).stream()
+                .collect(Collectors.toMap(Categoria::getId, Function.identity()));
+
+        List<AnaliticaDTO.SerieCategoria> resultado = new ArrayList<>(indiceCategoria.size());
+        indiceCategoria.forEach((categoriaId, i) -> {
+            Categoria categoria = categoriaId != null ? categorias.get(categoriaId) : null;
+            resultado.add(AnaliticaDTO.SerieCategoria.builder()
+                    .categoriaId(categoriaId)
+                    .nombre(categoria != null ? categoria.getNombre() : "Sin categoría")
+                    .icono(categoria != null ? categoria.getIcono() : "help_outline")
+                    .color(categoria != null && categoria.getColor() != null ? categoria.getColor() : "#9e9e9e")
+                    .totalPeriodo(monto(totalPeriodo[i]))
+                    .totales(series.get(i))
+                    .participacion(participacion.get(i))
+                    .build());
+        });
+        // Mayor gasto del periodo primero, igual que el reporte mensual
+        resultado.sort((a, b) -> b.getTotalPeriodo().compareTo(a.getTotalPeriodo()));
+        return resultado;
+    }
+
+    private List<AnaliticaDTO.SerieMiembro> seriesMiembros(Pareja pareja, Map<Long, Integer> indiceMiembro,
+            List<List<BigDecimal>> series, List<List<Double>> proporcion, long[] totalPeriodo) {
+        Map<Long, String> nombres = new HashMap<>();
+        pareja.getUsuarios().forEach(u -> nombres.put(u.getId(), u.getNombre()));
+        List<Long> exMiembros = indiceMiembro.keySet().stream().filter(id -> !nombres.containsKey(id)).toList();
+        if (!exMiembros.isEmpty()) {
+            usuarioRepository.findAllById(exMiembros).forEach(u -> nombres.put(u.getId(), u.getNombre()));
+        }
+
+        List<AnaliticaDTO.SerieMiembro> resultado = new ArrayList<>(indiceMiembro.size());
+        indiceMiembro.forEach((usuarioId, i) -> resultado.add(AnaliticaDTO.SerieMiembro.builder()
+                .usuarioId(usuarioId)
+                .nombre(nombres.get(usuarioId))
+                .totalPeriodo(monto(totalPeriodo[i]))
+                .totales(series.get(i))
+                .proporcion(proporcion.get(i))
+                .build()));
+        return resultado;
+    }
+
+    private static <T> List<List<T>> listas(int cantidad, int capacidad) {
+        List<List<T>> listas = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            listas.add(new ArrayList<>(capacidad));
+        }
+        return listas;
+    }
+
+    private static BigDecimal promedio(long[] acumulado, int mes, int ventana) {
+        long suma = acumulado[mes + 1] - acumulado[mes + 1 - ventana];
+        return BigDecimal.valueOf(suma, 2).divide(BigDecimal.valueOf(ventana), 2, RoundingMode.HALF_UP);
+    }
+
+    private static long centavos(BigDecimal monto) {
+        return monto.movePointRight(2).longValue();
+    }
+
+    private static BigDecimal monto(long centavos) {
+        return BigDecimal.valueOf(centavos, 2);
+    }
+
+    private static double porcentaje(long parte, long total) {
+        return total == 0 ? 0 : redondear(parte * 100.0 / total);
+    }
+
+    private static double redondear(double valor) {
+        return Math.round(valor * 10.0) / 10.0;
+    }
+}
@@ -0,0 +1,179 @@
+package com.gastos.gastos_compartidos.service;
+
+import com.gastos.gastos_compartidos.dto.AnomaliaGastoDTO;
+import com.gastos.gastos_compartidos.entity.AnomaliaGasto;
+import com.gastos.gastos_compartidos.entity.Gasto;
+import com.gastos.gastos_compartidos.exception.BadRequestException;
+import com.gastos.gastos_compartidos.repository.AnomaliaGastoRepository;
+import com.gastos.gastos_compartidos.repository.EstadisticaCategoriaRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Detección de gastos inusuales por categoría. Por pareja y categoría se mantiene la
+ * cantidad, media y M2 (Welford) del logaritmo del monto de los gastos vigentes: los montos
+ * son muy asimétricos y en escala log "el triple de lo habitual" pesa igual en un café que
+ * en un arriendo. Cada escritura suma o quita su valor con un upsert en la misma transacción,
+ * igual que el balance y el resumen mensual.
+ *
+ * Al crear un gasto se compara contra la estadística previa a él; si queda más de
+ * app.anomalias.umbral desviaciones sobre la media se registra en anomalias_gasto.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AnomaliaService {
+
+    private static final int MAX_LIMITE = 100;
+
+    private final EstadisticaCategoriaRepository estadisticaRepository;
+    private final AnomaliaGastoRepository anomaliaRepository;
+
+    @Value("${app.anomalias.umbral:3.0}")
+    private double umbral;
+
+    @Value("${app.anomalias.minimo-gastos:10}")
+    private int minimoGastos;
+
+    // Piso de la desviación (en log, ~10 %): con montos casi fijos cualquier variación daría un puntaje enorme
+    @Value("${app.anomalias.desviacion-minima:0.1}")
+    private double desviacionMinima;
+
+    /**
+     * Valor de un gasto en la estadística; null si no participa (individual, sin
+     * categoría o monto no positivo). Se toma antes de editarlo para actualizarGasto.
+     */
+    public record Muestra(Long parejaId, Long categoriaId, double valor) {
+
+        public static Muestra de(Gasto gasto) {
+            if (gasto.getPareja() == null || gasto.getCategoria() == null
+                    || gasto.getMonto() == null || gasto.getMonto().signum() <= 0) {
+                return null;
+            }
+            return new Muestra(gasto.getPareja().getId(), gasto.getCategoria().getId(),
+                    Math.log(gasto.getMonto().doubleValue()));
+        }
+    }
+
+    /**
+     * Acumulador de Welford para importaciones: los gastos del lote se combinan con la
+     * estadística guardada en un solo upsert.
+     */
+    public static final class Acumulador {
+
+        private long cantidad;
+        private double media;
+        private double m2;
+
+        public void agregar(BigDecimal monto) {
+            if (monto.signum() <= 0) {
+                return;
+            }
+            double valor = Math.log(monto.doubleValue());
+            cantidad++;
+            double delta = valor - media;
+            media += delta / cantidad;
+            m2 += delta * (valor - media);
+        }
+    }
+
+    /**
+     * Evalúa el gasto nuevo contra la estadística de su categoría y luego lo suma a ella.
+     */
+    @Transactional
+    public void registrarGasto(Gasto gasto) {
+        Muestra muestra = Muestra.de(gasto);
+        if (muestra == null) {
+            return;
+        }
+        estadisticaRepository.buscar(muestra.parejaId(), muestra.categoriaId())
+                .ifPresent(estadistica -> evaluar(gasto, muestra, estadistica));
+        estadisticaRepository.combinar(muestra.parejaId(), muestra.categoriaId(), 1, muestra.valor(), 0);
+    }
+
+    @Transactional
+    public void revertirGasto(Gasto gasto) {
+        Muestra muestra = Muestra.de(gasto);
+        if (muestra != null) {
+            estadisticaRepository.quitar(muestra.parejaId(), muestra.categoriaId(), muestra.valor());
+        }
+    }
+
+    /**
+     * Quita el valor anterior y suma el nuevo. Una edición no se evalúa: la anomalía se
+     * detecta al registrar el gasto.
+     */
+    @Transactional
+    public void actualizarGasto(Gasto gasto, Muestra anterior) {
+        Muestra actual = Muestra.de(gasto);
+        if (Objects.equals(anterior, actual)) {
+            return;
+        }
+        if (anterior != null) {
+            estadisticaRepository.quitar(anterior.parejaId(), anterior.categoriaId(), anterior.valor());
+        }
+        if (actual != null) {
+            estadisticaRepository.combinar(actual.parejaId(), actual.categoriaId(), 1, actual.valor(), 0);
+        }
+    }
+
+    @Transactional
+    public void registrarLote(Long parejaId, Long categoriaId, Acumulador acumulador) {
+        if (parejaId == null || categoriaId == null || acumulador.cantidad == 0) {
+            return;
+        }
+        estadisticaRepository.combinar(parejaId, categoriaId, acumulador.cantidad, acumulador.media, acumulador.m2);
+    }
+
+    @Transactional(readOnly = true)
+    public List<AnomaliaGastoDTO> obtenerRecientes(Long parejaId, int limite) {
+        if (limite < 1 || limite > MAX_LIMITE) {
+            throw new BadRequestException("El límite debe estar entre 1 y " + MAX_LIMITE);
+        }
+        return anomaliaRepository.findRecientesByParejaId(parejaId, PageRequest.of(0, limite)).stream()
+                .map(AnomaliaGastoDTO::fromEntity)
+                .toList();
+    }
+
+    /**
+     * Recalcula todas las estadísticas desde los gastos. Quitar un valor acumula error de
+     * redondeo en media y M2; la reconstrucción nocturna lo descarta.
+     */
+    @Scheduled(cron = "0 0 4 * * *")
+    @Transactional
+    public void reconstruir() {
+        estadisticaRepository.eliminarTodas();
+        int filas = estadisticaRepository.insertarDesdeGastos();
+        log.info("Estadísticas de categoría reconstruidas: {}", filas);
+    }
+
+    private void evaluar(Gasto gasto, Muestra muestra, EstadisticaCategoriaRepository.Estadistica estadistica) {
+        if (estadistica.getCantidad() < Math.max(minimoGastos, 2)) {
+            return;
+        }
+        // Desviación estándar muestral
+        double desviacion = Math.max(Math.sqrt(estadistica.getM2() / (estadistica.getCantidad() - 1)),
+                desviacionMinima);
+        double puntaje = (muestra.valor() - estadistica.getMedia()) / desviacion;
+        if (puntaje < umbral) {
+            return;
+        }
+        anomaliaRepository.save(AnomaliaGasto.builder()
+                .gasto(gasto)
+                .parejaId(muestra.parejaId())
+                .puntaje(puntaje)
+                .montoTipico(BigDecimal.valueOf(Math.exp(estadistica.getMedia())).setScale(2, RoundingMode.HALF_UP))
+                .build());
+        log.debug("Gasto {} inusual en la categoría {} (puntaje {})", gasto.getId(), muestra.categoriaId(), puntaje);
+    }
+}
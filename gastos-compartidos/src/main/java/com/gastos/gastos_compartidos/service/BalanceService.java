@@ -0,0 +1,547 @@
+package com.gastos.gastos_compartidos.service;
+
+import com.gastos.gastos_compartidos.dto.BalanceHistorialDTO;
+import com.gastos.gastos_compartidos.dto.MovimientoPagoDTO;
+import com.gastos.gastos_compartidos.dto.MovimientoSplitDTO;
+import com.gastos.gastos_compartidos.dto.PuntoBalanceDTO;
+import com.gastos.gastos_compartidos.dto.TotalPagoUsuarioDTO;
+import com.gastos.gastos_compartidos.dto.TotalSplitUsuarioDTO;
+import com.gastos.gastos_compartidos.entity.*;
+import com.gastos.gastos_compartidos.repository.BalanceCheckpointRepository;
+import com.gastos.gastos_compartidos.repository.BalanceParejaRepository;
+import com.gastos.gastos_compartidos.repository.GastoSplitRepository;
+import com.gastos.gastos_compartidos.repository.PagoRepository;
+import com.gastos.gastos_compartidos.repository.ParejaRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Mantiene la tabla balance_pareja. Todas las escrituras de gastos, splits y pagos
+ * deben pasar por aquí dentro de su propia transacción para que el resumen de deuda
+ * sea una lectura de tiempo constante.
+ *
+ * También mantiene los checkpoints mensuales (balance_checkpoint): el saldo a una fecha
+ * parte del último mes cerrado y solo suma lo posterior. La verificación nocturna compara
+ * contra la historia completa, así un checkpoint desactualizado no puede ser la referencia.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BalanceService {
+
+    // Límite inferior para acumular cuando la pareja aún no tiene checkpoints
+    private static final LocalDateTime INICIO_HISTORIA = LocalDateTime.of(1900, 1, 1, 0, 0);
+
+    private final BalanceParejaRepository balanceParejaRepository;
+    private final BalanceCheckpointRepository balanceCheckpointRepository;
+    private final GastoSplitRepository gastoSplitRepository;
+    private final PagoRepository pagoRepository;
+    private final ParejaRepository parejaRepository;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    /**
+     * Variante masiva de registrarGasto para importaciones: deltas [debe, pagado, aFavor]
+     * ya acumulados por usuario, aplicados en un solo batch de upserts.
+     */
+    @Transactional
+    public void registrarDeltas(Long parejaId, Map<Long, BigDecimal[]> deltas, LocalDateTime fechaMasAntigua) {
+        aplicarDeltasSplits(parejaId, deltas, fechaMasAntigua);
+    }
+
+    @Transactional
+    public void registrarGasto(Gasto gasto) {
+        aplicarSplits(gasto, gasto.getSplits(), BigDecimal.ONE);
+    }
+
+    @Transactional
+    public void revertirGasto(Gasto gasto) {
+        aplicarSplits(gasto, gasto.getSplits(), BigDecimal.ONE.negate());
+    }
+
+    /**
+     * Edición de un gasto: aplica solo la diferencia entre los splits anteriores (copia
+     * tomada antes de modificarlos) y los actuales. Los miembros sin cambio no se tocan.
+     */
+    @Transactional
+    public void actualizarGasto(Gasto gasto, Collection<GastoSplit> anteriores) {
+        if (gasto.getPareja() == null) {
+            return;
+        }
+        Long registradorId = gasto.getUsuario().getId();
+        Map<Long, BigDecimal[]> deltas = new HashMap<>();
+        acumularSplits(registradorId, anteriores, BigDecimal.ONE.negate(), deltas);
+        acumularSplits(registradorId, gasto.getSplits(), BigDecimal.ONE, deltas);
+        aplicarDeltasSplits(gasto.getPareja().getId(), deltas, gasto.getFechaGasto());
+    }
+
+    @Transactional
+    public void registrarPago(Pago pago) {
+        aplicarPago(pago, BigDecimal.ONE);
+    }
+
+    @Transactional
+    public void revertirPago(Pago pago) {
+        aplicarPago(pago, BigDecimal.ONE.negate());
+    }
+
+    @Transactional(readOnly = true)
+    public Map<Long, BalancePareja> obtenerBalances(Long parejaId) {
+        return balanceParejaRepository.findByParejaId(parejaId).stream()
+                .collect(Collectors.toMap(BalancePareja::getUsuarioId, Function.identity()));
+    }
+
+    /**
+     * Saldo neto de cada usuario justo antes del instante indicado (positivo = acreedor).
+     * Parte del último checkpoint anterior.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, BigDecimal> calcularSaldosAl(Long parejaId, LocalDateTime instante) {
+        LocalDate periodo = balanceCheckpointRepository.findUltimoPeriodoAntesDe(parejaId,
+                YearMonth.from(instante).atDay(1));
+
+        Map<Long, BalancePareja> balances = new HashMap<>();
+        LocalDateTime desde = INICIO_HISTORIA;
+        if (periodo != null) {
+            balances = cargarCheckpoint(parejaId, periodo);
+            desde = YearMonth.from(periodo).plusMonths(1).atDay(1).atStartOfDay();
+        }
+        sumarTotales(parejaId, balances,
+                gastoSplitRepository.sumarPorUsuarioYTipoEntre(parejaId, desde, instante),
+                pagoRepository.sumarPorPagadorYReceptorEntre(parejaId, desde, instante));
+
+        Map<Long, BigDecimal> saldos = new HashMap<>();
+        balances.forEach((usuarioId, balance) -> saldos.put(usuarioId, calcularSaldo(balance)));
+        return saldos;
+    }
+
+    /**
+     * Evolución del saldo entre dos fechas (ambas incluidas). El saldo inicial sale de
+     * los agregados; después se mezclan en orden de fecha los splits y los pagos del
+     * rango, leídos como streams, y se emite un punto al cierre de cada periodo, fechado
+     * en su último día (hasta, si el periodo termina después). Un periodo que empieza antes
+     * de desde no pierde nada: lo anterior a desde ya está en el saldo inicial.
+     * La memoria usada no depende del tamaño del historial, solo de la cantidad de puntos.
+     */
+    @Transactional(readOnly = true)
+    public List<PuntoBalanceDTO> calcularHistorial(Long parejaId, Collection<Long> usuarioIds,
+            LocalDate desde, LocalDate hasta, BalanceHistorialDTO.Agrupacion agrupacion) {
+        LocalDateTime inicio = desde.atStartOfDay();
+        LocalDateTime fin = hasta.plusDays(1).atStartOfDay();
+
+        Map<Long, BigDecimal> saldos = new HashMap<>();
+        usuarioIds.forEach(usuarioId -> saldos.put(usuarioId, BigDecimal.ZERO));
+        saldos.putAll(calcularSaldosAl(parejaId, inicio));
+
+        List<PuntoBalanceDTO> puntos = new ArrayList<>();
+        try (Stream<MovimientoSplitDTO> splits = gastoSplitRepository.streamMovimientos(parejaId, inicio, fin);
+                Stream<MovimientoPagoDTO> pagos = pagoRepository.streamMovimientos(parejaId, inicio, fin)) {
+            Iterator<MovimientoSplitDTO> itSplits = splits.iterator();
+            Iterator<MovimientoPagoDTO> itPagos = pagos.iterator();
+            MovimientoSplitDTO split = itSplits.hasNext() ? itSplits.next() : null;
+            MovimientoPagoDTO pago = itPagos.hasNext() ? itPagos.next() : null;
+
+            for (LocalDate periodo = inicioPeriodo(desde, agrupacion); !periodo.isAfter(hasta);
+                    periodo = siguientePeriodo(periodo, agrupacion)) {
+                LocalDate siguiente = siguientePeriodo(periodo, agrupacion);
+                LocalDateTime finPeriodo = siguiente.atStartOfDay();
+
+                while ((split != null && split.fecha().isBefore(finPeriodo))
+                        || (pago != null && pago.fecha().isBefore(finPeriodo))) {
+                    if (pago == null || (split != null && !split.fecha().isAfter(pago.fecha()))) {
+                        // Los splits PAGO son la parte propia de quien registró: no mueven el saldo
+                        if (split.tipo() == GastoSplit.TipoSplit.DEBE) {
+                            saldos.merge(split.usuarioId(), split.monto().negate(), BigDecimal::add);
+                            saldos.merge(split.registradorId(), split.monto(), BigDecimal::add);
+                        }
+                        split = itSplits.hasNext() ? itSplits.next() : null;
+                    } else {
+                        saldos.merge(pago.pagadorId(), pago.monto(), BigDecimal::add);
+                        saldos.merge(pago.receptorId(), pago.monto().negate(), BigDecimal::add);
+                        pago = itPagos.hasNext() ? itPagos.next() : null;
+                    }
+                }
+
+                LocalDate cierre = siguiente.minusDays(1);
+                puntos.add(PuntoBalanceDTO.builder()
+                        .fecha(cierre.isAfter(hasta) ? hasta : cierre)
+                        .saldos(new HashMap<>(saldos))
+                        .build());
+            }
+        }
+        return puntos;
+    }
+
+    static LocalDate inicioPeriodo(LocalDate fecha, BalanceHistorialDTO.Agrupacion agrupacion) {
+        return switch (agrupacion) {
+            case DIA -> fecha;
+            case SEMANA -> fecha.minusDays(fecha.getDayOfWeek().getValue() - DayOfWeek.MONDAY.getValue());
+            case MES -> fecha.withDayOfMonth(1);
+        };
+    }
+
+    static LocalDate siguientePeriodo(LocalDate periodo, BalanceHistorialDTO.Agrupacion agrupacion) {
+        return switch (agrupacion) {
+            case DIA -> periodo.plusDays(1);
+            case SEMANA -> periodo.plusWeeks(1);
+            case MES -> periodo.plusMonths(1);
+        };
+    }
+
+    /**
+     * Recalcula el balance de la pareja a partir del último checkpoint mensual más los
+     * movimientos del periodo abierto. Sin checkpoints, recorre toda la historia.
+     * La verificación lo compara con recalcularCompleto para detectar checkpoints que no
+     * se invalidaron; nunca se usa en el camino de lectura.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, BalancePareja> recalcular(Long parejaId) {
+        LocalDate ultimoPeriodo = balanceCheckpointRepository.findUltimoPeriodo(parejaId);
+        if (ultimoPeriodo == null) {
+            return recalcularCompleto(parejaId);
+        }
+
+        Map<Long, BalancePareja> balances = cargarCheckpoint(parejaId, ultimoPeriodo);
+        LocalDateTime desde = YearMonth.from(ultimoPeriodo).plusMonths(1).atDay(1).atStartOfDay();
+        sumarTotales(parejaId, balances,
+                gastoSplitRepository.sumarPorUsuarioYTipoDesde(parejaId, desde),
+                pagoRepository.sumarPorPagadorYReceptorDesde(parejaId, desde));
+        return balances;
+    }
+
+    /**
+     * Recalcula el balance desde cero con dos agregaciones en la base de datos
+     * (splits por usuario y tipo, pagos por pagador y receptor), sin usar checkpoints.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, BalancePareja> recalcularCompleto(Long parejaId) {
+        Map<Long, BalancePareja> balances = new HashMap<>();
+        sumarTotales(parejaId, balances,
+                gastoSplitRepository.sumarPorUsuarioYTipo(parejaId),
+                pagoRepository.sumarPorPagadorYReceptor(parejaId));
+        return balances;
+    }
+
+    /**
+     * Reconstruye el balance desde la historia completa. Los checkpoints se descartan
+     * porque podrían ser la causa de la diferencia; el cierre programado los regenera.
+     */
+    @Transactional
+    public void reconstruir(Long parejaId) {
+        balanceCheckpointRepository.eliminarPorPareja(parejaId);
+        balanceParejaRepository.eliminarPorPareja(parejaId);
+        for (BalancePareja balance : recalcularCompleto(parejaId).values()) {
+            balanceParejaRepository.acumular(parejaId, balance.getUsuarioId(),
+                    balance.getTotalDebe(), balance.getTotalPagado(), balance.getTotalAFavor(),
+                    balance.getAbonosRealizados(), balance.getAbonosRecibidos());
+        }
+    }
+
+    /**
+     * Genera los checkpoints que faltan hasta el mes indicado (incluido).
+     * Si la pareja ya tiene checkpoints, cada mes nuevo es el anterior más los movimientos
+     * de ese mes; si no, se genera solo el del mes indicado acumulando toda la historia.
+     *
+     * @return cantidad de meses cerrados
+     */
+    @Transactional
+    public int cerrarMeses(Long parejaId, YearMonth hasta) {
+        LocalDate ultimoPeriodo = balanceCheckpointRepository.findUltimoPeriodo(parejaId);
+        YearMonth desde = ultimoPeriodo != null ? YearMonth.from(ultimoPeriodo).plusMonths(1) : hasta;
+        if (desde.isAfter(hasta)) {
+            return 0;
+        }
+
+        Map<Long, BalancePareja> acumulado = ultimoPeriodo != null
+                ? cargarCheckpoint(parejaId, ultimoPeriodo)
+                : new HashMap<>();
+        LocalDateTime inicioTramo = ultimoPeriodo != null ? desde.atDay(1).atStartOfDay() : INICIO_HISTORIA;
+
+        int cerrados = 0;
+        for (YearMonth mes = desde; !mes.isAfter(hasta); mes = mes.plusMonths(1)) {
+            LocalDateTime finTramo = mes.plusMonths(1).atDay(1).atStartOfDay();
+            sumarTotales(parejaId, acumulado,
+                    gastoSplitRepository.sumarPorUsuarioYTipoEntre(parejaId, inicioTramo, finTramo),
+                    pagoRepository.sumarPorPagadorYReceptorEntre(parejaId, inicioTramo, finTramo));
+            guardarCheckpoint(parejaId, mes, acumulado.values());
+            inicioTramo = finTramo;
+            cerrados++;
+        }
+        return cerrados;
+    }
+
+    /**
+     * Elimina los checkpoints afectados por una escritura fechada en un mes ya cerrado.
+     * Las escrituras del mes en curso no tocan la tabla.
+     */
+    @Transactional
+    public void invalidarCheckpoints(Long parejaId, LocalDateTime fecha) {
+        if (parejaId == null || fecha == null) {
+            return;
+        }
+        YearMonth mes = YearMonth.from(fecha);
+        if (!mes.isBefore(YearMonth.now())) {
+            return;
+        }
+        int eliminados = balanceCheckpointRepository.invalidarDesde(parejaId, mes.atDay(1));
+        if (eliminados > 0) {
+            log.debug("Invalidados {} checkpoint(s) de la pareja {} desde {}", eliminados, parejaId, mes);
+        }
+    }
+
+    /**
+     * Compara el balance materializado y el que se arma desde el último checkpoint con el
+     * recalculado desde cero. Devuelve los IDs de pareja con diferencias; si reparar es true,
+     * las reconstruye (y descarta sus checkpoints).
+     */
+    @Transactional
+    public List<Long> verificar(boolean reparar) {
+        List<Long> conDiferencias = new ArrayList<>();
+
+        for (Pareja pareja : parejaRepository.findAll()) {
+            Map<Long, BalancePareja> esperado = recalcularCompleto(pareja.getId());
+            Map<Long, BalancePareja> actual = obtenerBalances(pareja.getId());
+            boolean diferencias = hayDiferencias(pareja.getId(), esperado, actual);
+
+            // Una escritura en un mes cerrado que no invalidó su checkpoint deja el recálculo
+            // incremental desalineado aunque la tabla materializada haya recibido el delta
+            if (balanceCheckpointRepository.findUltimoPeriodo(pareja.getId()) != null
+                    && hayDiferencias(pareja.getId(), esperado, recalcular(pareja.getId()))) {
+                log.warn("Checkpoints de la pareja {} desactualizados", pareja.getId());
+                diferencias = true;
+            }
+
+            if (diferencias) {
+                conDiferencias.add(pareja.getId());
+                if (reparar) {
+                    reconstruir(pareja.getId());
+                }
+            }
+        }
+
+        return conDiferencias;
+    }
+
+    // Corre a diario para volver a cerrar los meses invalidados; antes de la verificación
+    @Scheduled(cron = "0 15 3 * * *")
+    @Transactional
+    public void cerrarMesesProgramado() {
+        YearMonth ultimoMesCerrado = YearMonth.now().minusMonths(1);
+        int cerrados = 0;
+        for (Pareja pareja : parejaRepository.findAll()) {
+            cerrados += cerrarMeses(pareja.getId(), ultimoMesCerrado);
+        }
+        if (cerrados > 0) {
+            log.info("Cierre de balances: {} checkpoint(s) mensuales generados hasta {}", cerrados, ultimoMesCerrado);
+        }
+    }
+
+    @Scheduled(cron = "0 30 3 * * *")
+    @Transactional
+    public void verificarBalancesProgramado() {
+        List<Long> conDiferencias = verificar(true);
+        if (conDiferencias.isEmpty()) {
+            log.info("Verificación de balances: sin diferencias");
+        } else {
+            log.warn("Verificación de balances: {} pareja(s) con diferencias reconstruidas: {}",
+                    conDiferencias.size(), conDiferencias);
+        }
+    }
+
+    private void aplicarSplits(Gasto gasto, Collection<GastoSplit> splits, BigDecimal signo) {
+        if (gasto.getPareja() == null || splits == null || splits.isEmpty()) {
+            return;
+        }
+
+        // Agrupar por usuario para hacer un solo upsert por miembro: [debe, pagado, aFavor]
+        Map<Long, BigDecimal[]> deltas = new HashMap<>();
+        acumularSplits(gasto.getUsuario().getId(), splits, signo, deltas);
+        aplicarDeltasSplits(gasto.getPareja().getId(), deltas, gasto.getFechaGasto());
+    }
+
+    private void acumularSplits(Long registradorId, Collection<GastoSplit> splits, BigDecimal signo,
+            Map<Long, BigDecimal[]> deltas) {
+        for (GastoSplit split : splits) {
+            BigDecimal[] delta = deltas.computeIfAbsent(split.getUsuario().getId(), id -> nuevoDelta());
+            BigDecimal monto = split.getMonto().multiply(signo);
+            if (split.getTipo() == GastoSplit.TipoSplit.DEBE) {
+                delta[0] = delta[0].add(monto);
+                BigDecimal[] deltaRegistrador = deltas.computeIfAbsent(registradorId, id -> nuevoDelta());
+                deltaRegistrador[2] = deltaRegistrador[2].add(monto);
+            } else {
+                delta[1] = delta[1].add(monto);
+            }
+        }
+    }
+
+    private void aplicarDeltasSplits(Long parejaId, Map<Long, BigDecimal[]> deltas, LocalDateTime fecha) {
+        deltas.values().removeIf(delta -> delta[0].signum() == 0 && delta[1].signum() == 0 && delta[2].signum() == 0);
+        if (deltas.isEmpty()) {
+            return;
+        }
+        invalidarCheckpoints(parejaId, fecha);
+
+        // Un upsert por miembro en un solo batch: editar un gasto cuesta lo mismo con 2 o con 10 miembros.
+        // En orden de usuario para que dos transacciones concurrentes bloqueen las filas en el mismo orden
+        SqlParameterSource[] filas = deltas.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .map(e -> new MapSqlParameterSource()
+                        .addValue("parejaId", parejaId)
+                        .addValue("usuarioId", e.getKey())
+                        .addValue("debe", e.getValue()[0])
+                        .addValue("pagado", e.getValue()[1])
+                        .addValue("aFavor", e.getValue()[2])
+                        .addValue("realizados", BigDecimal.ZERO)
+                        .addValue("recibidos", BigDecimal.ZERO))
+                .toArray(SqlParameterSource[]::new);
+        namedParameterJdbcTemplate.batchUpdate(BalanceParejaRepository.ACUMULAR, filas);
+    }
+
+    private BigDecimal[] nuevoDelta() {
+        return new BigDecimal[] { BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO };
+    }
+
+    private void aplicarPago(Pago pago, BigDecimal signo) {
+        if (pago.getEstado() != EstadoPago.COMPLETADO) {
+            return;
+        }
+
+        Long parejaId = pago.getPareja().getId();
+        invalidarCheckpoints(parejaId, pago.getFechaPago());
+        BigDecimal monto = pago.getMonto().multiply(signo);
+        balanceParejaRepository.acumular(parejaId, pago.getPagador().getId(),
+                BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, monto, BigDecimal.ZERO);
+        balanceParejaRepository.acumular(parejaId, pago.getReceptor().getId(),
+                BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, monto);
+    }
+
+    private void sumarTotales(Long parejaId, Map<Long, BalancePareja> balances,
+            List<TotalSplitUsuarioDTO> splits, List<TotalPagoUsuarioDTO> pagos) {
+        for (TotalSplitUsuarioDTO total : splits) {
+            BalancePareja balance = balances.computeIfAbsent(total.usuarioId(),
+                    id -> nuevoBalance(parejaId, id));
+            if (total.tipo() == GastoSplit.TipoSplit.DEBE) {
+                balance.setTotalDebe(balance.getTotalDebe().add(total.total()));
+                BalancePareja registrador = balances.computeIfAbsent(total.registradorId(),
+                        id -> nuevoBalance(parejaId, id));
+                registrador.setTotalAFavor(registrador.getTotalAFavor().add(total.total()));
+            } else {
+                balance.setTotalPagado(balance.getTotalPagado().add(total.total()));
+            }
+        }
+
+        for (TotalPagoUsuarioDTO total : pagos) {
+            BalancePareja pagador = balances.computeIfAbsent(total.pagadorId(),
+                    id -> nuevoBalance(parejaId, id));
+            pagador.setAbonosRealizados(pagador.getAbonosRealizados().add(total.total()));
+
+            BalancePareja receptor = balances.computeIfAbsent(total.receptorId(),
+                    id -> nuevoBalance(parejaId, id));
+            receptor.setAbonosRecibidos(receptor.getAbonosRecibidos().add(total.total()));
+        }
+    }
+
+    private Map<Long, BalancePareja> cargarCheckpoint(Long parejaId, LocalDate periodo) {
+        Map<Long, BalancePareja> balances = new HashMap<>();
+        for (BalanceCheckpoint checkpoint : balanceCheckpointRepository.findByParejaIdAndPeriodo(parejaId, periodo)) {
+            BalancePareja balance = nuevoBalance(parejaId, checkpoint.getUsuarioId());
+            balance.setTotalDebe(checkpoint.getTotalDebe());
+            balance.setTotalPagado(checkpoint.getTotalPagado());
+            balance.setTotalAFavor(checkpoint.getTotalAFavor());
+            balance.setAbonosRealizados(checkpoint.getAbonosRealizados());
+            balance.setAbonosRecibidos(checkpoint.getAbonosRecibidos());
+            balances.put(checkpoint.getUsuarioId(), balance);
+        }
+        return balances;
+    }
+
+    private void guardarCheckpoint(Long parejaId, YearMonth mes, Collection<BalancePareja> balances) {
+        List<BalanceCheckpoint> checkpoints = balances.stream()
+                .map(balance -> BalanceCheckpoint.builder()
+                        .parejaId(parejaId)
+                        .usuarioId(balance.getUsuarioId())
+                        .periodo(mes.atDay(1))
+                        .totalDebe(balance.getTotalDebe())
+                        .totalPagado(balance.getTotalPagado())
+                        .totalAFavor(balance.getTotalAFavor())
+                        .abonosRealizados(balance.getAbonosRealizados())
+                        .abonosRecibidos(balance.getAbonosRecibidos())
+                        .build())
+                .collect(Collectors.toList());
+        balanceCheckpointRepository.saveAll(checkpoints);
+    }
+
+    private boolean hayDiferencias(Long parejaId, Map<Long, BalancePareja> esperado,
+            Map<Long, BalancePareja> actual) {
+        boolean diferencias = false;
+        Set<Long> usuarios = new HashSet<>(esperado.keySet());
+        usuarios.addAll(actual.keySet());
+
+        for (Long usuarioId : usuarios) {
+            BalancePareja e = esperado.getOrDefault(usuarioId, nuevoBalance(parejaId, usuarioId));
+            BalancePareja a = actual.getOrDefault(usuarioId, nuevoBalance(parejaId, usuarioId));
+
+            if (!iguales(e.getTotalDebe(), a.getTotalDebe())
+                    || !iguales(e.getTotalPagado(), a.getTotalPagado())
+                    || !iguales(e.getTotalAFavor(), a.getTotalAFavor())
+                    || !iguales(e.getAbonosRealizados(), a.getAbonosRealizados())
+                    || !iguales(e.getAbonosRecibidos(), a.getAbonosRecibidos())) {
+                log.warn("Diferencia de balance en pareja {} usuario {}: esperado [debe={}, pagado={}, aFavor={}, " +
+                        "realizados={}, recibidos={}] actual [debe={}, pagado={}, aFavor={}, realizados={}, recibidos={}]",
+                        parejaId, usuarioId,
+                        e.getTotalDebe(), e.getTotalPagado(), e.getTotalAFavor(),
+                        e.getAbonosRealizados(), e.getAbonosRecibidos(),
+                        a.getTotalDebe(), a.getTotalPagado(), a.getTotalAFavor(),
+                        a.getAbonosRealizados(), a.getAbonosRecibidos());
+                diferencias = true;
+            }
+        }
+        return diferencias;
+    }
+
+    /**
+     * Saldo neto del usuario dentro del grupo (positivo = le deben, negativo = debe).
+     * Saldo = A favor - Debe + Abonos Realizados - Abonos Recibidos; la suma del grupo es cero.
+     */
+    public static BigDecimal calcularSaldo(BalancePareja balance) {
+        return Objects.requireNonNullElse(balance.getTotalAFavor(), BigDecimal.ZERO)
+                .subtract(Objects.requireNonNullElse(balance.getTotalDebe(), BigDecimal.ZERO))
+                .add(Objects.requireNonNullElse(balance.getAbonosRealizados(), BigDecimal.ZERO))
+                .subtract(Objects.requireNonNullElse(balance.getAbonosRecibidos(), BigDecimal.ZERO));
+    }
+
+    private boolean iguales(BigDecimal a, BigDecimal b) {
+        return Objects.requireNonNullElse(a, BigDecimal.ZERO)
+                .compareTo(Objects.requireNonNullElse(b, BigDecimal.ZERO)) == 0;
+    }
+
+    private BalancePareja nuevoBalance(Long parejaId, Long usuarioId) {
+        return BalancePareja.builder()
+                .parejaId(parejaId)
+                .usuarioId(usuarioId)
+                .build();
+    }
+}
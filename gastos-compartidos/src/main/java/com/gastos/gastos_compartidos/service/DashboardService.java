@@ -0,0 +1,144 @@
+package com.gastos.gastos_compartidos.service;
+
+import com.gastos.gastos_compartidos.dto.DashboardDTO;
+import com.gastos.gastos_compartidos.dto.ResumenDeudaDTO;
+import com.gastos.gastos_compartidos.entity.Usuario;
+import com.gastos.gastos_compartidos.exception.BadRequestException;
+import com.gastos.gastos_compartidos.exception.ResourceNotFoundException;
+import com.gastos.gastos_compartidos.repository.UsuarioRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Arma el dashboard resolviendo el usuario una sola vez y consultando cada sección en
+ * paralelo. Cada sección corre en su propia transacción de solo lectura (la del servicio
+ * que la calcula) sobre un pool acotado (ver DashboardConfig), para no agotar las conexiones
+ * de la base de datos.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DashboardService {
+
+    public static final String SECCION_GASTOS_RECIENTES = "gastosRecientes";
+    public static final String SECCION_RESUMEN_GASTOS = "resumenGastos";
+    public static final String SECCION_PRESUPUESTOS = "presupuestosActivos";
+    public static final String SECCION_RESUMEN_PAGOS = "resumenPagos";
+    public static final String SECCION_RESUMEN_DEUDAS = "resumenDeudas";
+
+    private static final int CANTIDAD_GASTOS_RECIENTES = 5;
+
+    private final UsuarioRepository usuarioRepository;
+    private final GastoService gastoService;
+    private final PresupuestoService presupuestoService;
+    private final PagoService pagoService;
+    private final DeudaService deudaService;
+    private final ThreadPoolTaskExecutor dashboardExecutor;
+
+    @Value("${app.dashboard.timeout-ms:5000}")
+    private long timeoutMs;
+
+    /**
+     * Dashboard más el tiempo de cada sección en milisegundos (en orden, con "total" al final).
+     */
+    public record Resultado(DashboardDTO dashboard, Map<String, Double> tiempos) {
+    }
+
+    public Resultado obtenerDashboard(Long usuarioId) {
+        long inicio = System.nanoTime();
+
+        Usuario usuario = usuarioRepository.findById(usuarioId)
+                .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado"));
+        Long parejaId = usuario.getPareja() != null ? usuario.getPareja().getId() : null;
+
+        Map<String, Double> tiempos = new ConcurrentHashMap<>();
+        Map<String, String> errores = new ConcurrentHashMap<>();
+
+        var gastosRecientes = seccion(SECCION_GASTOS_RECIENTES, tiempos, errores,
+                () -> gastoService.obtenerGastosRecientes(usuarioId, parejaId, CANTIDAD_GASTOS_RECIENTES));
+        var resumenGastos = seccion(SECCION_RESUMEN_GASTOS, tiempos, errores,
+                () -> gastoService.obtenerResumenGastos(usuarioId, parejaId));
+        var presupuestos = seccion(SECCION_PRESUPUESTOS, tiempos, errores,
+                () -> presupuestoService.obtenerActivosPorUsuario(usuarioId));
+        var resumenPagos = parejaId == null
+                ? CompletableFuture.<ResumenDeudaDTO>completedFuture(null)
+                : seccion(SECCION_RESUMEN_PAGOS, tiempos, errores,
+                        () -> pagoService.calcularResumenDeudaPorPareja(parejaId));
+        var resumenDeudas = seccion(SECCION_RESUMEN_DEUDAS, tiempos, errores,
+                () -> deudaService.obtenerResumen(usuarioId));
+
+        try {
+            CompletableFuture.allOf(gastosRecientes, resumenGastos, presupuestos, resumenPagos, resumenDeudas)
+                    .get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Dashboard del usuario {}: secciones sin terminar tras {} ms", usuarioId, timeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // Cada sección captura sus propios errores; no debería llegar aquí
+            log.error("Error inesperado armando el dashboard", e);
+        }
+
+        DashboardDTO dashboard = DashboardDTO.builder()
+                .usuarioId(usuarioId)
+                .parejaId(parejaId)
+                .gastosRecientes(resultado(SECCION_GASTOS_RECIENTES, gastosRecientes, errores))
+                .resumenGastos(resultado(SECCION_RESUMEN_GASTOS, resumenGastos, errores))
+                .presupuestosActivos(resultado(SECCION_PRESUPUESTOS, presupuestos, errores))
+                .resumenPagos(resultado(SECCION_RESUMEN_PAGOS, resumenPagos, errores))
+                .resumenDeudas(resultado(SECCION_RESUMEN_DEUDAS, resumenDeudas, errores))
+                .errores(errores.isEmpty() ? null : new LinkedHashMap<>(errores))
+                .build();
+
+        Map<String, Double> tiemposOrdenados = new LinkedHashMap<>();
+        for (String nombre : new String[] { SECCION_GASTOS_RECIENTES, SECCION_RESUMEN_GASTOS, SECCION_PRESUPUESTOS,
+                SECCION_RESUMEN_PAGOS, SECCION_RESUMEN_DEUDAS }) {
+            if (tiempos.containsKey(nombre)) {
+                tiemposOrdenados.put(nombre, tiempos.get(nombre));
+            }
+        }
+        tiemposOrdenados.put("total", (System.nanoTime() - inicio) / 1_000_000.0);
+
+        return new Resultado(dashboard, tiemposOrdenados);
+    }
+
+    private <T> CompletableFuture<T> seccion(String nombre, Map<String, Double> tiempos, Map<String, String> errores,
+            Supplier<T> tarea) {
+        return CompletableFuture.supplyAsync(() -> {
+            long inicio = System.nanoTime();
+            try {
+                return tarea.get();
+            } catch (BadRequestException | ResourceNotFoundException e) {
+                errores.put(nombre, e.getMessage());
+                return null;
+            } catch (RuntimeException e) {
+                log.error("Error en la sección {} del dashboard", nombre, e);
+                errores.put(nombre, "No se pudo cargar la sección");
+                return null;
+            } finally {
+                tiempos.put(nombre, (System.nanoTime() - inicio) / 1_000_000.0);
+            }
+        }, dashboardExecutor);
+    }
+
+    private <T> T resultado(String nombre, CompletableFuture<T> futuro, Map<String, String> errores) {
+        if (!futuro.isDone()) {
+            futuro.cancel(false);
+            errores.put(nombre, "Tiempo de espera agotado");
+            return null;
+        }
+        return futuro.getNow(null);
+    }
+}
@@ -65,6 +65,7 @@ public class DeudaService {
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public Page<DeudaResponseDTO> obtenerDeudasUsuarioPaginado(Long usuarioId, boolean soloActivas, Pageable pageable) {
         if (soloActivas) {
             return deudaRepository
@@ -75,6 +76,21 @@ public class DeudaService {
                 .map(DeudaResponseDTO::fromEntity);
     }
 
+    @Transactional(readOnly = true)
+    public CursorPageDTO<DeudaResponseDTO> obtenerDeudasUsuarioCursor(Long usuarioId, boolean soloActivas,
+            String cursor, int tamano) {
+        CursorPageDTO.Cursor desde = CursorPageDTO.Cursor.decodificar(cursor);
+        int limite = CursorPageDTO.normalizarTamano(tamano);
+
+        List<Deuda> deudas = soloActivas
+                ? deudaRepository.findByUsuarioIdAndEstadoDespuesDe(usuarioId, EstadoDeuda.ACTIVA.name(),
+                        desde.fecha(), desde.id(), limite + 1)
+                : deudaRepository.findByUsuarioIdDespuesDe(usuarioId, desde.fecha(), desde.id(), limite + 1);
+        return CursorPageDTO.de(deudas, limite,
+                d -> new CursorPageDTO.Cursor(d.getFechaCreacion(), d.getId()),
+                DeudaResponseDTO::fromEntity);
+    }
+
     public DeudaResponseDTO obtenerDeuda(Long usuarioId, Long deudaId) {
         Deuda deuda = obtenerDeudaYValidar(usuarioId, deudaId);
 
@@ -207,7 +223,7 @@ public class DeudaService {
                 .build();
     }
 
-    private Deuda obtenerDeudaYValidar(Long usuarioId, Long deudaId) {
+    Deuda obtenerDeudaYValidar(Long usuarioId, Long deudaId) {
         Deuda deuda = deudaRepository.findById(deudaId)
                 .orElseThrow(() -> new ResourceNotFoundException("Deuda no encontrada"));
 
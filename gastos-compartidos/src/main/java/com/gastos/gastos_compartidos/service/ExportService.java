@@ -15,38 +15,76 @@ import com.lowagie.text.Font;
 import com.lowagie.text.pdf.PdfPCell;
 import com.lowagie.text.pdf.PdfPTable;
 import com.lowagie.text.pdf.PdfWriter;
-import lombok.RequiredArgsConstructor;
 import org.apache.poi.ss.usermodel.CellStyle;
 import org.apache.poi.ss.usermodel.DataFormat;
 import org.apache.poi.ss.usermodel.FillPatternType;
 import org.apache.poi.ss.usermodel.HorizontalAlignment;
 import org.apache.poi.ss.usermodel.IndexedColors;
-import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.util.CellRangeAddress;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.sql.DataSource;
 import java.awt.Color;
 import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.math.BigDecimal;
+import java.sql.Timestamp;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 
 @Service
-@RequiredArgsConstructor
 @Transactional(readOnly = true)
 public class ExportService {
 
-    private final GastoRepository gastoRepository;
-    private final ParejaRepository parejaRepository;
-
     private static final DateTimeFormatter DATE_FMT = DateTimeFormatter.ofPattern("dd/MM/yyyy");
     private static final DateTimeFormatter DATETIME_FMT = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
 
+    private static final String[] EXCEL_HEADERS = {"Descripción", "Monto", "Categoría", "Registrado por", "Fecha", "Notas"};
+    private static final int[] EXCEL_ANCHOS = {40, 14, 20, 20, 18, 40};
+
+    private static final String SQL_GASTOS_EXCEL = """
+            SELECT g.descripcion, g.monto, g.notas, g.fecha_gasto,
+                   u.nombre AS usuario_nombre, c.nombre AS categoria_nombre
+            FROM gastos g
+            JOIN usuarios u ON u.id = g.usuario_id
+            LEFT JOIN categorias c ON c.id = g.categoria_id
+            WHERE g.deleted_at IS NULL AND g.pareja_id = ?
+              AND g.fecha_gasto >= ? AND g.fecha_gasto <= ?
+            ORDER BY g.fecha_gasto DESC
+            """;
+
+    private final GastoRepository gastoRepository;
+    private final ParejaRepository parejaRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate soloLectura;
+    private final int ventanaFilas;
+
+    public ExportService(GastoRepository gastoRepository, ParejaRepository parejaRepository, DataSource dataSource,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.streaming.fetch-size:500}") int fetchSize,
+            @Value("${app.exportacion.ventana-filas:100}") int ventanaFilas) {
+        this.gastoRepository = gastoRepository;
+        this.parejaRepository = parejaRepository;
+        this.ventanaFilas = ventanaFilas;
+
+        // Igual que ListadoStreamingService: plantilla propia con fetch size y cursor dentro
+        // de una transacción de solo lectura (el cuerpo se escribe fuera de la del servicio)
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.soloLectura = new TransactionTemplate(transactionManager);
+        this.soloLectura.setReadOnly(true);
+    }
+
     public byte[] generarPdfGastos(Long parejaId, LocalDate desde, LocalDate hasta) {
         Pareja pareja = parejaRepository.findById(parejaId)
                 .orElseThrow(() -> new ResourceNotFoundException("Pareja no encontrada"));
@@ -132,111 +170,114 @@ public class ExportService {
         return baos.toByteArray();
     }
 
-    public byte[] generarExcelGastos(Long parejaId, LocalDate desde, LocalDate hasta) throws IOException {
+    /**
+     * Excel de los gastos del período escrito directo a la respuesta. SXSSF mantiene en memoria
+     * solo las últimas filas (app.exportacion.ventana-filas) y baja el resto a un archivo
+     * temporal comprimido; las filas llegan de un cursor de solo avance sin entidades. Los
+     * anchos de columna son fijos: autoSizeColumn necesita todas las filas en memoria.
+     * La pareja se valida antes de empezar a escribir, para poder responder con el error.
+     */
+    public StreamingResponseBody excelGastos(Long parejaId, LocalDate desde, LocalDate hasta) {
         Pareja pareja = parejaRepository.findById(parejaId)
                 .orElseThrow(() -> new ResourceNotFoundException("Pareja no encontrada"));
-
-        LocalDateTime inicio = desde.atStartOfDay();
-        LocalDateTime fin = hasta.atTime(23, 59, 59);
-        List<Gasto> gastos = gastoRepository.findByParejaidAndFechaRango(parejaId, inicio, fin);
-
-        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
-            Sheet sheet = workbook.createSheet("Gastos");
-
-            // Estilos
-            CellStyle headerStyle = workbook.createCellStyle();
-            org.apache.poi.ss.usermodel.Font headerFontPoi = workbook.createFont();
-            headerFontPoi.setBold(true);
-            headerFontPoi.setColor(IndexedColors.WHITE.getIndex());
-            headerStyle.setFont(headerFontPoi);
-            headerStyle.setFillForegroundColor(IndexedColors.ROYAL_BLUE.getIndex());
-            headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-            headerStyle.setAlignment(HorizontalAlignment.CENTER);
-
-            CellStyle moneyStyle = workbook.createCellStyle();
-            DataFormat format = workbook.createDataFormat();
-            moneyStyle.setDataFormat(format.getFormat("#,##0"));
-
-            CellStyle dateStyle = workbook.createCellStyle();
-            dateStyle.setDataFormat(format.getFormat("dd/mm/yyyy hh:mm"));
-
-            CellStyle titleStyle = workbook.createCellStyle();
-            org.apache.poi.ss.usermodel.Font titleFontPoi = workbook.createFont();
-            titleFontPoi.setBold(true);
-            titleFontPoi.setFontHeightInPoints((short) 14);
-            titleStyle.setFont(titleFontPoi);
-
-            // Título
-            org.apache.poi.ss.usermodel.Row titleRow = sheet.createRow(0);
-            org.apache.poi.ss.usermodel.Cell titleCell = titleRow.createCell(0);
-            titleCell.setCellValue("Gastos Compartidos - " + pareja.getNombrePareja());
-            titleCell.setCellStyle(titleStyle);
-            sheet.addMergedRegion(new CellRangeAddress(0, 0, 0, 5));
-
-            org.apache.poi.ss.usermodel.Row periodRow = sheet.createRow(1);
-            periodRow.createCell(0).setCellValue(
-                    "Período: " + desde.format(DATE_FMT) + " - " + hasta.format(DATE_FMT));
-            sheet.addMergedRegion(new CellRangeAddress(1, 1, 0, 5));
-
-            // Headers
-            org.apache.poi.ss.usermodel.Row headerRow = sheet.createRow(3);
-            String[] headers = {"Descripción", "Monto", "Categoría", "Registrado por", "Fecha", "Notas"};
-            for (int i = 0; i < headers.length; i++) {
-                org.apache.poi.ss.usermodel.Cell cell = headerRow.createCell(i);
-                cell.setCellValue(headers[i]);
-                cell.setCellStyle(headerStyle);
-            }
-
-            // Datos
-            int rowNum = 4;
-            BigDecimal total = BigDecimal.ZERO;
-            for (Gasto gasto : gastos) {
-                org.apache.poi.ss.usermodel.Row row = sheet.createRow(rowNum++);
-                row.createCell(0).setCellValue(gasto.getDescripcion());
-
-                org.apache.poi.ss.usermodel.Cell montoCell = row.createCell(1);
-                montoCell.setCellValue(gasto.getMonto().doubleValue());
-                montoCell.setCellStyle(moneyStyle);
-
-                row.createCell(2).setCellValue(
-                        gasto.getCategoria() != null ? gasto.getCategoria().getNombre() : "-");
-                row.createCell(3).setCellValue(gasto.getUsuario().getNombre());
-
-                org.apache.poi.ss.usermodel.Cell dateCell = row.createCell(4);
-                dateCell.setCellValue(gasto.getFechaGasto().format(DATETIME_FMT));
-
-                row.createCell(5).setCellValue(gasto.getNotas() != null ? gasto.getNotas() : "");
-
-                total = total.add(gasto.getMonto());
+        String nombrePareja = pareja.getNombrePareja();
+
+        return out -> {
+            // close() también borra los archivos temporales de las hojas
+            try (SXSSFWorkbook workbook = new SXSSFWorkbook(ventanaFilas)) {
+                workbook.setCompressTempFiles(true);
+                escribirExcel(workbook, nombrePareja, parejaId, desde, hasta);
+                workbook.write(out);
             }
+        };
+    }
 
-            // Fila total
-            org.apache.poi.ss.usermodel.Row totalRow = sheet.createRow(rowNum + 1);
-            CellStyle totalStyle = workbook.createCellStyle();
-            org.apache.poi.ss.usermodel.Font totalFontPoi = workbook.createFont();
-            totalFontPoi.setBold(true);
-            totalStyle.setFont(totalFontPoi);
-
-            org.apache.poi.ss.usermodel.Cell totalLabelCell = totalRow.createCell(0);
-            totalLabelCell.setCellValue("TOTAL (" + gastos.size() + " gastos)");
-            totalLabelCell.setCellStyle(totalStyle);
-
-            org.apache.poi.ss.usermodel.Cell totalMontoCell = totalRow.createCell(1);
-            totalMontoCell.setCellValue(total.doubleValue());
-            CellStyle totalMoneyStyle = workbook.createCellStyle();
-            totalMoneyStyle.cloneStyleFrom(moneyStyle);
-            totalMoneyStyle.setFont(totalFontPoi);
-            totalMontoCell.setCellStyle(totalMoneyStyle);
-
-            // Auto-size columns
-            for (int i = 0; i < headers.length; i++) {
-                sheet.autoSizeColumn(i);
-            }
+    private void escribirExcel(SXSSFWorkbook workbook, String nombrePareja, Long parejaId, LocalDate desde,
+            LocalDate hasta) {
+        SXSSFSheet sheet = workbook.createSheet("Gastos");
+
+        // Estilos
+        CellStyle headerStyle = workbook.createCellStyle();
+        org.apache.poi.ss.usermodel.Font headerFontPoi = workbook.createFont();
+        headerFontPoi.setBold(true);
+        headerFontPoi.setColor(IndexedColors.WHITE.getIndex());
+        headerStyle.setFont(headerFontPoi);
+        headerStyle.setFillForegroundColor(IndexedColors.ROYAL_BLUE.getIndex());
+        headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+        headerStyle.setAlignment(HorizontalAlignment.CENTER);
+
+        CellStyle moneyStyle = workbook.createCellStyle();
+        DataFormat format = workbook.createDataFormat();
+        moneyStyle.setDataFormat(format.getFormat("#,##0"));
+
+        CellStyle titleStyle = workbook.createCellStyle();
+        org.apache.poi.ss.usermodel.Font titleFontPoi = workbook.createFont();
+        titleFontPoi.setBold(true);
+        titleFontPoi.setFontHeightInPoints((short) 14);
+        titleStyle.setFont(titleFontPoi);
 
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            workbook.write(baos);
-            return baos.toByteArray();
+        // Título
+        org.apache.poi.ss.usermodel.Row titleRow = sheet.createRow(0);
+        org.apache.poi.ss.usermodel.Cell titleCell = titleRow.createCell(0);
+        titleCell.setCellValue("Gastos Compartidos - " + nombrePareja);
+        titleCell.setCellStyle(titleStyle);
+        sheet.addMergedRegion(new CellRangeAddress(0, 0, 0, 5));
+
+        org.apache.poi.ss.usermodel.Row periodRow = sheet.createRow(1);
+        periodRow.createCell(0).setCellValue(
+                "Período: " + desde.format(DATE_FMT) + " - " + hasta.format(DATE_FMT));
+        sheet.addMergedRegion(new CellRangeAddress(1, 1, 0, 5));
+
+        // Headers y anchos estimados (en caracteres)
+        org.apache.poi.ss.usermodel.Row headerRow = sheet.createRow(3);
+        for (int i = 0; i < EXCEL_HEADERS.length; i++) {
+            org.apache.poi.ss.usermodel.Cell cell = headerRow.createCell(i);
+            cell.setCellValue(EXCEL_HEADERS[i]);
+            cell.setCellStyle(headerStyle);
+            sheet.setColumnWidth(i, EXCEL_ANCHOS[i] * 256);
         }
+
+        // Datos
+        int[] rowNum = { 4 };
+        BigDecimal[] total = { BigDecimal.ZERO };
+        soloLectura.executeWithoutResult(estado -> jdbcTemplate.query(SQL_GASTOS_EXCEL, (RowCallbackHandler) rs -> {
+            org.apache.poi.ss.usermodel.Row row = sheet.createRow(rowNum[0]++);
+            row.createCell(0).setCellValue(rs.getString("descripcion"));
+
+            BigDecimal monto = rs.getBigDecimal("monto");
+            org.apache.poi.ss.usermodel.Cell montoCell = row.createCell(1);
+            montoCell.setCellValue(monto.doubleValue());
+            montoCell.setCellStyle(moneyStyle);
+
+            String categoria = rs.getString("categoria_nombre");
+            row.createCell(2).setCellValue(categoria != null ? categoria : "-");
+            row.createCell(3).setCellValue(rs.getString("usuario_nombre"));
+            row.createCell(4).setCellValue(rs.getTimestamp("fecha_gasto").toLocalDateTime().format(DATETIME_FMT));
+
+            String notas = rs.getString("notas");
+            row.createCell(5).setCellValue(notas != null ? notas : "");
+
+            total[0] = total[0].add(monto);
+        }, parejaId, Timestamp.valueOf(desde.atStartOfDay()), Timestamp.valueOf(hasta.atTime(23, 59, 59))));
+        int cantidad = rowNum[0] - 4;
+
+        // Fila total
+        org.apache.poi.ss.usermodel.Row totalRow = sheet.createRow(rowNum[0] + 1);
+        CellStyle totalStyle = workbook.createCellStyle();
+        org.apache.poi.ss.usermodel.Font totalFontPoi = workbook.createFont();
+        totalFontPoi.setBold(true);
+        totalStyle.setFont(totalFontPoi);
+
+        org.apache.poi.ss.usermodel.Cell totalLabelCell = totalRow.createCell(0);
+        totalLabelCell.setCellValue("TOTAL (" + cantidad + " gastos)");
+        totalLabelCell.setCellStyle(totalStyle);
+
+        org.apache.poi.ss.usermodel.Cell totalMontoCell = totalRow.createCell(1);
+        totalMontoCell.setCellValue(total[0].doubleValue());
+        CellStyle totalMoneyStyle = workbook.createCellStyle();
+        totalMoneyStyle.cloneStyleFrom(moneyStyle);
+        totalMoneyStyle.setFont(totalFontPoi);
+        totalMontoCell.setCellStyle(totalMoneyStyle);
     }
 
     private void addCell(PdfPTable table, String text, Font font, Color bg) {
@@ -0,0 +1,18 @@
+package com.gastos.gastos_compartidos.service;
+
+import java.math.BigDecimal;
+
+/**
+ * Se publica al crear un gasto. Lleva solo valores planos porque se procesa después del
+ * commit, en otro hilo y sin sesión de Hibernate.
+ */
+public record GastoCreadoEvent(
+        Long gastoId,
+        Long usuarioId,
+        String nombreUsuario,
+        Long parejaId,
+        Long categoriaId,
+        BigDecimal monto,
+        String descripcion,
+        boolean compartido) {
+}
@@ -29,6 +29,9 @@ public class GastoRecurrenteService {
     private final UsuarioRepository usuarioRepository;
     private final CategoriaRepository categoriaRepository;
     private final WebPushService webPushService;
+    private final ResumenMensualService resumenMensualService;
+    private final AnomaliaService anomaliaService;
+    private final PronosticoService pronosticoService;
 
     @Transactional
     public GastoRecurrenteResponseDTO crear(Long usuarioId, GastoRecurrenteCreateDTO dto) {
@@ -53,6 +56,7 @@ public class GastoRecurrenteService {
         gr.setTotalEjecutado(0);
 
         GastoRecurrente saved = gastoRecurrenteRepository.save(gr);
+        pronosticoService.recalcularUsuario(usuarioId);
         return mapToDTO(saved);
     }
 
@@ -124,6 +128,7 @@ public class GastoRecurrenteService {
         gr.setProximaEjecucion(gr.calcularProximaEjecucion(LocalDate.now()));
 
         GastoRecurrente saved = gastoRecurrenteRepository.save(gr);
+        pronosticoService.recalcularUsuario(usuarioId);
         return mapToDTO(saved);
     }
 
@@ -138,6 +143,7 @@ public class GastoRecurrenteService {
 
         gr.setActivo(!gr.getActivo());
         GastoRecurrente saved = gastoRecurrenteRepository.save(gr);
+        pronosticoService.recalcularUsuario(usuarioId);
         return mapToDTO(saved);
     }
 
@@ -151,6 +157,7 @@ public class GastoRecurrenteService {
         }
 
         gastoRecurrenteRepository.delete(gr);
+        pronosticoService.recalcularUsuario(usuarioId);
     }
 
     public long contarActivos(Long usuarioId) {
@@ -167,6 +174,7 @@ public class GastoRecurrenteService {
         }
 
         ejecutarGastoRecurrente(gr);
+        pronosticoService.recalcularUsuario(usuarioId);
     }
 
     @Scheduled(cron = "0 0 6 * * *")
@@ -190,6 +198,9 @@ public class GastoRecurrenteService {
             }
         }
 
+        // Una vez por usuario: cada ejecución pasa monto de recurrente a gastado en el pronóstico
+        ejecutadosPorUsuario.keySet().forEach(pronosticoService::recalcularUsuario);
+
         if (ejecutados > 0) {
             log.info("Ejecutados {} gastos recurrentes por un total de ${}", ejecutados, totalMonto);
 
@@ -219,12 +230,15 @@ public class GastoRecurrenteService {
         gasto.setCategoria(gr.getCategoria());
         gasto.setFechaGasto(LocalDateTime.now());
         gasto.setNotas(gr.getNotas());
+        gasto.setGastoRecurrente(gr);
 
         if (gr.getEsCompartido() && gr.getUsuario().getPareja() != null) {
             gasto.setPareja(gr.getUsuario().getPareja());
         }
 
         gastoRepository.save(gasto);
+        resumenMensualService.registrarGasto(gasto);
+        anomaliaService.registrarGasto(gasto);
 
         gr.setUltimaEjecucion(LocalDate.now());
         gr.setTotalEjecutado(gr.getTotalEjecutado() + 1);
@@ -3,17 +3,28 @@ package com.gastos.gastos_compartidos.service;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.gastos.gastos_compartidos.dto.ActividadParejaDTO;
+import com.gastos.gastos_compartidos.dto.CursorPageDTO;
 import com.gastos.gastos_compartidos.dto.GastoCreateDTO;
+import com.gastos.gastos_compartidos.dto.GastoFiltroDTO;
 import com.gastos.gastos_compartidos.dto.GastoResponseDTO;
+import com.gastos.gastos_compartidos.dto.TotalCategoriaDTO;
 import com.gastos.gastos_compartidos.entity.Categoria;
 import com.gastos.gastos_compartidos.entity.Gasto;
 import com.gastos.gastos_compartidos.entity.GastoSplit;
@@ -23,7 +34,9 @@ import com.gastos.gastos_compartidos.exception.BadRequestException;
 import com.gastos.gastos_compartidos.exception.ResourceNotFoundException;
 import com.gastos.gastos_compartidos.repository.CategoriaRepository;
 import com.gastos.gastos_compartidos.repository.GastoRepository;
+import com.gastos.gastos_compartidos.repository.GastoSpecifications;
 import com.gastos.gastos_compartidos.repository.GastoSplitRepository;
+import com.gastos.gastos_compartidos.repository.ResumenGastoMensualRepository;
 import com.gastos.gastos_compartidos.repository.UsuarioRepository;
 
 import lombok.RequiredArgsConstructor;
@@ -37,8 +50,13 @@ public class GastoService {
         private final GastoSplitRepository gastoSplitRepository;
         private final UsuarioRepository usuarioRepository;
         private final CategoriaRepository categoriaRepository;
-        private final WebPushService webPushService;
-        private final PresupuestoService presupuestoService;
+        private final BalanceService balanceService;
+        private final ResumenMensualService resumenMensualService;
+        private final AnomaliaService anomaliaService;
+        private final PronosticoService pronosticoService;
+        private final ResumenGastoMensualRepository resumenGastoMensualRepository;
+        private final ApplicationEventPublisher eventPublisher;
+        private final ActividadParejaService actividadParejaService;
 
         public GastoResponseDTO crearGasto(Long usuarioId, GastoCreateDTO request) {
                 Usuario usuario = usuarioRepository.findById(usuarioId)
@@ -57,15 +75,7 @@ public class GastoService {
                                                 "Necesitas estar en una pareja para crear gastos compartidos");
                         }
 
-                        BigDecimal totalSplit = request.getSplit().values()
-                                        .stream()
-                                        .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-                        if (totalSplit.compareTo(request.getMonto()) != 0) {
-                                throw new BadRequestException(
-                                                String.format("El total del split ($%.2f) debe coincidir con el monto ($%.2f)",
-                                                                totalSplit, request.getMonto()));
-                        }
+                        validarTotalSplit(request.getSplit(), request.getMonto());
                 }
 
                 Gasto gasto = Gasto.builder()
@@ -83,40 +93,24 @@ public class GastoService {
                 gasto = gastoRepository.save(gasto);
 
                 if (!esGastoIndividual) {
-                        for (Map.Entry<Long, BigDecimal> entry : request.getSplit().entrySet()) {
-                                Long usuarioSplitId = entry.getKey();
-                                BigDecimal monto = entry.getValue();
-
-                                Usuario usuarioSplit = usuarioRepository.findById(usuarioSplitId)
-                                                .orElseThrow(() -> new ResourceNotFoundException(
-                                                                "Usuario no encontrado en split"));
-
-                                if (usuarioSplit.getPareja() == null
-                                                || !usuarioSplit.getPareja().getId().equals(pareja.getId())) {
-                                        throw new BadRequestException("El usuario del split no pertenece a la pareja");
-                                }
-
-                                GastoSplit.TipoSplit tipo = usuarioSplitId.equals(usuarioId)
-                                                ? GastoSplit.TipoSplit.PAGO
-                                                : GastoSplit.TipoSplit.DEBE;
-
-                                GastoSplit split = GastoSplit.builder()
-                                                .gasto(gasto)
-                                                .usuario(usuarioSplit)
-                                                .monto(monto)
-                                                .tipo(tipo)
-                                                .build();
-
-                                gastoSplitRepository.save(split);
-                                gasto.getSplits().add(split);
-                        }
-                }
-
-                verificarPresupuestosYNotificar(usuarioId, categoria.getId(), request.getMonto());
-
-                if (!esGastoIndividual && request.getMonto().compareTo(new BigDecimal("50000")) > 0) {
-                        notificarGastoGrandeAPareja(gasto, usuario, pareja);
+                        sincronizarSplits(gasto, pareja, request.getSplit());
+                        balanceService.registrarGasto(gasto);
                 }
+                resumenMensualService.registrarGasto(gasto);
+                anomaliaService.registrarGasto(gasto);
+                pronosticoService.registrarGasto(gasto);
+
+                // Presupuestos y push se procesan tras el commit, fuera de la petición
+                eventPublisher.publishEvent(new GastoCreadoEvent(
+                                gasto.getId(),
+                                usuarioId,
+                                usuario.getNombre(),
+                                pareja != null ? pareja.getId() : null,
+                                categoria.getId(),
+                                gasto.getMonto(),
+                                gasto.getDescripcion(),
+                                !esGastoIndividual));
+                publicarActividad(ActividadParejaDTO.Tipo.GASTO_CREADO, gasto);
 
                 return GastoResponseDTO.fromEntity(gasto);
         }
@@ -132,6 +126,11 @@ public class GastoService {
                 Categoria categoria = categoriaRepository.findById(request.getCategoriaId())
                                 .orElseThrow(() -> new ResourceNotFoundException("Categoría no encontrada"));
 
+                LocalDateTime fechaAnterior = gasto.getFechaGasto();
+                Map<ResumenMensualService.Clave, BigDecimal[]> resumenAnterior = resumenMensualService.capturar(gasto);
+                AnomaliaService.Muestra muestraAnterior = AnomaliaService.Muestra.de(gasto);
+                PronosticoService.Aporte aporteAnterior = PronosticoService.Aporte.de(gasto);
+
                 gasto.setDescripcion(request.getDescripcion());
                 gasto.setMonto(request.getMonto());
                 gasto.setCategoria(categoria);
@@ -139,45 +138,36 @@ public class GastoService {
                 gasto.setRutaFoto(request.getRutaFoto());
                 gasto.setFechaGasto(request.getFechaGasto());
 
-                if (request.getSplit() != null && !request.getSplit().isEmpty()) {
-                        gastoSplitRepository.deleteAll(gasto.getSplits());
-                        gasto.getSplits().clear();
-
-                        BigDecimal totalSplit = request.getSplit().values()
-                                        .stream()
-                                        .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-                        if (totalSplit.compareTo(request.getMonto()) != 0) {
-                                throw new BadRequestException(
-                                                String.format("El total del split ($%.2f) debe coincidir con el monto ($%.2f)",
-                                                                totalSplit, request.getMonto()));
-                        }
-
-                        for (Map.Entry<Long, BigDecimal> entry : request.getSplit().entrySet()) {
-                                Long usuarioSplitId = entry.getKey();
-                                BigDecimal monto = entry.getValue();
-
-                                Usuario usuarioSplit = usuarioRepository.findById(usuarioSplitId)
-                                                .orElseThrow(() -> new ResourceNotFoundException(
-                                                                "Usuario no encontrado en split"));
-
-                                GastoSplit.TipoSplit tipo = usuarioSplitId.equals(usuarioId)
-                                                ? GastoSplit.TipoSplit.PAGO
-                                                : GastoSplit.TipoSplit.DEBE;
-
-                                GastoSplit split = GastoSplit.builder()
-                                                .gasto(gasto)
-                                                .usuario(usuarioSplit)
-                                                .monto(monto)
-                                                .tipo(tipo)
-                                                .build();
+                // Mover el gasto de mes cambia los checkpoints aunque el split no cambie
+                if (gasto.getPareja() != null && !Objects.equals(fechaAnterior, gasto.getFechaGasto())) {
+                        LocalDateTime fechaMasAntigua = fechaAnterior == null
+                                        || gasto.getFechaGasto().isBefore(fechaAnterior)
+                                                        ? gasto.getFechaGasto()
+                                                        : fechaAnterior;
+                        balanceService.invalidarCheckpoints(gasto.getPareja().getId(), fechaMasAntigua);
+                }
 
-                                gastoSplitRepository.save(split);
-                                gasto.getSplits().add(split);
-                        }
+                if (request.getSplit() != null && !request.getSplit().isEmpty()) {
+                        validarTotalSplit(request.getSplit(), request.getMonto());
+
+                        // Copia de los valores anteriores: sincronizarSplits modifica las entidades
+                        List<GastoSplit> anteriores = gasto.getSplits().stream()
+                                        .map(split -> GastoSplit.builder()
+                                                        .usuario(split.getUsuario())
+                                                        .monto(split.getMonto())
+                                                        .tipo(split.getTipo())
+                                                        .build())
+                                        .toList();
+
+                        sincronizarSplits(gasto, gasto.getPareja(), request.getSplit());
+                        balanceService.actualizarGasto(gasto, anteriores);
                 }
 
                 gasto = gastoRepository.save(gasto);
+                resumenMensualService.actualizarGasto(gasto, resumenAnterior);
+                anomaliaService.actualizarGasto(gasto, muestraAnterior);
+                pronosticoService.actualizarGasto(gasto, aporteAnterior);
+                publicarActividad(ActividadParejaDTO.Tipo.GASTO_ACTUALIZADO, gasto);
                 return GastoResponseDTO.fromEntity(gasto);
         }
 
@@ -213,7 +203,12 @@ public class GastoService {
                         throw new BadRequestException("Solo el usuario que registró el gasto puede eliminarlo");
                 }
 
+                balanceService.revertirGasto(gasto);
+                resumenMensualService.revertirGasto(gasto);
+                anomaliaService.revertirGasto(gasto);
                 gastoRepository.deleteById(gastoId);
+                pronosticoService.revertirGasto(gasto);
+                publicarActividad(ActividadParejaDTO.Tipo.GASTO_ELIMINADO, gasto);
         }
 
         public List<GastoResponseDTO> obtenerGastosPorUsuario(Long usuarioId) {
@@ -247,20 +242,139 @@ public class GastoService {
                                 .map(GastoResponseDTO::fromEntity);
         }
 
-        public List<GastoResponseDTO> obtenerGastosRecientes(Long usuarioId, int cantidad) {
+        public CursorPageDTO<GastoResponseDTO> obtenerGastosPorUsuarioCursor(Long usuarioId, String cursor, int tamano) {
                 Usuario usuario = usuarioRepository.findById(usuarioId)
                                 .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado"));
 
-                List<Gasto> gastos = new java.util.ArrayList<>();
+                Long parejaId = usuario.getPareja() != null ? usuario.getPareja().getId() : null;
+                CursorPageDTO.Cursor desde = CursorPageDTO.Cursor.decodificar(cursor);
+                int limite = CursorPageDTO.normalizarTamano(tamano);
+
+                List<Gasto> gastos = gastoRepository.findGastosDelUsuarioDespuesDe(
+                                usuarioId, parejaId, desde.fecha(), desde.id(), limite + 1);
+                return CursorPageDTO.de(gastos, limite,
+                                g -> new CursorPageDTO.Cursor(g.getFechaGasto(), g.getId()),
+                                GastoResponseDTO::fromEntity);
+        }
 
-                gastos.addAll(gastoRepository.findByUsuarioIdAndParejaIsNullOrderByFechaGastoDesc(usuarioId));
+        public CursorPageDTO<GastoResponseDTO> obtenerGastosPorParejaCursor(Long parejaId, String cursor, int tamano) {
+                CursorPageDTO.Cursor desde = CursorPageDTO.Cursor.decodificar(cursor);
+                int limite = CursorPageDTO.normalizarTamano(tamano);
 
-                if (usuario.getPareja() != null) {
-                        gastos.addAll(gastoRepository.findByParejaidOrderByFechaGastoDesc(usuario.getPareja().getId()));
+                List<Gasto> gastos = gastoRepository.findByParejaidDespuesDe(
+                                parejaId, desde.fecha(), desde.id(), limite + 1);
+                return CursorPageDTO.de(gastos, limite,
+                                g -> new CursorPageDTO.Cursor(g.getFechaGasto(), g.getId()),
+                                GastoResponseDTO::fromEntity);
+        }
+
+        /**
+         * Historial de gastos visibles para el usuario con cualquier combinación de filtros.
+         * Sin orden explícito se ordena por (fecha DESC, id DESC), el orden de los índices.
+         */
+        @Transactional(readOnly = true)
+        public Page<GastoResponseDTO> filtrarGastos(Long usuarioId, GastoFiltroDTO filtro, Pageable pageable) {
+                Usuario usuario = usuarioRepository.findById(usuarioId)
+                                .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado"));
+                Long parejaId = usuario.getPareja() != null ? usuario.getPareja().getId() : null;
+
+                if (filtro.getMontoMin() != null && filtro.getMontoMax() != null
+                                && filtro.getMontoMin().compareTo(filtro.getMontoMax()) > 0) {
+                        throw new BadRequestException("El monto mínimo no puede ser mayor que el máximo");
+                }
+                if (filtro.getDesde() != null && filtro.getHasta() != null
+                                && filtro.getDesde().isAfter(filtro.getHasta())) {
+                        throw new BadRequestException("La fecha 'desde' no puede ser posterior a 'hasta'");
                 }
 
-                return gastos.stream()
-                                .limit(cantidad)
+                List<Specification<Gasto>> condiciones = new ArrayList<>();
+                condiciones.add(GastoSpecifications.visiblesPara(usuarioId, parejaId));
+                if (filtro.getMontoMin() != null) {
+                        condiciones.add(GastoSpecifications.montoDesde(filtro.getMontoMin()));
+                }
+                if (filtro.getMontoMax() != null) {
+                        condiciones.add(GastoSpecifications.montoHasta(filtro.getMontoMax()));
+                }
+                if (filtro.getCategoriaIds() != null && !filtro.getCategoriaIds().isEmpty()) {
+                        condiciones.add(GastoSpecifications.categoriaEn(filtro.getCategoriaIds()));
+                }
+                if (filtro.getRegistradoPor() != null) {
+                        condiciones.add(GastoSpecifications.registradoPor(filtro.getRegistradoPor()));
+                }
+                if (filtro.getDesde() != null) {
+                        condiciones.add(GastoSpecifications.fechaDesde(filtro.getDesde().atStartOfDay()));
+                }
+                if (filtro.getHasta() != null) {
+                        condiciones.add(GastoSpecifications.fechaAntesDe(filtro.getHasta().plusDays(1).atStartOfDay()));
+                }
+                if (filtro.getCompartido() != null) {
+                        condiciones.add(GastoSpecifications.compartido(filtro.getCompartido()));
+                }
+
+                Pageable paginaOrdenada = pageable.getSort().isSorted()
+                                ? pageable
+                                : PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(),
+                                                Sort.by(Sort.Order.desc("fechaGasto"), Sort.Order.desc("id")));
+
+                return gastoRepository.findAll(Specification.allOf(condiciones), paginaOrdenada)
+                                .map(GastoResponseDTO::fromEntity);
+        }
+
+        /**
+         * Busca en descripción y notas de los gastos visibles para el usuario (individuales y
+         * de su pareja). Acepta la sintaxis de websearch: "frase exacta", OR y -excluir.
+         */
+        @Transactional(readOnly = true)
+        public CursorPageDTO<GastoResponseDTO> buscarGastos(Long usuarioId, String texto, String cursor, int tamano) {
+                if (texto == null || texto.isBlank()) {
+                        throw new BadRequestException("Debes indicar un texto de búsqueda");
+                }
+                Usuario usuario = usuarioRepository.findById(usuarioId)
+                                .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado"));
+
+                Long parejaId = usuario.getPareja() != null ? usuario.getPareja().getId() : null;
+                CursorPageDTO.CursorRanking desde = CursorPageDTO.CursorRanking.decodificar(cursor);
+                int limite = CursorPageDTO.normalizarTamano(tamano);
+
+                List<GastoRepository.ResultadoBusqueda> resultados = gastoRepository.buscar(texto.strip(), usuarioId,
+                                parejaId, desde.rango(), desde.fecha(), desde.id(), limite + 1);
+
+                // Segunda consulta por IDs para traer las entidades; se respeta el orden del ranking
+                Map<Long, Gasto> gastos = gastoRepository.findByIdIn(resultados.stream()
+                                .map(GastoRepository.ResultadoBusqueda::getId)
+                                .toList())
+                                .stream()
+                                .collect(Collectors.toMap(Gasto::getId, g -> g));
+
+                // hayMas y el cursor salen de las filas del ranking: un gasto borrado entre las dos
+                // consultas solo falta en el contenido, no acorta la página ni corta la paginación
+                CursorPageDTO<Gasto> pagina = CursorPageDTO.de(resultados, limite,
+                                r -> new CursorPageDTO.CursorRanking(r.getRango(), r.getFecha(), r.getId()),
+                                r -> gastos.get(r.getId()));
+                return CursorPageDTO.<GastoResponseDTO>builder()
+                                .contenido(pagina.getContenido().stream()
+                                                .filter(Objects::nonNull)
+                                                .map(GastoResponseDTO::fromEntity)
+                                                .collect(Collectors.toList()))
+                                .siguienteCursor(pagina.getSiguienteCursor())
+                                .hayMas(pagina.isHayMas())
+                                .build();
+        }
+
+        public List<GastoResponseDTO> obtenerGastosRecientes(Long usuarioId, int cantidad) {
+                Usuario usuario = usuarioRepository.findById(usuarioId)
+                                .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado"));
+
+                Long parejaId = usuario.getPareja() != null ? usuario.getPareja().getId() : null;
+                return obtenerGastosRecientes(usuarioId, parejaId, cantidad);
+        }
+
+        // Top-N en la base de datos: primera página de la consulta por cursor
+        public List<GastoResponseDTO> obtenerGastosRecientes(Long usuarioId, Long parejaId, int cantidad) {
+                CursorPageDTO.Cursor inicio = CursorPageDTO.Cursor.INICIO;
+                return gastoRepository.findGastosDelUsuarioDespuesDe(usuarioId, parejaId, inicio.fecha(), inicio.id(),
+                                CursorPageDTO.normalizarTamano(cantidad))
+                                .stream()
                                 .map(GastoResponseDTO::fromEntity)
                                 .collect(Collectors.toList());
         }
@@ -269,95 +383,117 @@ public class GastoService {
                 Usuario usuario = usuarioRepository.findById(usuarioId)
                                 .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado"));
 
-                List<Gasto> gastos = new java.util.ArrayList<>();
-
-                gastos.addAll(gastoRepository.findByUsuarioIdAndParejaIsNullOrderByFechaGastoDesc(usuarioId));
+                Long parejaId = usuario.getPareja() != null ? usuario.getPareja().getId() : null;
+                return obtenerResumenGastos(usuarioId, parejaId);
+        }
 
-                if (usuario.getPareja() != null) {
-                        gastos.addAll(gastoRepository.findByParejaidOrderByFechaGastoDesc(usuario.getPareja().getId()));
+        // Agregado por categoría desde el resumen mensual en lugar de recorrer los gastos
+        public Map<String, Object> obtenerResumenGastos(Long usuarioId, Long parejaId) {
+                BigDecimal total = BigDecimal.ZERO;
+                long cantidad = 0;
+                Map<String, BigDecimal> gastosPorCategoria = new HashMap<>();
+
+                for (TotalCategoriaDTO totalCategoria : resumenGastoMensualRepository.sumarPorCategoriaDelUsuario(usuarioId, parejaId)) {
+                        total = total.add(totalCategoria.total());
+                        cantidad += totalCategoria.cantidad();
+                        if (totalCategoria.categoriaId() != null) {
+                                gastosPorCategoria.merge(totalCategoria.nombre(), totalCategoria.total(), BigDecimal::add);
+                        }
                 }
 
-                BigDecimal total = gastos.stream()
-                                .map(Gasto::getMonto)
-                                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-                BigDecimal promedio = gastos.isEmpty() ? BigDecimal.ZERO
-                                : total.divide(new BigDecimal(gastos.size()), 2, java.math.RoundingMode.HALF_UP);
-
-                Map<String, BigDecimal> gastosPorCategoria = gastos.stream()
-                                .filter(g -> g.getCategoria() != null)
-                                .collect(Collectors.groupingBy(
-                                                g -> g.getCategoria().getNombre(),
-                                                Collectors.reducing(
-                                                                BigDecimal.ZERO,
-                                                                Gasto::getMonto,
-                                                                BigDecimal::add)));
+                BigDecimal promedio = cantidad == 0 ? BigDecimal.ZERO
+                                : total.divide(new BigDecimal(cantidad), 2, java.math.RoundingMode.HALF_UP);
 
                 return Map.of(
                                 "totalGastos", total,
-                                "cantidadGastos", gastos.size(),
+                                "cantidadGastos", (int) cantidad,
                                 "promedioPorGasto", promedio,
                                 "gastosPorCategoria", gastosPorCategoria);
         }
 
-        private void verificarPresupuestosYNotificar(Long usuarioId, Long categoriaId, BigDecimal montoGasto) {
-                try {
-                        List<com.gastos.gastos_compartidos.dto.PresupuestoResponseDTO> presupuestos = presupuestoService
-                                        .obtenerActivosPorUsuario(usuarioId);
-
-                        for (var presupuesto : presupuestos) {
-
-                                if (presupuesto.getCategoriaId() == null
-                                                || presupuesto.getCategoriaId().equals(categoriaId)) {
-                                        double porcentaje = presupuesto.getPorcentajeUsado();
-                                        String estado = presupuesto.getEstado();
-
-                                        if ("EXCEDIDO".equals(estado) && porcentaje >= 100 && porcentaje < 105) {
-                                                String titulo = "💸 Presupuesto excedido";
-                                                String mensaje = String.format(
-                                                                "Has excedido el presupuesto de %s (%.0f%%)",
-                                                                presupuesto.getCategoriaNombre(), porcentaje);
-                                                webPushService.notifyUser(usuarioId, titulo, mensaje, "/presupuestos");
-                                        }
-
-                                        else if ("ALERTA".equals(estado) && porcentaje >= 80 && porcentaje < 85) {
-                                                String titulo = "⚠️ Alerta de presupuesto";
-                                                String mensaje = String.format(
-                                                                "Has usado el %.0f%% del presupuesto de %s",
-                                                                porcentaje, presupuesto.getCategoriaNombre());
-                                                webPushService.notifyUser(usuarioId, titulo, mensaje, "/presupuestos");
-                                        }
-                                }
-                        }
-                } catch (Exception e) {
-                        e.printStackTrace();
+        // Se entrega a la pareja al hacer commit (ver ActividadParejaService)
+        private void publicarActividad(ActividadParejaDTO.Tipo tipo, Gasto gasto) {
+                actividadParejaService.publicar(ActividadParejaDTO.builder()
+                                .tipo(tipo)
+                                .parejaId(gasto.getPareja() != null ? gasto.getPareja().getId() : null)
+                                .usuarioId(gasto.getUsuario().getId())
+                                .entidadId(gasto.getId())
+                                .descripcion(gasto.getDescripcion())
+                                .monto(gasto.getMonto())
+                                .build());
+        }
+
+        private void validarTotalSplit(Map<Long, BigDecimal> split, BigDecimal monto) {
+                BigDecimal totalSplit = split.values()
+                                .stream()
+                                .reduce(BigDecimal.ZERO, BigDecimal::add);
+
+                if (totalSplit.compareTo(monto) != 0) {
+                        throw new BadRequestException(
+                                        String.format("El total del split ($%.2f) debe coincidir con el monto ($%.2f)",
+                                                        totalSplit, monto));
                 }
         }
 
-        private void notificarGastoGrandeAPareja(Gasto gasto, Usuario usuario, Pareja pareja) {
-                try {
-                        if (pareja.getUsuarios().size() < 2) {
-                                return;
-                        }
+        /**
+         * Deja los splits del gasto iguales al split pedido (usuario -> monto). Los usuarios se
+         * validan con una sola consulta y solo se tocan las filas que cambian: las nuevas se
+         * insertan, las distintas se actualizan y las que sobran se eliminan (orphanRemoval).
+         * Hibernate envía cada grupo en un batch al hacer flush.
+         */
+        private void sincronizarSplits(Gasto gasto, Pareja pareja, Map<Long, BigDecimal> split) {
+                if (pareja == null) {
+                        throw new BadRequestException("Solo los gastos de una pareja se pueden dividir");
+                }
 
-                        Usuario otroUsuario = pareja.getUsuarios().stream()
-                                        .filter(u -> !u.getId().equals(usuario.getId()))
-                                        .findFirst()
-                                        .orElse(null);
+                Map<Long, Usuario> usuarios = usuarioRepository.findAllById(split.keySet()).stream()
+                                .collect(Collectors.toMap(Usuario::getId, u -> u));
+                for (Long usuarioSplitId : split.keySet()) {
+                        Usuario usuarioSplit = usuarios.get(usuarioSplitId);
+                        if (usuarioSplit == null) {
+                                throw new ResourceNotFoundException("Usuario no encontrado en split");
+                        }
+                        if (usuarioSplit.getPareja() == null
+                                        || !usuarioSplit.getPareja().getId().equals(pareja.getId())) {
+                                throw new BadRequestException("El usuario del split no pertenece a la pareja");
+                        }
+                }
 
-                        if (otroUsuario == null) {
-                                return;
+                // Un split por usuario; si hubiera duplicados antiguos se conserva el primero
+                Map<Long, GastoSplit> actuales = gasto.getSplits().stream()
+                                .collect(Collectors.toMap(s -> s.getUsuario().getId(), s -> s, (a, b) -> a));
+                boolean cambio = gasto.getSplits().removeIf(s -> !split.containsKey(s.getUsuario().getId())
+                                || actuales.get(s.getUsuario().getId()) != s);
+
+                Long registradorId = gasto.getUsuario().getId();
+                List<GastoSplit> nuevos = new ArrayList<>();
+                for (Map.Entry<Long, BigDecimal> entry : split.entrySet()) {
+                        GastoSplit.TipoSplit tipo = entry.getKey().equals(registradorId)
+                                        ? GastoSplit.TipoSplit.PAGO
+                                        : GastoSplit.TipoSplit.DEBE;
+
+                        GastoSplit existente = actuales.get(entry.getKey());
+                        if (existente == null) {
+                                nuevos.add(GastoSplit.builder()
+                                                .gasto(gasto)
+                                                .usuario(usuarios.get(entry.getKey()))
+                                                .monto(entry.getValue())
+                                                .tipo(tipo)
+                                                .build());
+                        } else if (existente.getMonto().compareTo(entry.getValue()) != 0
+                                        || existente.getTipo() != tipo) {
+                                existente.setMonto(entry.getValue());
+                                existente.setTipo(tipo);
+                                cambio = true;
                         }
+                }
 
-                        String titulo = "💰 Gasto grande registrado";
-                        String mensaje = String.format("%s registró un gasto de $%,d: %s",
-                                        usuario.getNombre(),
-                                        gasto.getMonto().intValue(),
-                                        gasto.getDescripcion());
+                gastoSplitRepository.saveAll(nuevos);
+                gasto.getSplits().addAll(nuevos);
 
-                        webPushService.notifyUser(otroUsuario.getId(), titulo, mensaje, "/gastos");
-                } catch (Exception e) {
-                        e.printStackTrace();
+                // Los splits no tienen fecha propia: la sincronización incremental ve el cambio en el gasto
+                if (cambio || !nuevos.isEmpty()) {
+                        gasto.setFechaActualizacion(LocalDateTime.now());
                 }
         }
 }
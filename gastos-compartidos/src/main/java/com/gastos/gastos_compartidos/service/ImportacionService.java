@@ -0,0 +1,572 @@
+package com.gastos.gastos_compartidos.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.gastos.gastos_compartidos.dto.ImportacionResultadoDTO;
+import com.gastos.gastos_compartidos.dto.ImportacionResultadoDTO.EstadoFila;
+import com.gastos.gastos_compartidos.dto.ImportacionResultadoDTO.FilaImportacionDTO;
+import com.gastos.gastos_compartidos.entity.Categoria;
+import com.gastos.gastos_compartidos.entity.GastoSplit;
+import com.gastos.gastos_compartidos.entity.Pareja;
+import com.gastos.gastos_compartidos.entity.Usuario;
+import com.gastos.gastos_compartidos.exception.BadRequestException;
+import com.gastos.gastos_compartidos.exception.ResourceNotFoundException;
+import com.gastos.gastos_compartidos.repository.CategoriaRepository;
+import com.gastos.gastos_compartidos.repository.UsuarioRepository;
+import com.gastos.gastos_compartidos.service.LectorExtractos.Formato;
+import com.gastos.gastos_compartidos.service.LectorExtractos.Movimiento;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Importación masiva de extractos bancarios como gastos.
+ *
+ * El archivo se lee en streaming (ver LectorExtractos) dos veces: la primera solo perfila la
+ * columna de montos (separador decimal y signo de los cargos, ver PerfilMontos) y la segunda
+ * importa. Las filas válidas se insertan
+ * con JDBC en lotes de {@link #TAMANO_LOTE}: los IDs se reservan por bloques de la
+ * secuencia (ver reservarIds), luego un batch de gastos y otro de splits. Nada pasa por el contexto de persistencia, así que la
+ * memoria usada no depende del tamaño del archivo. El balance de la pareja se actualiza
+ * al final con un upsert por miembro en vez de uno por gasto.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ImportacionService {
+
+    private static final int TAMANO_LOTE = 500;
+    private static final int MAX_FILAS_REPORTE = 1000;
+    private static final int LARGO_TEXTO = 255;
+    private static final BigDecimal MONTO_MAXIMO = new BigDecimal("99999999.99"); // NUMERIC(10, 2)
+
+    private static final List<DateTimeFormatter> FORMATOS_FECHA = List.of(
+            DateTimeFormatter.ISO_LOCAL_DATE,
+            DateTimeFormatter.ofPattern("d/M/uuuu"),
+            DateTimeFormatter.ofPattern("d-M-uuuu"),
+            DateTimeFormatter.ofPattern("d.M.uuuu"),
+            DateTimeFormatter.ofPattern("uuuu/M/d"),
+            DateTimeFormatter.ofPattern("d/M/uu"));
+
+    private static final String INSERT_GASTO = "INSERT INTO gastos (id, descripcion, monto, monto_original, notas, " +
+            "usuario_id, pareja_id, categoria_id, fecha_gasto, fecha_creacion, fecha_actualizacion) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_SPLIT = "INSERT INTO gasto_splits (id, gasto_id, usuario_id, monto, tipo, fecha_creacion) " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+
+    // Incremento de las secuencias (V10), igual al allocationSize de las entidades
+    private static final int BLOQUE_SECUENCIA = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UsuarioRepository usuarioRepository;
+    private final CategoriaRepository categoriaRepository;
+    private final BalanceService balanceService;
+    private final ResumenMensualService resumenMensualService;
+    private final AnomaliaService anomaliaService;
+    private final PronosticoService pronosticoService;
+
+    @Value("${app.importacion.max-filas:100000}")
+    private int maxFilas;
+
+    /**
+     * Importa el extracto como gastos del usuario en la categoría indicada. Si compartido
+     * es true, cada gasto se divide en partes iguales entre los miembros de su pareja.
+     * Las filas inválidas se informan y se omiten; el resto se importa en una transacción.
+     */
+    @Transactional
+    public ImportacionResultadoDTO importar(Long usuarioId, MultipartFile archivo, Long categoriaId,
+            boolean compartido) {
+        if (archivo == null || archivo.isEmpty()) {
+            throw new BadRequestException("Debes adjuntar un archivo");
+        }
+        Usuario usuario = usuarioRepository.findById(usuarioId)
+                .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado"));
+        Categoria categoria = categoriaRepository.findById(categoriaId)
+                .orElseThrow(() -> new ResourceNotFoundException("Categoría no encontrada"));
+        Pareja pareja = usuario.getPareja();
+        if (compartido && pareja == null) {
+            throw new BadRequestException("Necesitas estar en una pareja para importar gastos compartidos");
+        }
+
+        Formato formato = LectorExtractos.detectarFormato(archivo.getOriginalFilename());
+        PerfilMontos perfil = new PerfilMontos(maxFilas);
+        Importacion importacion = new Importacion(usuario, pareja, categoria, compartido,
+                recortar("Importado de " + archivo.getOriginalFilename()), perfil);
+
+        long inicio = System.nanoTime();
+        try {
+            leer(formato, archivo, perfil);
+            leer(formato, archivo, importacion);
+        } catch (IOException e) {
+            throw new BadRequestException("No se pudo leer el archivo: " + e.getMessage());
+        }
+        importacion.cerrar();
+
+        long duracionMs = (System.nanoTime() - inicio) / 1_000_000;
+        log.info("Importación {} del usuario {}: {} filas, {} importadas, {} rechazadas, {} omitidas en {} ms",
+                formato, usuarioId, importacion.totalFilas, importacion.importadas, importacion.rechazadas,
+                importacion.omitidas, duracionMs);
+
+        return ImportacionResultadoDTO.builder()
+                .formato(formato.name())
+                .totalFilas(importacion.totalFilas)
+                .importadas(importacion.importadas)
+                .rechazadas(importacion.rechazadas)
+                .omitidas(importacion.omitidas)
+                .montoImportado(importacion.montoImportado)
+                .compartido(compartido)
+                .filas(importacion.reporte)
+                .filasTruncadas(importacion.rechazadas + importacion.omitidas > importacion.reporte.size())
+                .duracionMs(duracionMs)
+                .build();
+    }
+
+    private void leer(Formato formato, MultipartFile archivo, Consumer<Movimiento> consumidor) throws IOException {
+        switch (formato) {
+            case CSV -> {
+                try (InputStream entrada = archivo.getInputStream()) {
+                    LectorExtractos.leerCsv(entrada, consumidor);
+                }
+            }
+            case OFX -> {
+                try (InputStream entrada = archivo.getInputStream()) {
+                    LectorExtractos.leerOfx(entrada, consumidor);
+                }
+            }
+            case XLSX -> {
+                // La API de eventos necesita acceso aleatorio al zip: se lee desde disco
+                Path temporal = Files.createTempFile("importacion-", ".xlsx");
+                try {
+                    archivo.transferTo(temporal);
+                    LectorExtractos.leerXlsx(temporal.toFile(), consumidor);
+                } finally {
+                    Files.deleteIfExists(temporal);
+                }
+            }
+        }
+    }
+
+    /**
+     * Estado de una importación en curso: lote pendiente de insertar, contadores,
+     * reporte de filas, deltas de balance [debe, pagado, aFavor] por miembro y deltas del
+     * resumen mensual por mes.
+     */
+    private final class Importacion implements Consumer<Movimiento> {
+
+        private final Usuario usuario;
+        private final Pareja pareja;
+        private final Categoria categoria;
+        private final boolean compartido;
+        private final String notas;
+        private final List<Long> miembros;
+        private final PerfilMontos perfil;
+        private final Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
+
+        private final List<Object[]> lote = new ArrayList<>(TAMANO_LOTE);
+        private final List<FilaImportacionDTO> reporte = new ArrayList<>();
+        private final Map<Long, BigDecimal[]> deltas = new HashMap<>();
+        private final Map<ResumenMensualService.Clave, BigDecimal[]> resumen = new HashMap<>();
+        private final AnomaliaService.Acumulador estadistica = new AnomaliaService.Acumulador();
+        private LocalDateTime fechaMasAntigua;
+
+        private int totalFilas;
+        private int importadas;
+        private int rechazadas;
+        private int omitidas;
+        private BigDecimal montoImportado = BigDecimal.ZERO;
+
+        Importacion(Usuario usuario, Pareja pareja, Categoria categoria, boolean compartido, String notas,
+                PerfilMontos perfil) {
+            this.usuario = usuario;
+            this.pareja = pareja;
+            this.categoria = categoria;
+            this.compartido = compartido;
+            this.notas = notas;
+            this.perfil = perfil;
+            this.miembros = compartido
+                    ? pareja.getUsuarios().stream().map(Usuario::getId).sorted().toList()
+                    : List.of();
+        }
+
+        @Override
+        public void accept(Movimiento movimiento) {
+            if (++totalFilas > maxFilas) {
+                throw new BadRequestException("El archivo supera el máximo de " + maxFilas + " filas");
+            }
+            BigDecimal leido;
+            try {
+                leido = parsearMonto(movimiento.monto(), perfil.decimal());
+            } catch (IllegalArgumentException e) {
+                if (Boolean.TRUE.equals(movimiento.credito())) {
+                    omitir(movimiento.fila());
+                } else {
+                    rechazar(movimiento.fila(), e.getMessage());
+                }
+                return;
+            }
+            if (perfil.esAbono(movimiento, leido)) {
+                omitir(movimiento.fila());
+                return;
+            }
+
+            LocalDate fecha;
+            try {
+                fecha = parsearFecha(movimiento.fecha());
+            } catch (IllegalArgumentException e) {
+                rechazar(movimiento.fila(), e.getMessage());
+                return;
+            }
+            // Los cargos se guardan positivos, sea cual sea el signo con que los anota el banco
+            BigDecimal monto = perfil.signoCargo() < 0 ? leido.negate() : leido;
+            if (monto.signum() < 0) {
+                rechazar(movimiento.fila(), "Cargo con signo contrario al resto del extracto: " + movimiento.monto());
+                return;
+            }
+            String descripcion = movimiento.descripcion() == null ? "" : movimiento.descripcion().strip();
+            if (descripcion.isEmpty()) {
+                rechazar(movimiento.fila(), "Descripción vacía");
+                return;
+            }
+            if (monto.signum() == 0) {
+                rechazar(movimiento.fila(), "Monto cero");
+                return;
+            }
+            if (monto.compareTo(MONTO_MAXIMO) > 0) {
+                rechazar(movimiento.fila(), "Monto fuera de rango: " + monto);
+                return;
+            }
+
+            LocalDateTime fechaGasto = fecha.atStartOfDay();
+            lote.add(new Object[] { null, recortar(descripcion), monto, monto, notas, usuario.getId(),
+                    pareja != null ? pareja.getId() : null, categoria.getId(), Timestamp.valueOf(fechaGasto),
+                    ahora, ahora });
+            importadas++;
+            montoImportado = montoImportado.add(monto);
+            ResumenMensualService.acumular(resumen, clave(usuario.getId(), fechaGasto), monto, 1, BigDecimal.ZERO);
+            estadistica.agregar(monto);
+            if (fechaMasAntigua == null || fechaGasto.isBefore(fechaMasAntigua)) {
+                fechaMasAntigua = fechaGasto;
+            }
+            if (lote.size() == TAMANO_LOTE) {
+                insertarLote();
+            }
+        }
+
+        void cerrar() {
+            insertarLote();
+            if (compartido && !deltas.isEmpty()) {
+                balanceService.registrarDeltas(pareja.getId(), deltas, fechaMasAntigua);
+            }
+            resumenMensualService.registrarDeltas(resumen);
+            // Los gastos importados no se evalúan: un extracto trae meses de historia de una vez
+            anomaliaService.registrarLote(pareja != null ? pareja.getId() : null, categoria.getId(), estadistica);
+            if (importadas > 0) {
+                pronosticoService.recalcularUsuario(usuario.getId());
+            }
+        }
+
+        private ResumenMensualService.Clave clave(Long usuarioId, LocalDateTime fechaGasto) {
+            return ResumenMensualService.Clave.de(pareja != null ? pareja.getId() : null, usuarioId,
+                    categoria.getId(), fechaGasto);
+        }
+
+        private void insertarLote() {
+            if (lote.isEmpty()) {
+                return;
+            }
+            List<Long> ids = reservarIds("gastos_id_seq", lote.size());
+            List<Object[]> splits = new ArrayList<>(compartido ? lote.size() * miembros.size() : 0);
+            for (int i = 0; i < lote.size(); i++) {
+                Object[] gasto = lote.get(i);
+                gasto[0] = ids.get(i);
+                if (compartido) {
+                    dividir(ids.get(i), (BigDecimal) gasto[2], ((Timestamp) gasto[8]).toLocalDateTime(), splits);
+                }
+            }
+            jdbcTemplate.batchUpdate(INSERT_GASTO, lote);
+            if (!splits.isEmpty()) {
+                List<Long> idsSplits = reservarIds("gasto_splits_id_seq", splits.size());
+                for (int i = 0; i < splits.size(); i++) {
+                    splits.get(i)[0] = idsSplits.get(i);
+                }
+                jdbcTemplate.batchUpdate(INSERT_SPLIT, splits);
+            }
+            lote.clear();
+        }
+
+        /**
+         * Partes iguales entre los miembros; los centavos que sobran quedan en la parte
+         * de quien importa (PAGO), igual que al dividir a mano.
+         */
+        private void dividir(Long gastoId, BigDecimal monto, LocalDateTime fechaGasto, List<Object[]> splits) {
+            BigDecimal parte = monto.divide(BigDecimal.valueOf(miembros.size()), 2, RoundingMode.DOWN);
+            BigDecimal propia = monto.subtract(parte.multiply(BigDecimal.valueOf(miembros.size() - 1)));
+            Long registradorId = usuario.getId();
+            BigDecimal[] deltaRegistrador = deltas.computeIfAbsent(registradorId, id -> nuevoDelta());
+            for (Long miembroId : miembros) {
+                if (miembroId.equals(registradorId)) {
+                    splits.add(new Object[] { null, gastoId, miembroId, propia, GastoSplit.TipoSplit.PAGO.name(), ahora });
+                    deltaRegistrador[1] = deltaRegistrador[1].add(propia);
+                    ResumenMensualService.acumular(resumen, clave(registradorId, fechaGasto), BigDecimal.ZERO, 0, propia);
+                } else if (parte.signum() > 0) {
+                    splits.add(new Object[] { null, gastoId, miembroId, parte, GastoSplit.TipoSplit.DEBE.name(), ahora });
+                    BigDecimal[] delta = deltas.computeIfAbsent(miembroId, id -> nuevoDelta());
+                    delta[0] = delta[0].add(parte);
+                    deltaRegistrador[2] = deltaRegistrador[2].add(parte);
+                }
+            }
+        }
+
+        private void omitir(int fila) {
+            omitidas++;
+            reportar(fila, EstadoFila.OMITIDA, "Abono a la cuenta, no es un gasto");
+        }
+
+        private void rechazar(int fila, String motivo) {
+            rechazadas++;
+            reportar(fila, EstadoFila.RECHAZADA, motivo);
+        }
+
+        private void reportar(int fila, EstadoFila estado, String motivo) {
+            if (reporte.size() < MAX_FILAS_REPORTE) {
+                reporte.add(new FilaImportacionDTO(fila, estado, motivo));
+            }
+        }
+    }
+
+    /**
+     * Primera pasada sobre el extracto: decide con la columna completa, no celda a celda, qué
+     * separador es el decimal y con qué signo vienen los cargos.
+     *
+     * Separador: cada celda que lo deja claro vota ("1.234,56" o "12,5" por la coma, "1,234.56"
+     * o "1.234.567" por el punto); gana el más votado. Si ninguna celda lo aclara (solo montos
+     * como "12.500"), decimal queda en null y parsearMonto aplica su regla por celda.
+     *
+     * Signo: en un extracto de gastos la mayoría de las filas son cargos, así que el signo más
+     * frecuente es el de los cargos y las filas con el otro signo son abonos. Cuando el archivo
+     * marca cargos explícitamente (columna de tipo, columnas separadas, OFX) se usa el signo
+     * de esos cargos. Sin negativos, todo es cargo.
+     */
+    static final class PerfilMontos implements Consumer<Movimiento> {
+
+        private final int maxFilas;
+        private int filas;
+        private int decimalPunto;
+        private int decimalComa;
+        private int positivos;
+        private int negativos;
+        private int cargosPositivos;
+        private int cargosNegativos;
+
+        PerfilMontos(int maxFilas) {
+            this.maxFilas = maxFilas;
+        }
+
+        @Override
+        public void accept(Movimiento movimiento) {
+            if (++filas > maxFilas) {
+                throw new BadRequestException("El archivo supera el máximo de " + maxFilas + " filas");
+            }
+            String texto = movimiento.monto();
+            if (texto == null || texto.isBlank()) {
+                return;
+            }
+            votarSeparador(texto.replaceAll("[^0-9.,]", ""));
+            if (Boolean.TRUE.equals(movimiento.credito())) {
+                return;
+            }
+            boolean negativo = esNegativo(texto.strip());
+            if (Boolean.FALSE.equals(movimiento.credito())) {
+                if (negativo) {
+                    cargosNegativos++;
+                } else {
+                    cargosPositivos++;
+                }
+            } else if (negativo) {
+                negativos++;
+            } else {
+                positivos++;
+            }
+        }
+
+        private void votarSeparador(String limpio) {
+            int ultimoPunto = limpio.lastIndexOf('.');
+            int ultimaComa = limpio.lastIndexOf(',');
+            if (ultimoPunto >= 0 && ultimaComa >= 0) {
+                if (ultimoPunto > ultimaComa) {
+                    decimalPunto++;
+                } else {
+                    decimalComa++;
+                }
+                return;
+            }
+            int posicion = Math.max(ultimoPunto, ultimaComa);
+            if (posicion < 0) {
+                return;
+            }
+            boolean punto = ultimoPunto >= 0;
+            if (limpio.indexOf(limpio.charAt(posicion)) != posicion) {
+                // Repetido: es de miles, así que el decimal es el otro
+                if (punto) {
+                    decimalComa++;
+                } else {
+                    decimalPunto++;
+                }
+            } else if (limpio.length() - posicion - 1 != 3) {
+                if (punto) {
+                    decimalPunto++;
+                } else {
+                    decimalComa++;
+                }
+            }
+        }
+
+        /**
+         * Separador decimal de la columna, o null si ninguna celda lo deja claro.
+         */
+        Character decimal() {
+            if (decimalPunto == decimalComa) {
+                return null;
+            }
+            return decimalPunto > decimalComa ? '.' : ',';
+        }
+
+        /**
+         * -1 si los cargos vienen negativos, 1 si vienen positivos.
+         */
+        int signoCargo() {
+            if (cargosPositivos + cargosNegativos > 0) {
+                return cargosNegativos > cargosPositivos ? -1 : 1;
+            }
+            return negativos > positivos ? -1 : 1;
+        }
+
+        boolean esAbono(Movimiento movimiento, BigDecimal monto) {
+            if (movimiento.credito() != null) {
+                return movimiento.credito();
+            }
+            return monto.signum() != 0 && monto.signum() != signoCargo();
+        }
+    }
+
+    /**
+     * Reserva IDs igual que el optimizador pooled de las entidades: cada nextval = v
+     * entrega el bloque v - 49 .. v, así que basta un nextval cada 50 filas.
+     */
+    private List<Long> reservarIds(String secuencia, int cantidad) {
+        List<Long> ids = new ArrayList<>(cantidad);
+        while (ids.size() < cantidad) {
+            int bloques = (cantidad - ids.size() + BLOQUE_SECUENCIA - 1) / BLOQUE_SECUENCIA;
+            List<Long> valores = jdbcTemplate.queryForList(
+                    "SELECT nextval('" + secuencia + "') FROM generate_series(1, ?)", Long.class, bloques);
+            for (Long valor : valores) {
+                // El primer valor de una secuencia nueva (1) no tiene bloque completo
+                for (long id = Math.max(valor - BLOQUE_SECUENCIA + 1, 1); id <= valor && ids.size() < cantidad; id++) {
+                    ids.add(id);
+                }
+            }
+        }
+        return ids;
+    }
+
+    private static boolean esNegativo(String texto) {
+        return texto.startsWith("-") || texto.endsWith("-") || (texto.startsWith("(") && texto.endsWith(")"));
+    }
+
+    private static BigDecimal[] nuevoDelta() {
+        return new BigDecimal[] { BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO };
+    }
+
+    private static String recortar(String texto) {
+        return texto.length() > LARGO_TEXTO ? texto.substring(0, LARGO_TEXTO) : texto;
+    }
+
+    static LocalDate parsearFecha(String texto) {
+        if (texto == null || texto.isBlank()) {
+            throw new IllegalArgumentException("Fecha vacía");
+        }
+        // Se descarta la hora si viene ("2024-01-31 10:15", "2024-01-31T10:15:00")
+        String fecha = texto.strip().split("[ T]", 2)[0];
+        for (DateTimeFormatter formato : FORMATOS_FECHA) {
+            try {
+                return LocalDate.parse(fecha, formato);
+            } catch (DateTimeParseException e) {
+                // probar el siguiente formato
+            }
+        }
+        throw new IllegalArgumentException("Fecha no reconocida: " + texto);
+    }
+
+    /**
+     * Acepta "1234.56", "1.234,56", "1,234.56", "$ 12.990", "-45,00" y "(45.00)".
+     * separadorDecimal es el de la columna (ver PerfilMontos): "12.500" es 12,50 si es '.'
+     * y 12.500 si es ','. Si es null se decide por celda: un único separador seguido de
+     * exactamente tres dígitos se asume de miles (montos en pesos sin decimales); en otro
+     * caso, el último separador es el decimal.
+     */
+    static BigDecimal parsearMonto(String texto, Character separadorDecimal) {
+        if (texto == null || texto.isBlank()) {
+            throw new IllegalArgumentException("Monto vacío");
+        }
+        String limpio = texto.strip();
+        boolean negativo = esNegativo(limpio);
+        limpio = limpio.replaceAll("[^0-9.,]", "");
+        if (limpio.isEmpty()) {
+            throw new IllegalArgumentException("Monto no reconocido: " + texto);
+        }
+
+        int ultimoPunto = limpio.lastIndexOf('.');
+        int ultimaComa = limpio.lastIndexOf(',');
+        int decimal = Math.max(ultimoPunto, ultimaComa);
+        if (separadorDecimal != null) {
+            decimal = limpio.indexOf(separadorDecimal);
+            if (decimal != limpio.lastIndexOf(separadorDecimal)) {
+                throw new IllegalArgumentException("Monto no reconocido: " + texto);
+            }
+        } else if (decimal >= 0 && (ultimoPunto < 0 || ultimaComa < 0)) {
+            // Un solo tipo de separador: repetido o seguido de tres dígitos es de miles
+            char separador = limpio.charAt(decimal);
+            if (limpio.indexOf(separador) != decimal || limpio.length() - decimal - 1 == 3) {
+                decimal = -1;
+            }
+        }
+
+        StringBuilder numero = new StringBuilder(limpio.length());
+        for (int i = 0; i < limpio.length(); i++) {
+            char c = limpio.charAt(i);
+            if (Character.isDigit(c)) {
+                numero.append(c);
+            } else if (i == decimal) {
+                numero.append('.');
+            }
+        }
+        try {
+            BigDecimal monto = new BigDecimal(numero.toString()).setScale(2, RoundingMode.HALF_UP);
+            return negativo ? monto.negate() : monto;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Monto no reconocido: " + texto);
+        }
+    }
+}
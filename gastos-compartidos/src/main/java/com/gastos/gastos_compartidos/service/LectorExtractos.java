@@ -0,0 +1,436 @@
+package com.gastos.gastos_compartidos.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+import com.gastos.gastos_compartidos.exception.BadRequestException;
+
+/**
+ * Lectura en streaming de extractos bancarios. Cada formato entrega sus movimientos
+ * uno a uno al consumidor, sin cargar el archivo completo: CSV línea a línea, OFX con
+ * StAX (o por etiquetas si es OFX 1.x en SGML) y XLSX con la API de eventos de POI.
+ * Los valores se entregan como texto; interpretarlos y validarlos es tarea de quien consume.
+ */
+public final class LectorExtractos {
+
+    public enum Formato {
+        CSV, OFX, XLSX
+    }
+
+    /**
+     * Movimiento leído del extracto. fila es la línea (CSV), la fila (XLSX) o el número de
+     * transacción (OFX), desde 1. credito indica un abono a la cuenta cuando el extracto lo
+     * distingue (signo en OFX, columna de tipo o columnas separadas de cargos y abonos en
+     * CSV/XLSX); es null si solo puede deducirse del signo del monto.
+     */
+    public record Movimiento(int fila, String fecha, String descripcion, String monto, Boolean credito) {
+    }
+
+    private static final Map<String, List<String>> COLUMNAS = Map.of(
+            "fecha", List.of("fecha", "date", "fecha operacion", "fecha transaccion", "fecha movimiento"),
+            "descripcion", List.of("descripcion", "concepto", "detalle", "description", "glosa", "comercio"),
+            "monto", List.of("monto", "importe", "amount", "cargo", "cargos", "debito", "debitos", "debit",
+                    "valor"),
+            "abono", List.of("abono", "abonos", "credito", "creditos", "credit", "deposito", "depositos", "haber"),
+            "tipo", List.of("tipo", "tipo movimiento", "debito/credito", "cargo/abono", "d/c", "dc"));
+
+    // Posiciones en el arreglo de columnas; abono y tipo son opcionales (-1 si no están)
+    private static final String[] CLAVES = { "fecha", "descripcion", "monto", "abono", "tipo" };
+    private static final int FECHA = 0;
+    private static final int DESCRIPCION = 1;
+    private static final int MONTO = 2;
+    private static final int ABONO = 3;
+    private static final int TIPO = 4;
+
+    private static final List<String> VALORES_CREDITO = List.of("c", "cr", "credito", "abono", "haber",
+            "credit", "deposito", "ingreso");
+    private static final List<String> VALORES_DEBITO = List.of("d", "db", "dr", "debito", "cargo", "debe",
+            "debit", "compra", "egreso");
+
+    private static final DateTimeFormatter ISO = DateTimeFormatter.ISO_LOCAL_DATE;
+
+    private LectorExtractos() {
+    }
+
+    public static Formato detectarFormato(String nombreArchivo) {
+        String nombre = nombreArchivo == null ? "" : nombreArchivo.toLowerCase(Locale.ROOT);
+        if (nombre.endsWith(".csv") || nombre.endsWith(".txt")) {
+            return Formato.CSV;
+        }
+        if (nombre.endsWith(".ofx") || nombre.endsWith(".qfx")) {
+            return Formato.OFX;
+        }
+        if (nombre.endsWith(".xlsx")) {
+            return Formato.XLSX;
+        }
+        throw new BadRequestException("Formato de archivo no soportado (se acepta CSV, OFX o XLSX)");
+    }
+
+    // ===== CSV =====
+
+    /**
+     * La primera línea no vacía es la cabecera; el separador (',' o ';') se deduce de ella.
+     * Los campos entre comillas pueden contener el separador, pero no saltos de línea.
+     */
+    public static void leerCsv(InputStream entrada, Consumer<Movimiento> consumidor) throws IOException {
+        BufferedReader lector = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8));
+        String linea;
+        int numero = 0;
+        int[] indices = null;
+        char separador = ',';
+        while ((linea = lector.readLine()) != null) {
+            numero++;
+            if (numero == 1 && !linea.isEmpty() && linea.charAt(0) == '\uFEFF') {
+                linea = linea.substring(1);
+            }
+            if (linea.isBlank()) {
+                continue;
+            }
+            if (indices == null) {
+                separador = contar(linea, ';') > contar(linea, ',') ? ';' : ',';
+                indices = ubicarColumnas(dividirCsv(linea, separador));
+                continue;
+            }
+            consumidor.accept(movimiento(numero, dividirCsv(linea, separador), indices));
+        }
+        if (indices == null) {
+            throw new BadRequestException("El archivo está vacío");
+        }
+    }
+
+    static List<String> dividirCsv(String linea, char separador) {
+        List<String> campos = new ArrayList<>();
+        StringBuilder actual = new StringBuilder();
+        boolean entreComillas = false;
+        for (int i = 0; i < linea.length(); i++) {
+            char c = linea.charAt(i);
+            if (entreComillas) {
+                if (c == '"') {
+                    if (i + 1 < linea.length() && linea.charAt(i + 1) == '"') {
+                        actual.append('"');
+                        i++;
+                    } else {
+                        entreComillas = false;
+                    }
+                } else {
+                    actual.append(c);
+                }
+            } else if (c == '"') {
+                entreComillas = true;
+            } else if (c == separador) {
+                campos.add(actual.toString().trim());
+                actual.setLength(0);
+            } else {
+                actual.append(c);
+            }
+        }
+        campos.add(actual.toString().trim());
+        return campos;
+    }
+
+    // ===== OFX =====
+
+    /**
+     * OFX 2.x es XML y se recorre con StAX. OFX 1.x es SGML (etiquetas sin cerrar) y no
+     * es XML válido, así que se recorre por etiquetas con el mismo criterio.
+     */
+    public static void leerOfx(InputStream entrada, Consumer<Movimiento> consumidor) throws IOException {
+        BufferedInputStream buffer = new BufferedInputStream(entrada);
+        buffer.mark(64);
+        byte[] inicio = buffer.readNBytes(64);
+        buffer.reset();
+        String cabecera = new String(inicio, StandardCharsets.US_ASCII).stripLeading();
+        if (cabecera.startsWith("OFXHEADER:")) {
+            leerOfxSgml(new BufferedReader(new InputStreamReader(buffer, StandardCharsets.ISO_8859_1)), consumidor);
+        } else {
+            leerOfxXml(buffer, consumidor);
+        }
+    }
+
+    private static void leerOfxXml(InputStream entrada, Consumer<Movimiento> consumidor) throws IOException {
+        XMLInputFactory fabrica = XMLInputFactory.newFactory();
+        fabrica.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        fabrica.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        fabrica.setProperty(XMLInputFactory.IS_COALESCING, true);
+        try {
+            XMLStreamReader xml = fabrica.createXMLStreamReader(entrada);
+            TransaccionOfx actual = null;
+            int numero = 0;
+            String etiqueta = null;
+            while (xml.hasNext()) {
+                int evento = xml.next();
+                if (evento == XMLStreamConstants.START_ELEMENT) {
+                    etiqueta = xml.getLocalName();
+                    if ("STMTTRN".equals(etiqueta)) {
+                        actual = new TransaccionOfx(++numero);
+                    }
+                } else if (evento == XMLStreamConstants.CHARACTERS && actual != null && etiqueta != null) {
+                    actual.asignar(etiqueta, xml.getText());
+                } else if (evento == XMLStreamConstants.END_ELEMENT) {
+                    if ("STMTTRN".equals(xml.getLocalName()) && actual != null) {
+                        consumidor.accept(actual.aMovimiento());
+                        actual = null;
+                    }
+                    etiqueta = null;
+                }
+            }
+            xml.close();
+        } catch (XMLStreamException e) {
+            throw new BadRequestException("Archivo OFX inválido: " + e.getMessage());
+        }
+    }
+
+    private static void leerOfxSgml(Reader entrada, Consumer<Movimiento> consumidor) throws IOException {
+        StringBuilder texto = new StringBuilder();
+        TransaccionOfx actual = null;
+        int numero = 0;
+        String etiqueta = null;
+        int c;
+        while ((c = entrada.read()) != -1) {
+            if (c != '<') {
+                texto.append((char) c);
+                continue;
+            }
+            if (actual != null && etiqueta != null) {
+                actual.asignar(etiqueta, texto.toString());
+            }
+            texto.setLength(0);
+            StringBuilder nombre = new StringBuilder();
+            while ((c = entrada.read()) != -1 && c != '>') {
+                nombre.append((char) c);
+            }
+            etiqueta = nombre.toString().trim().toUpperCase(Locale.ROOT);
+            if ("STMTTRN".equals(etiqueta)) {
+                actual = new TransaccionOfx(++numero);
+            } else if ("/STMTTRN".equals(etiqueta) && actual != null) {
+                consumidor.accept(actual.aMovimiento());
+                actual = null;
+            }
+            if (etiqueta.startsWith("/")) {
+                etiqueta = null;
+            }
+        }
+    }
+
+    private static final class TransaccionOfx {
+        private final int numero;
+        private String fecha;
+        private String monto;
+        private String nombre;
+        private String memo;
+
+        TransaccionOfx(int numero) {
+            this.numero = numero;
+        }
+
+        void asignar(String etiqueta, String valor) {
+            String limpio = valor.trim();
+            if (limpio.isEmpty()) {
+                return;
+            }
+            switch (etiqueta) {
+                case "DTPOSTED" -> fecha = limpio.length() >= 8 ? formatearFechaOfx(limpio) : limpio;
+                case "TRNAMT" -> monto = limpio;
+                case "NAME" -> nombre = limpio;
+                case "MEMO" -> memo = limpio;
+                default -> {
+                }
+            }
+        }
+
+        Movimiento aMovimiento() {
+            boolean credito = monto != null && !monto.startsWith("-");
+            return new Movimiento(numero, fecha, nombre != null ? nombre : memo, monto, credito);
+        }
+
+        // 20240131120000.000[-3:CLT] -> 2024-01-31
+        private static String formatearFechaOfx(String valor) {
+            return valor.substring(0, 4) + "-" + valor.substring(4, 6) + "-" + valor.substring(6, 8);
+        }
+    }
+
+    // ===== XLSX =====
+
+    /**
+     * Recorre la primera hoja con XSSFSheetXMLHandler (SAX): solo la tabla de textos
+     * compartidos queda en memoria. Las fechas se entregan en ISO y los números sin
+     * formato, para no depender del formato de celda del banco.
+     */
+    public static void leerXlsx(File archivo, Consumer<Movimiento> consumidor) throws IOException {
+        try (OPCPackage paquete = OPCPackage.open(archivo, PackageAccess.READ)) {
+            XSSFReader lectorXssf = new XSSFReader(paquete);
+            ReadOnlySharedStringsTable textos = new ReadOnlySharedStringsTable(paquete);
+            XSSFReader.SheetIterator hojas = (XSSFReader.SheetIterator) lectorXssf.getSheetsData();
+            if (!hojas.hasNext()) {
+                throw new BadRequestException("El archivo no tiene hojas");
+            }
+            FilasXlsx filas = new FilasXlsx(consumidor);
+            try (InputStream hoja = hojas.next()) {
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(new XSSFSheetXMLHandler(lectorXssf.getStylesTable(), textos, filas,
+                        new FormatoCrudo(), false));
+                parser.parse(new InputSource(hoja));
+            }
+            if (filas.indices == null) {
+                throw new BadRequestException("El archivo está vacío");
+            }
+        } catch (BadRequestException | IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new BadRequestException("Archivo XLSX inválido: " + e.getMessage());
+        }
+    }
+
+    private static final class FilasXlsx implements XSSFSheetXMLHandler.SheetContentsHandler {
+        private final Consumer<Movimiento> consumidor;
+        private final List<String> celdas = new ArrayList<>();
+        private int[] indices;
+
+        FilasXlsx(Consumer<Movimiento> consumidor) {
+            this.consumidor = consumidor;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            celdas.clear();
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int columna = new CellReference(cellReference).getCol();
+            while (celdas.size() < columna) {
+                celdas.add("");
+            }
+            celdas.add(formattedValue == null ? "" : formattedValue.trim());
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            if (celdas.stream().allMatch(String::isEmpty)) {
+                return;
+            }
+            if (indices == null) {
+                indices = ubicarColumnas(celdas);
+                return;
+            }
+            consumidor.accept(movimiento(rowNum + 1, celdas, indices));
+        }
+    }
+
+    private static final class FormatoCrudo extends DataFormatter {
+        @Override
+        public String formatRawCellContents(double value, int formatIndex, String formatString) {
+            if (DateUtil.isADateFormat(formatIndex, formatString) && DateUtil.isValidExcelDate(value)) {
+                return DateUtil.getLocalDateTime(value).toLocalDate().format(ISO);
+            }
+            return BigDecimal.valueOf(value).toPlainString();
+        }
+    }
+
+    // ===== Comunes =====
+
+    /**
+     * Posición de las columnas según la cabecera: fecha, descripción y monto son obligatorias;
+     * abono (columna separada de créditos) y tipo (débito/crédito) son opcionales.
+     */
+    private static int[] ubicarColumnas(List<String> cabecera) {
+        int[] indices = { -1, -1, -1, -1, -1 };
+        for (int i = 0; i < cabecera.size(); i++) {
+            String nombre = normalizar(cabecera.get(i));
+            for (int k = 0; k < CLAVES.length; k++) {
+                if (indices[k] < 0 && COLUMNAS.get(CLAVES[k]).contains(nombre)) {
+                    indices[k] = i;
+                    break;
+                }
+            }
+        }
+        if (indices[FECHA] < 0 || indices[DESCRIPCION] < 0 || indices[MONTO] < 0) {
+            throw new BadRequestException(
+                    "La cabecera debe incluir columnas de fecha, descripción y monto");
+        }
+        return indices;
+    }
+
+    /**
+     * Con columnas separadas de cargos y abonos, la fila es un abono si solo trae el segundo.
+     * Si no, manda la columna de tipo cuando su valor se reconoce; en otro caso credito queda
+     * en null y se deduce del signo del monto.
+     */
+    private static Movimiento movimiento(int fila, List<String> campos, int[] indices) {
+        String monto = campo(campos, indices[MONTO]);
+        Boolean credito = null;
+        if (indices[ABONO] >= 0) {
+            String abono = campo(campos, indices[ABONO]);
+            if (monto.isEmpty() && !abono.isEmpty()) {
+                monto = abono;
+                credito = true;
+            } else if (!monto.isEmpty()) {
+                credito = false;
+            }
+        }
+        if (credito == null && indices[TIPO] >= 0) {
+            String tipo = normalizar(campo(campos, indices[TIPO]));
+            if (VALORES_CREDITO.contains(tipo)) {
+                credito = true;
+            } else if (VALORES_DEBITO.contains(tipo)) {
+                credito = false;
+            }
+        }
+        return new Movimiento(fila, campo(campos, indices[FECHA]), campo(campos, indices[DESCRIPCION]), monto,
+                credito);
+    }
+
+    private static String normalizar(String texto) {
+        return Normalizer.normalize(texto, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .replace('_', ' ')
+                .trim()
+                .toLowerCase(Locale.ROOT);
+    }
+
+    private static String campo(List<String> campos, int indice) {
+        return indice >= 0 && indice < campos.size() ? campos.get(indice) : "";
+    }
+
+    private static int contar(String texto, char c) {
+        int total = 0;
+        for (int i = 0; i < texto.length(); i++) {
+            if (texto.charAt(i) == c) {
+                total++;
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,270 @@
+package com.gastos.gastos_compartidos.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.gastos.gastos_compartidos.dto.AbonoDeudaResponseDTO;
+import com.gastos.gastos_compartidos.dto.DeudaResponseDTO;
+import com.gastos.gastos_compartidos.dto.GastoResponseDTO;
+import com.gastos.gastos_compartidos.entity.AbonoDeuda;
+import com.gastos.gastos_compartidos.entity.Categoria;
+import com.gastos.gastos_compartidos.entity.Deuda;
+import com.gastos.gastos_compartidos.entity.EstadoDeuda;
+import com.gastos.gastos_compartidos.entity.Gasto;
+import com.gastos.gastos_compartidos.entity.GastoSplit;
+import com.gastos.gastos_compartidos.entity.MetodoPago;
+import com.gastos.gastos_compartidos.entity.TipoDeuda;
+import com.gastos.gastos_compartidos.entity.Usuario;
+import com.gastos.gastos_compartidos.exception.ResourceNotFoundException;
+import com.gastos.gastos_compartidos.repository.UsuarioRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+
+/**
+ * Listados completos escritos como arreglo JSON a medida que se leen. La consulta corre
+ * con un cursor de solo avance (fetch size, transacción de solo lectura) directamente
+ * sobre JDBC, sin entidades administradas: cada fila se convierte a su DTO, se escribe y
+ * se descarta, así la memoria no crece con la cantidad de filas. El JSON es el mismo que
+ * el de los endpoints que devuelven listas.
+ */
+@Service
+@Slf4j
+public class ListadoStreamingService {
+
+    // Igual que el cursor de GastoRepository: cada rama del UNION ALL usa su índice parcial de
+    // V9 y ya sale ordenada por (fecha_gasto DESC, id DESC), así el plan las mezcla en lugar de
+    // ordenar todo el resultado. Con el OR el planificador no podía usar ninguno de los dos.
+    private static final String SQL_GASTOS = """
+            SELECT g.id, g.descripcion, g.monto, g.monto_original, g.notas, g.ruta_foto,
+                   g.fecha_gasto, g.fecha_creacion,
+                   u.id AS usuario_id, u.nombre AS usuario_nombre,
+                   c.id AS categoria_id, c.nombre AS categoria_nombre,
+                   s.id AS split_id, s.monto AS split_monto, s.tipo AS split_tipo,
+                   s.fecha_creacion AS split_fecha_creacion,
+                   su.id AS split_usuario_id, su.nombre AS split_usuario_nombre
+            FROM (
+                SELECT * FROM gastos
+                WHERE usuario_id = ? AND pareja_id IS NULL AND deleted_at IS NULL
+                UNION ALL
+                SELECT * FROM gastos
+                WHERE pareja_id = ? AND deleted_at IS NULL
+            ) g
+            JOIN usuarios u ON u.id = g.usuario_id
+            LEFT JOIN categorias c ON c.id = g.categoria_id
+            LEFT JOIN gasto_splits s ON s.gasto_id = g.id
+            LEFT JOIN usuarios su ON su.id = s.usuario_id
+            ORDER BY g.fecha_gasto DESC, g.id DESC, s.id
+            """;
+
+    private static final String SQL_DEUDAS = """
+            SELECT d.id, d.acreedor, d.descripcion, d.tipo, d.monto_original, d.saldo_pendiente,
+                   d.estado, d.fecha_inicio, d.fecha_vencimiento, d.dia_corte, d.dia_limite_pago,
+                   d.tasa_interes, d.fecha_creacion, d.fecha_actualizacion,
+                   (SELECT COUNT(*) FROM abonos_deuda a WHERE a.deuda_id = d.id) AS total_abonos
+            FROM deudas d
+            WHERE d.usuario_id = ?
+            ORDER BY d.fecha_creacion DESC
+            """;
+
+    private static final String SQL_ABONOS = """
+            SELECT a.id, a.monto, a.fecha_pago, a.metodo_pago, a.comprobante, a.notas, a.fecha_creacion
+            FROM abonos_deuda a
+            WHERE a.deuda_id = ?
+            ORDER BY a.fecha_pago DESC
+            """;
+
+    private final UsuarioRepository usuarioRepository;
+    private final DeudaService deudaService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate soloLectura;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter writer;
+
+    public ListadoStreamingService(UsuarioRepository usuarioRepository, DeudaService deudaService,
+            DataSource dataSource, PlatformTransactionManager transactionManager, ObjectMapper objectMapper,
+            @Value("${app.streaming.fetch-size:500}") int fetchSize) {
+        this.usuarioRepository = usuarioRepository;
+        this.deudaService = deudaService;
+        this.objectMapper = objectMapper;
+
+        // JdbcTemplate propio: el fetch size es de la plantilla y no debe afectar al resto
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+
+        // PostgreSQL solo usa cursor (respeta el fetch size) dentro de una transacción
+        this.soloLectura = new TransactionTemplate(transactionManager);
+        this.soloLectura.setReadOnly(true);
+
+        // Sin flush por fila: el generador y el buffer del servlet agrupan las escrituras
+        this.writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /**
+     * Gastos individuales del usuario y gastos de su pareja, con sus splits.
+     */
+    public StreamingResponseBody gastosVisibles(Long usuarioId) {
+        Usuario usuario = usuarioRepository.findById(usuarioId)
+                .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado"));
+        Long parejaId = usuario.getPareja() != null ? usuario.getPareja().getId() : null;
+
+        return out -> escribirArreglo(out, generador -> {
+            GastosAgrupados agrupados = new GastosAgrupados(generador);
+            jdbcTemplate.query(SQL_GASTOS, agrupados, usuarioId, parejaId);
+            agrupados.terminar();
+        });
+    }
+
+    public StreamingResponseBody deudas(Long usuarioId) {
+        return out -> escribirArreglo(out, generador -> jdbcTemplate.query(SQL_DEUDAS, (RowCallbackHandler) rs -> {
+            Deuda deuda = Deuda.builder()
+                    .id(rs.getLong("id"))
+                    .acreedor(rs.getString("acreedor"))
+                    .descripcion(rs.getString("descripcion"))
+                    .tipo(TipoDeuda.valueOf(rs.getString("tipo")))
+                    .montoOriginal(rs.getBigDecimal("monto_original"))
+                    .saldoPendiente(rs.getBigDecimal("saldo_pendiente"))
+                    .estado(EstadoDeuda.valueOf(rs.getString("estado")))
+                    .fechaInicio(rs.getObject("fecha_inicio", LocalDate.class))
+                    .fechaVencimiento(rs.getObject("fecha_vencimiento", LocalDate.class))
+                    .diaCorte(rs.getObject("dia_corte", Integer.class))
+                    .diaLimitePago(rs.getObject("dia_limite_pago", Integer.class))
+                    .tasaInteres(rs.getBigDecimal("tasa_interes"))
+                    .fechaCreacion(fecha(rs, "fecha_creacion"))
+                    .fechaActualizacion(fecha(rs, "fecha_actualizacion"))
+                    .build();
+
+            DeudaResponseDTO dto = DeudaResponseDTO.fromEntity(deuda);
+            dto.setTotalAbonos(rs.getInt("total_abonos"));
+            escribir(generador, dto);
+        }, usuarioId));
+    }
+
+    /**
+     * La pertenencia de la deuda se valida antes de empezar a escribir, para poder
+     * responder con el error correspondiente.
+     */
+    public StreamingResponseBody abonos(Long usuarioId, Long deudaId) {
+        Deuda deuda = deudaService.obtenerDeudaYValidar(usuarioId, deudaId);
+        Deuda referencia = Deuda.builder().id(deuda.getId()).acreedor(deuda.getAcreedor()).build();
+
+        return out -> escribirArreglo(out, generador -> jdbcTemplate.query(SQL_ABONOS, (RowCallbackHandler) rs -> {
+            AbonoDeuda abono = AbonoDeuda.builder()
+                    .id(rs.getLong("id"))
+                    .deuda(referencia)
+                    .monto(rs.getBigDecimal("monto"))
+                    .fechaPago(rs.getObject("fecha_pago", LocalDate.class))
+                    .metodoPago(MetodoPago.valueOf(rs.getString("metodo_pago")))
+                    .comprobante(rs.getString("comprobante"))
+                    .notas(rs.getString("notas"))
+                    .fechaCreacion(fecha(rs, "fecha_creacion"))
+                    .build();
+            escribir(generador, AbonoDeudaResponseDTO.fromEntity(abono));
+        }, deudaId));
+    }
+
+    private void escribirArreglo(OutputStream out, Consumer<JsonGenerator> contenido)
+            throws IOException {
+        try (JsonGenerator generador = objectMapper.getFactory().createGenerator(out)) {
+            generador.writeStartArray();
+            soloLectura.executeWithoutResult(estado -> contenido.accept(generador));
+            generador.writeEndArray();
+        } catch (UncheckedIOException e) {
+            // Normalmente el cliente cerró la conexión; la consulta ya se canceló
+            log.debug("Listado interrumpido: {}", e.getMessage());
+            throw e.getCause();
+        }
+    }
+
+    private void escribir(JsonGenerator generador, Object dto) {
+        try {
+            writer.writeValue(generador, dto);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static LocalDateTime fecha(ResultSet rs, String columna) throws SQLException {
+        Timestamp valor = rs.getTimestamp(columna);
+        return valor != null ? valor.toLocalDateTime() : null;
+    }
+
+    /**
+     * Las filas llegan una por split, ordenadas por gasto: se acumulan los splits del gasto
+     * actual y se escribe cuando cambia el id.
+     */
+    private final class GastosAgrupados implements RowCallbackHandler {
+
+        private final JsonGenerator generador;
+        private Gasto actual;
+
+        private GastosAgrupados(JsonGenerator generador) {
+            this.generador = generador;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            long id = rs.getLong("id");
+            if (actual == null || actual.getId() != id) {
+                terminar();
+                actual = Gasto.builder()
+                        .id(id)
+                        .descripcion(rs.getString("descripcion"))
+                        .monto(rs.getBigDecimal("monto"))
+                        .montoOriginal(rs.getBigDecimal("monto_original"))
+                        .notas(rs.getString("notas"))
+                        .rutaFoto(rs.getString("ruta_foto"))
+                        .fechaGasto(fecha(rs, "fecha_gasto"))
+                        .fechaCreacion(fecha(rs, "fecha_creacion"))
+                        .usuario(Usuario.builder()
+                                .id(rs.getLong("usuario_id"))
+                                .nombre(rs.getString("usuario_nombre"))
+                                .build())
+                        .categoria(rs.getObject("categoria_id") != null
+                                ? Categoria.builder()
+                                        .id(rs.getLong("categoria_id"))
+                                        .nombre(rs.getString("categoria_nombre"))
+                                        .build()
+                                : null)
+                        .build();
+            }
+
+            if (rs.getObject("split_id") != null) {
+                actual.getSplits().add(GastoSplit.builder()
+                        .id(rs.getLong("split_id"))
+                        .usuario(Usuario.builder()
+                                .id(rs.getLong("split_usuario_id"))
+                                .nombre(rs.getString("split_usuario_nombre"))
+                                .build())
+                        .monto(rs.getBigDecimal("split_monto"))
+                        .tipo(GastoSplit.TipoSplit.valueOf(rs.getString("split_tipo")))
+                        .fechaCreacion(fecha(rs, "split_fecha_creacion"))
+                        .build());
+            }
+        }
+
+        private void terminar() {
+            if (actual != null) {
+                escribir(generador, GastoResponseDTO.fromEntity(actual));
+                actual = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.gastos.gastos_compartidos.service;
+
+import com.gastos.gastos_compartidos.dto.ActividadParejaDTO;
+import com.gastos.gastos_compartidos.dto.PresupuestoResponseDTO;
+import com.gastos.gastos_compartidos.repository.UsuarioRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Efectos secundarios de crear un gasto (alertas de presupuesto y aviso de gasto grande).
+ * Corren después del commit en un pool acotado (ver NotificacionesConfig), así la petición no
+ * espera ni las consultas de presupuestos ni los envíos Web Push. Si la transacción se revierte
+ * no se notifica nada.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class NotificacionesGastoListener {
+
+    private static final BigDecimal MONTO_GASTO_GRANDE = new BigDecimal("50000");
+
+    private final PresupuestoService presupuestoService;
+    private final WebPushService webPushService;
+    private final UsuarioRepository usuarioRepository;
+    private final ActividadParejaService actividadParejaService;
+    private final MeterRegistry meterRegistry;
+    private final ThreadPoolTaskExecutor notificacionesExecutor;
+
+    private Counter fallidas;
+    private Timer duracion;
+
+    @PostConstruct
+    void iniciar() {
+        fallidas = meterRegistry.counter("notificaciones.gasto.fallidas");
+        duracion = meterRegistry.timer("notificaciones.gasto.duracion");
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onGastoCreado(GastoCreadoEvent evento) {
+        notificacionesExecutor.execute(() -> procesar(evento));
+    }
+
+    private void procesar(GastoCreadoEvent evento) {
+        duracion.record(() -> {
+            try {
+                verificarPresupuestos(evento);
+                if (evento.compartido() && evento.monto().compareTo(MONTO_GASTO_GRANDE) > 0) {
+                    notificarGastoGrande(evento);
+                }
+            } catch (Exception e) {
+                fallidas.increment();
+                log.error("Error al notificar el gasto {}: {}", evento.gastoId(), e.getMessage(), e);
+            }
+        });
+    }
+
+    private void verificarPresupuestos(GastoCreadoEvent evento) {
+        List<PresupuestoResponseDTO> presupuestos = presupuestoService.obtenerActivosPorUsuario(evento.usuarioId());
+
+        for (PresupuestoResponseDTO presupuesto : presupuestos) {
+            if (presupuesto.getCategoriaId() != null && !presupuesto.getCategoriaId().equals(evento.categoriaId())) {
+                continue;
+            }
+
+            double porcentaje = presupuesto.getPorcentajeUsado();
+            String estado = presupuesto.getEstado();
+
+            if ("EXCEDIDO".equals(estado) && porcentaje >= 100 && porcentaje < 105) {
+                String titulo = "💸 Presupuesto excedido";
+                String mensaje = String.format("Has excedido el presupuesto de %s (%.0f%%)",
+                        presupuesto.getCategoriaNombre(), porcentaje);
+                webPushService.notifyUser(evento.usuarioId(), titulo, mensaje, "/presupuestos");
+                publicarPresupuesto(ActividadParejaDTO.Tipo.PRESUPUESTO_EXCEDIDO, evento, presupuesto, mensaje);
+            } else if ("ALERTA".equals(estado) && porcentaje >= 80 && porcentaje < 85) {
+                String titulo = "⚠️ Alerta de presupuesto";
+                String mensaje = String.format("Has usado el %.0f%% del presupuesto de %s",
+                        porcentaje, presupuesto.getCategoriaNombre());
+                webPushService.notifyUser(evento.usuarioId(), titulo, mensaje, "/presupuestos");
+                publicarPresupuesto(ActividadParejaDTO.Tipo.PRESUPUESTO_ALERTA, evento, presupuesto, mensaje);
+            }
+        }
+    }
+
+    // Solo para el dueño del presupuesto; sin transacción el evento sale de inmediato
+    private void publicarPresupuesto(ActividadParejaDTO.Tipo tipo, GastoCreadoEvent evento,
+            PresupuestoResponseDTO presupuesto, String mensaje) {
+        actividadParejaService.publicar(ActividadParejaDTO.builder()
+                .tipo(tipo)
+                .parejaId(evento.parejaId())
+                .usuarioId(evento.usuarioId())
+                .destinatarioId(evento.usuarioId())
+                .entidadId(presupuesto.getId())
+                .descripcion(mensaje)
+                .monto(presupuesto.getLimite())
+                .build());
+    }
+
+    private void notificarGastoGrande(GastoCreadoEvent evento) {
+        List<Long> destinatarios = usuarioRepository.findIdsByParejaId(evento.parejaId()).stream()
+                .filter(id -> !id.equals(evento.usuarioId()))
+                .toList();
+        if (destinatarios.isEmpty()) {
+            return;
+        }
+
+        String titulo = "💰 Gasto grande registrado";
+        String mensaje = String.format("%s registró un gasto de $%,d: %s",
+                evento.nombreUsuario(), evento.monto().intValue(), evento.descripcion());
+        webPushService.notifyUsers(destinatarios, titulo, mensaje, "/gastos");
+    }
+}
@@ -1,26 +1,39 @@
 package com.gastos.gastos_compartidos.service;
 
+import com.gastos.gastos_compartidos.dto.ActividadParejaDTO;
+import com.gastos.gastos_compartidos.dto.BalanceHistorialDTO;
+import com.gastos.gastos_compartidos.dto.CursorPageDTO;
 import com.gastos.gastos_compartidos.dto.PagoCreateDTO;
 import com.gastos.gastos_compartidos.dto.PagoResponseDTO;
+import com.gastos.gastos_compartidos.dto.PuntoBalanceDTO;
 import com.gastos.gastos_compartidos.dto.ResumenDeudaDTO;
+import com.gastos.gastos_compartidos.dto.SaldoMiembroDTO;
+import com.gastos.gastos_compartidos.dto.TransferenciaDTO;
 import com.gastos.gastos_compartidos.dto.UsuarioResponseDTO;
 import com.gastos.gastos_compartidos.entity.*;
 import com.gastos.gastos_compartidos.exception.BadRequestException;
 import com.gastos.gastos_compartidos.exception.ResourceNotFoundException;
 import com.gastos.gastos_compartidos.exception.UnauthorizedException;
-import com.gastos.gastos_compartidos.repository.GastoRepository;
 import com.gastos.gastos_compartidos.repository.PagoRepository;
+import com.gastos.gastos_compartidos.repository.ParejaRepository;
 import com.gastos.gastos_compartidos.repository.UsuarioRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -28,9 +41,14 @@ import java.util.stream.Collectors;
 @Transactional(readOnly = true)
 public class PagoService {
 
+    // Máximo de puntos por respuesta del historial de balance
+    private static final int MAX_PUNTOS_HISTORIAL = 1000;
+
     private final PagoRepository pagoRepository;
     private final UsuarioRepository usuarioRepository;
-    private final GastoRepository gastoRepository;
+    private final ParejaRepository parejaRepository;
+    private final BalanceService balanceService;
+    private final ActividadParejaService actividadParejaService;
 
     @Transactional
     public PagoResponseDTO registrarPago(Long usuarioId, PagoCreateDTO dto) {
@@ -65,6 +83,8 @@ public class PagoService {
             .build();
 
         pago = pagoRepository.save(pago);
+        balanceService.registrarPago(pago);
+        publicarActividad(ActividadParejaDTO.Tipo.PAGO_REGISTRADO, pago, usuarioId);
 
         return PagoResponseDTO.fromEntity(pago);
     }
@@ -96,6 +116,17 @@ public class PagoService {
             .map(PagoResponseDTO::fromEntity);
     }
 
+    public CursorPageDTO<PagoResponseDTO> obtenerHistorialPagosCursor(Long usuarioId, String cursor, int tamano) {
+        Pareja pareja = obtenerParejaDeUsuario(usuarioId);
+        CursorPageDTO.Cursor desde = CursorPageDTO.Cursor.decodificar(cursor);
+        int limite = CursorPageDTO.normalizarTamano(tamano);
+
+        List<Pago> pagos = pagoRepository.findByParejaIdDespuesDe(pareja.getId(), desde.fecha(), desde.id(), limite + 1);
+        return CursorPageDTO.de(pagos, limite,
+            p -> new CursorPageDTO.Cursor(p.getFechaPago(), p.getId()),
+            PagoResponseDTO::fromEntity);
+    }
+
     public PagoResponseDTO obtenerPagoPorId(Long pagoId, Long usuarioId) {
         Pago pago = pagoRepository.findById(pagoId)
             .orElseThrow(() -> new ResourceNotFoundException("Pago no encontrado"));
@@ -135,117 +166,120 @@ public class PagoService {
             throw new BadRequestException("No se puede cancelar un pago con más de 7 días de antigüedad");
         }
 
+        balanceService.revertirPago(pago);
         pago.setEstado(EstadoPago.CANCELADO);
         pagoRepository.save(pago);
+        publicarActividad(ActividadParejaDTO.Tipo.PAGO_CANCELADO, pago, usuarioId);
     }
 
-    public ResumenDeudaDTO calcularResumenDeuda(Long usuarioId) {
-        Usuario usuario = usuarioRepository.findById(usuarioId)
-            .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado"));
+    private void publicarActividad(ActividadParejaDTO.Tipo tipo, Pago pago, Long usuarioId) {
+        actividadParejaService.publicar(ActividadParejaDTO.builder()
+                .tipo(tipo)
+                .parejaId(pago.getPareja().getId())
+                .usuarioId(usuarioId)
+                .entidadId(pago.getId())
+                .descripcion(pago.getConcepto())
+                .monto(pago.getMonto())
+                .build());
+    }
 
-        if (usuario.getPareja() == null) {
-            throw new BadRequestException("El usuario no pertenece a ninguna pareja");
-        }
+    public ResumenDeudaDTO calcularResumenDeuda(Long usuarioId) {
+        return calcularResumenDeuda(obtenerParejaDeUsuario(usuarioId));
+    }
 
-        Pareja pareja = usuario.getPareja();
+    // Para quien ya resolvió la pareja del usuario (p. ej. el dashboard)
+    public ResumenDeudaDTO calcularResumenDeudaPorPareja(Long parejaId) {
+        Pareja pareja = parejaRepository.findById(parejaId)
+            .orElseThrow(() -> new ResourceNotFoundException("Pareja no encontrada"));
+        return calcularResumenDeuda(pareja);
+    }
 
+    private ResumenDeudaDTO calcularResumenDeuda(Pareja pareja) {
         if (pareja.getUsuarios().size() < 2) {
-            throw new BadRequestException("La pareja debe tener 2 usuarios para calcular deudas");
+            throw new BadRequestException("El grupo debe tener al menos 2 miembros para calcular deudas");
         }
 
         Usuario usuario1 = pareja.getUsuarios().get(0);
         Usuario usuario2 = pareja.getUsuarios().get(1);
 
-        // Obtener todos los gastos de la pareja
-        List<Gasto> gastos = gastoRepository.findByParejaidOrderByFechaGastoDesc(pareja.getId());
-
-        // Calcular totales de gastos (DEBE)
-        BigDecimal totalGastosUsuario1 = BigDecimal.ZERO;
-        BigDecimal totalGastosUsuario2 = BigDecimal.ZERO;
-
-        // Calcular totales pagados (PAGO)
-        BigDecimal totalPagadoUsuario1 = BigDecimal.ZERO;
-        BigDecimal totalPagadoUsuario2 = BigDecimal.ZERO;
-
-        for (Gasto gasto : gastos) {
-            for (GastoSplit split : gasto.getSplits()) {
-                if (split.getTipo() == GastoSplit.TipoSplit.DEBE) {
-                    if (split.getUsuario().getId().equals(usuario1.getId())) {
-                        totalGastosUsuario1 = totalGastosUsuario1.add(split.getMonto());
-                    } else {
-                        totalGastosUsuario2 = totalGastosUsuario2.add(split.getMonto());
-                    }
-                } else if (split.getTipo() == GastoSplit.TipoSplit.PAGO) {
-                    if (split.getUsuario().getId().equals(usuario1.getId())) {
-                        totalPagadoUsuario1 = totalPagadoUsuario1.add(split.getMonto());
-                    } else {
-                        totalPagadoUsuario2 = totalPagadoUsuario2.add(split.getMonto());
-                    }
-                }
-            }
+        // Totales materializados (ver BalanceService): lectura de tiempo constante
+        Map<Long, BalancePareja> balances = balanceService.obtenerBalances(pareja.getId());
+        BalancePareja balance1 = balances.getOrDefault(usuario1.getId(), new BalancePareja());
+        BalancePareja balance2 = balances.getOrDefault(usuario2.getId(), new BalancePareja());
+
+        // Totales de gastos (DEBE) y pagados (PAGO)
+        BigDecimal totalGastosUsuario1 = montoONulo(balance1.getTotalDebe());
+        BigDecimal totalGastosUsuario2 = montoONulo(balance2.getTotalDebe());
+        BigDecimal totalPagadoUsuario1 = montoONulo(balance1.getTotalPagado());
+        BigDecimal totalPagadoUsuario2 = montoONulo(balance2.getTotalPagado());
+
+        // Abonos (pagos directos) entre ellos
+        BigDecimal totalAbonosUsuario1AUsuario2 = montoONulo(balance1.getAbonosRealizados());
+        BigDecimal totalAbonosUsuario2AUsuario1 = montoONulo(balance2.getAbonosRealizados());
+
+        // Solo los últimos 5 pagos para el historial reciente
+        List<Pago> pagosRecientes = pagoRepository.findTopByParejaIdOrderByFechaPagoDesc(
+            pareja.getId(), PageRequest.of(0, 5));
+        LocalDateTime ultimoPago = pagosRecientes.isEmpty() ? null : pagosRecientes.get(0).getFechaPago();
+
+        // Saldo neto de cada miembro en centavos (suma cero) y mínimo de transferencias.
+        // Se incluyen también usuarios con movimientos que ya no están en el grupo.
+        List<Usuario> miembros = new ArrayList<>(pareja.getUsuarios());
+        Set<Long> idsMiembros = miembros.stream().map(Usuario::getId).collect(Collectors.toSet());
+        List<Long> idsExternos = balances.keySet().stream()
+            .filter(id -> !idsMiembros.contains(id))
+            .collect(Collectors.toList());
+        if (!idsExternos.isEmpty()) {
+            miembros.addAll(usuarioRepository.findAllById(idsExternos));
         }
 
-        // Obtener todos los abonos (pagos directos)
-        List<Pago> pagos = pagoRepository.findByParejaIdOrderByFechaPagoDesc(pareja.getId());
-
-        BigDecimal totalAbonosUsuario1AUsuario2 = BigDecimal.ZERO;
-        BigDecimal totalAbonosUsuario2AUsuario1 = BigDecimal.ZERO;
-
-        LocalDateTime ultimoPago = null;
-
-        for (Pago pago : pagos) {
-            if (ultimoPago == null) {
-                ultimoPago = pago.getFechaPago();
-            }
-
-            if (pago.getPagador().getId().equals(usuario1.getId())) {
-                totalAbonosUsuario1AUsuario2 = totalAbonosUsuario1AUsuario2.add(pago.getMonto());
-            } else {
-                totalAbonosUsuario2AUsuario1 = totalAbonosUsuario2AUsuario1.add(pago.getMonto());
-            }
+        long[] saldos = new long[miembros.size()];
+        for (int i = 0; i < miembros.size(); i++) {
+            BalancePareja balance = balances.getOrDefault(miembros.get(i).getId(), new BalancePareja());
+            saldos[i] = BalanceService.calcularSaldo(balance)
+                .setScale(2, RoundingMode.HALF_UP)
+                .unscaledValue()
+                .longValueExact();
+        }
+        List<SimplificadorDeudas.Transferencia> transferencias = SimplificadorDeudas.simplificar(saldos);
+
+        List<SaldoMiembroDTO> saldosMiembros = new ArrayList<>();
+        for (int i = 0; i < miembros.size(); i++) {
+            saldosMiembros.add(SaldoMiembroDTO.builder()
+                .usuario(UsuarioResponseDTO.fromEntity(miembros.get(i)))
+                .saldo(BigDecimal.valueOf(saldos[i], 2))
+                .build());
         }
+        List<TransferenciaDTO> transferenciasDTO = transferencias.stream()
+            .map(t -> TransferenciaDTO.builder()
+                .deudor(UsuarioResponseDTO.fromEntity(miembros.get(t.deudor())))
+                .acreedor(UsuarioResponseDTO.fromEntity(miembros.get(t.acreedor())))
+                .monto(BigDecimal.valueOf(t.monto(), 2))
+                .build())
+            .collect(Collectors.toList());
 
-        // Calcular balance
-        // Balance = (Total Pagado - Total Gastado) + Abonos Recibidos - Abonos Realizados
-        BigDecimal balanceUsuario1 = totalPagadoUsuario1
-            .subtract(totalGastosUsuario1)
-            .add(totalAbonosUsuario2AUsuario1)
-            .subtract(totalAbonosUsuario1AUsuario2);
-
-        BigDecimal balanceUsuario2 = totalPagadoUsuario2
-            .subtract(totalGastosUsuario2)
-            .add(totalAbonosUsuario1AUsuario2)
-            .subtract(totalAbonosUsuario2AUsuario1);
-
-        // Determinar deudor y acreedor
-        UsuarioResponseDTO deudor;
-        UsuarioResponseDTO acreedor;
-        BigDecimal saldoPendiente;
+        // Determinar deudor y acreedor (con 2 miembros hay a lo sumo una transferencia)
+        UsuarioResponseDTO deudor = null;
+        UsuarioResponseDTO acreedor = null;
+        BigDecimal saldoPendiente = transferenciasDTO.stream()
+            .map(TransferenciaDTO::getMonto)
+            .reduce(BigDecimal.ZERO, BigDecimal::add)
+            .setScale(2, RoundingMode.HALF_UP);
         String mensajeBalance;
 
-        if (balanceUsuario1.compareTo(BigDecimal.ZERO) > 0) {
-            // Usuario1 es acreedor, Usuario2 es deudor
-            acreedor = UsuarioResponseDTO.fromEntity(usuario1);
-            deudor = UsuarioResponseDTO.fromEntity(usuario2);
-            saldoPendiente = balanceUsuario1.abs().setScale(2, RoundingMode.HALF_UP);
-            mensajeBalance = usuario2.getNombre() + " debe $" + saldoPendiente + " a " + usuario1.getNombre();
-        } else if (balanceUsuario1.compareTo(BigDecimal.ZERO) < 0) {
-            // Usuario1 es deudor, Usuario2 es acreedor
-            deudor = UsuarioResponseDTO.fromEntity(usuario1);
-            acreedor = UsuarioResponseDTO.fromEntity(usuario2);
-            saldoPendiente = balanceUsuario1.abs().setScale(2, RoundingMode.HALF_UP);
-            mensajeBalance = usuario1.getNombre() + " debe $" + saldoPendiente + " a " + usuario2.getNombre();
-        } else {
-            // Están a mano
-            deudor = null;
-            acreedor = null;
-            saldoPendiente = BigDecimal.ZERO.setScale(2, RoundingMode.HALF_UP);
+        if (transferenciasDTO.isEmpty()) {
             mensajeBalance = "Están a mano, no hay deudas pendientes";
+        } else if (transferenciasDTO.size() == 1) {
+            TransferenciaDTO unica = transferenciasDTO.get(0);
+            deudor = unica.getDeudor();
+            acreedor = unica.getAcreedor();
+            mensajeBalance = deudor.getNombre() + " debe $" + unica.getMonto() + " a " + acreedor.getNombre();
+        } else {
+            mensajeBalance = "Se necesitan " + transferenciasDTO.size() + " transferencias para saldar el grupo";
         }
 
         // Obtener últimos 5 pagos
-        List<PagoResponseDTO> historialReciente = pagos.stream()
-            .limit(5)
+        List<PagoResponseDTO> historialReciente = pagosRecientes.stream()
             .map(PagoResponseDTO::fromEntity)
             .collect(Collectors.toList());
 
@@ -262,9 +296,74 @@ public class PagoService {
             .deudor(deudor)
             .acreedor(acreedor)
             .saldoPendiente(saldoPendiente)
+            .saldosMiembros(saldosMiembros)
+            .transferencias(transferenciasDTO)
             .ultimoPago(ultimoPago)
             .historialReciente(historialReciente)
             .mensajeBalance(mensajeBalance)
             .build();
     }
+
+    /**
+     * Saldo de cada miembro de la pareja al cierre del día indicado.
+     */
+    public PuntoBalanceDTO obtenerBalanceEnFecha(Long usuarioId, LocalDate fecha) {
+        Pareja pareja = obtenerParejaDeUsuario(usuarioId);
+
+        Map<Long, BigDecimal> saldos = new HashMap<>();
+        pareja.getUsuarios().forEach(u -> saldos.put(u.getId(), BigDecimal.ZERO));
+        saldos.putAll(balanceService.calcularSaldosAl(pareja.getId(), fecha.plusDays(1).atStartOfDay()));
+
+        return PuntoBalanceDTO.builder()
+            .fecha(fecha)
+            .saldos(saldos)
+            .build();
+    }
+
+    public BalanceHistorialDTO obtenerHistorialBalance(Long usuarioId, LocalDate desde, LocalDate hasta,
+                                                       BalanceHistorialDTO.Agrupacion agrupacion) {
+        if (desde.isAfter(hasta)) {
+            throw new BadRequestException("La fecha 'desde' no puede ser posterior a 'hasta'");
+        }
+
+        long puntos = switch (agrupacion) {
+            case DIA -> ChronoUnit.DAYS.between(desde, hasta) + 1;
+            case SEMANA -> ChronoUnit.WEEKS.between(BalanceService.inicioPeriodo(desde, agrupacion), hasta) + 1;
+            case MES -> ChronoUnit.MONTHS.between(desde.withDayOfMonth(1), hasta) + 1;
+        };
+        if (puntos > MAX_PUNTOS_HISTORIAL) {
+            throw new BadRequestException("El rango genera " + puntos + " puntos (máximo " + MAX_PUNTOS_HISTORIAL
+                + "); usa una agrupación mayor o un rango más corto");
+        }
+
+        Pareja pareja = obtenerParejaDeUsuario(usuarioId);
+        List<Long> usuarioIds = pareja.getUsuarios().stream()
+            .map(Usuario::getId)
+            .collect(Collectors.toList());
+
+        return BalanceHistorialDTO.builder()
+            .parejaId(pareja.getId())
+            .desde(desde)
+            .hasta(hasta)
+            .agrupacion(agrupacion)
+            .usuarios(pareja.getUsuarios().stream()
+                .map(UsuarioResponseDTO::fromEntity)
+                .collect(Collectors.toList()))
+            .puntos(balanceService.calcularHistorial(pareja.getId(), usuarioIds, desde, hasta, agrupacion))
+            .build();
+    }
+
+    private Pareja obtenerParejaDeUsuario(Long usuarioId) {
+        Usuario usuario = usuarioRepository.findById(usuarioId)
+            .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado"));
+
+        if (usuario.getPareja() == null) {
+            throw new BadRequestException("El usuario no pertenece a ninguna pareja");
+        }
+        return usuario.getPareja();
+    }
+
+    private BigDecimal montoONulo(BigDecimal monto) {
+        return monto != null ? monto : BigDecimal.ZERO;
+    }
 }
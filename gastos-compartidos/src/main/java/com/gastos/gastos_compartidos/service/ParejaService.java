@@ -8,6 +8,7 @@ import com.gastos.gastos_compartidos.exception.ResourceNotFoundException;
 import com.gastos.gastos_compartidos.repository.ParejaRepository;
 import com.gastos.gastos_compartidos.repository.UsuarioRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -18,6 +19,10 @@ public class ParejaService {
 
     private final ParejaRepository parejaRepository;
     private final UsuarioRepository usuarioRepository;
+    private final ReporteMensualCache reporteMensualCache;
+
+    @Value("${app.grupo.max-miembros:20}")
+    private int maxMiembros;
 
     public Pareja obtenerParejaDelUsuario(Long usuarioId) {
         Usuario usuario = usuarioRepository.findById(usuarioId)
@@ -37,9 +42,9 @@ public class ParejaService {
         Pareja parejaDestino = parejaRepository.findByCodigoInvitacion(codigoInvitacion)
             .orElseThrow(() -> new ResourceNotFoundException("Código de invitación inválido"));
 
-        // Verificar que la pareja destino tenga menos de 2 usuarios
-        if (parejaDestino.getUsuarios().size() >= 2) {
-            throw new BadRequestException("La pareja ya tiene el máximo de miembros (2)");
+        // Verificar que el grupo destino no esté completo
+        if (parejaDestino.getUsuarios().size() >= maxMiembros) {
+            throw new BadRequestException("El grupo ya tiene el máximo de miembros (" + maxMiembros + ")");
         }
 
         // Verificar que no intente unirse a su propia pareja
@@ -61,6 +66,7 @@ public class ParejaService {
         // Asociar el usuario a la nueva pareja
         usuario.setPareja(parejaDestino);
         usuarioRepository.saveAndFlush(usuario);
+        reporteMensualCache.invalidarPareja(parejaDestino.getId());
 
         // Eliminar la pareja anterior vacía
         if (parejaAnteriorId != null) {
@@ -6,6 +6,7 @@ import com.gastos.gastos_compartidos.entity.*;
 import com.gastos.gastos_compartidos.repository.CategoriaRepository;
 import com.gastos.gastos_compartidos.repository.GastoRepository;
 import com.gastos.gastos_compartidos.repository.PresupuestoRepository;
+import com.gastos.gastos_compartidos.repository.PronosticoGastoRepository;
 import com.gastos.gastos_compartidos.repository.UsuarioRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -17,7 +18,9 @@ import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.temporal.TemporalAdjusters;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -28,6 +31,7 @@ public class PresupuestoService {
     private final GastoRepository gastoRepository;
     private final UsuarioRepository usuarioRepository;
     private final CategoriaRepository categoriaRepository;
+    private final PronosticoGastoRepository pronosticoGastoRepository;
 
     @Transactional
     public PresupuestoResponseDTO crear(Long usuarioId, PresupuestoCreateDTO dto) {
@@ -61,7 +65,7 @@ public class PresupuestoService {
                 .build();
 
         presupuestoRepository.save(presupuesto);
-        return mapToDTO(presupuesto, usuarioId);
+        return mapToDTO(presupuesto, usuarioId, pronosticos(usuarioId));
     }
 
     @Transactional
@@ -73,7 +77,7 @@ public class PresupuestoService {
             presupuesto.setNotas(dto.getNotas());
 
         presupuestoRepository.save(presupuesto);
-        return mapToDTO(presupuesto, usuarioId);
+        return mapToDTO(presupuesto, usuarioId, pronosticos(usuarioId));
     }
 
     @Transactional
@@ -87,22 +91,24 @@ public class PresupuestoService {
         Presupuesto presupuesto = getPresupuestoDelUsuario(id, usuarioId);
         presupuesto.setActivo(!presupuesto.getActivo());
         presupuestoRepository.save(presupuesto);
-        return mapToDTO(presupuesto, usuarioId);
+        return mapToDTO(presupuesto, usuarioId, pronosticos(usuarioId));
     }
 
     @Transactional(readOnly = true)
     public List<PresupuestoResponseDTO> obtenerPorUsuario(Long usuarioId) {
+        Map<String, PronosticoGasto> pronosticos = pronosticos(usuarioId);
         return presupuestoRepository.findByUsuarioId(usuarioId)
                 .stream()
-                .map(p -> mapToDTO(p, usuarioId))
+                .map(p -> mapToDTO(p, usuarioId, pronosticos))
                 .collect(Collectors.toList());
     }
 
     @Transactional(readOnly = true)
     public List<PresupuestoResponseDTO> obtenerActivosPorUsuario(Long usuarioId) {
+        Map<String, PronosticoGasto> pronosticos = pronosticos(usuarioId);
         return presupuestoRepository.findByUsuarioIdAndActivoTrue(usuarioId)
                 .stream()
-                .map(p -> mapToDTO(p, usuarioId))
+                .map(p -> mapToDTO(p, usuarioId, pronosticos))
                 .collect(Collectors.toList());
     }
 
@@ -116,23 +122,45 @@ public class PresupuestoService {
         return presupuesto;
     }
 
-    private PresupuestoResponseDTO mapToDTO(Presupuesto p, Long usuarioId) {
-        LocalDateTime[] rango = calcularRango(p.getPeriodo());
+    // Pronósticos vigentes del usuario en una sola lectura, por período y categoría
+    private Map<String, PronosticoGasto> pronosticos(Long usuarioId) {
+        LocalDate hoy = LocalDate.now();
+        Map<String, PronosticoGasto> pronosticos = new HashMap<>();
+        for (PronosticoGasto pronostico : pronosticoGastoRepository.findByUsuarioId(usuarioId)) {
+            if (pronostico.getFin().isAfter(hoy)) {
+                pronosticos.put(clavePronostico(pronostico.getPeriodo(),
+                        pronostico.getCategoria() != null ? pronostico.getCategoria().getId() : null), pronostico);
+            }
+        }
+        return pronosticos;
+    }
+
+    private static String clavePronostico(PeriodoPresupuesto periodo, Long categoriaId) {
+        return periodo + ":" + categoriaId;
+    }
 
+    private PresupuestoResponseDTO mapToDTO(Presupuesto p, Long usuarioId, Map<String, PronosticoGasto> pronosticos) {
+        // gastado y proyectado salen de la lectura única de pronostico_gasto; la suma sobre
+        // gastos queda para cuando falta la fila (usuario sin movimientos desde el último cálculo)
+        PronosticoGasto pronostico = pronosticos.get(clavePronostico(p.getPeriodo(),
+                p.getCategoria() != null ? p.getCategoria().getId() : null));
         BigDecimal gastado;
-        if (p.getCategoria() != null) {
-            gastado = gastoRepository.sumarGastosPorCategoriaYRango(
-                    usuarioId, p.getCategoria().getId(), rango[0], rango[1]);
+        BigDecimal proyectado;
+        if (pronostico != null) {
+            gastado = pronostico.getGastado();
+            proyectado = pronostico.getProyectado();
         } else {
-            gastado = gastoRepository.sumarGastosTotalPorRango(usuarioId, rango[0], rango[1]);
+            gastado = sumarGastado(p, usuarioId);
+            proyectado = gastado;
         }
 
-        if (gastado == null)
-            gastado = BigDecimal.ZERO;
         BigDecimal disponible = p.getLimite().subtract(gastado);
         double porcentaje = p.getLimite().compareTo(BigDecimal.ZERO) > 0
                 ? gastado.multiply(BigDecimal.valueOf(100)).divide(p.getLimite(), 1, RoundingMode.HALF_UP).doubleValue()
                 : 0;
+        double porcentajeProyectado = p.getLimite().compareTo(BigDecimal.ZERO) > 0
+                ? proyectado.multiply(BigDecimal.valueOf(100)).divide(p.getLimite(), 1, RoundingMode.HALF_UP).doubleValue()
+                : 0;
 
         String estado;
         if (porcentaje >= 100)
@@ -151,6 +179,8 @@ public class PresupuestoService {
                 .gastado(gastado)
                 .disponible(disponible)
                 .porcentajeUsado(porcentaje)
+                .proyectado(proyectado)
+                .porcentajeProyectado(porcentajeProyectado)
                 .periodo(p.getPeriodo())
                 .activo(p.getActivo())
                 .notas(p.getNotas())
@@ -158,8 +188,21 @@ public class PresupuestoService {
                 .build();
     }
 
-    private LocalDateTime[] calcularRango(PeriodoPresupuesto periodo) {
-        LocalDate hoy = LocalDate.now();
+    private BigDecimal sumarGastado(Presupuesto p, Long usuarioId) {
+        LocalDateTime[] rango = calcularRango(p.getPeriodo(), LocalDate.now());
+
+        BigDecimal gastado;
+        if (p.getCategoria() != null) {
+            gastado = gastoRepository.sumarGastosPorCategoriaYRango(
+                    usuarioId, p.getCategoria().getId(), rango[0], rango[1]);
+        } else {
+            gastado = gastoRepository.sumarGastosTotalPorRango(usuarioId, rango[0], rango[1]);
+        }
+        return gastado != null ? gastado : BigDecimal.ZERO;
+    }
+
+    // También lo usa PronosticoService: los pronósticos cubren los mismos períodos
+    static LocalDateTime[] calcularRango(PeriodoPresupuesto periodo, LocalDate hoy) {
         LocalDateTime desde;
         LocalDateTime hasta;
 
@@ -0,0 +1,291 @@
+package com.gastos.gastos_compartidos.service;
+
+import com.gastos.gastos_compartidos.dto.PronosticoGastoDTO;
+import com.gastos.gastos_compartidos.entity.Gasto;
+import com.gastos.gastos_compartidos.entity.GastoRecurrente;
+import com.gastos.gastos_compartidos.entity.PeriodoPresupuesto;
+import com.gastos.gastos_compartidos.entity.PronosticoGasto;
+import com.gastos.gastos_compartidos.repository.GastoRecurrenteRepository;
+import com.gastos.gastos_compartidos.repository.PronosticoGastoRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Mantiene pronostico_gasto: por usuario, categoría y período de presupuesto en curso,
+ * proyectado = gastado + recurrente + tendencia.
+ *
+ * - gastado: gastos del usuario dentro del período, como en PresupuestoService.
+ * - recurrente: ejecuciones de sus gastos recurrentes activos desde proximaEjecucion
+ *   hasta el fin del período.
+ * - tendencia: gasto diario de los últimos app.pronostico.dias-historia días (sin los
+ *   generados por recurrentes, que ya entran arriba) por los días que faltan.
+ *
+ * Un gasto nuevo, editado o eliminado mueve gastado y proyectado con un UPDATE en la misma
+ * transacción; si su categoría todavía no tiene filas se recalcula el usuario completo. Los
+ * cambios de recurrentes e importaciones recalculan el usuario. Al empezar el día se
+ * recalcula todo: cambian los períodos, los días restantes y la ventana de historia.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PronosticoService {
+
+    // Tope de ejecuciones por recurrente y período (una diaria en un año)
+    private static final int MAX_OCURRENCIAS = 400;
+
+    private static final int TAMANO_LOTE = 1000;
+
+    // Clave de uk_pronostico_gasto: la fila del total (categoria_id null) es la categoría 0
+    private static final String SQL_GUARDAR = """
+            INSERT INTO pronostico_gasto (usuario_id, categoria_id, periodo, inicio, fin,
+                gastado, recurrente, tendencia, proyectado)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (usuario_id, (COALESCE(categoria_id, 0)), periodo) DO UPDATE SET
+                inicio = EXCLUDED.inicio,
+                fin = EXCLUDED.fin,
+                gastado = EXCLUDED.gastado,
+                recurrente = EXCLUDED.recurrente,
+                tendencia = EXCLUDED.tendencia,
+                proyectado = EXCLUDED.proyectado,
+                fecha_actualizacion = NOW()
+            """;
+
+    private final PronosticoGastoRepository pronosticoRepository;
+    private final GastoRecurrenteRepository gastoRecurrenteRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.pronostico.dias-historia:90}")
+    private int diasHistoria;
+
+    /**
+     * Lo que un gasto suma al pronóstico. Se toma antes de editarlo para actualizarGasto.
+     */
+    public record Aporte(Long usuarioId, Long categoriaId, LocalDate dia, BigDecimal monto) {
+
+        public static Aporte de(Gasto gasto) {
+            return new Aporte(gasto.getUsuario().getId(),
+                    gasto.getCategoria() != null ? gasto.getCategoria().getId() : null,
+                    gasto.getFechaGasto() != null ? gasto.getFechaGasto().toLocalDate() : null,
+                    gasto.getMonto());
+        }
+    }
+
+    // Montos de una categoría por período (índice = ordinal de PeriodoPresupuesto)
+    private static final class Acumulado {
+        private final BigDecimal[] gastado = ceros();
+        private final BigDecimal[] recurrente = ceros();
+        private BigDecimal historia = BigDecimal.ZERO;
+
+        private static BigDecimal[] ceros() {
+            BigDecimal[] montos = new BigDecimal[PeriodoPresupuesto.values().length];
+            Arrays.fill(montos, BigDecimal.ZERO);
+            return montos;
+        }
+
+        private void sumar(Acumulado otro) {
+            for (int i = 0; i < gastado.length; i++) {
+                gastado[i] = gastado[i].add(otro.gastado[i]);
+                recurrente[i] = recurrente[i].add(otro.recurrente[i]);
+            }
+            historia = historia.add(otro.historia);
+        }
+    }
+
+    @Transactional
+    public void registrarGasto(Gasto gasto) {
+        Aporte aporte = Aporte.de(gasto);
+        if (!aplicar(aporte, aporte.monto())) {
+            recalcularUsuario(aporte.usuarioId());
+        }
+    }
+
+    /**
+     * Llamar después de eliminar el gasto: si hay que recalcular, el gasto ya no debe contar.
+     */
+    @Transactional
+    public void revertirGasto(Gasto gasto) {
+        Aporte aporte = Aporte.de(gasto);
+        if (!aplicar(aporte, aporte.monto().negate())) {
+            recalcularUsuario(aporte.usuarioId());
+        }
+    }
+
+    @Transactional
+    public void actualizarGasto(Gasto gasto, Aporte anterior) {
+        Aporte actual = Aporte.de(gasto);
+        if (actual.equals(anterior)) {
+            return;
+        }
+        if (!aplicar(anterior, anterior.monto().negate()) || !aplicar(actual, actual.monto())) {
+            recalcularUsuario(actual.usuarioId());
+        }
+    }
+
+    @Transactional
+    public void recalcularUsuario(Long usuarioId) {
+        LocalDate hoy = LocalDate.now();
+        List<Object[]> filas = calcular(usuarioId, hoy, rangos(hoy));
+        jdbcTemplate.batchUpdate(SQL_GUARDAR, filas);
+
+        // Las categorías que ya no tienen gastos ni recurrentes no se recalcularon: se borran
+        Set<Long> vigentes = filas.stream()
+                .map(fila -> fila[1] != null ? (Long) fila[1] : 0L)
+                .collect(Collectors.toSet());
+        pronosticoRepository.eliminarCategoriasNoVigentes(usuarioId, vigentes);
+    }
+
+    @Scheduled(cron = "0 5 0 * * *")
+    @Transactional
+    public void recalcularTodos() {
+        LocalDate hoy = LocalDate.now();
+        Map<PeriodoPresupuesto, LocalDateTime[]> rangos = rangos(hoy);
+        List<Long> usuarios = pronosticoRepository.findUsuariosConActividad(
+                hoy.minusDays(diasHistoria).atStartOfDay());
+
+        pronosticoRepository.eliminarTodos();
+        List<Object[]> lote = new ArrayList<>();
+        for (Long usuarioId : usuarios) {
+            lote.addAll(calcular(usuarioId, hoy, rangos));
+            if (lote.size() >= TAMANO_LOTE) {
+                jdbcTemplate.batchUpdate(SQL_GUARDAR, lote);
+                lote.clear();
+            }
+        }
+        jdbcTemplate.batchUpdate(SQL_GUARDAR, lote);
+        log.info("Pronóstico de gasto recalculado para {} usuario(s)", usuarios.size());
+    }
+
+    @Transactional(readOnly = true)
+    public List<PronosticoGastoDTO> obtenerPorUsuario(Long usuarioId, PeriodoPresupuesto periodo) {
+        LocalDate hoy = LocalDate.now();
+        return pronosticoRepository.findByUsuarioId(usuarioId).stream()
+                .filter(p -> p.getPeriodo() == periodo && p.getFin().isAfter(hoy))
+                .sorted(Comparator.comparing((PronosticoGasto p) -> p.getCategoria() != null)
+                        .thenComparing(PronosticoGasto::getProyectado, Comparator.reverseOrder()))
+                .map(PronosticoGastoDTO::fromEntity)
+                .toList();
+    }
+
+    /**
+     * Suma el delta a los períodos en curso que contienen el día del gasto. Devuelve false si
+     * faltan las filas (categoría o usuario sin pronóstico todavía) y hay que recalcular.
+     */
+    private boolean aplicar(Aporte aporte, BigDecimal delta) {
+        if (aporte.dia() == null || delta.signum() == 0) {
+            return true;
+        }
+        boolean enPeriodoActual = rangos(LocalDate.now()).values().stream()
+                .anyMatch(r -> !aporte.dia().isBefore(r[0].toLocalDate()) && aporte.dia().isBefore(r[1].toLocalDate()));
+        if (!enPeriodoActual) {
+            return true;
+        }
+        if (aporte.categoriaId() != null
+                && pronosticoRepository.acumularCategoria(aporte.usuarioId(), aporte.categoriaId(), aporte.dia(), delta) == 0) {
+            return false;
+        }
+        return pronosticoRepository.acumularTotal(aporte.usuarioId(), aporte.dia(), delta) > 0;
+    }
+
+    private Map<PeriodoPresupuesto, LocalDateTime[]> rangos(LocalDate hoy) {
+        Map<PeriodoPresupuesto, LocalDateTime[]> rangos = new EnumMap<>(PeriodoPresupuesto.class);
+        for (PeriodoPresupuesto periodo : PeriodoPresupuesto.values()) {
+            rangos.put(periodo, PresupuestoService.calcularRango(periodo, hoy));
+        }
+        return rangos;
+    }
+
+    // Filas a insertar para el usuario: una por categoría con movimiento y período, más el total
+    private List<Object[]> calcular(Long usuarioId, LocalDate hoy, Map<PeriodoPresupuesto, LocalDateTime[]> rangos) {
+        LocalDateTime[] semana = rangos.get(PeriodoPresupuesto.SEMANAL);
+        LocalDateTime[] mes = rangos.get(PeriodoPresupuesto.MENSUAL);
+        LocalDateTime[] anio = rangos.get(PeriodoPresupuesto.ANUAL);
+
+        // La clave null agrupa los gastos sin categoría: solo cuentan para el total
+        Map<Long, Acumulado> porCategoria = new HashMap<>();
+        for (PronosticoGastoRepository.GastoCategoria fila : pronosticoRepository.sumarPorCategoria(usuarioId,
+                semana[0], semana[1], mes[0], mes[1], anio[0], anio[1],
+                hoy.minusDays(diasHistoria).atStartOfDay(), hoy.atStartOfDay())) {
+            Acumulado acumulado = porCategoria.computeIfAbsent(fila.getCategoria(), c -> new Acumulado());
+            acumulado.gastado[PeriodoPresupuesto.SEMANAL.ordinal()] = fila.getSemana();
+            acumulado.gastado[PeriodoPresupuesto.MENSUAL.ordinal()] = fila.getMes();
+            acumulado.gastado[PeriodoPresupuesto.ANUAL.ordinal()] = fila.getAnio();
+            acumulado.historia = fila.getHistoria();
+        }
+
+        for (GastoRecurrente recurrente : gastoRecurrenteRepository
+                .findByUsuarioIdAndActivoTrueOrderByProximaEjecucionAsc(usuarioId)) {
+            if (recurrente.getProximaEjecucion() == null) {
+                continue;
+            }
+            Long categoriaId = recurrente.getCategoria() != null ? recurrente.getCategoria().getId() : null;
+            Acumulado acumulado = porCategoria.computeIfAbsent(categoriaId, c -> new Acumulado());
+            for (PeriodoPresupuesto periodo : PeriodoPresupuesto.values()) {
+                int ocurrencias = contarOcurrencias(recurrente, rangos.get(periodo)[1].toLocalDate());
+                acumulado.recurrente[periodo.ordinal()] = acumulado.recurrente[periodo.ordinal()]
+                        .add(recurrente.getMonto().multiply(BigDecimal.valueOf(ocurrencias)));
+            }
+        }
+
+        Acumulado total = new Acumulado();
+        porCategoria.values().forEach(total::sumar);
+
+        List<Object[]> filas = new ArrayList<>();
+        porCategoria.forEach((categoriaId, acumulado) -> {
+            if (categoriaId != null) {
+                agregarFilas(filas, usuarioId, categoriaId, acumulado, hoy, rangos);
+            }
+        });
+        agregarFilas(filas, usuarioId, null, total, hoy, rangos);
+        return filas;
+    }
+
+    private void agregarFilas(List<Object[]> filas, Long usuarioId, Long categoriaId, Acumulado acumulado,
+            LocalDate hoy, Map<PeriodoPresupuesto, LocalDateTime[]> rangos) {
+        for (PeriodoPresupuesto periodo : PeriodoPresupuesto.values()) {
+            LocalDate inicio = rangos.get(periodo)[0].toLocalDate();
+            LocalDate fin = rangos.get(periodo)[1].toLocalDate();
+            // Hoy ya está en curso: la tendencia cubre desde mañana
+            long diasRestantes = Math.max(0, ChronoUnit.DAYS.between(hoy.plusDays(1), fin));
+            BigDecimal tendencia = acumulado.historia
+                    .multiply(BigDecimal.valueOf(diasRestantes))
+                    .divide(BigDecimal.valueOf(diasHistoria), 2, RoundingMode.HALF_UP);
+            BigDecimal gastado = acumulado.gastado[periodo.ordinal()];
+            BigDecimal recurrente = acumulado.recurrente[periodo.ordinal()];
+
+            filas.add(new Object[] { usuarioId, categoriaId, periodo.name(), Date.valueOf(inicio), Date.valueOf(fin),
+                    gastado, recurrente, tendencia, gastado.add(recurrente).add(tendencia) });
+        }
+    }
+
+    // Ejecuciones pendientes antes de fin; una atrasada se ejecuta en la próxima pasada del job
+    private int contarOcurrencias(GastoRecurrente recurrente, LocalDate fin) {
+        int ocurrencias = 0;
+        LocalDate fecha = recurrente.getProximaEjecucion();
+        while (fecha != null && fecha.isBefore(fin) && ocurrencias < MAX_OCURRENCIAS) {
+            ocurrencias++;
+            fecha = recurrente.calcularProximaEjecucion(fecha);
+        }
+        return ocurrencias;
+    }
+}
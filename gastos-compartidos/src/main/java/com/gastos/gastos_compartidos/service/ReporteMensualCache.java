@@ -0,0 +1,87 @@
+package com.gastos.gastos_compartidos.service;
+
+import com.gastos.gastos_compartidos.config.CacheConfig;
+import com.gastos.gastos_compartidos.dto.ReporteDTO;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+/**
+ * Caché del reporte mensual por pareja y mes (caché "reportes-mes", ver CacheConfig).
+ *
+ * Las invalidaciones se aplican después del commit: antes, una lectura concurrente podría
+ * volver a guardar el reporte con los datos viejos. La carga corre dentro del compute de
+ * Caffeine, así que una invalidación que llega mientras se calcula espera y descarta el
+ * resultado.
+ */
+@Component
+public class ReporteMensualCache {
+
+    public record Clave(Long parejaId, YearMonth mes) {
+    }
+
+    private final Cache cache;
+
+    public ReporteMensualCache(CacheManager cacheManager) {
+        this.cache = cacheManager.getCache(CacheConfig.REPORTES_MES);
+    }
+
+    public ReporteDTO obtener(Long parejaId, YearMonth mes, Callable<ReporteDTO> generar) {
+        try {
+            return cache.get(new Clave(parejaId, mes), generar);
+        } catch (Cache.ValueRetrievalException e) {
+            // Las excepciones de negocio (BadRequest, NotFound) deben llegar tal cual al handler
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Invalida los meses indicados de cada pareja al hacer commit de la transacción actual.
+     */
+    public void invalidar(Collection<Clave> claves) {
+        if (claves.isEmpty()) {
+            return;
+        }
+        Set<Clave> copia = Set.copyOf(claves);
+        despuesDelCommit(() -> copia.forEach(cache::evict));
+    }
+
+    /**
+     * Invalida todos los meses de la pareja, para cambios que no dependen del mes
+     * (miembros, nombres).
+     */
+    public void invalidarPareja(Long parejaId) {
+        if (parejaId == null) {
+            return;
+        }
+        despuesDelCommit(() -> {
+            @SuppressWarnings("unchecked")
+            com.github.benmanes.caffeine.cache.Cache<Object, Object> nativa =
+                    (com.github.benmanes.caffeine.cache.Cache<Object, Object>) cache.getNativeCache();
+            nativa.asMap().keySet().removeIf(clave -> clave instanceof Clave c && parejaId.equals(c.parejaId()));
+        });
+    }
+
+    private void despuesDelCommit(Runnable invalidacion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidacion.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidacion.run();
+            }
+        });
+    }
+}
@@ -1,22 +1,27 @@
 package com.gastos.gastos_compartidos.service;
 
 import com.gastos.gastos_compartidos.dto.ReporteDTO;
+import com.gastos.gastos_compartidos.dto.TendenciaMensualDTO;
+import com.gastos.gastos_compartidos.dto.TotalCategoriaDTO;
+import com.gastos.gastos_compartidos.dto.TotalResumenUsuarioDTO;
 import com.gastos.gastos_compartidos.entity.Gasto;
-import com.gastos.gastos_compartidos.entity.GastoSplit;
 import com.gastos.gastos_compartidos.entity.Pareja;
 import com.gastos.gastos_compartidos.entity.Usuario;
 import com.gastos.gastos_compartidos.exception.BadRequestException;
 import com.gastos.gastos_compartidos.exception.ResourceNotFoundException;
 import com.gastos.gastos_compartidos.repository.GastoRepository;
 import com.gastos.gastos_compartidos.repository.ParejaRepository;
+import com.gastos.gastos_compartidos.repository.ResumenGastoMensualRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.YearMonth;
+import java.time.format.TextStyle;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -25,8 +30,22 @@ import java.util.stream.Collectors;
 @Transactional(readOnly = true)
 public class ReporteService {
 
+    private static final int MAX_MESES_TENDENCIA = 120;
+    private static final Locale LOCALE_CL = new Locale("es", "CL");
+
     private final GastoRepository gastoRepository;
     private final ParejaRepository parejaRepository;
+    private final ResumenGastoMensualRepository resumenRepository;
+    private final ReporteMensualCache reporteMensualCache;
+
+    /**
+     * Reporte mensual desde la caché; se calcula solo si falta o fue invalidado por una
+     * escritura en ese mes.
+     */
+    public ReporteDTO obtenerReporteMensual(Long parejaId, int ano, int mes) {
+        return reporteMensualCache.obtener(parejaId, YearMonth.of(ano, mes),
+                () -> generarReporteMensual(parejaId, ano, mes));
+    }
 
     public ReporteDTO generarReporteMensual(Long parejaId, int ano, int mes) {
         Pareja pareja = parejaRepository.findById(parejaId)
@@ -36,11 +55,7 @@ public class ReporteService {
             throw new BadRequestException("La pareja debe tener al menos 2 usuarios para generar reportes");
         }
 
-        YearMonth ym = YearMonth.of(ano, mes);
-        LocalDateTime inicio = ym.atDay(1).atStartOfDay();
-        LocalDateTime fin = ym.atEndOfMonth().atTime(23, 59, 59);
-
-        List<Gasto> gastos = gastoRepository.findByParejaidAndFechaRango(parejaId, inicio, fin);
+        LocalDate periodo = YearMonth.of(ano, mes).atDay(1);
 
         Usuario usuario1 = pareja.getUsuarios().get(0);
         Usuario usuario2 = pareja.getUsuarios().get(1);
@@ -50,41 +65,38 @@ public class ReporteService {
         BigDecimal gastosUsuario2 = BigDecimal.ZERO;
         BigDecimal pagadoUsuario1 = BigDecimal.ZERO;
         BigDecimal pagadoUsuario2 = BigDecimal.ZERO;
+        int cantidadGastos = 0;
 
-        // Acumular por categoría
-        Map<String, BigDecimal> montosPorCategoria = new LinkedHashMap<>();
-        Map<String, Integer> cantidadPorCategoria = new LinkedHashMap<>();
-        Map<String, String> iconosPorCategoria = new LinkedHashMap<>();
-        Map<String, String> coloresPorCategoria = new LinkedHashMap<>();
-
-        for (Gasto gasto : gastos) {
-            gastoTotal = gastoTotal.add(gasto.getMonto());
+        // Totales por usuario desde el resumen mensual (gastos registrados y splits PAGO)
+        for (TotalResumenUsuarioDTO totalUsuario : resumenRepository.sumarPorUsuarioEnPeriodo(parejaId, periodo)) {
+            gastoTotal = gastoTotal.add(totalUsuario.total());
+            cantidadGastos += totalUsuario.cantidad().intValue();
 
-            if (gasto.getUsuario().getId().equals(usuario1.getId())) {
-                gastosUsuario1 = gastosUsuario1.add(gasto.getMonto());
+            if (totalUsuario.usuarioId().equals(usuario1.getId())) {
+                gastosUsuario1 = gastosUsuario1.add(totalUsuario.total());
+                pagadoUsuario1 = pagadoUsuario1.add(totalUsuario.pagado());
             } else {
-                gastosUsuario2 = gastosUsuario2.add(gasto.getMonto());
+                gastosUsuario2 = gastosUsuario2.add(totalUsuario.total());
+                pagadoUsuario2 = pagadoUsuario2.add(totalUsuario.pagado());
             }
+        }
 
-            for (GastoSplit split : gasto.getSplits()) {
-                if (split.getTipo() == GastoSplit.TipoSplit.PAGO) {
-                    if (split.getUsuario().getId().equals(usuario1.getId())) {
-                        pagadoUsuario1 = pagadoUsuario1.add(split.getMonto());
-                    } else {
-                        pagadoUsuario2 = pagadoUsuario2.add(split.getMonto());
-                    }
-                }
-            }
+        // Acumular por categoría (agrupadas por nombre, igual que en la vista)
+        Map<String, BigDecimal> montosPorCategoria = new LinkedHashMap<>();
+        Map<String, Integer> cantidadPorCategoria = new LinkedHashMap<>();
+        Map<String, String> iconosPorCategoria = new LinkedHashMap<>();
+        Map<String, String> coloresPorCategoria = new LinkedHashMap<>();
 
-            // Categoría
-            String catNombre = gasto.getCategoria() != null ? gasto.getCategoria().getNombre() : "Sin categoría";
-            String catIcono = gasto.getCategoria() != null ? gasto.getCategoria().getIcono() : "help_outline";
-            String catColor = gasto.getCategoria() != null && gasto.getCategoria().getColor() != null
-                    ? gasto.getCategoria().getColor()
+        for (TotalCategoriaDTO totalCategoria : resumenRepository.sumarPorCategoriaEnPeriodo(parejaId, periodo)) {
+            boolean conCategoria = totalCategoria.categoriaId() != null;
+            String catNombre = conCategoria ? totalCategoria.nombre() : "Sin categoría";
+            String catIcono = conCategoria ? totalCategoria.icono() : "help_outline";
+            String catColor = conCategoria && totalCategoria.color() != null
+                    ? totalCategoria.color()
                     : "#9e9e9e";
 
-            montosPorCategoria.merge(catNombre, gasto.getMonto(), BigDecimal::add);
-            cantidadPorCategoria.merge(catNombre, 1, Integer::sum);
+            montosPorCategoria.merge(catNombre, totalCategoria.total(), BigDecimal::add);
+            cantidadPorCategoria.merge(catNombre, totalCategoria.cantidad().intValue(), Integer::sum);
             iconosPorCategoria.putIfAbsent(catNombre, catIcono);
             coloresPorCategoria.putIfAbsent(catNombre, catColor);
         }
@@ -137,11 +149,77 @@ public class ReporteService {
                 .pagadoUsuario2(pagadoUsuario2)
                 .saldoQuienDebe(saldoFinal)
                 .detalleDeuda(detalleDeuda)
-                .cantidadGastos(gastos.size())
+                .cantidadGastos(cantidadGastos)
                 .gastosPorCategoria(categorias)
                 .build();
     }
 
+    /**
+     * Totales de los últimos {@code meses} meses (incluido el actual) en una sola consulta
+     * sobre el resumen mensual. Los meses sin gastos se rellenan en cero.
+     */
+    public List<TendenciaMensualDTO> obtenerTendencia(Long parejaId, int meses,
+            TendenciaMensualDTO.Agrupacion agrupacion) {
+        if (meses < 1 || meses > MAX_MESES_TENDENCIA) {
+            throw new BadRequestException("meses debe estar entre 1 y " + MAX_MESES_TENDENCIA);
+        }
+
+        YearMonth hasta = YearMonth.now();
+        YearMonth desde = hasta.minusMonths(meses - 1L);
+        LocalDate inicio = desde.atDay(1);
+        LocalDate fin = hasta.atDay(1);
+
+        List<ResumenGastoMensualRepository.TotalMensual> filas = switch (agrupacion) {
+            case TOTAL -> resumenRepository.sumarPorMes(parejaId, inicio, fin);
+            case CATEGORIA -> resumenRepository.sumarPorMesYCategoria(parejaId, inicio, fin);
+            case USUARIO -> resumenRepository.sumarPorMesYUsuario(parejaId, inicio, fin);
+        };
+
+        Map<YearMonth, List<ResumenGastoMensualRepository.TotalMensual>> porMes = filas.stream()
+                .collect(Collectors.groupingBy(fila -> YearMonth.parse(fila.getPeriodo())));
+
+        List<TendenciaMensualDTO> tendencia = new ArrayList<>(meses);
+        for (YearMonth ym = desde; !ym.isAfter(hasta); ym = ym.plusMonths(1)) {
+            List<ResumenGastoMensualRepository.TotalMensual> delMes = porMes.getOrDefault(ym, List.of());
+
+            BigDecimal total = BigDecimal.ZERO;
+            long cantidad = 0;
+            for (ResumenGastoMensualRepository.TotalMensual fila : delMes) {
+                total = total.add(fila.getTotal());
+                cantidad += fila.getCantidad();
+            }
+
+            List<TendenciaMensualDTO.Desglose> desglose = agrupacion == TendenciaMensualDTO.Agrupacion.TOTAL
+                    ? null
+                    : delMes.stream().map(fila -> desglose(fila, agrupacion)).toList();
+
+            tendencia.add(TendenciaMensualDTO.builder()
+                    .mes(ym.getMonthValue())
+                    .anio(ym.getYear())
+                    .nombreMes(ym.getMonth().getDisplayName(TextStyle.SHORT, LOCALE_CL))
+                    .total(total)
+                    .cantidadGastos(cantidad)
+                    .desglose(desglose)
+                    .build());
+        }
+        return tendencia;
+    }
+
+    private TendenciaMensualDTO.Desglose desglose(ResumenGastoMensualRepository.TotalMensual fila,
+            TendenciaMensualDTO.Agrupacion agrupacion) {
+        boolean sinCategoria = agrupacion == TendenciaMensualDTO.Agrupacion.CATEGORIA && fila.getClave() == null;
+        String color = agrupacion == TendenciaMensualDTO.Agrupacion.CATEGORIA
+                ? (fila.getColor() != null ? fila.getColor() : "#9e9e9e")
+                : null;
+        return TendenciaMensualDTO.Desglose.builder()
+                .id(fila.getClave())
+                .nombre(sinCategoria ? "Sin categoría" : fila.getNombre())
+                .color(color)
+                .total(fila.getTotal())
+                .cantidad(fila.getCantidad())
+                .build();
+    }
+
     public List<Gasto> obtenerGastosPorRango(Long parejaId, LocalDateTime inicio, LocalDateTime fin) {
         return gastoRepository.findByParejaidAndFechaRango(parejaId, inicio, fin);
     }
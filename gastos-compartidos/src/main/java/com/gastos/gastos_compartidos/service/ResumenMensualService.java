@@ -0,0 +1,202 @@
+package com.gastos.gastos_compartidos.service;
+
+import com.gastos.gastos_compartidos.entity.Gasto;
+import com.gastos.gastos_compartidos.entity.GastoSplit;
+import com.gastos.gastos_compartidos.repository.ResumenGastoMensualRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Mantiene la tabla resumen_gastos_mensual, de la que leen el reporte mensual, la
+ * tendencia y los totales por categoría. Igual que el balance (ver BalanceService),
+ * cada escritura de gastos y splits aplica aquí su delta en la misma transacción.
+ *
+ * Los deltas se acumulan por clave (pareja, usuario, categoría, mes) como
+ * [total, cantidad, pagado] y se aplican con un upsert por clave.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ResumenMensualService {
+
+    private static final Comparator<Clave> ORDEN_CLAVES = Comparator
+            .comparing(Clave::periodo)
+            .thenComparing(Clave::parejaId, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(Clave::usuarioId)
+            .thenComparing(Clave::categoriaId, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private final ResumenGastoMensualRepository resumenRepository;
+    private final ReporteMensualCache reporteMensualCache;
+
+    public record Clave(Long parejaId, Long usuarioId, Long categoriaId, LocalDate periodo) {
+
+        public static Clave de(Long parejaId, Long usuarioId, Long categoriaId, LocalDateTime fecha) {
+            return new Clave(parejaId, usuarioId, categoriaId, YearMonth.from(fecha).atDay(1));
+        }
+    }
+
+    @Transactional
+    public void registrarGasto(Gasto gasto) {
+        Map<Clave, BigDecimal[]> deltas = new HashMap<>();
+        acumularGasto(gasto, BigDecimal.ONE, deltas);
+        aplicar(deltas);
+    }
+
+    @Transactional
+    public void revertirGasto(Gasto gasto) {
+        Map<Clave, BigDecimal[]> deltas = new HashMap<>();
+        acumularGasto(gasto, BigDecimal.ONE.negate(), deltas);
+        aplicar(deltas);
+    }
+
+    /**
+     * Aporte actual del gasto con signo negativo. Se toma antes de editarlo y se pasa a
+     * actualizarGasto, así un cambio de mes, categoría, monto o splits se aplica como
+     * diferencia neta.
+     */
+    public Map<Clave, BigDecimal[]> capturar(Gasto gasto) {
+        Map<Clave, BigDecimal[]> deltas = new HashMap<>();
+        acumularGasto(gasto, BigDecimal.ONE.negate(), deltas);
+        return deltas;
+    }
+
+    @Transactional
+    public void actualizarGasto(Gasto gasto, Map<Clave, BigDecimal[]> anteriores) {
+        Map<Clave, BigDecimal[]> deltas = new HashMap<>(anteriores);
+        acumularGasto(gasto, BigDecimal.ONE, deltas);
+        aplicar(deltas);
+    }
+
+    /**
+     * Variante masiva para importaciones: deltas ya acumulados con {@link #acumular}.
+     */
+    @Transactional
+    public void registrarDeltas(Map<Clave, BigDecimal[]> deltas) {
+        aplicar(deltas);
+    }
+
+    public static void acumular(Map<Clave, BigDecimal[]> deltas, Clave clave, BigDecimal total, int cantidad,
+            BigDecimal pagado) {
+        BigDecimal[] delta = deltas.computeIfAbsent(clave,
+                c -> new BigDecimal[] { BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO });
+        delta[0] = delta[0].add(total);
+        delta[1] = delta[1].add(BigDecimal.valueOf(cantidad));
+        delta[2] = delta[2].add(pagado);
+    }
+
+    /**
+     * Reconstruye el resumen de la pareja desde sus gastos.
+     */
+    @Transactional
+    public void reconstruir(Long parejaId) {
+        resumenRepository.eliminarPorPareja(parejaId);
+        resumenRepository.insertarDesdeGastosDePareja(parejaId);
+        reporteMensualCache.invalidarPareja(parejaId);
+    }
+
+    /**
+     * Reconstruye el resumen de los gastos individuales del usuario.
+     */
+    @Transactional
+    public void reconstruirIndividual(Long usuarioId) {
+        resumenRepository.eliminarIndividualesDeUsuario(usuarioId);
+        resumenRepository.insertarDesdeGastosIndividuales(usuarioId);
+    }
+
+    /**
+     * Compara el resumen con lo agregado desde los gastos en una sola consulta.
+     * Devuelve los ámbitos con diferencias ("pareja:ID" o "usuario:ID"); si reparar es
+     * true, los reconstruye.
+     */
+    @Transactional
+    public List<String> verificar(boolean reparar) {
+        Set<Long> parejas = new HashSet<>();
+        Set<Long> usuarios = new HashSet<>();
+        for (ResumenGastoMensualRepository.Diferencia diferencia : resumenRepository.buscarDiferencias()) {
+            if (diferencia.getPareja() != null) {
+                parejas.add(diferencia.getPareja());
+            } else {
+                usuarios.add(diferencia.getUsuario());
+            }
+        }
+
+        List<String> conDiferencias = new ArrayList<>();
+        for (Long parejaId : parejas) {
+            conDiferencias.add("pareja:" + parejaId);
+            if (reparar) {
+                reconstruir(parejaId);
+            }
+        }
+        for (Long usuarioId : usuarios) {
+            conDiferencias.add("usuario:" + usuarioId);
+            if (reparar) {
+                reconstruirIndividual(usuarioId);
+            }
+        }
+        return conDiferencias;
+    }
+
+    @Scheduled(cron = "0 45 3 * * *")
+    @Transactional
+    public void verificarResumenProgramado() {
+        List<String> conDiferencias = verificar(true);
+        if (conDiferencias.isEmpty()) {
+            log.info("Verificación del resumen mensual: sin diferencias");
+        } else {
+            log.warn("Verificación del resumen mensual: {} ámbito(s) con diferencias reconstruidos: {}",
+                    conDiferencias.size(), conDiferencias);
+        }
+    }
+
+    private void acumularGasto(Gasto gasto, BigDecimal signo, Map<Clave, BigDecimal[]> deltas) {
+        Long parejaId = gasto.getPareja() != null ? gasto.getPareja().getId() : null;
+        Long categoriaId = gasto.getCategoria() != null ? gasto.getCategoria().getId() : null;
+
+        acumular(deltas, Clave.de(parejaId, gasto.getUsuario().getId(), categoriaId, gasto.getFechaGasto()),
+                gasto.getMonto().multiply(signo), signo.intValue(), BigDecimal.ZERO);
+
+        if (gasto.getSplits() == null) {
+            return;
+        }
+        for (GastoSplit split : gasto.getSplits()) {
+            if (split.getTipo() == GastoSplit.TipoSplit.PAGO) {
+                acumular(deltas, Clave.de(parejaId, split.getUsuario().getId(), categoriaId, gasto.getFechaGasto()),
+                        BigDecimal.ZERO, 0, split.getMonto().multiply(signo));
+            }
+        }
+    }
+
+    // En orden de clave para que dos transacciones concurrentes bloqueen las filas en el mismo orden.
+    // Cada mes de pareja tocado invalida su reporte en caché (al editar la fecha, el viejo y el nuevo).
+    private void aplicar(Map<Clave, BigDecimal[]> deltas) {
+        Set<ReporteMensualCache.Clave> reportes = new HashSet<>();
+        deltas.entrySet().stream()
+                .filter(e -> e.getValue()[0].signum() != 0 || e.getValue()[1].signum() != 0
+                        || e.getValue()[2].signum() != 0)
+                .sorted(Map.Entry.comparingByKey(ORDEN_CLAVES))
+                .forEach(e -> {
+                    Clave clave = e.getKey();
+                    resumenRepository.acumular(clave.parejaId(), clave.usuarioId(), clave.categoriaId(),
+                            clave.periodo(), e.getValue()[0], e.getValue()[1].intValueExact(), e.getValue()[2]);
+                    if (clave.parejaId() != null) {
+                        reportes.add(new ReporteMensualCache.Clave(clave.parejaId(), YearMonth.from(clave.periodo())));
+                    }
+                });
+        reporteMensualCache.invalidar(reportes);
+    }
+}
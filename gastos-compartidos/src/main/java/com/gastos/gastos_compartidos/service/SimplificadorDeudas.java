@@ -0,0 +1,176 @@
+package com.gastos.gastos_compartidos.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Simplificación de deudas de un grupo: a partir del saldo neto de cada miembro
+ * (en centavos, la suma del grupo es cero) calcula el menor conjunto de transferencias
+ * que deja a todos en cero.
+ *
+ * El mínimo es (miembros con saldo) - (máximo de subgrupos disjuntos que suman cero).
+ * Hasta {@link #MAX_EXACTO} miembros con saldo se obtiene con programación dinámica
+ * sobre subconjuntos; por encima se usa el emparejamiento voraz (mayor deudor con mayor
+ * acreedor), que nunca supera n - 1 transferencias.
+ */
+public final class SimplificadorDeudas {
+
+    // 2^16 subconjuntos: ~0,5 MB y del orden de un milisegundo
+    static final int MAX_EXACTO = 16;
+
+    // Al ordenar se empaqueta (monto, posición) en un long: 20 bits para la posición
+    private static final int BITS_POSICION = 20;
+
+    /**
+     * Transferencia del miembro en la posición deudor al de la posición acreedor.
+     */
+    public record Transferencia(int deudor, int acreedor, long monto) {
+    }
+
+    private SimplificadorDeudas() {
+    }
+
+    public static List<Transferencia> simplificar(long[] saldos) {
+        long suma = 0;
+        int conSaldo = 0;
+        for (long saldo : saldos) {
+            suma += saldo;
+            if (saldo != 0) {
+                conSaldo++;
+            }
+        }
+        if (suma != 0) {
+            throw new IllegalArgumentException("Los saldos del grupo deben sumar cero (suma = " + suma + ")");
+        }
+
+        int[] indices = new int[conSaldo];
+        for (int i = 0, j = 0; i < saldos.length; i++) {
+            if (saldos[i] != 0) {
+                indices[j++] = i;
+            }
+        }
+
+        List<Transferencia> transferencias = new ArrayList<>();
+        if (conSaldo == 0) {
+            return transferencias;
+        }
+        if (conSaldo > MAX_EXACTO) {
+            saldarVoraz(saldos, indices, conSaldo, transferencias);
+            return transferencias;
+        }
+
+        // sumas[mask]: suma de saldos del subconjunto; grupos[mask]: máximo de subgrupos
+        // disjuntos de suma cero en los que se puede partir mask
+        int total = 1 << conSaldo;
+        long[] sumas = new long[total];
+        byte[] grupos = new byte[total];
+        for (int mask = 1; mask < total; mask++) {
+            int bajo = Integer.numberOfTrailingZeros(mask);
+            sumas[mask] = sumas[mask & (mask - 1)] + saldos[indices[bajo]];
+
+            byte mejor = 0;
+            for (int resto = mask; resto != 0; resto &= resto - 1) {
+                byte candidato = grupos[mask & ~(resto & -resto)];
+                if (candidato > mejor) {
+                    mejor = candidato;
+                }
+            }
+            grupos[mask] = (byte) (sumas[mask] == 0 ? mejor + 1 : mejor);
+        }
+
+        // Reconstrucción: se quita un miembro a la vez siguiendo el óptimo; cada vez que el
+        // resto vuelve a sumar cero, los miembros quitados forman un subgrupo independiente
+        int[] subgrupo = new int[conSaldo];
+        int tamano = 0;
+        int mask = total - 1;
+        while (mask != 0) {
+            int quitar = -1;
+            byte mejor = -1;
+            for (int resto = mask; resto != 0; resto &= resto - 1) {
+                int bit = Integer.numberOfTrailingZeros(resto);
+                byte candidato = grupos[mask & ~(1 << bit)];
+                if (candidato > mejor) {
+                    mejor = candidato;
+                    quitar = bit;
+                }
+            }
+            mask &= ~(1 << quitar);
+            subgrupo[tamano++] = indices[quitar];
+
+            if (sumas[mask] == 0) {
+                saldarVoraz(saldos, subgrupo, tamano, transferencias);
+                tamano = 0;
+            }
+        }
+        return transferencias;
+    }
+
+    /**
+     * Solo el emparejamiento voraz sobre todo el grupo, sin buscar subgrupos. Referencia para
+     * comparar la cantidad de transferencias con {@link #simplificar(long[])}.
+     */
+    static List<Transferencia> simplificarVoraz(long[] saldos) {
+        int[] miembros = new int[saldos.length];
+        for (int i = 0; i < saldos.length; i++) {
+            miembros[i] = i;
+        }
+        List<Transferencia> transferencias = new ArrayList<>();
+        saldarVoraz(saldos, miembros, saldos.length, transferencias);
+        return transferencias;
+    }
+
+    /**
+     * Empareja mayor deudor con mayor acreedor dentro de los miembros indicados
+     * (deben sumar cero). Cada transferencia salda al menos a uno: a lo sumo n - 1.
+     */
+    private static void saldarVoraz(long[] saldos, int[] miembros, int cantidad, List<Transferencia> transferencias) {
+        long[] deudores = new long[cantidad];
+        long[] acreedores = new long[cantidad];
+        int nDeudores = 0;
+        int nAcreedores = 0;
+        for (int i = 0; i < cantidad; i++) {
+            int posicion = miembros[i];
+            long saldo = saldos[posicion];
+            if (saldo < 0) {
+                deudores[nDeudores++] = empaquetar(-saldo, posicion);
+            } else if (saldo > 0) {
+                acreedores[nAcreedores++] = empaquetar(saldo, posicion);
+            }
+        }
+        Arrays.sort(deudores, 0, nDeudores);
+        Arrays.sort(acreedores, 0, nAcreedores);
+
+        int d = nDeudores - 1;
+        int a = nAcreedores - 1;
+        long deuda = d >= 0 ? monto(deudores[d]) : 0;
+        long credito = a >= 0 ? monto(acreedores[a]) : 0;
+        while (d >= 0 && a >= 0) {
+            long monto = Math.min(deuda, credito);
+            transferencias.add(new Transferencia(posicion(deudores[d]), posicion(acreedores[a]), monto));
+            deuda -= monto;
+            credito -= monto;
+            if (deuda == 0 && --d >= 0) {
+                deuda = monto(deudores[d]);
+            }
+            if (credito == 0 && --a >= 0) {
+                credito = monto(acreedores[a]);
+            }
+        }
+    }
+
+    private static long empaquetar(long monto, int posicion) {
+        if (monto >= (1L << (63 - BITS_POSICION))) {
+            throw new ArithmeticException("Monto fuera de rango para simplificar deudas: " + monto);
+        }
+        return (monto << BITS_POSICION) | posicion;
+    }
+
+    private static long monto(long empaquetado) {
+        return empaquetado >>> BITS_POSICION;
+    }
+
+    private static int posicion(long empaquetado) {
+        return (int) (empaquetado & ((1L << BITS_POSICION) - 1));
+    }
+}
@@ -0,0 +1,129 @@
+package com.gastos.gastos_compartidos.service;
+
+import com.gastos.gastos_compartidos.dto.AbonoDeudaResponseDTO;
+import com.gastos.gastos_compartidos.dto.DeudaResponseDTO;
+import com.gastos.gastos_compartidos.dto.GastoResponseDTO;
+import com.gastos.gastos_compartidos.dto.PagoResponseDTO;
+import com.gastos.gastos_compartidos.dto.SyncCambiosDTO;
+import com.gastos.gastos_compartidos.repository.AbonoDeudaRepository;
+import com.gastos.gastos_compartidos.repository.DeudaRepository;
+import com.gastos.gastos_compartidos.repository.GastoRepository;
+import com.gastos.gastos_compartidos.repository.PagoRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Sincronización incremental para la caché offline de la PWA. La versión de datos de la
+ * pareja y del usuario (V13) decide si hay algo nuevo: si no cambió, la respuesta sale de
+ * una sola lectura por clave primaria. Si cambió, se leen las filas con
+ * fecha_actualizacion / deleted_at posteriores al token y las lápidas de V14.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SyncService {
+
+    // Las fechas las pone la JVM y deleted_at la base: margen para diferencias de reloj
+    private static final long MARGEN_RELOJ_SEGUNDOS = 5;
+
+    private static final LocalDateTime INICIO = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    // Inicio de la transacción abierta más antigua: lo que aún no hizo commit puede tener
+    // fechas anteriores a "ahora" y no debe quedar detrás del próximo token
+    private static final String SQL_INICIO_TRANSACCIONES = """
+            SELECT LEAST(LOCALTIMESTAMP, MIN(xact_start)::timestamp)
+            FROM pg_stat_activity
+            WHERE datname = current_database() AND xact_start IS NOT NULL
+            """;
+
+    private final VersionDatosService versionDatosService;
+    private final GastoRepository gastoRepository;
+    private final PagoRepository pagoRepository;
+    private final DeudaRepository deudaRepository;
+    private final AbonoDeudaRepository abonoDeudaRepository;
+    private final PresupuestoService presupuestoService;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.sync.retencion-dias:30}")
+    private int retencionDias;
+
+    @Transactional(readOnly = true)
+    public SyncCambiosDTO obtenerCambios(Long usuarioId, String token) {
+        SyncCambiosDTO.Token anterior = SyncCambiosDTO.Token.decodificar(token);
+        VersionDatosService.Versiones versiones = versionDatosService.versiones(usuarioId);
+
+        // Sin token, token más viejo que las lápidas o cambio de pareja: sincronización completa
+        boolean completo = anterior == null
+                || anterior.desde().isBefore(LocalDateTime.now().minusDays(retencionDias))
+                || !Objects.equals(anterior.parejaId(), versiones.parejaId());
+
+        if (!completo && anterior.versionPareja() == versiones.versionPareja()
+                && anterior.versionUsuario() == versiones.versionUsuario()) {
+            return SyncCambiosDTO.sinCambios(token);
+        }
+
+        LocalDateTime hasta = jdbcTemplate.queryForObject(SQL_INICIO_TRANSACCIONES, Timestamp.class)
+                .toLocalDateTime()
+                .minusSeconds(MARGEN_RELOJ_SEGUNDOS);
+        SyncCambiosDTO.Token siguiente = new SyncCambiosDTO.Token(hasta, versiones.parejaId(),
+                versiones.versionPareja(), versiones.versionUsuario());
+
+        LocalDateTime desde = completo ? INICIO : anterior.desde();
+        Long parejaId = versiones.parejaId();
+
+        List<PagoResponseDTO> pagos = parejaId == null ? List.of()
+                : pagoRepository.findModificadosDesde(parejaId, desde).stream()
+                        .map(PagoResponseDTO::fromEntity)
+                        .toList();
+
+        return SyncCambiosDTO.builder()
+                .token(siguiente.codificar())
+                .completo(completo)
+                .gastos(gastoRepository.findModificadosDesde(usuarioId, parejaId, desde).stream()
+                        .map(GastoResponseDTO::fromEntity)
+                        .toList())
+                .gastosEliminados(completo ? List.of()
+                        : gastoRepository.findIdsEliminadosDesde(usuarioId, parejaId, desde))
+                .pagos(pagos)
+                .deudas(deudaRepository.findByUsuarioIdAndFechaActualizacionAfter(usuarioId, desde).stream()
+                        .map(DeudaResponseDTO::fromEntity)
+                        .toList())
+                .deudasEliminadas(completo ? List.of() : eliminados(usuarioId, "DEUDA", desde))
+                .abonos(abonoDeudaRepository.findCreadosDesde(usuarioId, desde).stream()
+                        .map(AbonoDeudaResponseDTO::fromEntity)
+                        .toList())
+                .abonosEliminados(completo ? List.of() : eliminados(usuarioId, "ABONO", desde))
+                .presupuestos(presupuestoService.obtenerPorUsuario(usuarioId))
+                .build();
+    }
+
+    private List<Long> eliminados(Long usuarioId, String entidad, LocalDateTime desde) {
+        return jdbcTemplate.queryForList(
+                "SELECT entidad_id FROM eliminaciones_sync WHERE usuario_id = ? AND entidad = ? AND fecha_eliminacion > ?",
+                Long.class, usuarioId, entidad, Timestamp.valueOf(desde));
+    }
+
+    /**
+     * Un token más viejo que la retención fuerza sincronización completa, así que las
+     * lápidas anteriores ya no sirven.
+     */
+    @Scheduled(cron = "0 30 3 * * *")
+    @Transactional
+    public void purgarLapidas() {
+        int borradas = jdbcTemplate.update("DELETE FROM eliminaciones_sync WHERE fecha_eliminacion < ?",
+                Timestamp.valueOf(LocalDateTime.now().minusDays(retencionDias)));
+        if (borradas > 0) {
+            log.info("Lápidas de sincronización purgadas: {}", borradas);
+        }
+    }
+}
@@ -27,12 +27,14 @@ public class UsuarioService {
     private final UsuarioRepository usuarioRepository;
     private final ParejaRepository parejaRepository;
     private final ObjectProvider<PasswordEncoder> passwordEncoderProvider;
+    private final ReporteMensualCache reporteMensualCache;
 
     public UsuarioService(UsuarioRepository usuarioRepository, ParejaRepository parejaRepository,
-            ObjectProvider<PasswordEncoder> passwordEncoderProvider) {
+            ObjectProvider<PasswordEncoder> passwordEncoderProvider, ReporteMensualCache reporteMensualCache) {
         this.usuarioRepository = usuarioRepository;
         this.parejaRepository = parejaRepository;
         this.passwordEncoderProvider = passwordEncoderProvider;
+        this.reporteMensualCache = reporteMensualCache;
     }
 
     private PasswordEncoder getPasswordEncoder() {
@@ -138,6 +140,10 @@ public class UsuarioService {
         Usuario usuario = obtenerPorId(usuarioId);
 
         if (dto.getNombre() != null && !dto.getNombre().isBlank()) {
+            if (!dto.getNombre().equals(usuario.getNombre()) && usuario.getPareja() != null) {
+                // El reporte mensual muestra el nombre de cada miembro
+                reporteMensualCache.invalidarPareja(usuario.getPareja().getId());
+            }
             usuario.setNombre(dto.getNombre());
         }
         if (dto.getApellido() != null) {
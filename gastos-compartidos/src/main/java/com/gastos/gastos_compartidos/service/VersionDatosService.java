@@ -0,0 +1,63 @@
+package com.gastos.gastos_compartidos.service;
+
+import com.gastos.gastos_compartidos.exception.ResourceNotFoundException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * ETag de los endpoints de lectura a partir de la versión de datos de la pareja y del
+ * usuario (tabla version_datos, mantenida por triggers en cada escritura). Calcularlo es
+ * una lectura por clave primaria, así un If-None-Match vigente responde 304 sin correr
+ * ninguna agregación.
+ */
+@Service
+@RequiredArgsConstructor
+public class VersionDatosService {
+
+    private static final String SQL_VERSIONES = """
+            SELECT u.pareja_id,
+                   COALESCE((SELECT v.version FROM version_datos v
+                             WHERE v.ambito = 'P' AND v.ambito_id = u.pareja_id), 0) AS version_pareja,
+                   COALESCE((SELECT v.version FROM version_datos v
+                             WHERE v.ambito = 'U' AND v.ambito_id = u.id), 0) AS version_usuario
+            FROM usuarios u
+            WHERE u.id = ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Pareja actual del usuario y las versiones de datos de ambos (0 si nunca hubo escrituras).
+     */
+    public record Versiones(Long parejaId, long versionPareja, long versionUsuario) {
+    }
+
+    public Versiones versiones(Long usuarioId) {
+        List<Versiones> versiones = jdbcTemplate.query(SQL_VERSIONES, (rs, i) -> new Versiones(
+                rs.getObject("pareja_id", Long.class),
+                rs.getLong("version_pareja"),
+                rs.getLong("version_usuario")), usuarioId);
+
+        if (versiones.isEmpty()) {
+            throw new ResourceNotFoundException("Usuario no encontrado");
+        }
+        return versiones.get(0);
+    }
+
+    /**
+     * ETag débil para las respuestas que ve el usuario. Incluye su id (la URL es la misma
+     * para todos), la pareja actual y el día: presupuestos y reportes del mes en curso
+     * cambian al pasar de período aunque no haya escrituras.
+     */
+    public String etag(Long usuarioId) {
+        Versiones versiones = versiones(usuarioId);
+        return "W/\"" + usuarioId + "-" + (versiones.parejaId() != null ? versiones.parejaId() : 0)
+                + "-" + versiones.versionPareja()
+                + "-" + versiones.versionUsuario()
+                + "-" + LocalDate.now().toEpochDay() + "\"";
+    }
+}
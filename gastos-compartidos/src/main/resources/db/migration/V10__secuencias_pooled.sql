@@ -0,0 +1,34 @@
+-- =============================================================================
+-- V10: Secuencias con incremento 50 para el optimizador pooled de Hibernate
+-- Con IDENTITY Hibernate debe insertar cada fila en el momento para conocer su id,
+-- lo que desactiva el batching de inserts. Con SEQUENCE + allocationSize = 50 cada
+-- nextval reserva un bloque (valor - 49 .. valor) y los inserts se agrupan en batches.
+--
+-- Se reutilizan las secuencias de los BIGSERIAL. El DEFAULT nextval(...) de cada
+-- columna se mantiene para los inserts nativos: consumen un bloque completo, pero
+-- nunca se solapan con los bloques que reserva Hibernate.
+-- =============================================================================
+
+DO $$
+DECLARE
+    tabla TEXT;
+    secuencia TEXT;
+    maximo BIGINT;
+    ultimo BIGINT;
+BEGIN
+    FOREACH tabla IN ARRAY ARRAY[
+        'parejas', 'usuarios', 'categorias', 'gastos', 'gasto_splits', 'gastos_recurrentes',
+        'presupuestos', 'deudas', 'abonos_deuda', 'pagos', 'push_subscriptions', 'audit_log',
+        'balance_pareja', 'balance_checkpoint']
+    LOOP
+        secuencia := pg_get_serial_sequence(tabla, 'id');
+        EXECUTE format('SELECT COALESCE(MAX(id), 0) FROM %I', tabla) INTO maximo;
+        EXECUTE format('SELECT last_value FROM %s', secuencia) INTO ultimo;
+
+        -- El próximo nextval (ultimo + 50) abre el bloque ultimo + 1 .. ultimo + 50
+        EXECUTE format('ALTER SEQUENCE %s INCREMENT BY 50', secuencia);
+        IF maximo > ultimo THEN
+            PERFORM setval(secuencia, maximo, true);
+        END IF;
+    END LOOP;
+END $$;
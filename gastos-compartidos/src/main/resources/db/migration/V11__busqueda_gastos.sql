@@ -0,0 +1,17 @@
+-- =============================================================================
+-- V11: Búsqueda de texto completo sobre gastos (descripción y notas)
+-- Columna tsvector generada con la configuración 'spanish' (stemming y stopwords);
+-- la descripción pesa más (A) que las notas (B) al ordenar por relevancia.
+-- =============================================================================
+
+ALTER TABLE gastos
+    ADD COLUMN IF NOT EXISTS busqueda tsvector
+    GENERATED ALWAYS AS (
+        setweight(to_tsvector('spanish', COALESCE(descripcion, '')), 'A') ||
+        setweight(to_tsvector('spanish', COALESCE(notas, '')), 'B')
+    ) STORED;
+
+-- Parcial: los gastos eliminados (soft delete) no entran al índice
+CREATE INDEX IF NOT EXISTS idx_gastos_busqueda
+    ON gastos USING GIN (busqueda)
+    WHERE deleted_at IS NULL;
@@ -0,0 +1,35 @@
+-- =============================================================================
+-- V12: Índices para el filtro combinable de gastos (GET /api/gastos/filtrar)
+-- El alcance siempre es "individuales del usuario OR gastos de la pareja", así que
+-- cada filtro necesita un índice por rama: el planificador las une con BitmapOr.
+-- Rango de fechas solo: ya lo cubren los índices (…, fecha_gasto DESC, id DESC) de V9.
+-- =============================================================================
+
+-- Splits por gasto: filtro "compartido" (EXISTS) y batch fetch de splits por página.
+-- La FK no tenía índice.
+CREATE INDEX IF NOT EXISTS idx_gasto_splits_gasto
+    ON gasto_splits (gasto_id);
+
+-- Categoría (+ fecha)
+CREATE INDEX IF NOT EXISTS idx_gastos_pareja_categoria_fecha
+    ON gastos (pareja_id, categoria_id, fecha_gasto DESC)
+    WHERE deleted_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_gastos_individual_categoria_fecha
+    ON gastos (usuario_id, categoria_id, fecha_gasto DESC)
+    WHERE pareja_id IS NULL AND deleted_at IS NULL;
+
+-- Registrado por (+ fecha). En la rama individual el registrador es siempre el usuario,
+-- por lo que basta idx_gastos_individual_fecha_id (V9).
+CREATE INDEX IF NOT EXISTS idx_gastos_pareja_usuario_fecha
+    ON gastos (pareja_id, usuario_id, fecha_gasto DESC)
+    WHERE deleted_at IS NULL;
+
+-- Rango de monto
+CREATE INDEX IF NOT EXISTS idx_gastos_pareja_monto
+    ON gastos (pareja_id, monto)
+    WHERE deleted_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_gastos_individual_monto
+    ON gastos (usuario_id, monto)
+    WHERE pareja_id IS NULL AND deleted_at IS NULL;
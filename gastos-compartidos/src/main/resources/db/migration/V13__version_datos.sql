@@ -0,0 +1,107 @@
+-- =============================================================================
+-- V13: Versión de datos por pareja y por usuario (ETag de los endpoints de lectura)
+-- Cada escritura en gastos, splits, pagos, presupuestos, deudas o abonos incrementa la
+-- versión de la pareja y de los usuarios afectados. Los triggers son por sentencia con
+-- tablas de transición: un INSERT de 500 filas (importación, batch de Hibernate)
+-- incrementa cada versión una sola vez, no 500.
+-- =============================================================================
+
+CREATE TABLE IF NOT EXISTS version_datos (
+    ambito CHAR(1) NOT NULL, -- 'P' pareja, 'U' usuario
+    ambito_id BIGINT NOT NULL,
+    version BIGINT NOT NULL DEFAULT 1,
+    CONSTRAINT pk_version_datos PRIMARY KEY (ambito, ambito_id)
+);
+
+-- Ordenado por id para que dos transacciones concurrentes bloqueen las filas en el mismo
+-- orden; GROUP BY porque ON CONFLICT no admite la misma clave dos veces por sentencia.
+CREATE OR REPLACE FUNCTION incrementar_version_datos(p_ambito CHAR, p_ids BIGINT[]) RETURNS VOID AS $$
+BEGIN
+    INSERT INTO version_datos (ambito, ambito_id)
+    SELECT p_ambito, id
+    FROM unnest(p_ids) AS id
+    WHERE id IS NOT NULL
+    GROUP BY id
+    ORDER BY id
+    ON CONFLICT (ambito, ambito_id) DO UPDATE SET version = version_datos.version + 1;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Las funciones leen la tabla de transición "filas": NEW TABLE en INSERT/UPDATE, OLD TABLE en DELETE
+CREATE OR REPLACE FUNCTION version_datos_gastos() RETURNS TRIGGER AS $$
+BEGIN
+    PERFORM incrementar_version_datos('P', ARRAY(SELECT pareja_id FROM filas));
+    PERFORM incrementar_version_datos('U', ARRAY(SELECT usuario_id FROM filas));
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION version_datos_gasto_splits() RETURNS TRIGGER AS $$
+BEGIN
+    PERFORM incrementar_version_datos('P',
+            ARRAY(SELECT g.pareja_id FROM filas f JOIN gastos g ON g.id = f.gasto_id));
+    PERFORM incrementar_version_datos('U', ARRAY(SELECT usuario_id FROM filas));
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION version_datos_pagos() RETURNS TRIGGER AS $$
+BEGIN
+    PERFORM incrementar_version_datos('P', ARRAY(SELECT pareja_id FROM filas));
+    PERFORM incrementar_version_datos('U',
+            ARRAY(SELECT pagador_id FROM filas UNION SELECT receptor_id FROM filas));
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION version_datos_usuario() RETURNS TRIGGER AS $$
+BEGIN
+    PERFORM incrementar_version_datos('U', ARRAY(SELECT usuario_id FROM filas));
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION version_datos_abonos_deuda() RETURNS TRIGGER AS $$
+BEGIN
+    PERFORM incrementar_version_datos('U',
+            ARRAY(SELECT d.usuario_id FROM filas f JOIN deudas d ON d.id = f.deuda_id));
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Un trigger por evento: las tablas de transición no se permiten en triggers de varios eventos
+DO $$
+DECLARE
+    t RECORD;
+BEGIN
+    FOR t IN SELECT * FROM (VALUES
+            ('gastos', 'version_datos_gastos'),
+            ('gasto_splits', 'version_datos_gasto_splits'),
+            ('pagos', 'version_datos_pagos'),
+            ('presupuestos', 'version_datos_usuario'),
+            ('deudas', 'version_datos_usuario'),
+            ('abonos_deuda', 'version_datos_abonos_deuda')) AS v(tabla, funcion)
+    LOOP
+        EXECUTE format('CREATE TRIGGER trg_%1$s_version_ins AFTER INSERT ON %1$I '
+                || 'REFERENCING NEW TABLE AS filas FOR EACH STATEMENT EXECUTE FUNCTION %2$I()', t.tabla, t.funcion);
+        EXECUTE format('CREATE TRIGGER trg_%1$s_version_upd AFTER UPDATE ON %1$I '
+                || 'REFERENCING NEW TABLE AS filas FOR EACH STATEMENT EXECUTE FUNCTION %2$I()', t.tabla, t.funcion);
+        EXECUTE format('CREATE TRIGGER trg_%1$s_version_del AFTER DELETE ON %1$I '
+                || 'REFERENCING OLD TABLE AS filas FOR EACH STATEMENT EXECUTE FUNCTION %2$I()', t.tabla, t.funcion);
+    END LOOP;
+END $$;
+
+-- Entrar o salir de una pareja cambia lo que ven ambas parejas y el propio usuario
+CREATE OR REPLACE FUNCTION version_datos_cambio_pareja() RETURNS TRIGGER AS $$
+BEGIN
+    PERFORM incrementar_version_datos('P', ARRAY[OLD.pareja_id, NEW.pareja_id]);
+    PERFORM incrementar_version_datos('U', ARRAY[NEW.id]);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_usuarios_version_pareja
+    AFTER UPDATE OF pareja_id ON usuarios
+    FOR EACH ROW
+    WHEN (OLD.pareja_id IS DISTINCT FROM NEW.pareja_id)
+    EXECUTE FUNCTION version_datos_cambio_pareja();
@@ -0,0 +1,71 @@
+-- =============================================================================
+-- V14: Sincronización incremental (GET /api/sync/changes)
+-- Los cambios se leen por fecha_actualizacion / deleted_at / fecha_creacion dentro del
+-- alcance del usuario o de su pareja. Las filas que se borran físicamente (deudas y
+-- abonos) dejan una lápida en eliminaciones_sync.
+-- =============================================================================
+
+-- Gastos modificados y eliminados (soft delete), por rama de alcance
+CREATE INDEX IF NOT EXISTS idx_gastos_pareja_actualizacion
+    ON gastos (pareja_id, fecha_actualizacion);
+
+CREATE INDEX IF NOT EXISTS idx_gastos_individual_actualizacion
+    ON gastos (usuario_id, fecha_actualizacion)
+    WHERE pareja_id IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_gastos_pareja_eliminados
+    ON gastos (pareja_id, deleted_at)
+    WHERE deleted_at IS NOT NULL;
+
+CREATE INDEX IF NOT EXISTS idx_gastos_individual_eliminados
+    ON gastos (usuario_id, deleted_at)
+    WHERE deleted_at IS NOT NULL AND pareja_id IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_pagos_pareja_actualizacion
+    ON pagos (pareja_id, fecha_actualizacion);
+
+CREATE INDEX IF NOT EXISTS idx_deudas_usuario_actualizacion
+    ON deudas (usuario_id, fecha_actualizacion);
+
+-- Los abonos no se editan: basta la fecha de creación
+CREATE INDEX IF NOT EXISTS idx_abonos_deuda_creacion
+    ON abonos_deuda (deuda_id, fecha_creacion);
+
+-- Lápidas de filas borradas físicamente; se purgan pasada la retención del token
+CREATE TABLE IF NOT EXISTS eliminaciones_sync (
+    id BIGSERIAL PRIMARY KEY,
+    entidad VARCHAR(30) NOT NULL, -- 'DEUDA', 'ABONO'
+    entidad_id BIGINT NOT NULL,
+    usuario_id BIGINT NOT NULL,
+    fecha_eliminacion TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+CREATE INDEX IF NOT EXISTS idx_eliminaciones_sync_usuario_fecha
+    ON eliminaciones_sync (usuario_id, fecha_eliminacion);
+
+CREATE OR REPLACE FUNCTION lapida_deudas() RETURNS TRIGGER AS $$
+BEGIN
+    INSERT INTO eliminaciones_sync (entidad, entidad_id, usuario_id)
+    SELECT 'DEUDA', id, usuario_id FROM filas;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Hibernate borra los abonos antes que su deuda, así que el JOIN todavía la encuentra
+CREATE OR REPLACE FUNCTION lapida_abonos_deuda() RETURNS TRIGGER AS $$
+BEGIN
+    INSERT INTO eliminaciones_sync (entidad, entidad_id, usuario_id)
+    SELECT 'ABONO', f.id, d.usuario_id FROM filas f JOIN deudas d ON d.id = f.deuda_id;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_deudas_lapida
+    AFTER DELETE ON deudas
+    REFERENCING OLD TABLE AS filas
+    FOR EACH STATEMENT EXECUTE FUNCTION lapida_deudas();
+
+CREATE TRIGGER trg_abonos_deuda_lapida
+    AFTER DELETE ON abonos_deuda
+    REFERENCING OLD TABLE AS filas
+    FOR EACH STATEMENT EXECUTE FUNCTION lapida_abonos_deuda();
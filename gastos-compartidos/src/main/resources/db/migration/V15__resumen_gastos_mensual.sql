@@ -0,0 +1,56 @@
+-- =============================================================================
+-- V15: Resumen mensual de gastos (reportes, tendencia y desglose por categoría)
+-- Una fila por pareja, usuario, categoría y mes con el total y la cantidad de gastos
+-- que registró el usuario y lo que pagó (splits PAGO). Lo mantiene ResumenMensualService
+-- con upserts de deltas en la misma transacción de cada escritura de gastos.
+-- pareja_id es null para los gastos individuales y categoria_id para los sin categoría.
+-- =============================================================================
+
+-- Incremento 50 para el optimizador pooled de Hibernate (ver V10): los upserts nativos
+-- usan el DEFAULT y las filas que inserta la entidad se agrupan en batches
+CREATE SEQUENCE IF NOT EXISTS resumen_gastos_mensual_id_seq INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS resumen_gastos_mensual (
+    id BIGINT PRIMARY KEY DEFAULT nextval('resumen_gastos_mensual_id_seq'),
+    pareja_id BIGINT,
+    usuario_id BIGINT NOT NULL,
+    categoria_id BIGINT,
+    periodo DATE NOT NULL, -- Primer día del mes
+    total NUMERIC(14, 2) NOT NULL DEFAULT 0,
+    cantidad INTEGER NOT NULL DEFAULT 0,
+    pagado NUMERIC(14, 2) NOT NULL DEFAULT 0
+);
+
+ALTER SEQUENCE resumen_gastos_mensual_id_seq OWNED BY resumen_gastos_mensual.id;
+
+-- Clave del upsert; COALESCE porque ON CONFLICT no trata dos null como iguales
+CREATE UNIQUE INDEX IF NOT EXISTS uk_resumen_gastos_mensual
+    ON resumen_gastos_mensual ((COALESCE(pareja_id, 0)), usuario_id, (COALESCE(categoria_id, 0)), periodo);
+
+-- Reporte del mes y tendencia de la pareja
+CREATE INDEX IF NOT EXISTS idx_resumen_gastos_mensual_pareja_periodo
+    ON resumen_gastos_mensual (pareja_id, periodo);
+
+-- Resumen por categoría de los gastos individuales
+CREATE INDEX IF NOT EXISTS idx_resumen_gastos_mensual_individual
+    ON resumen_gastos_mensual (usuario_id)
+    WHERE pareja_id IS NULL;
+
+-- Carga inicial desde los gastos existentes
+INSERT INTO resumen_gastos_mensual (pareja_id, usuario_id, categoria_id, periodo, total, cantidad, pagado)
+SELECT pareja_id, usuario_id, categoria_id, periodo, SUM(total), SUM(cantidad), SUM(pagado)
+FROM (
+    SELECT g.pareja_id, g.usuario_id, g.categoria_id,
+           CAST(date_trunc('month', g.fecha_gasto) AS DATE) AS periodo,
+           g.monto AS total, 1 AS cantidad, 0 AS pagado
+    FROM gastos g
+    WHERE g.deleted_at IS NULL
+    UNION ALL
+    SELECT g.pareja_id, s.usuario_id, g.categoria_id,
+           CAST(date_trunc('month', g.fecha_gasto) AS DATE),
+           0, 0, s.monto
+    FROM gasto_splits s
+    JOIN gastos g ON g.id = s.gasto_id
+    WHERE g.deleted_at IS NULL AND s.tipo = 'PAGO'
+) aportes
+GROUP BY pareja_id, usuario_id, categoria_id, periodo;
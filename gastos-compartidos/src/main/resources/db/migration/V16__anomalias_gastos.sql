@@ -0,0 +1,49 @@
+-- =============================================================================
+-- V16: Detección de gastos inusuales por categoría
+-- estadistica_categoria guarda, por pareja y categoría, la cantidad, la media y M2
+-- (algoritmo de Welford) del logaritmo del monto de los gastos vigentes; se actualiza en
+-- O(1) con cada escritura (ver AnomaliaService). anomalias_gasto registra los gastos que
+-- al crearse quedaron muy por encima de lo habitual.
+-- =============================================================================
+
+-- Incremento 50 para el optimizador pooled de Hibernate (ver V10)
+CREATE SEQUENCE IF NOT EXISTS estadistica_categoria_id_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS anomalias_gasto_id_seq INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS estadistica_categoria (
+    id BIGINT PRIMARY KEY DEFAULT nextval('estadistica_categoria_id_seq'),
+    pareja_id BIGINT NOT NULL,
+    categoria_id BIGINT NOT NULL,
+    cantidad BIGINT NOT NULL DEFAULT 0,
+    media DOUBLE PRECISION NOT NULL DEFAULT 0,
+    m2 DOUBLE PRECISION NOT NULL DEFAULT 0,
+    fecha_actualizacion TIMESTAMP NOT NULL DEFAULT NOW(),
+    CONSTRAINT uk_estadistica_categoria UNIQUE (pareja_id, categoria_id),
+    -- Al borrar la pareja o la categoría sus estadísticas dejan de tener sentido
+    CONSTRAINT fk_estadistica_categoria_pareja FOREIGN KEY (pareja_id) REFERENCES parejas(id) ON DELETE CASCADE,
+    CONSTRAINT fk_estadistica_categoria_categoria FOREIGN KEY (categoria_id) REFERENCES categorias(id) ON DELETE CASCADE
+);
+
+CREATE TABLE IF NOT EXISTS anomalias_gasto (
+    id BIGINT PRIMARY KEY DEFAULT nextval('anomalias_gasto_id_seq'),
+    gasto_id BIGINT NOT NULL,
+    pareja_id BIGINT NOT NULL,
+    puntaje DOUBLE PRECISION NOT NULL, -- Desviaciones estándar sobre la media (escala log)
+    monto_tipico NUMERIC(14, 2) NOT NULL, -- exp(media): monto habitual de la categoría
+    fecha_deteccion TIMESTAMP NOT NULL DEFAULT NOW(),
+    CONSTRAINT fk_anomalias_gasto FOREIGN KEY (gasto_id) REFERENCES gastos(id) ON DELETE CASCADE,
+    CONSTRAINT fk_anomalias_gasto_pareja FOREIGN KEY (pareja_id) REFERENCES parejas(id) ON DELETE CASCADE
+);
+
+ALTER SEQUENCE estadistica_categoria_id_seq OWNED BY estadistica_categoria.id;
+ALTER SEQUENCE anomalias_gasto_id_seq OWNED BY anomalias_gasto.id;
+
+CREATE INDEX IF NOT EXISTS idx_anomalias_gasto_pareja_fecha
+    ON anomalias_gasto (pareja_id, fecha_deteccion DESC);
+
+-- Carga inicial; VAR_POP * n = M2
+INSERT INTO estadistica_categoria (pareja_id, categoria_id, cantidad, media, m2)
+SELECT pareja_id, categoria_id, COUNT(*), AVG(LN(monto)), COALESCE(VAR_POP(LN(monto)) * COUNT(*), 0)
+FROM gastos
+WHERE deleted_at IS NULL AND pareja_id IS NOT NULL AND categoria_id IS NOT NULL AND monto > 0
+GROUP BY pareja_id, categoria_id;
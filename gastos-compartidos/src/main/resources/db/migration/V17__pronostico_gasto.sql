@@ -0,0 +1,37 @@
+-- =============================================================================
+-- V17: Pronóstico de gasto al cierre del período (semana, mes y año en curso)
+-- Una fila por usuario, categoría (NULL = total) y período de presupuesto:
+-- proyectado = gastado + recurrente (ejecuciones pendientes de gastos_recurrentes
+-- dentro del período) + tendencia (gasto diario reciente por los días que faltan).
+-- Lo calcula PronosticoService en un job nocturno y con cada escritura; se lee
+-- junto a los presupuestos con una sola consulta por usuario_id.
+-- =============================================================================
+
+-- Incremento 50 para el optimizador pooled de Hibernate (ver V10)
+CREATE SEQUENCE IF NOT EXISTS pronostico_gasto_id_seq INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS pronostico_gasto (
+    id BIGINT PRIMARY KEY DEFAULT nextval('pronostico_gasto_id_seq'),
+    usuario_id BIGINT NOT NULL,
+    categoria_id BIGINT, -- NULL = todas las categorías
+    periodo VARCHAR(20) NOT NULL, -- 'SEMANAL', 'MENSUAL', 'ANUAL'
+    inicio DATE NOT NULL,
+    fin DATE NOT NULL, -- exclusivo
+    gastado NUMERIC(14, 2) NOT NULL DEFAULT 0,
+    recurrente NUMERIC(14, 2) NOT NULL DEFAULT 0,
+    tendencia NUMERIC(14, 2) NOT NULL DEFAULT 0,
+    proyectado NUMERIC(14, 2) NOT NULL DEFAULT 0,
+    fecha_actualizacion TIMESTAMP NOT NULL DEFAULT NOW(),
+    CONSTRAINT fk_pronostico_gasto_usuario FOREIGN KEY (usuario_id) REFERENCES usuarios(id) ON DELETE CASCADE
+);
+
+ALTER SEQUENCE pronostico_gasto_id_seq OWNED BY pronostico_gasto.id;
+
+-- También sirve a la lectura por usuario_id
+CREATE UNIQUE INDEX IF NOT EXISTS uk_pronostico_gasto
+    ON pronostico_gasto (usuario_id, (COALESCE(categoria_id, 0)), periodo);
+
+-- Recurrentes pendientes por usuario para el cálculo
+CREATE INDEX IF NOT EXISTS idx_gastos_recurrentes_usuario_proxima
+    ON gastos_recurrentes (usuario_id, proxima_ejecucion)
+    WHERE activo = TRUE;
@@ -0,0 +1,25 @@
+-- =============================================================================
+-- V18: Gasto recurrente que generó cada gasto
+-- El pronóstico deja fuera de la tendencia los gastos generados por recurrentes (ya
+-- entran por su calendario). Reconocerlos por el sufijo " (Recurrente)" de la
+-- descripción fallaba si el usuario la editaba o si un gasto manual terminaba igual.
+-- =============================================================================
+
+ALTER TABLE gastos ADD COLUMN IF NOT EXISTS gasto_recurrente_id BIGINT;
+
+ALTER TABLE gastos ADD CONSTRAINT fk_gastos_recurrente
+    FOREIGN KEY (gasto_recurrente_id) REFERENCES gastos_recurrentes(id) ON DELETE SET NULL;
+
+-- Para el ON DELETE SET NULL al borrar un recurrente; la gran mayoría de los gastos no tiene
+CREATE INDEX IF NOT EXISTS idx_gastos_recurrente
+    ON gastos (gasto_recurrente_id)
+    WHERE gasto_recurrente_id IS NOT NULL;
+
+-- Carga inicial por la descripción que arma GastoRecurrenteService. Los generados por un
+-- recurrente que después se renombró o eliminó quedan sin marcar.
+UPDATE gastos g
+SET gasto_recurrente_id = r.id
+FROM gastos_recurrentes r
+WHERE g.usuario_id = r.usuario_id
+  AND g.descripcion = r.descripcion || ' (Recurrente)'
+  AND g.gasto_recurrente_id IS NULL;
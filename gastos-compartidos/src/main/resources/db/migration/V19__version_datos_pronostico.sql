@@ -0,0 +1,21 @@
+-- =============================================================================
+-- V19: Versión de datos del usuario con los cambios de recurrentes y del pronóstico
+-- El listado de presupuestos incluye el proyectado de pronostico_gasto y responde 304
+-- por el ETag de version_datos (V13). El pronóstico cambia sin tocar las tablas que ya
+-- tienen trigger: al crear, editar o eliminar un recurrente y en el recálculo nocturno.
+-- =============================================================================
+
+DO $$
+DECLARE
+    tabla TEXT;
+BEGIN
+    FOREACH tabla IN ARRAY ARRAY['gastos_recurrentes', 'pronostico_gasto']
+    LOOP
+        EXECUTE format('CREATE TRIGGER trg_%1$s_version_ins AFTER INSERT ON %1$I '
+                || 'REFERENCING NEW TABLE AS filas FOR EACH STATEMENT EXECUTE FUNCTION version_datos_usuario()', tabla);
+        EXECUTE format('CREATE TRIGGER trg_%1$s_version_upd AFTER UPDATE ON %1$I '
+                || 'REFERENCING NEW TABLE AS filas FOR EACH STATEMENT EXECUTE FUNCTION version_datos_usuario()', tabla);
+        EXECUTE format('CREATE TRIGGER trg_%1$s_version_del AFTER DELETE ON %1$I '
+                || 'REFERENCING OLD TABLE AS filas FOR EACH STATEMENT EXECUTE FUNCTION version_datos_usuario()', tabla);
+    END LOOP;
+END $$;
@@ -0,0 +1,43 @@
+-- =============================================================================
+-- V6: Balance materializado por pareja y usuario
+-- Mantenido en la misma transacción que cada escritura de gastos, splits y pagos
+-- para que /api/pagos/resumen sea una lectura de tiempo constante.
+-- =============================================================================
+
+CREATE TABLE IF NOT EXISTS balance_pareja (
+    id BIGSERIAL PRIMARY KEY,
+    pareja_id BIGINT NOT NULL,
+    usuario_id BIGINT NOT NULL,
+    total_debe NUMERIC(14, 2) NOT NULL DEFAULT 0,        -- Splits DEBE del usuario
+    total_pagado NUMERIC(14, 2) NOT NULL DEFAULT 0,      -- Splits PAGO del usuario
+    abonos_realizados NUMERIC(14, 2) NOT NULL DEFAULT 0, -- Pagos completados donde es pagador
+    abonos_recibidos NUMERIC(14, 2) NOT NULL DEFAULT 0,  -- Pagos completados donde es receptor
+    fecha_actualizacion TIMESTAMP NOT NULL DEFAULT NOW(),
+    CONSTRAINT fk_balance_pareja FOREIGN KEY (pareja_id) REFERENCES parejas(id) ON DELETE CASCADE,
+    CONSTRAINT fk_balance_usuario FOREIGN KEY (usuario_id) REFERENCES usuarios(id),
+    CONSTRAINT uk_balance_pareja_usuario UNIQUE (pareja_id, usuario_id)
+);
+
+-- Carga inicial a partir de los datos existentes
+INSERT INTO balance_pareja (pareja_id, usuario_id, total_debe, total_pagado, abonos_realizados, abonos_recibidos)
+SELECT t.pareja_id, t.usuario_id,
+       SUM(t.debe), SUM(t.pagado), SUM(t.realizados), SUM(t.recibidos)
+FROM (
+    SELECT g.pareja_id, s.usuario_id,
+           CASE WHEN s.tipo = 'DEBE' THEN s.monto ELSE 0 END AS debe,
+           CASE WHEN s.tipo = 'PAGO' THEN s.monto ELSE 0 END AS pagado,
+           0 AS realizados, 0 AS recibidos
+    FROM gasto_splits s
+    JOIN gastos g ON g.id = s.gasto_id
+    WHERE g.pareja_id IS NOT NULL AND g.deleted_at IS NULL
+    UNION ALL
+    SELECT p.pareja_id, p.pagador_id, 0, 0, p.monto, 0
+    FROM pagos p
+    WHERE p.estado = 'COMPLETADO'
+    UNION ALL
+    SELECT p.pareja_id, p.receptor_id, 0, 0, 0, p.monto
+    FROM pagos p
+    WHERE p.estado = 'COMPLETADO'
+) t
+GROUP BY t.pareja_id, t.usuario_id
+ON CONFLICT (pareja_id, usuario_id) DO NOTHING;
@@ -0,0 +1,23 @@
+-- =============================================================================
+-- V7: Checkpoints mensuales de balance
+-- Balance acumulado de cada usuario al cierre de cada mes. El recálculo parte del
+-- último checkpoint y solo suma los movimientos del periodo abierto.
+-- Una escritura fechada en un mes cerrado elimina ese checkpoint y los posteriores.
+-- =============================================================================
+
+CREATE TABLE IF NOT EXISTS balance_checkpoint (
+    id BIGSERIAL PRIMARY KEY,
+    pareja_id BIGINT NOT NULL,
+    usuario_id BIGINT NOT NULL,
+    periodo DATE NOT NULL,                               -- Primer día del mes cerrado
+    total_debe NUMERIC(14, 2) NOT NULL DEFAULT 0,
+    total_pagado NUMERIC(14, 2) NOT NULL DEFAULT 0,
+    abonos_realizados NUMERIC(14, 2) NOT NULL DEFAULT 0,
+    abonos_recibidos NUMERIC(14, 2) NOT NULL DEFAULT 0,
+    fecha_creacion TIMESTAMP NOT NULL DEFAULT NOW(),
+    CONSTRAINT fk_checkpoint_pareja FOREIGN KEY (pareja_id) REFERENCES parejas(id) ON DELETE CASCADE,
+    CONSTRAINT fk_checkpoint_usuario FOREIGN KEY (usuario_id) REFERENCES usuarios(id),
+    CONSTRAINT uk_checkpoint_pareja_usuario_periodo UNIQUE (pareja_id, usuario_id, periodo)
+);
+
+CREATE INDEX IF NOT EXISTS idx_checkpoint_pareja_periodo ON balance_checkpoint(pareja_id, periodo DESC);
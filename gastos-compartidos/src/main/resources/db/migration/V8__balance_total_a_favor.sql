@@ -0,0 +1,21 @@
+-- =============================================================================
+-- V8: Saldo a favor por gastos registrados
+-- total_a_favor = splits DEBE de otros miembros en gastos que registró el usuario.
+-- Con esta columna el saldo neto de cada miembro suma cero en el grupo
+-- (necesario para grupos de más de 2 miembros):
+--   saldo = total_a_favor - total_debe + abonos_realizados - abonos_recibidos
+-- =============================================================================
+
+ALTER TABLE balance_pareja ADD COLUMN IF NOT EXISTS total_a_favor NUMERIC(14, 2) NOT NULL DEFAULT 0;
+ALTER TABLE balance_checkpoint ADD COLUMN IF NOT EXISTS total_a_favor NUMERIC(14, 2) NOT NULL DEFAULT 0;
+
+INSERT INTO balance_pareja (pareja_id, usuario_id, total_a_favor)
+SELECT g.pareja_id, g.usuario_id, SUM(s.monto)
+FROM gasto_splits s
+JOIN gastos g ON g.id = s.gasto_id
+WHERE g.pareja_id IS NOT NULL AND g.deleted_at IS NULL AND s.tipo = 'DEBE'
+GROUP BY g.pareja_id, g.usuario_id
+ON CONFLICT (pareja_id, usuario_id) DO UPDATE SET total_a_favor = EXCLUDED.total_a_favor;
+
+-- Los checkpoints existentes no tienen el dato; el cierre programado los regenera
+DELETE FROM balance_checkpoint;
@@ -0,0 +1,27 @@
+-- =============================================================================
+-- V9: Índices para paginación por cursor (keyset) sobre (fecha, id)
+-- Cada consulta busca con (fecha, id) < (:fecha, :id) ORDER BY fecha DESC, id DESC,
+-- así una página profunda cuesta lo mismo que la primera.
+-- =============================================================================
+
+-- Gastos de la pareja (rama pareja del UNION ALL y listado de la pareja)
+CREATE INDEX IF NOT EXISTS idx_gastos_pareja_fecha_id
+    ON gastos (pareja_id, fecha_gasto DESC, id DESC)
+    WHERE deleted_at IS NULL;
+
+-- Gastos individuales (rama individual del UNION ALL)
+CREATE INDEX IF NOT EXISTS idx_gastos_individual_fecha_id
+    ON gastos (usuario_id, fecha_gasto DESC, id DESC)
+    WHERE pareja_id IS NULL AND deleted_at IS NULL;
+
+-- Historial de pagos completados
+CREATE INDEX IF NOT EXISTS idx_pagos_pareja_completado_fecha_id
+    ON pagos (pareja_id, fecha_pago DESC, id DESC)
+    WHERE estado = 'COMPLETADO';
+
+-- Deudas del usuario (todas y solo activas)
+CREATE INDEX IF NOT EXISTS idx_deudas_usuario_fecha_id
+    ON deudas (usuario_id, fecha_creacion DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_deudas_usuario_estado_fecha_id
+    ON deudas (usuario_id, estado, fecha_creacion DESC, id DESC);
@@ -0,0 +1,180 @@
+package com.gastos.gastos_compartidos;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Cuenta las sentencias que el hilo actual envía a la base de datos, pasen por Hibernate o por
+ * JdbcTemplate. Cada execute* cuenta como una ida; un executeBatch cuenta como una ida y como
+ * un batch (se guarda su SQL), y sus addBatch como filas. Las consultas preparadas se guardan
+ * con sus parámetros para poder pedirle su plan a PostgreSQL. El contador es por hilo, así que
+ * los listeners asíncronos y los jobs programados no ensucian la medición.
+ */
+public final class ContadorSentencias {
+
+	private static final ThreadLocal<Conteo> CONTEO = ThreadLocal.withInitial(Conteo::new);
+
+	private static final class Conteo {
+		private long sentencias;
+		private long filasEnBatch;
+		private final List<String> batches = new ArrayList<>();
+		private final List<Consulta> consultas = new ArrayList<>();
+	}
+
+	/**
+	 * Consulta preparada tal como se ejecutó: SQL con ? y los valores en orden.
+	 */
+	public record Consulta(String sql, List<Object> parametros) {
+	}
+
+	private ContadorSentencias() {
+	}
+
+	public static void reiniciar() {
+		CONTEO.set(new Conteo());
+	}
+
+	public static long sentencias() {
+		return CONTEO.get().sentencias;
+	}
+
+	public static long batches() {
+		return CONTEO.get().batches.size();
+	}
+
+	public static long filasEnBatch() {
+		return CONTEO.get().filasEnBatch;
+	}
+
+	/**
+	 * SQL de cada executeBatch, en orden; null si el batch se armó sobre un Statement simple.
+	 */
+	public static List<String> sqlBatches() {
+		return new ArrayList<>(CONTEO.get().batches);
+	}
+
+	/**
+	 * Consultas preparadas (executeQuery o execute fuera de un batch) en orden de ejecución.
+	 */
+	public static List<Consulta> consultas() {
+		return new ArrayList<>(CONTEO.get().consultas);
+	}
+
+	/**
+	 * Envuelve el DataSource de la aplicación; se importa desde PostgresIntegrationTest.
+	 */
+	@TestConfiguration(proxyBeanMethods = false)
+	public static class Configuracion {
+
+		@Bean
+		static BeanPostProcessor contadorSentenciasDataSource() {
+			return new BeanPostProcessor() {
+				@Override
+				public Object postProcessAfterInitialization(Object bean, String nombre) {
+					if (bean instanceof DataSource dataSource && !(bean instanceof DataSourceContador)) {
+						return new DataSourceContador(dataSource);
+					}
+					return bean;
+				}
+			};
+		}
+	}
+
+	static final class DataSourceContador extends DelegatingDataSource implements AutoCloseable {
+
+		DataSourceContador(DataSource destino) {
+			super(destino);
+		}
+
+		@Override
+		public Connection getConnection() throws SQLException {
+			return envolver(Connection.class, super.getConnection(), ContadorSentencias::invocarConexion);
+		}
+
+		@Override
+		public Connection getConnection(String usuario, String clave) throws SQLException {
+			return envolver(Connection.class, super.getConnection(usuario, clave), ContadorSentencias::invocarConexion);
+		}
+
+		// Sin esto Spring no cerraría el pool al cerrar el contexto: infiere close() sobre el bean envuelto
+		@Override
+		public void close() throws Exception {
+			if (obtainTargetDataSource() instanceof AutoCloseable destino) {
+				destino.close();
+			}
+		}
+	}
+
+	private interface Invocacion {
+		Object invocar(Object destino, Method metodo, Object[] args) throws Throwable;
+	}
+
+	private static <T> T envolver(Class<T> tipo, T destino, Invocacion invocacion) {
+		InvocationHandler handler = (proxy, metodo, args) -> invocacion.invocar(destino, metodo, args);
+		return tipo.cast(Proxy.newProxyInstance(ContadorSentencias.class.getClassLoader(), new Class<?>[] { tipo },
+				handler));
+	}
+
+	private static Object invocarConexion(Object conexion, Method metodo, Object[] args)
+			throws Throwable {
+		Object resultado = delegar(conexion, metodo, args);
+		String sql = args != null && args.length > 0 && args[0] instanceof String texto ? texto : null;
+		Map<Integer, Object> parametros = new TreeMap<>();
+		Invocacion invocacion = (sentencia, m, a) -> invocarSentencia(sql, parametros, sentencia, m, a);
+		return switch (metodo.getName()) {
+			case "prepareCall" -> envolver(CallableStatement.class, (CallableStatement) resultado, invocacion);
+			case "prepareStatement" -> envolver(PreparedStatement.class, (PreparedStatement) resultado, invocacion);
+			case "createStatement" -> envolver(Statement.class, (Statement) resultado, invocacion);
+			default -> resultado;
+		};
+	}
+
+	private static Object invocarSentencia(String sql, Map<Integer, Object> parametros, Object sentencia,
+			Method metodo, Object[] args) throws Throwable {
+		Conteo conteo = CONTEO.get();
+		String nombre = metodo.getName();
+		if (nombre.equals("addBatch")) {
+			conteo.filasEnBatch++;
+		} else if (nombre.equals("executeBatch") || nombre.equals("executeLargeBatch")) {
+			conteo.sentencias++;
+			conteo.batches.add(sql);
+			parametros.clear();
+		} else if (nombre.startsWith("execute")) {
+			conteo.sentencias++;
+			if (sql != null && (args == null || args.length == 0)) {
+				conteo.consultas.add(new Consulta(sql, new ArrayList<>(parametros.values())));
+			}
+		} else if (nombre.equals("clearParameters")) {
+			parametros.clear();
+		} else if (nombre.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer indice) {
+			// setNull(indice, tipoSql): el segundo argumento es el tipo, no el valor
+			parametros.put(indice, nombre.equals("setNull") ? null : args[1]);
+		}
+		return delegar(sentencia, metodo, args);
+	}
+
+	private static Object delegar(Object destino, Method metodo, Object[] args) throws Throwable {
+		try {
+			return metodo.invoke(destino, args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+}
@@ -0,0 +1,122 @@
+package com.gastos.gastos_compartidos;
+
+import com.gastos.gastos_compartidos.entity.Categoria;
+import com.gastos.gastos_compartidos.entity.Pareja;
+import com.gastos.gastos_compartidos.entity.Usuario;
+import com.gastos.gastos_compartidos.repository.CategoriaRepository;
+import com.gastos.gastos_compartidos.repository.ParejaRepository;
+import com.gastos.gastos_compartidos.repository.UsuarioRepository;
+import com.gastos.gastos_compartidos.security.CustomUserDetails;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+
+/**
+ * Base de los tests de integración: arranca la aplicación completa contra un PostgreSQL real
+ * (las consultas nativas, los triggers y los upserts no funcionan en H2). El contenedor se
+ * comparte entre todas las clases y Flyway aplica las migraciones una sola vez. El DataSource va
+ * envuelto en {@link ContadorSentencias} para poder fijar cuántas sentencias cuesta cada operación,
+ * y MockMvc queda disponible para probar los endpoints con un usuario autenticado.
+ */
+@SpringBootTest(properties = {
+		"GOOGLE_CLIENT_ID=test",
+		"GOOGLE_CLIENT_SECRET=test",
+		"CLAUDE_API_KEY=test"
+})
+@AutoConfigureMockMvc
+@Import(ContadorSentencias.Configuracion.class)
+public abstract class PostgresIntegrationTest {
+
+	protected static final PostgreSQLContainer POSTGRES = new PostgreSQLContainer("postgres:16-alpine");
+
+	static {
+		POSTGRES.start();
+	}
+
+	@DynamicPropertySource
+	static void datasource(DynamicPropertyRegistry registry) {
+		registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+		registry.add("spring.datasource.username", POSTGRES::getUsername);
+		registry.add("spring.datasource.password", POSTGRES::getPassword);
+	}
+
+	@Autowired
+	protected UsuarioRepository usuarioRepository;
+
+	@Autowired
+	protected ParejaRepository parejaRepository;
+
+	@Autowired
+	protected CategoriaRepository categoriaRepository;
+
+	@Autowired
+	protected JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	protected MockMvc mockMvc;
+
+	protected Pareja crearPareja() {
+		return parejaRepository.save(Pareja.builder()
+				.nombrePareja("Pareja " + sufijo())
+				.build());
+	}
+
+	protected Usuario crearUsuario(Pareja pareja) {
+		String sufijo = sufijo();
+		return usuarioRepository.save(Usuario.builder()
+				.email("usuario-" + sufijo + "@test.local")
+				.nombre("Usuario " + sufijo)
+				.pareja(pareja)
+				.build());
+	}
+
+	protected Categoria crearCategoria() {
+		return categoriaRepository.save(Categoria.builder()
+				.nombre("Categoría " + sufijo())
+				.build());
+	}
+
+	/**
+	 * Autentica la petición como el usuario, igual que lo deja el filtro JWT. El límite de
+	 * peticiones se lleva por usuario, así que cada test que use uno nuevo parte con el cupo lleno.
+	 */
+	protected static RequestPostProcessor como(Usuario usuario) {
+		return user(CustomUserDetails.fromUsuario(usuario));
+	}
+
+	/**
+	 * Inserta {@code cantidad} gastos en una sola sentencia, sin splits: montos de 1 a 1.000, las
+	 * categorías alternadas y el gasto n fechado n × {@code paso} antes de {@code desde} (con un paso
+	 * cero todos comparten la misma fecha).
+	 */
+	protected void insertarGastos(Long usuarioId, Long parejaId, List<Categoria> categorias, int cantidad,
+			LocalDateTime desde, Duration paso) {
+		jdbcTemplate.update("""
+				INSERT INTO gastos (descripcion, monto, monto_original, usuario_id, pareja_id, categoria_id,
+				                    fecha_gasto, fecha_creacion, fecha_actualizacion)
+				SELECT 'Gasto ' || n, 1 + n % 1000, 1 + n % 1000, ?::BIGINT, ?::BIGINT,
+				       (?::BIGINT[])[1 + n % ?::INT],
+				       ?::TIMESTAMP - make_interval(secs => n * ?::DOUBLE PRECISION), NOW(), NOW()
+				FROM generate_series(1, ?::INT) AS n
+				""", usuarioId, parejaId, categorias.stream().map(Categoria::getId).toArray(Long[]::new),
+				categorias.size(), desde, paso.toMillis() / 1000.0, cantidad);
+	}
+
+	private static String sufijo() {
+		return UUID.randomUUID().toString().substring(0, 8);
+	}
+}
@@ -0,0 +1,137 @@
+package com.gastos.gastos_compartidos.repository;
+
+import com.gastos.gastos_compartidos.ContadorSentencias;
+import com.gastos.gastos_compartidos.ContadorSentencias.Consulta;
+import com.gastos.gastos_compartidos.PostgresIntegrationTest;
+import com.gastos.gastos_compartidos.dto.GastoFiltroDTO;
+import com.gastos.gastos_compartidos.entity.Categoria;
+import com.gastos.gastos_compartidos.entity.Pareja;
+import com.gastos.gastos_compartidos.entity.Usuario;
+import com.gastos.gastos_compartidos.service.GastoService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Cada combinación de filtros de GET /api/gastos/filtrar debe resolverse con los índices de
+ * V9 y V12, sin recorrer gastos completa. Se siembra una pareja y un usuario sin pareja con
+ * pocos gastos junto a decenas de miles de gastos ajenos, se ejecuta el filtro real y se le
+ * pide a PostgreSQL el plan (EXPLAIN) de las consultas que Hibernate envió, con sus parámetros.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class GastoSpecificationsTest extends PostgresIntegrationTest {
+
+	private static final int GASTOS_AJENOS = 40_000;
+	private static final int GASTOS_PROPIOS = 60;
+	private static final Duration TRES_ANIOS = Duration.ofDays(3 * 365);
+
+	@Autowired
+	private GastoService gastoService;
+
+	private Usuario ana;
+	private Usuario beto;
+	private Usuario solo;
+	private Categoria categoria;
+
+	@BeforeAll
+	void sembrar() {
+		Pareja pareja = crearPareja();
+		ana = crearUsuario(pareja);
+		beto = crearUsuario(pareja);
+		solo = crearUsuario(null);
+		List<Categoria> categorias = List.of(crearCategoria(), crearCategoria(), crearCategoria());
+		categoria = categorias.get(0);
+
+		Pareja parejaAjena = crearPareja();
+		Usuario ajeno = crearUsuario(parejaAjena);
+		Usuario ajenoSolo = crearUsuario(null);
+
+		// La mitad de los gastos ajenos es de otra pareja y la otra mitad individual de otro usuario.
+		// Todos se reparten en tres años hacia atrás
+		LocalDateTime ahora = LocalDateTime.now();
+		Duration pasoAjenos = TRES_ANIOS.dividedBy(GASTOS_AJENOS / 2);
+		Duration pasoPropios = TRES_ANIOS.dividedBy(GASTOS_PROPIOS);
+		insertarGastos(ajeno.getId(), parejaAjena.getId(), categorias, GASTOS_AJENOS / 2, ahora, pasoAjenos);
+		insertarGastos(ajenoSolo.getId(), null, categorias, GASTOS_AJENOS / 2, ahora, pasoAjenos);
+		insertarGastos(ana.getId(), pareja.getId(), categorias, GASTOS_PROPIOS, ahora, pasoPropios);
+		insertarGastos(beto.getId(), pareja.getId(), categorias, GASTOS_PROPIOS, ahora, pasoPropios);
+		insertarGastos(ana.getId(), null, categorias, GASTOS_PROPIOS, ahora, pasoPropios);
+		insertarGastos(solo.getId(), null, categorias, GASTOS_PROPIOS, ahora, pasoPropios);
+
+		// Los gastos de pareja con id par llevan un split, para que el filtro compartido separe algo
+		jdbcTemplate.update("""
+				INSERT INTO gasto_splits (gasto_id, usuario_id, monto, tipo, fecha_creacion)
+				SELECT id, usuario_id, monto, 'PAGO', NOW() FROM gastos
+				WHERE pareja_id IS NOT NULL AND id % 2 = 0
+				""");
+		jdbcTemplate.execute("ANALYZE gastos");
+		jdbcTemplate.execute("ANALYZE gasto_splits");
+	}
+
+	@ParameterizedTest(name = "[{index}] enPareja={0} {1}")
+	@MethodSource("combinaciones")
+	void ningunFiltroRecorreGastosCompleta(boolean enPareja, GastoFiltroDTO filtro) {
+		Long usuarioId = enPareja ? ana.getId() : solo.getId();
+		if (filtro.getRegistradoPor() != null) {
+			filtro.setRegistradoPor(enPareja ? beto.getId() : solo.getId());
+		}
+		if (filtro.getCategoriaIds() != null) {
+			filtro.setCategoriaIds(List.of(categoria.getId()));
+		}
+
+		ContadorSentencias.reiniciar();
+		gastoService.filtrarGastos(usuarioId, filtro, PageRequest.of(0, 20));
+
+		List<Consulta> sobreGastos = ContadorSentencias.consultas().stream()
+				.filter(consulta -> consulta.sql().toLowerCase().contains("from gastos "))
+				.toList();
+		assertThat(sobreGastos).isNotEmpty();
+		for (Consulta consulta : sobreGastos) {
+			List<String> plan = jdbcTemplate.queryForList("EXPLAIN " + consulta.sql(), String.class,
+					consulta.parametros().toArray());
+			assertThat(plan)
+					.as("plan de %s", consulta.sql())
+					.noneMatch(linea -> linea.contains("Seq Scan on gastos "));
+		}
+	}
+
+	/**
+	 * Todas las combinaciones de monto mínimo, monto máximo, categoría, registrador, desde y
+	 * hasta, con compartido sin filtrar, true y false; para un usuario con pareja y uno sin ella.
+	 * Los IDs de categoría y registrador se completan en el test, cuando ya existen.
+	 */
+	Stream<Arguments> combinaciones() {
+		List<Arguments> combinaciones = new ArrayList<>();
+		for (boolean enPareja : new boolean[] { true, false }) {
+			for (int mascara = 0; mascara < (1 << 6); mascara++) {
+				for (Boolean compartido : new Boolean[] { null, true, false }) {
+					GastoFiltroDTO filtro = GastoFiltroDTO.builder()
+							.montoMin((mascara & 1) != 0 ? new BigDecimal("100") : null)
+							.montoMax((mascara & 2) != 0 ? new BigDecimal("400") : null)
+							.categoriaIds((mascara & 4) != 0 ? List.of() : null)
+							.registradoPor((mascara & 8) != 0 ? 0L : null)
+							.desde((mascara & 16) != 0 ? LocalDate.now().minusMonths(6) : null)
+							.hasta((mascara & 32) != 0 ? LocalDate.now().minusMonths(1) : null)
+							.compartido(compartido)
+							.build();
+					combinaciones.add(Arguments.of(enPareja, filtro));
+				}
+			}
+		}
+		return combinaciones.stream();
+	}
+}
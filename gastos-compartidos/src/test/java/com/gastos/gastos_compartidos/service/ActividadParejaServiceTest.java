@@ -0,0 +1,165 @@
+package com.gastos.gastos_compartidos.service;
+
+import com.gastos.gastos_compartidos.PostgresIntegrationTest;
+import com.gastos.gastos_compartidos.dto.ActividadParejaDTO;
+import com.gastos.gastos_compartidos.dto.GastoCreateDTO;
+import com.gastos.gastos_compartidos.entity.Categoria;
+import com.gastos.gastos_compartidos.entity.Pareja;
+import com.gastos.gastos_compartidos.entity.Usuario;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Feed de actividad de punta a punta: las conexiones se abren por GET /api/actividad/stream y
+ * los eventos viajan por pg_notify y la conexión LISTEN del servicio. PostgreSQL entrega las
+ * notificaciones en orden de commit y el servicio las despacha en un único hilo, así que cuando
+ * llega un evento posterior ya habría llegado cualquier evento anterior.
+ */
+class ActividadParejaServiceTest extends PostgresIntegrationTest {
+
+	private static final String STREAM = "/api/actividad/stream";
+	private static final long ESPERA_MS = 10_000;
+
+	@Autowired
+	private ActividadParejaService actividadParejaService;
+
+	@Autowired
+	private GastoService gastoService;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Value("${app.sse.max-conexiones-por-usuario}")
+	private int maxConexionesPorUsuario;
+
+	private Pareja pareja;
+	private Usuario ana;
+	private Usuario beto;
+	private Categoria categoria;
+
+	@BeforeEach
+	void preparar() {
+		pareja = crearPareja();
+		ana = crearUsuario(pareja);
+		beto = crearUsuario(pareja);
+		categoria = crearCategoria();
+	}
+
+	@Test
+	void gastoRevertidoNoSeEntrega() throws Exception {
+		MvcResult feed = abrir(beto);
+		esperarEscucha(feed);
+
+		transactionTemplate.executeWithoutResult(estado -> {
+			gastoService.crearGasto(ana.getId(), gasto("Gasto revertido"));
+			estado.setRollbackOnly();
+		});
+		gastoService.crearGasto(ana.getId(), gasto("Gasto confirmado"));
+
+		esperarContenido(feed, "Gasto confirmado");
+		assertThat(contenido(feed)).doesNotContain("Gasto revertido");
+	}
+
+	@Test
+	void superarElMaximoCierraLaConexionMasAntigua() throws Exception {
+		List<MvcResult> conexiones = new ArrayList<>();
+		for (int i = 0; i <= maxConexionesPorUsuario; i++) {
+			conexiones.add(abrir(ana));
+		}
+		MvcResult masAntigua = conexiones.get(0);
+		List<MvcResult> abiertas = conexiones.subList(1, conexiones.size());
+
+		// La desplazada se completó: su resultado asíncrono ya está; las demás siguen abiertas
+		assertThat(masAntigua.getAsyncResult(ESPERA_MS)).isNull();
+		for (MvcResult abierta : abiertas) {
+			assertThatThrownBy(() -> abierta.getAsyncResult(0)).isInstanceOf(IllegalStateException.class);
+		}
+
+		// Las conexiones de Beto no cuentan para el máximo de Ana
+		MvcResult deBeto = abrir(beto);
+		esperarEscucha(abiertas.get(abiertas.size() - 1));
+		publicar("Evento para todos");
+		for (MvcResult abierta : abiertas) {
+			esperarContenido(abierta, "Evento para todos");
+		}
+		esperarContenido(deBeto, "Evento para todos");
+		assertThat(contenido(masAntigua)).doesNotContain("Evento para todos");
+	}
+
+	private MvcResult abrir(Usuario usuario) throws Exception {
+		return mockMvc.perform(get(STREAM).with(como(usuario)))
+				.andExpect(status().isOk())
+				.andExpect(request().asyncStarted())
+				.andReturn();
+	}
+
+	/**
+	 * La conexión LISTEN se abre en un hilo propio al iniciar el contexto: publica marcas hasta
+	 * que una llega al feed, así los eventos del test no se pierden antes del LISTEN.
+	 */
+	private void esperarEscucha(MvcResult feed) throws Exception {
+		long limite = System.currentTimeMillis() + ESPERA_MS;
+		for (int intento = 0; System.currentTimeMillis() < limite; intento++) {
+			String marca = "Marca " + intento;
+			publicar(marca);
+			long hasta = System.currentTimeMillis() + 500;
+			while (System.currentTimeMillis() < hasta) {
+				if (contenido(feed).contains(marca)) {
+					return;
+				}
+				Thread.sleep(50);
+			}
+		}
+		throw new AssertionError("El feed de actividad no recibió ninguna marca");
+	}
+
+	private void esperarContenido(MvcResult feed, String texto) throws Exception {
+		long limite = System.currentTimeMillis() + ESPERA_MS;
+		while (!contenido(feed).contains(texto)) {
+			if (System.currentTimeMillis() > limite) {
+				throw new AssertionError("No llegó '" + texto + "' al feed: " + contenido(feed));
+			}
+			Thread.sleep(50);
+		}
+	}
+
+	private static String contenido(MvcResult feed) throws Exception {
+		return feed.getResponse().getContentAsString();
+	}
+
+	// Fuera de una transacción pg_notify se confirma y se entrega de inmediato
+	private void publicar(String descripcion) {
+		actividadParejaService.publicar(ActividadParejaDTO.builder()
+				.tipo(ActividadParejaDTO.Tipo.GASTO_CREADO)
+				.parejaId(pareja.getId())
+				.usuarioId(ana.getId())
+				.descripcion(descripcion)
+				.build());
+	}
+
+	private GastoCreateDTO gasto(String descripcion) {
+		return GastoCreateDTO.builder()
+				.descripcion(descripcion)
+				.monto(new BigDecimal("40.00"))
+				.categoriaId(categoria.getId())
+				.fechaGasto(LocalDateTime.now())
+				.split(Map.of(ana.getId(), new BigDecimal("20.00"), beto.getId(), new BigDecimal("20.00")))
+				.build();
+	}
+}
@@ -0,0 +1,113 @@
+package com.gastos.gastos_compartidos.service;
+
+import com.gastos.gastos_compartidos.PostgresIntegrationTest;
+import com.gastos.gastos_compartidos.dto.AnaliticaDTO;
+import com.gastos.gastos_compartidos.entity.Categoria;
+import com.gastos.gastos_compartidos.entity.Pareja;
+import com.gastos.gastos_compartidos.entity.Usuario;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Diez años de resumen mensual más el año de historia previa, con montos elegidos para que
+ * cada valor se pueda calcular a mano. Para el mes k contado desde el inicio de la historia
+ * (k = 0..131; el rango pedido es k = 12..131):
+ * <ul>
+ *   <li>Ana registra 10 × (k + 1) en la categoría A y Beto 5 en la categoría B, un gasto cada uno,
+ *       así el total del mes es 10k + 15.</li>
+ *   <li>En k = 0 un ex miembro registra además 7 en la categoría C: cuenta para los totales
+ *       de la historia, pero ni la categoría ni el ex miembro aparecen en el rango.</li>
+ * </ul>
+ * Promedio de 3 meses en k: 10 × (k + 1 + k + k - 1) / 3 + 5 = 10k + 5.
+ * Promedio de 12 meses en k: 10 × (k - 4,5) + 5 = 10k - 40.
+ */
+class AnaliticaServiceTest extends PostgresIntegrationTest {
+
+	private static final int MESES = 120;
+	private static final int HISTORIA = 12;
+
+	@Autowired
+	private AnaliticaService analiticaService;
+
+	@Test
+	void diezAniosCoincidenConLosValoresCalculadosAMano() {
+		Pareja pareja = crearPareja();
+		Usuario ana = crearUsuario(pareja);
+		Usuario beto = crearUsuario(pareja);
+		Usuario exMiembro = crearUsuario(null);
+		Categoria a = crearCategoria();
+		Categoria b = crearCategoria();
+		Categoria c = crearCategoria();
+
+		YearMonth inicio = YearMonth.now().minusMonths(MESES - 1L + HISTORIA);
+		for (int k = 0; k < MESES + HISTORIA; k++) {
+			YearMonth mes = inicio.plusMonths(k);
+			insertarResumen(pareja, ana, a, mes, new BigDecimal(10 * (k + 1)));
+			insertarResumen(pareja, beto, b, mes, new BigDecimal(5));
+		}
+		insertarResumen(pareja, exMiembro, c, inicio, new BigDecimal(7));
+
+		AnaliticaDTO analitica = analiticaService.obtenerAnalitica(pareja.getId(), MESES);
+
+		assertThat(analitica.getPeriodos()).hasSize(MESES);
+		assertThat(analitica.getPeriodos().get(0)).isEqualTo(inicio.plusMonths(HISTORIA).toString());
+		assertThat(analitica.getPeriodos().get(MESES - 1)).isEqualTo(YearMonth.now().toString());
+
+		// Primer mes del rango (k = 12)
+		assertThat(analitica.getTotales().get(0)).isEqualByComparingTo("135.00");
+		assertThat(analitica.getCantidades().get(0)).isEqualTo(2L);
+		assertThat(analitica.getPromedioMovil3().get(0)).isEqualByComparingTo("125.00");
+		assertThat(analitica.getPromedioMovil12().get(0)).isEqualByComparingTo("80.00");
+		// Contra k = 0, que incluye los 7 del ex miembro: (135 - 22) / 22 = 513,6 %
+		assertThat(analitica.getVariacionAnual().get(0)).isEqualTo(513.6);
+
+		// Segundo mes (k = 13): contra k = 1, (145 - 25) / 25 = 480 %
+		assertThat(analitica.getVariacionAnual().get(1)).isEqualTo(480.0);
+
+		// Último mes (k = 131): contra k = 119, total 1.205
+		assertThat(analitica.getTotales().get(MESES - 1)).isEqualByComparingTo("1325.00");
+		assertThat(analitica.getPromedioMovil3().get(MESES - 1)).isEqualByComparingTo("1315.00");
+		assertThat(analitica.getPromedioMovil12().get(MESES - 1)).isEqualByComparingTo("1270.00");
+		assertThat(analitica.getVariacionAnual().get(MESES - 1)).isEqualTo(10.0);
+
+		for (int i = 0; i < MESES; i++) {
+			int k = i + HISTORIA;
+			assertThat(analitica.getTotales().get(i)).isEqualByComparingTo(BigDecimal.valueOf(10L * k + 15));
+			assertThat(analitica.getPromedioMovil3().get(i)).isEqualByComparingTo(BigDecimal.valueOf(10L * k + 5));
+			assertThat(analitica.getPromedioMovil12().get(i)).isEqualByComparingTo(BigDecimal.valueOf(10L * k - 40));
+		}
+
+		// Solo las categorías y miembros con filas en el rango; A: 10 × (13 + ... + 132) = 87.000
+		assertThat(analitica.getCategorias())
+				.extracting(AnaliticaDTO.SerieCategoria::getCategoriaId)
+				.containsExactly(a.getId(), b.getId());
+		assertThat(analitica.getCategorias().get(0).getTotalPeriodo()).isEqualByComparingTo("87000.00");
+		assertThat(analitica.getCategorias().get(1).getTotalPeriodo()).isEqualByComparingTo("600.00");
+		assertThat(analitica.getCategorias().get(1).getParticipacion().get(0)).isEqualTo(3.7);
+
+		assertThat(analitica.getMiembros())
+				.extracting(AnaliticaDTO.SerieMiembro::getUsuarioId)
+				.containsExactlyInAnyOrder(ana.getId(), beto.getId());
+		assertThat(analitica.getMiembros())
+				.filteredOn(miembro -> miembro.getUsuarioId().equals(beto.getId()))
+				.singleElement()
+				.satisfies(miembro -> {
+					assertThat(miembro.getTotalPeriodo()).isEqualByComparingTo("600.00");
+					assertThat(miembro.getTotales()).hasSize(MESES)
+							.allSatisfy(total -> assertThat(total).isEqualByComparingTo("5.00"));
+				});
+	}
+
+	private void insertarResumen(Pareja pareja, Usuario usuario, Categoria categoria, YearMonth mes,
+			BigDecimal total) {
+		jdbcTemplate.update("""
+				INSERT INTO resumen_gastos_mensual (pareja_id, usuario_id, categoria_id, periodo, total, cantidad, pagado)
+				VALUES (?, ?, ?, ?, ?, 1, 0)
+				""", pareja.getId(), usuario.getId(), categoria.getId(), mes.atDay(1), total);
+	}
+}
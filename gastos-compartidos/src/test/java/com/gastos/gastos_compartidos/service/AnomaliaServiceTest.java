@@ -0,0 +1,169 @@
+package com.gastos.gastos_compartidos.service;
+
+import com.gastos.gastos_compartidos.PostgresIntegrationTest;
+import com.gastos.gastos_compartidos.dto.GastoCreateDTO;
+import com.gastos.gastos_compartidos.entity.Categoria;
+import com.gastos.gastos_compartidos.entity.Pareja;
+import com.gastos.gastos_compartidos.entity.Usuario;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Estadística por categoría mantenida con combinar y quitar contra la que arma
+ * insertarDesdeGastos desde cero, y registro de anomalías al crear un gasto. Se compara con el
+ * SELECT de insertarDesdeGastos filtrado por la pareja del test en vez de llamar a reconstruir,
+ * que borra las estadísticas de toda la base compartida.
+ */
+class AnomaliaServiceTest extends PostgresIntegrationTest {
+
+	// Quitar valores acumula algo de error de redondeo en media y M2
+	private static final double TOLERANCIA = 1e-9;
+
+	private static final List<String> MONTOS_HABITUALES = List.of(
+			"18.00", "22.50", "19.90", "21.00", "20.00", "17.50", "23.00", "20.40", "19.00", "21.60", "18.80", "22.00");
+
+	@Autowired
+	private GastoService gastoService;
+
+	private Pareja pareja;
+	private Usuario ana;
+	private Categoria comida;
+	private Categoria transporte;
+	private Categoria hogar;
+
+	@BeforeEach
+	void preparar() {
+		pareja = crearPareja();
+		ana = crearUsuario(pareja);
+		crearUsuario(pareja);
+		comida = crearCategoria();
+		transporte = crearCategoria();
+		hogar = crearCategoria();
+	}
+
+	@Test
+	void combinarYQuitarCoincidenConLaReconstruccion() {
+		List<Long> deComida = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			deComida.add(crear("Comida " + i, String.valueOf(5 + i * 7), comida));
+		}
+		List<Long> deTransporte = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			deTransporte.add(crear("Transporte " + i, String.valueOf(2 + i * 3), transporte));
+		}
+		verificarEstadisticas();
+
+		// Cambia el monto en la misma categoría
+		editar(deComida.get(0), "Comida 0", "64.25", comida);
+		// Pasa a una categoría que todavía no tiene estadística, y otro a una que ya tiene
+		editar(deComida.get(1), "Comida 1", "150.00", hogar);
+		editar(deComida.get(2), "Comida 2", "3.10", transporte);
+		// Una edición que no toca monto ni categoría no cambia la estadística
+		editar(deComida.get(3), "Comida 3 renombrada", String.valueOf(5 + 3 * 7), comida);
+		verificarEstadisticas();
+
+		gastoService.eliminarGasto(deComida.get(4), ana.getId());
+		gastoService.eliminarGasto(deComida.get(5), ana.getId());
+		// Transporte baja hasta dos gastos, uno y ninguno: las ramas especiales de quitar
+		for (Long gastoId : deTransporte) {
+			gastoService.eliminarGasto(gastoId, ana.getId());
+			verificarEstadisticas();
+		}
+		gastoService.eliminarGasto(deComida.get(2), ana.getId());
+		verificarEstadisticas();
+
+		// Y vuelve a crecer desde cero
+		crear("Transporte nuevo", "7.70", transporte);
+		crear("Transporte otro", "12.30", transporte);
+		verificarEstadisticas();
+	}
+
+	@Test
+	void gastoMuyPorEncimaDeLaMediaQuedaComoAnomalia() {
+		for (int i = 0; i < MONTOS_HABITUALES.size(); i++) {
+			crear("Almuerzo " + i, MONTOS_HABITUALES.get(i), comida);
+		}
+		assertThat(anomalias()).isZero();
+
+		Long habitual = crear("Almuerzo habitual", "21.30", comida);
+		Long inusual = crear("Cena de aniversario", "2000.00", comida);
+
+		Map<String, Object> anomalia = jdbcTemplate.queryForMap(
+				"SELECT gasto_id, puntaje, monto_tipico FROM anomalias_gasto WHERE pareja_id = ?", pareja.getId());
+		assertThat(((Number) anomalia.get("gasto_id")).longValue()).isEqualTo(inusual);
+		assertThat(((Number) anomalia.get("puntaje")).doubleValue()).isGreaterThanOrEqualTo(3.0);
+		assertThat((BigDecimal) anomalia.get("monto_tipico"))
+				.isBetween(new BigDecimal("18.00"), new BigDecimal("23.00"));
+		assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM anomalias_gasto WHERE gasto_id = ?",
+				Long.class, habitual)).isZero();
+
+		// En otra categoría, sin historia suficiente, el mismo monto no se evalúa
+		crear("Sillón", "2000.00", hogar);
+		assertThat(anomalias()).isEqualTo(1);
+	}
+
+	/**
+	 * La estadística de cada categoría de la pareja tiene que coincidir con el SELECT de
+	 * insertarDesdeGastos; una categoría que quedó sin gastos conserva su fila en cero.
+	 */
+	private void verificarEstadisticas() {
+		Map<Long, double[]> esperadas = estadisticas("""
+				SELECT categoria_id, COUNT(*) AS cantidad, AVG(LN(monto)) AS media,
+				       COALESCE(VAR_POP(LN(monto)) * COUNT(*), 0) AS m2
+				FROM gastos WHERE deleted_at IS NULL AND pareja_id = ? AND categoria_id IS NOT NULL AND monto > 0
+				GROUP BY categoria_id
+				""");
+		Map<Long, double[]> actuales = estadisticas(
+				"SELECT categoria_id, cantidad, media, m2 FROM estadistica_categoria WHERE pareja_id = ?");
+
+		for (Categoria categoria : List.of(comida, transporte, hogar)) {
+			double[] esperada = esperadas.getOrDefault(categoria.getId(), new double[3]);
+			double[] actual = actuales.getOrDefault(categoria.getId(), new double[3]);
+			assertThat(actual[0]).as("cantidad de %s", categoria.getNombre()).isEqualTo(esperada[0]);
+			assertThat(actual[1]).as("media de %s", categoria.getNombre()).isCloseTo(esperada[1], within(TOLERANCIA));
+			assertThat(actual[2]).as("M2 de %s", categoria.getNombre()).isCloseTo(esperada[2], within(TOLERANCIA));
+		}
+	}
+
+	private Map<Long, double[]> estadisticas(String sql) {
+		Map<Long, double[]> porCategoria = new HashMap<>();
+		jdbcTemplate.query(sql, fila -> {
+			porCategoria.put(fila.getLong("categoria_id"),
+					new double[] { fila.getLong("cantidad"), fila.getDouble("media"), fila.getDouble("m2") });
+		}, pareja.getId());
+		return porCategoria;
+	}
+
+	private long anomalias() {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM anomalias_gasto WHERE pareja_id = ?", Long.class,
+				pareja.getId());
+	}
+
+	private Long crear(String descripcion, String monto, Categoria categoria) {
+		return gastoService.crearGasto(ana.getId(), gasto(descripcion, monto, categoria)).getId();
+	}
+
+	private void editar(Long gastoId, String descripcion, String monto, Categoria categoria) {
+		gastoService.actualizarGasto(gastoId, ana.getId(), gasto(descripcion, monto, categoria));
+	}
+
+	private GastoCreateDTO gasto(String descripcion, String monto, Categoria categoria) {
+		return GastoCreateDTO.builder()
+				.descripcion(descripcion)
+				.monto(new BigDecimal(monto))
+				.categoriaId(categoria.getId())
+				.fechaGasto(LocalDateTime.now())
+				.build();
+	}
+}
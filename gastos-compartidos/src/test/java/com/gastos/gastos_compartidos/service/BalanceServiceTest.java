@@ -0,0 +1,323 @@
+package com.gastos.gastos_compartidos.service;
+
+import com.gastos.gastos_compartidos.PostgresIntegrationTest;
+import com.gastos.gastos_compartidos.dto.BalanceHistorialDTO.Agrupacion;
+import com.gastos.gastos_compartidos.dto.GastoCreateDTO;
+import com.gastos.gastos_compartidos.dto.PagoCreateDTO;
+import com.gastos.gastos_compartidos.dto.PuntoBalanceDTO;
+import com.gastos.gastos_compartidos.entity.BalancePareja;
+import com.gastos.gastos_compartidos.entity.Categoria;
+import com.gastos.gastos_compartidos.entity.MetodoPago;
+import com.gastos.gastos_compartidos.entity.Pareja;
+import com.gastos.gastos_compartidos.entity.Usuario;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * El balance materializado (balance_pareja) se mantiene con deltas en cada escritura. Tras cada
+ * paso de una secuencia de gastos y pagos, el saldo leído de la tabla debe coincidir con el
+ * recálculo completo desde gasto_splits y pagos, que es como se calculaba antes de materializarlo.
+ * Las escrituras fechadas en un mes cerrado deben invalidar su checkpoint mensual.
+ */
+class BalanceServiceTest extends PostgresIntegrationTest {
+
+	@Autowired
+	private BalanceService balanceService;
+
+	@Autowired
+	private GastoService gastoService;
+
+	@Autowired
+	private PagoService pagoService;
+
+	private Pareja pareja;
+	private Usuario ana;
+	private Usuario beto;
+	private Usuario carla;
+	private Categoria categoria;
+
+	@BeforeEach
+	void preparar() {
+		pareja = crearPareja();
+		ana = crearUsuario(pareja);
+		beto = crearUsuario(pareja);
+		carla = crearUsuario(pareja);
+		categoria = crearCategoria();
+	}
+
+	@Test
+	void saldoMaterializadoCoincideConRecalculoTrasCadaEscritura() {
+		Long cena = gastoService.crearGasto(ana.getId(), gasto("Cena", "90.00",
+				Map.of(ana.getId(), "30.00", beto.getId(), "30.00", carla.getId(), "30.00"))).getId();
+		verificar();
+
+		Long supermercado = gastoService.crearGasto(beto.getId(), gasto("Supermercado", "60.00",
+				Map.of(ana.getId(), "20.00", beto.getId(), "40.00"))).getId();
+		verificar();
+
+		gastoService.actualizarGasto(cena, ana.getId(), gasto("Cena", "120.00",
+				Map.of(ana.getId(), "40.00", beto.getId(), "50.00", carla.getId(), "30.00")));
+		verificar();
+
+		pagoService.registrarPago(beto.getId(), pago(ana.getId(), "25.00"));
+		verificar();
+
+		Long pagoCarla = pagoService.registrarPago(carla.getId(), pago(ana.getId(), "10.00")).getId();
+		verificar();
+
+		pagoService.cancelarPago(pagoCarla, carla.getId());
+		verificar();
+
+		gastoService.eliminarGasto(supermercado, beto.getId());
+		verificar();
+
+		// Cena: Beto debe 50 y Carla 30 a Ana; Beto abonó 25
+		Map<Long, BigDecimal> saldos = saldosMaterializados();
+		assertThat(saldos.get(ana.getId())).isEqualByComparingTo("55.00");
+		assertThat(saldos.get(beto.getId())).isEqualByComparingTo("-25.00");
+		assertThat(saldos.get(carla.getId())).isEqualByComparingTo("-30.00");
+	}
+
+	@Test
+	void gastoReasignadoEntreMiembrosNoDejaResiduos() {
+		Long gastoId = gastoService.crearGasto(ana.getId(), gasto("Luz", "100.00",
+				Map.of(ana.getId(), "50.00", beto.getId(), "50.00"))).getId();
+		verificar();
+
+		// Carla entra en el split y Beto sale: su fila debe volver a cero, no desaparecer a medias
+		gastoService.actualizarGasto(gastoId, ana.getId(), gasto("Luz", "100.00",
+				Map.of(ana.getId(), "50.00", carla.getId(), "50.00")));
+		verificar();
+
+		gastoService.eliminarGasto(gastoId, ana.getId());
+		verificar();
+
+		saldosMaterializados().values()
+				.forEach(saldo -> assertThat(saldo).isEqualByComparingTo(BigDecimal.ZERO));
+	}
+
+	@Test
+	void escrituraEnMesCerradoInvalidaSuCheckpoint() {
+		YearMonth cerrado = YearMonth.now().minusMonths(1);
+		gastoService.crearGasto(ana.getId(), gasto("Alquiler", "200.00",
+				Map.of(ana.getId(), "100.00", beto.getId(), "100.00"), cerrado.minusMonths(1).atDay(10)));
+		balanceService.cerrarMeses(pareja.getId(), cerrado);
+		assertThat(periodosCheckpoint()).containsExactly(cerrado.atDay(1));
+
+		gastoService.crearGasto(beto.getId(), gasto("Farmacia", "40.00",
+				Map.of(beto.getId(), "10.00", carla.getId(), "30.00"), cerrado.atDay(15)));
+		assertThat(periodosCheckpoint()).isEmpty();
+		verificar();
+		assertThat(balanceService.verificar(false)).doesNotContain(pareja.getId());
+
+		balanceService.cerrarMeses(pareja.getId(), cerrado);
+		assertThat(periodosCheckpoint()).containsExactly(cerrado.atDay(1));
+
+		PagoCreateDTO pago = pago(ana.getId(), "60.00");
+		pago.setFechaPago(cerrado.atDay(20).atTime(12, 0));
+		pagoService.registrarPago(beto.getId(), pago);
+		assertThat(periodosCheckpoint()).isEmpty();
+		verificar();
+		assertThat(balanceService.verificar(false)).doesNotContain(pareja.getId());
+
+		// Cerrado de nuevo, el recálculo desde el checkpoint coincide con el completo
+		balanceService.cerrarMeses(pareja.getId(), cerrado);
+		mismosSaldos(saldos(balanceService.recalcular(pareja.getId())),
+				saldos(balanceService.recalcularCompleto(pareja.getId())));
+	}
+
+	@Test
+	void checkpointDesactualizadoSeDetectaContraLaHistoriaCompleta() {
+		YearMonth cerrado = YearMonth.now().minusMonths(1);
+		gastoService.crearGasto(ana.getId(), gasto("Alquiler", "200.00",
+				Map.of(ana.getId(), "100.00", beto.getId(), "100.00"), cerrado.atDay(5)));
+		balanceService.cerrarMeses(pareja.getId(), cerrado);
+		assertThat(balanceService.verificar(false)).doesNotContain(pareja.getId());
+
+		// Un gasto del mes cerrado escrito sin pasar por BalanceService: ni la tabla ni el
+		// checkpoint lo ven, así que el recálculo incremental coincide con la tabla
+		Long gastoId = jdbcTemplate.queryForObject("""
+				INSERT INTO gastos (descripcion, monto, monto_original, usuario_id, pareja_id, categoria_id,
+				                    fecha_gasto, fecha_creacion, fecha_actualizacion)
+				VALUES ('Escrito por fuera', 80, 80, ?, ?, ?, ?, NOW(), NOW())
+				RETURNING id
+				""", Long.class, carla.getId(), pareja.getId(), categoria.getId(), cerrado.atDay(12).atTime(12, 0));
+		jdbcTemplate.update("""
+				INSERT INTO gasto_splits (gasto_id, usuario_id, monto, tipo, fecha_creacion)
+				VALUES (?, ?, 80, 'DEBE', NOW())
+				""", gastoId, ana.getId());
+		mismosSaldos(saldos(balanceService.recalcular(pareja.getId())), saldosMaterializados());
+
+		assertThat(balanceService.verificar(true)).contains(pareja.getId());
+		assertThat(periodosCheckpoint()).isEmpty();
+		verificar();
+		assertThat(balanceService.verificar(false)).doesNotContain(pareja.getId());
+	}
+
+	private void mismosSaldos(Map<Long, BigDecimal> actual, Map<Long, BigDecimal> esperado) {
+		for (Long usuarioId : new Long[] { ana.getId(), beto.getId(), carla.getId() }) {
+			assertThat(actual.getOrDefault(usuarioId, BigDecimal.ZERO))
+					.as("saldo de %d", usuarioId)
+					.isEqualByComparingTo(esperado.getOrDefault(usuarioId, BigDecimal.ZERO));
+		}
+	}
+
+	/**
+	 * Lunes 3/3 Ana paga 100 a medias con Beto; miércoles 5/3 Beto paga 40 a medias; miércoles
+	 * 12/3 Beto le transfiere 30 a Ana; miércoles 2/4 Ana paga 60 a medias. Saldo de Ana: 50
+	 * el 3/3, 30 desde el 5/3, 0 desde el 12/3 y 30 desde el 2/4 (Beto, lo opuesto).
+	 * El rango empieza el miércoles 5/3: el gasto del lunes entra por el saldo inicial.
+	 */
+	@Test
+	void historialFechaCadaPuntoAlCierreDeSuPeriodo() {
+		gastoService.crearGasto(ana.getId(), gasto("Cena", "100.00",
+				Map.of(ana.getId(), "50.00", beto.getId(), "50.00"), LocalDate.of(2025, 3, 3)));
+		gastoService.crearGasto(beto.getId(), gasto("Taxi", "40.00",
+				Map.of(ana.getId(), "20.00", beto.getId(), "20.00"), LocalDate.of(2025, 3, 5)));
+		PagoCreateDTO transferencia = pago(ana.getId(), "30.00");
+		transferencia.setFechaPago(LocalDate.of(2025, 3, 12).atTime(12, 0));
+		pagoService.registrarPago(beto.getId(), transferencia);
+		gastoService.crearGasto(ana.getId(), gasto("Mercado", "60.00",
+				Map.of(ana.getId(), "30.00", beto.getId(), "30.00"), LocalDate.of(2025, 4, 2)));
+
+		LocalDate desde = LocalDate.of(2025, 3, 5);
+		LocalDate hasta = LocalDate.of(2025, 4, 2);
+
+		List<PuntoBalanceDTO> dias = historial(desde, hasta, Agrupacion.DIA);
+		assertThat(dias).hasSize(29);
+		assertThat(dias.get(0).getFecha()).isEqualTo(desde);
+		assertThat(dias.get(dias.size() - 1).getFecha()).isEqualTo(hasta);
+		for (PuntoBalanceDTO punto : dias) {
+			String esperado = punto.getFecha().isBefore(LocalDate.of(2025, 3, 12)) ? "30.00"
+					: punto.getFecha().isBefore(hasta) ? "0.00" : "30.00";
+			assertSaldo(punto, esperado);
+		}
+
+		// Semanas de lunes a domingo; la última termina en hasta
+		List<PuntoBalanceDTO> semanas = historial(desde, hasta, Agrupacion.SEMANA);
+		assertThat(semanas).extracting(PuntoBalanceDTO::getFecha).containsExactly(
+				LocalDate.of(2025, 3, 9), LocalDate.of(2025, 3, 16), LocalDate.of(2025, 3, 23),
+				LocalDate.of(2025, 3, 30), hasta);
+		assertSaldo(semanas.get(0), "30.00");
+		assertSaldo(semanas.get(1), "0.00");
+		assertSaldo(semanas.get(2), "0.00");
+		assertSaldo(semanas.get(3), "0.00");
+		assertSaldo(semanas.get(4), "30.00");
+
+		List<PuntoBalanceDTO> meses = historial(desde, hasta, Agrupacion.MES);
+		assertThat(meses).extracting(PuntoBalanceDTO::getFecha)
+				.containsExactly(LocalDate.of(2025, 3, 31), hasta);
+		assertSaldo(meses.get(0), "0.00");
+		assertSaldo(meses.get(1), "30.00");
+	}
+
+	private List<PuntoBalanceDTO> historial(LocalDate desde, LocalDate hasta, Agrupacion agrupacion) {
+		return balanceService.calcularHistorial(pareja.getId(), List.of(ana.getId(), beto.getId(), carla.getId()),
+				desde, hasta, agrupacion);
+	}
+
+	private void assertSaldo(PuntoBalanceDTO punto, String saldoAna) {
+		BigDecimal esperado = new BigDecimal(saldoAna);
+		assertThat(punto.getSaldos().get(ana.getId())).as("Ana al %s", punto.getFecha()).isEqualByComparingTo(esperado);
+		assertThat(punto.getSaldos().get(beto.getId())).as("Beto al %s", punto.getFecha())
+				.isEqualByComparingTo(esperado.negate());
+		assertThat(punto.getSaldos().get(carla.getId())).isEqualByComparingTo(BigDecimal.ZERO);
+	}
+
+	private List<LocalDate> periodosCheckpoint() {
+		return jdbcTemplate.queryForList(
+				"SELECT DISTINCT periodo FROM balance_checkpoint WHERE pareja_id = ? ORDER BY periodo",
+				LocalDate.class, pareja.getId());
+	}
+
+	private void verificar() {
+		Map<Long, BigDecimal> materializados = saldosMaterializados();
+		Map<Long, BigDecimal> recalculados = saldosRecalculados();
+		Map<Long, BigDecimal> agregados = saldos(balanceService.recalcularCompleto(pareja.getId()));
+
+		for (Long usuarioId : new Long[] { ana.getId(), beto.getId(), carla.getId() }) {
+			BigDecimal esperado = recalculados.getOrDefault(usuarioId, BigDecimal.ZERO);
+			assertThat(materializados.getOrDefault(usuarioId, BigDecimal.ZERO))
+					.as("saldo materializado de %d", usuarioId)
+					.isEqualByComparingTo(esperado);
+			assertThat(agregados.getOrDefault(usuarioId, BigDecimal.ZERO))
+					.as("recalcularCompleto de %d", usuarioId)
+					.isEqualByComparingTo(esperado);
+		}
+		assertThat(materializados.values().stream().reduce(BigDecimal.ZERO, BigDecimal::add))
+				.isEqualByComparingTo(BigDecimal.ZERO);
+	}
+
+	private Map<Long, BigDecimal> saldosMaterializados() {
+		return saldos(balanceService.obtenerBalances(pareja.getId()));
+	}
+
+	private Map<Long, BigDecimal> saldos(Map<Long, BalancePareja> balances) {
+		Map<Long, BigDecimal> saldos = new HashMap<>();
+		balances.forEach((usuarioId, balance) -> saldos.put(usuarioId, BalanceService.calcularSaldo(balance)));
+		return saldos;
+	}
+
+	/**
+	 * Recálculo completo recorriendo fila a fila splits y pagos: cada split DEBE es deuda del
+	 * miembro con quien registró el gasto, y cada pago completado la reduce.
+	 */
+	private Map<Long, BigDecimal> saldosRecalculados() {
+		Map<Long, BigDecimal> saldos = new HashMap<>();
+		jdbcTemplate.query("""
+				SELECT s.usuario_id, g.usuario_id AS registrador_id, s.monto
+				FROM gasto_splits s
+				JOIN gastos g ON g.id = s.gasto_id
+				WHERE g.pareja_id = ? AND g.deleted_at IS NULL AND s.tipo = 'DEBE'
+				""", rs -> {
+			BigDecimal monto = rs.getBigDecimal("monto");
+			saldos.merge(rs.getLong("usuario_id"), monto.negate(), BigDecimal::add);
+			saldos.merge(rs.getLong("registrador_id"), monto, BigDecimal::add);
+		}, pareja.getId());
+		jdbcTemplate.query("""
+				SELECT pagador_id, receptor_id, monto
+				FROM pagos
+				WHERE pareja_id = ? AND estado = 'COMPLETADO'
+				""", rs -> {
+			BigDecimal monto = rs.getBigDecimal("monto");
+			saldos.merge(rs.getLong("pagador_id"), monto, BigDecimal::add);
+			saldos.merge(rs.getLong("receptor_id"), monto.negate(), BigDecimal::add);
+		}, pareja.getId());
+		return saldos;
+	}
+
+	private GastoCreateDTO gasto(String descripcion, String monto, Map<Long, String> split) {
+		return gasto(descripcion, monto, split, LocalDate.now().minusDays(1));
+	}
+
+	private GastoCreateDTO gasto(String descripcion, String monto, Map<Long, String> split, LocalDate fecha) {
+		Map<Long, BigDecimal> montos = new LinkedHashMap<>();
+		split.forEach((usuarioId, parte) -> montos.put(usuarioId, new BigDecimal(parte)));
+		return GastoCreateDTO.builder()
+				.descripcion(descripcion)
+				.monto(new BigDecimal(monto))
+				.categoriaId(categoria.getId())
+				.fechaGasto(fecha.atTime(12, 0))
+				.split(montos)
+				.build();
+	}
+
+	private PagoCreateDTO pago(Long receptorId, String monto) {
+		return PagoCreateDTO.builder()
+				.receptorId(receptorId)
+				.monto(new BigDecimal(monto))
+				.metodoPago(MetodoPago.EFECTIVO)
+				.build();
+	}
+}
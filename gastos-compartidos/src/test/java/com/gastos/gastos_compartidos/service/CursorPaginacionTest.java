@@ -0,0 +1,216 @@
+package com.gastos.gastos_compartidos.service;
+
+import com.gastos.gastos_compartidos.PostgresIntegrationTest;
+import com.gastos.gastos_compartidos.dto.CursorPageDTO;
+import com.gastos.gastos_compartidos.dto.DeudaResponseDTO;
+import com.gastos.gastos_compartidos.dto.GastoResponseDTO;
+import com.gastos.gastos_compartidos.dto.PagoResponseDTO;
+import com.gastos.gastos_compartidos.entity.Categoria;
+import com.gastos.gastos_compartidos.entity.Pareja;
+import com.gastos.gastos_compartidos.entity.Usuario;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Paginación por cursor (fecha, id) de gastos, pagos y deudas, y (rango, fecha, id) de la
+ * búsqueda. La mayoría de las filas comparte exactamente la misma fecha (o el mismo rango) y el
+ * tamaño de página no divide la cantidad, así que los cortes caen en medio de los empates: solo
+ * el id desempata, y recorrer todas las páginas tiene que devolver cada fila una vez y en el
+ * mismo orden que el ORDER BY completo.
+ */
+class CursorPaginacionTest extends PostgresIntegrationTest {
+
+	private static final int TAMANO = 7;
+	private static final LocalDateTime FECHA = LocalDateTime.of(2025, 3, 14, 12, 0);
+
+	@Autowired
+	private GastoService gastoService;
+
+	@Autowired
+	private PagoService pagoService;
+
+	@Autowired
+	private DeudaService deudaService;
+
+	@Test
+	void gastosConLaMismaFechaSinRepetidosNiHuecos() {
+		Pareja pareja = crearPareja();
+		Usuario ana = crearUsuario(pareja);
+		Usuario beto = crearUsuario(pareja);
+		List<Categoria> categorias = List.of(crearCategoria());
+
+		// Individuales de Ana y de pareja de Beto empatados en FECHA, más unos anteriores de cada tipo
+		insertarGastos(ana.getId(), null, categorias, 23, FECHA, Duration.ZERO);
+		insertarGastos(beto.getId(), pareja.getId(), categorias, 24, FECHA, Duration.ZERO);
+		insertarGastos(ana.getId(), null, categorias, 4, FECHA.minusDays(1), Duration.ofHours(1));
+		insertarGastos(ana.getId(), pareja.getId(), categorias, 4, FECHA.minusDays(1), Duration.ofHours(1));
+		// Un gasto de Beto sin pareja no es visible para Ana
+		insertarGastos(beto.getId(), null, categorias, 3, FECHA, Duration.ZERO);
+
+		List<Long> delUsuario = recorrer(
+				cursor -> gastoService.obtenerGastosPorUsuarioCursor(ana.getId(), cursor, TAMANO),
+				GastoResponseDTO::getId);
+		assertThat(delUsuario).doesNotHaveDuplicates().hasSize(55);
+		assertThat(delUsuario).containsExactlyElementsOf(jdbcTemplate.queryForList("""
+				SELECT id FROM gastos WHERE usuario_id = ? OR pareja_id = ?
+				ORDER BY fecha_gasto DESC, id DESC
+				""", Long.class, ana.getId(), pareja.getId()));
+
+		List<Long> dePareja = recorrer(
+				cursor -> gastoService.obtenerGastosPorParejaCursor(pareja.getId(), cursor, TAMANO),
+				GastoResponseDTO::getId);
+		assertThat(dePareja).doesNotHaveDuplicates().hasSize(28);
+		assertThat(dePareja).containsExactlyElementsOf(jdbcTemplate.queryForList("""
+				SELECT id FROM gastos WHERE pareja_id = ? ORDER BY fecha_gasto DESC, id DESC
+				""", Long.class, pareja.getId()));
+	}
+
+	@Test
+	void busquedaConElMismoRangoSinRepetidosNiHuecos() {
+		Pareja pareja = crearPareja();
+		Usuario ana = crearUsuario(pareja);
+		Usuario beto = crearUsuario(pareja);
+		List<Categoria> categorias = List.of(crearCategoria());
+
+		// Todas las descripciones son 'Gasto n': el mismo ts_rank, y además la misma fecha en los de Ana
+		insertarGastos(ana.getId(), null, categorias, 20, FECHA, Duration.ZERO);
+		insertarGastos(beto.getId(), pareja.getId(), categorias, 12, FECHA, Duration.ofHours(1));
+		insertarGastos(beto.getId(), null, categorias, 3, FECHA, Duration.ZERO);
+		// Un tercio de los de pareja suma la palabra en las notas y sube a un segundo nivel de rango
+		jdbcTemplate.update("UPDATE gastos SET notas = 'Otro gasto' WHERE pareja_id = ? AND id % 3 = 0",
+				pareja.getId());
+		jdbcTemplate.update("UPDATE gastos SET deleted_at = NOW() WHERE id = "
+				+ "(SELECT MIN(id) FROM gastos WHERE usuario_id = ? AND pareja_id IS NULL)", ana.getId());
+
+		List<Long> ids = recorrer(
+				cursor -> gastoService.buscarGastos(ana.getId(), "gasto", cursor, TAMANO),
+				GastoResponseDTO::getId);
+
+		assertThat(ids).doesNotHaveDuplicates().hasSize(31);
+		assertThat(ids).containsExactlyElementsOf(jdbcTemplate.queryForList("""
+				SELECT g.id FROM gastos g, websearch_to_tsquery('spanish', 'gasto') AS q (consulta)
+				WHERE g.busqueda @@ q.consulta AND g.deleted_at IS NULL
+				  AND ((g.usuario_id = ? AND g.pareja_id IS NULL) OR g.pareja_id = ?)
+				ORDER BY ts_rank(g.busqueda, q.consulta) DESC, g.fecha_gasto DESC, g.id DESC
+				""", Long.class, ana.getId(), pareja.getId()));
+	}
+
+	@Test
+	void pagosConLaMismaFechaSinRepetidosNiHuecos() {
+		Pareja pareja = crearPareja();
+		Usuario ana = crearUsuario(pareja);
+		Usuario beto = crearUsuario(pareja);
+
+		insertarPagos(pareja, ana, beto, 31, FECHA);
+		insertarPagos(pareja, beto, ana, 6, FECHA.minusDays(2));
+
+		List<Long> ids = recorrer(
+				cursor -> pagoService.obtenerHistorialPagosCursor(beto.getId(), cursor, TAMANO),
+				PagoResponseDTO::getId);
+
+		assertThat(ids).doesNotHaveDuplicates().hasSize(37);
+		assertThat(ids).containsExactlyElementsOf(jdbcTemplate.queryForList("""
+				SELECT id FROM pagos WHERE pareja_id = ? ORDER BY fecha_pago DESC, id DESC
+				""", Long.class, pareja.getId()));
+	}
+
+	@Test
+	void deudasConLaMismaFechaSinRepetidosNiHuecos() {
+		Usuario ana = crearUsuario(null);
+		Usuario otro = crearUsuario(null);
+
+		// Estados alternados: el filtro de activas también corta en medio de los empates
+		insertarDeudas(ana, 33, FECHA);
+		insertarDeudas(ana, 5, FECHA.minusDays(3));
+		insertarDeudas(otro, 4, FECHA);
+
+		List<Long> todas = recorrer(
+				cursor -> deudaService.obtenerDeudasUsuarioCursor(ana.getId(), false, cursor, TAMANO),
+				DeudaResponseDTO::getId);
+		assertThat(todas).doesNotHaveDuplicates().hasSize(38);
+		assertThat(todas).containsExactlyElementsOf(jdbcTemplate.queryForList("""
+				SELECT id FROM deudas WHERE usuario_id = ? ORDER BY fecha_creacion DESC, id DESC
+				""", Long.class, ana.getId()));
+
+		List<Long> activas = recorrer(
+				cursor -> deudaService.obtenerDeudasUsuarioCursor(ana.getId(), true, cursor, TAMANO),
+				DeudaResponseDTO::getId);
+		assertThat(activas).doesNotHaveDuplicates().hasSize(20);
+		assertThat(activas).containsExactlyElementsOf(jdbcTemplate.queryForList("""
+				SELECT id FROM deudas WHERE usuario_id = ? AND estado = 'ACTIVA'
+				ORDER BY fecha_creacion DESC, id DESC
+				""", Long.class, ana.getId()));
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {
+			"/api/gastos/cursor",
+			"/api/gastos/pareja/cursor",
+			"/api/pagos/cursor",
+			"/api/deudas/cursor",
+			"/api/gastos/buscar?q=gasto"
+	})
+	void cursorMalformadoEsBadRequest(String endpoint) throws Exception {
+		Usuario ana = crearUsuario(crearPareja());
+		String sinFecha = Base64.getUrlEncoder().withoutPadding()
+				.encodeToString("ayer|uno".getBytes(StandardCharsets.UTF_8));
+
+		for (String cursor : List.of("no es base64!", sinFecha)) {
+			mockMvc.perform(get(endpoint).param("cursor", cursor).with(como(ana)))
+					.andExpect(status().isBadRequest());
+		}
+	}
+
+	/**
+	 * Sigue siguienteCursor hasta la última página y devuelve los ids en el orden entregado.
+	 */
+	private <T> List<Long> recorrer(Function<String, CursorPageDTO<T>> pagina, Function<T, Long> id) {
+		List<Long> ids = new ArrayList<>();
+		String cursor = null;
+		do {
+			CursorPageDTO<T> actual = pagina.apply(cursor);
+			assertThat(actual.getContenido()).hasSizeLessThanOrEqualTo(TAMANO);
+			assertThat(actual.isHayMas()).isEqualTo(actual.getSiguienteCursor() != null);
+			if (actual.isHayMas()) {
+				assertThat(actual.getContenido()).hasSize(TAMANO);
+			}
+			actual.getContenido().forEach(elemento -> ids.add(id.apply(elemento)));
+			cursor = actual.getSiguienteCursor();
+		} while (cursor != null);
+		return ids;
+	}
+
+	private void insertarPagos(Pareja pareja, Usuario pagador, Usuario receptor, int cantidad, LocalDateTime fecha) {
+		jdbcTemplate.update("""
+				INSERT INTO pagos (pagador_id, receptor_id, pareja_id, monto, fecha_pago, mes_pago, ano_pago,
+				                   fecha_creacion, fecha_actualizacion)
+				SELECT ?, ?, ?, n, ?, ?, ?, NOW(), NOW()
+				FROM generate_series(1, ?::INT) AS n
+				""", pagador.getId(), receptor.getId(), pareja.getId(), fecha, fecha.getMonthValue(),
+				fecha.getYear(), cantidad);
+	}
+
+	private void insertarDeudas(Usuario usuario, int cantidad, LocalDateTime fecha) {
+		jdbcTemplate.update("""
+				INSERT INTO deudas (usuario_id, acreedor, tipo, monto_original, saldo_pendiente, estado,
+				                    fecha_creacion, fecha_actualizacion)
+				SELECT ?, 'Acreedor ' || n, 'OTRO', 100, 100, CASE WHEN n % 2 = 0 THEN 'PAGADA' ELSE 'ACTIVA' END,
+				       ?, NOW()
+				FROM generate_series(1, ?::INT) AS n
+				""", usuario.getId(), fecha, cantidad);
+	}
+}
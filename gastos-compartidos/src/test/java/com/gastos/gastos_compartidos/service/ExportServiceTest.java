@@ -0,0 +1,135 @@
+package com.gastos.gastos_compartidos.service;
+
+import com.gastos.gastos_compartidos.PostgresIntegrationTest;
+import com.gastos.gastos_compartidos.entity.Categoria;
+import com.gastos.gastos_compartidos.entity.Pareja;
+import com.gastos.gastos_compartidos.entity.Usuario;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Excel de gastos escrito en streaming con SXSSF y leído de vuelta con XSSFWorkbook. Hay más
+ * gastos que app.exportacion.ventana-filas, así que buena parte de las filas pasó por el archivo
+ * temporal antes de llegar a la salida: título y período combinados, encabezados, una fila por
+ * gasto vigente del período en el orden de la consulta y la fila TOTAL tras una fila en blanco.
+ */
+class ExportServiceTest extends PostgresIntegrationTest {
+
+	private static final DateTimeFormatter FECHA_HORA = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+	private static final LocalDate DESDE = LocalDate.of(2025, 6, 1);
+	private static final LocalDate HASTA = LocalDate.of(2025, 6, 30);
+	private static final int FILA_DATOS = 4;
+
+	@Autowired
+	private ExportService exportService;
+
+	@Test
+	void excelConTituloEncabezadosFilasYTotal() throws Exception {
+		Pareja pareja = crearPareja();
+		Usuario ana = crearUsuario(pareja);
+		Usuario beto = crearUsuario(pareja);
+		List<Categoria> categorias = List.of(crearCategoria(), crearCategoria());
+
+		// 250 gastos dentro del período, una hora entre cada uno
+		insertarGastos(ana.getId(), pareja.getId(), categorias, 150, HASTA.atTime(23, 0), Duration.ofHours(1));
+		insertarGastos(beto.getId(), pareja.getId(), categorias, 100, HASTA.atTime(22, 30), Duration.ofHours(3));
+		// Uno sin categoría y con notas, uno borrado, dos fuera del período y uno de otra pareja
+		jdbcTemplate.update("""
+				INSERT INTO gastos (descripcion, monto, monto_original, usuario_id, pareja_id, fecha_gasto, notas,
+				                    fecha_creacion, fecha_actualizacion)
+				VALUES ('Sin categoría', 77, 77, ?, ?, ?, 'Pagado en efectivo', NOW(), NOW())
+				""", beto.getId(), pareja.getId(), HASTA.atTime(23, 45));
+		insertarGastos(ana.getId(), pareja.getId(), categorias, 1, HASTA.atTime(23, 50), Duration.ZERO);
+		jdbcTemplate.update("UPDATE gastos SET deleted_at = NOW() WHERE id = (SELECT MAX(id) FROM gastos WHERE pareja_id = ?)",
+				pareja.getId());
+		insertarGastos(ana.getId(), pareja.getId(), categorias, 1, HASTA.plusDays(1).atTime(0, 30), Duration.ZERO);
+		insertarGastos(ana.getId(), pareja.getId(), categorias, 1, DESDE.atStartOfDay(), Duration.ofMinutes(1));
+		insertarGastos(crearUsuario(crearPareja()).getId(), null, categorias, 3, HASTA.atTime(12, 0), Duration.ZERO);
+
+		List<List<String>> esperadas = new ArrayList<>();
+		BigDecimal[] total = { BigDecimal.ZERO };
+		jdbcTemplate.query("""
+				SELECT g.descripcion, g.monto, c.nombre AS categoria, u.nombre AS usuario, g.fecha_gasto, g.notas
+				FROM gastos g JOIN usuarios u ON u.id = g.usuario_id LEFT JOIN categorias c ON c.id = g.categoria_id
+				WHERE g.pareja_id = ? AND g.deleted_at IS NULL AND g.fecha_gasto >= ? AND g.fecha_gasto < ?
+				ORDER BY g.fecha_gasto DESC
+				""", fila -> {
+			String categoria = fila.getString("categoria");
+			String notas = fila.getString("notas");
+			esperadas.add(List.of(
+					fila.getString("descripcion"),
+					String.valueOf(fila.getBigDecimal("monto").doubleValue()),
+					categoria != null ? categoria : "-",
+					fila.getString("usuario"),
+					fila.getTimestamp("fecha_gasto").toLocalDateTime().format(FECHA_HORA),
+					notas != null ? notas : ""));
+			total[0] = total[0].add(fila.getBigDecimal("monto"));
+		}, pareja.getId(), DESDE.atStartOfDay(), HASTA.plusDays(1).atStartOfDay());
+		assertThat(esperadas).hasSize(251);
+
+		ByteArrayOutputStream salida = new ByteArrayOutputStream();
+		exportService.excelGastos(pareja.getId(), DESDE, HASTA).writeTo(salida);
+
+		try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(salida.toByteArray()))) {
+			assertThat(workbook.getNumberOfSheets()).isEqualTo(1);
+			Sheet hoja = workbook.getSheet("Gastos");
+			assertThat(hoja).isNotNull();
+
+			assertThat(hoja.getRow(0).getCell(0).getStringCellValue())
+					.isEqualTo("Gastos Compartidos - " + pareja.getNombrePareja());
+			assertThat(hoja.getRow(1).getCell(0).getStringCellValue()).isEqualTo("Período: 01/06/2025 - 30/06/2025");
+			assertThat(hoja.getMergedRegions()).extracting(CellRangeAddress::formatAsString)
+					.containsExactlyInAnyOrder("A1:F1", "A2:F2");
+			assertThat(hoja.getRow(2)).isNull();
+
+			assertThat(textos(hoja.getRow(3)))
+					.containsExactly("Descripción", "Monto", "Categoría", "Registrado por", "Fecha", "Notas");
+			assertThat(hoja.getRow(3).getCell(0).getCellStyle().getFillForegroundColor()).isNotZero();
+			assertThat(hoja.getColumnWidth(0)).isEqualTo(40 * 256);
+
+			List<List<String>> filas = new ArrayList<>();
+			for (int i = FILA_DATOS; i < FILA_DATOS + esperadas.size(); i++) {
+				filas.add(textos(hoja.getRow(i)));
+			}
+			assertThat(filas).containsExactlyElementsOf(esperadas);
+			assertThat(hoja.getRow(FILA_DATOS).getCell(1).getCellStyle().getDataFormatString()).isEqualTo("#,##0");
+
+			int filaTotal = FILA_DATOS + esperadas.size() + 1;
+			assertThat(hoja.getRow(filaTotal - 1)).isNull();
+			assertThat(hoja.getLastRowNum()).isEqualTo(filaTotal);
+			Row totalRow = hoja.getRow(filaTotal);
+			assertThat(totalRow.getCell(0).getStringCellValue()).isEqualTo("TOTAL (251 gastos)");
+			assertThat(totalRow.getCell(1).getNumericCellValue()).isEqualTo(total[0].doubleValue());
+			assertThat(workbook.getFontAt(totalRow.getCell(1).getCellStyle().getFontIndex()).getBold()).isTrue();
+		}
+	}
+
+	// Texto de cada celda; los montos como el double que guarda la celda
+	private static List<String> textos(Row fila) {
+		List<String> textos = new ArrayList<>();
+		for (Cell celda : fila) {
+			textos.add(switch (celda.getCellType()) {
+				case NUMERIC -> String.valueOf(celda.getNumericCellValue());
+				default -> celda.getStringCellValue();
+			});
+		}
+		return textos;
+	}
+}
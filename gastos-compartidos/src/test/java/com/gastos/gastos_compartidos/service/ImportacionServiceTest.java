@@ -0,0 +1,86 @@
+package com.gastos.gastos_compartidos.service;
+
+import com.gastos.gastos_compartidos.ContadorSentencias;
+import com.gastos.gastos_compartidos.PostgresIntegrationTest;
+import com.gastos.gastos_compartidos.dto.ImportacionResultadoDTO;
+import com.gastos.gastos_compartidos.entity.Categoria;
+import com.gastos.gastos_compartidos.entity.Pareja;
+import com.gastos.gastos_compartidos.entity.Usuario;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Fija el costo en sentencias de una importación: gastos y splits van en un batch JDBC por
+ * lote de 500 filas (más un nextval por lote para reservar IDs), y el resto del trabajo
+ * (balance, resumen, estadísticas, pronóstico) no depende de la cantidad de filas.
+ */
+class ImportacionServiceTest extends PostgresIntegrationTest {
+
+	private static final String INSERT_GASTOS = "INSERT INTO gastos ";
+	private static final String INSERT_SPLITS = "INSERT INTO gasto_splits ";
+
+	@Autowired
+	private ImportacionService importacionService;
+
+	private Usuario ana;
+	private Categoria categoria;
+
+	@BeforeEach
+	void preparar() {
+		Pareja pareja = crearPareja();
+		ana = crearUsuario(pareja);
+		crearUsuario(pareja);
+		categoria = crearCategoria();
+	}
+
+	@Test
+	void gastosYSplitsVanEnUnBatchPorLote() {
+		ContadorSentencias.reiniciar();
+		ImportacionResultadoDTO resultado = importacionService.importar(ana.getId(), extracto(1_200),
+				categoria.getId(), true);
+
+		assertThat(resultado.getImportadas()).isEqualTo(1_200);
+		List<String> batches = ContadorSentencias.sqlBatches();
+		assertThat(batches).filteredOn(sql -> sql != null && sql.startsWith(INSERT_GASTOS)).hasSize(3);
+		assertThat(batches).filteredOn(sql -> sql != null && sql.startsWith(INSERT_SPLITS)).hasSize(3);
+		// 1.200 gastos y 2.400 splits (dos miembros), todos dentro de batches
+		assertThat(ContadorSentencias.filasEnBatch()).isGreaterThanOrEqualTo(3_600);
+	}
+
+	@Test
+	void cadaLoteExtraCuestaCuatroSentencias() {
+		ContadorSentencias.reiniciar();
+		importacionService.importar(ana.getId(), extracto(1_200), categoria.getId(), true);
+		long tresLotes = ContadorSentencias.sentencias();
+
+		ContadorSentencias.reiniciar();
+		importacionService.importar(ana.getId(), extracto(2_400), categoria.getId(), true);
+		long cincoLotes = ContadorSentencias.sentencias();
+
+		// Por lote: nextval de gastos, batch de gastos, nextval de splits y batch de splits
+		assertThat(cincoLotes - tresLotes).isEqualTo(2 * 4);
+		assertThat(tresLotes).isLessThan(50);
+	}
+
+	/**
+	 * Extracto CSV de una cuenta corriente: cargos negativos, todos en enero de 2024 para que
+	 * el resumen mensual toque siempre las mismas filas.
+	 */
+	private static MockMultipartFile extracto(int filas) {
+		StringBuilder csv = new StringBuilder("fecha,descripcion,monto\n");
+		for (int i = 0; i < filas; i++) {
+			csv.append("2024-01-").append(String.format("%02d", 1 + i % 28))
+					.append(",Compra ").append(i)
+					.append(",-").append(1_000 + i).append(".50\n");
+		}
+		return new MockMultipartFile("archivo", "extracto.csv", "text/csv",
+				csv.toString().getBytes(StandardCharsets.UTF_8));
+	}
+}
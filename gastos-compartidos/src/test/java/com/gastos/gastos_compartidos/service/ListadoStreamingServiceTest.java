@@ -0,0 +1,134 @@
+package com.gastos.gastos_compartidos.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gastos.gastos_compartidos.PostgresIntegrationTest;
+import com.gastos.gastos_compartidos.entity.Categoria;
+import com.gastos.gastos_compartidos.entity.Pareja;
+import com.gastos.gastos_compartidos.entity.Usuario;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * GET /api/gastos/stream con un millón de gastos visibles. Surefire corre esta clase en su
+ * propia JVM con un heap chico (ver pom.xml): el JSON completo pesa más que todo el heap, así
+ * que solo termina si las filas se escriben y descartan a medida que llegan del cursor.
+ */
+class ListadoStreamingServiceTest extends PostgresIntegrationTest {
+
+	private static final int GASTOS_INDIVIDUALES = 500_000;
+	private static final int GASTOS_PAREJA = 500_000;
+
+	@Autowired
+	private ListadoStreamingService listadoStreamingService;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Test
+	void unMillonDeGastosSeEscribeSinCargarloEnMemoria() throws Exception {
+		Pareja pareja = crearPareja();
+		Usuario ana = crearUsuario(pareja);
+		Usuario beto = crearUsuario(pareja);
+		Categoria categoria = crearCategoria();
+
+		LocalDateTime ahora = LocalDateTime.now();
+		insertarGastos(ana.getId(), null, List.of(categoria), GASTOS_INDIVIDUALES, ahora, Duration.ofMinutes(1));
+		insertarGastos(beto.getId(), pareja.getId(), List.of(categoria), GASTOS_PAREJA, ahora, Duration.ofMinutes(1));
+		// Cada gasto de pareja lleva dos splits: el agrupado por gasto también se recorre entero
+		jdbcTemplate.update("""
+				INSERT INTO gasto_splits (gasto_id, usuario_id, monto, tipo, fecha_creacion)
+				SELECT g.id, u.id, g.monto / 2, 'DEBE', NOW()
+				FROM gastos g CROSS JOIN (VALUES (?::BIGINT), (?::BIGINT)) AS u (id)
+				WHERE g.pareja_id = ?
+				""", ana.getId(), beto.getId(), pareja.getId());
+		jdbcTemplate.execute("ANALYZE gastos");
+		jdbcTemplate.execute("ANALYZE gasto_splits");
+
+		long[] rango = jdbcTemplate.queryForObject("""
+				SELECT MIN(id), MAX(id) FROM gastos WHERE usuario_id IN (?, ?)
+				""", (rs, fila) -> new long[] { rs.getLong(1), rs.getLong(2) }, ana.getId(), beto.getId());
+		BitSet vistos = new BitSet((int) (rango[1] - rango[0] + 1));
+
+		StreamingResponseBody cuerpo = listadoStreamingService.gastosVisibles(ana.getId());
+		AtomicLong bytes = new AtomicLong();
+		PipedInputStream entrada = new PipedInputStream(64 * 1024);
+		PipedOutputStream salida = new PipedOutputStream(entrada);
+		CompletableFuture<Void> escritura = CompletableFuture.runAsync(() -> {
+			try (OutputStream out = new Contador(salida, bytes)) {
+				cuerpo.writeTo(out);
+			} catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+		});
+
+		// Se lee con el parser de tokens, sin armar objetos, para no medir la memoria del test
+		long gastos = 0;
+		long splits = 0;
+		int profundidad = 0;
+		try (JsonParser parser = objectMapper.getFactory().createParser(entrada)) {
+			JsonToken token;
+			while ((token = parser.nextToken()) != null) {
+				if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+					profundidad++;
+					if (token == JsonToken.START_OBJECT && profundidad == 2) {
+						gastos++;
+					} else if (token == JsonToken.START_OBJECT && profundidad == 4) {
+						splits++;
+					}
+				} else if (token == JsonToken.END_OBJECT || token == JsonToken.END_ARRAY) {
+					profundidad--;
+				} else if (token == JsonToken.FIELD_NAME && profundidad == 2 && "id".equals(parser.currentName())) {
+					parser.nextToken();
+					int indice = (int) (parser.getLongValue() - rango[0]);
+					assertThat(vistos.get(indice)).as("gasto repetido %d", parser.getLongValue()).isFalse();
+					vistos.set(indice);
+				}
+			}
+		}
+		escritura.join();
+
+		assertThat(gastos).isEqualTo(GASTOS_INDIVIDUALES + GASTOS_PAREJA);
+		assertThat(vistos.cardinality()).isEqualTo(GASTOS_INDIVIDUALES + GASTOS_PAREJA);
+		assertThat(splits).isEqualTo(2L * GASTOS_PAREJA);
+		assertThat(bytes.get()).isGreaterThan(Runtime.getRuntime().maxMemory());
+	}
+
+	private static final class Contador extends FilterOutputStream {
+
+		private final AtomicLong bytes;
+
+		private Contador(OutputStream out, AtomicLong bytes) {
+			super(out);
+			this.bytes = bytes;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			out.write(b);
+			bytes.incrementAndGet();
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+			bytes.addAndGet(len);
+		}
+	}
+}
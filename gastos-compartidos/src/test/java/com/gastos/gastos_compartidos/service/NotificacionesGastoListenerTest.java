@@ -0,0 +1,89 @@
+package com.gastos.gastos_compartidos.service;
+
+import com.gastos.gastos_compartidos.PostgresIntegrationTest;
+import com.gastos.gastos_compartidos.dto.GastoCreateDTO;
+import com.gastos.gastos_compartidos.entity.Categoria;
+import com.gastos.gastos_compartidos.entity.Pareja;
+import com.gastos.gastos_compartidos.entity.Usuario;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Las notificaciones de un gasto salen del pool de NotificacionesConfig solo después del commit:
+ * un gasto compartido grande avisa al resto de la pareja, y el mismo gasto dentro de una
+ * transacción revertida no avisa a nadie. Web Push se reemplaza por un mock para ver los envíos.
+ */
+class NotificacionesGastoListenerTest extends PostgresIntegrationTest {
+
+	private static final BigDecimal MONTO_GRANDE = new BigDecimal("60000.00");
+
+	@MockitoBean
+	private WebPushService webPushService;
+
+	@Autowired
+	private GastoService gastoService;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	private Usuario ana;
+	private Usuario beto;
+	private Categoria categoria;
+
+	@BeforeEach
+	void preparar() {
+		Pareja pareja = crearPareja();
+		ana = crearUsuario(pareja);
+		beto = crearUsuario(pareja);
+		categoria = crearCategoria();
+	}
+
+	@Test
+	void gastoRevertidoNoNotifica() {
+		transactionTemplate.executeWithoutResult(estado -> {
+			gastoService.crearGasto(ana.getId(), gastoGrande("Notebook revertido"));
+			estado.setRollbackOnly();
+		});
+
+		assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM gastos WHERE usuario_id = ?", Long.class,
+				ana.getId())).isZero();
+		verify(webPushService, after(1_000).never()).notifyUsers(anyList(), anyString(), anyString(), anyString());
+	}
+
+	@Test
+	void gastoConfirmadoNotificaALaPareja() {
+		gastoService.crearGasto(ana.getId(), gastoGrande("Notebook confirmado"));
+
+		verify(webPushService, timeout(5_000)).notifyUsers(eq(List.of(beto.getId())), eq("💰 Gasto grande registrado"),
+				contains("Notebook confirmado"), eq("/gastos"));
+	}
+
+	private GastoCreateDTO gastoGrande(String descripcion) {
+		BigDecimal mitad = MONTO_GRANDE.divide(BigDecimal.valueOf(2));
+		return GastoCreateDTO.builder()
+				.descripcion(descripcion)
+				.monto(MONTO_GRANDE)
+				.categoriaId(categoria.getId())
+				.fechaGasto(LocalDateTime.now())
+				.split(Map.of(ana.getId(), mitad, beto.getId(), mitad))
+				.build();
+	}
+}
@@ -0,0 +1,138 @@
+package com.gastos.gastos_compartidos.service;
+
+import com.gastos.gastos_compartidos.service.ImportacionService.PerfilMontos;
+import com.gastos.gastos_compartidos.service.LectorExtractos.Movimiento;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PerfilMontosTest {
+
+	@Test
+	void separadorDecimalSeDecideConLaColumnaCompleta() throws IOException {
+		PerfilMontos coma = perfilar("""
+				fecha;descripcion;monto
+				2024-01-02;Supermercado;12.500
+				2024-01-03;Farmacia;3.990,50
+				""");
+		PerfilMontos punto = perfilar("""
+				fecha,descripcion,monto
+				2024-01-02,Supermercado,12.500
+				2024-01-03,Farmacia,"3,990.50"
+				""");
+
+		assertThat(coma.decimal()).isEqualTo(',');
+		assertThat(punto.decimal()).isEqualTo('.');
+		assertThat(ImportacionService.parsearMonto("12.500", coma.decimal())).isEqualByComparingTo("12500");
+		assertThat(ImportacionService.parsearMonto("12.500", punto.decimal())).isEqualByComparingTo("12.50");
+		assertThat(ImportacionService.parsearMonto("12,500", coma.decimal())).isEqualByComparingTo("12.50");
+		assertThat(ImportacionService.parsearMonto("12,500", punto.decimal())).isEqualByComparingTo("12500");
+	}
+
+	@Test
+	void sinCeldasQueLoAclarenSeMantieneLaReglaPorCelda() throws IOException {
+		PerfilMontos perfil = perfilar("""
+				fecha;descripcion;monto
+				2024-01-02;Supermercado;12.500
+				2024-01-03;Farmacia;3.990
+				""");
+
+		assertThat(perfil.decimal()).isNull();
+		assertThat(ImportacionService.parsearMonto("12.500", null)).isEqualByComparingTo("12500");
+		assertThat(ImportacionService.parsearMonto("45,00", null)).isEqualByComparingTo("45.00");
+	}
+
+	@Test
+	void separadorDecimalRepetidoEsInvalido() {
+		assertThatThrownBy(() -> ImportacionService.parsearMonto("1.234.567", '.'))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void cuentaCorrienteConCargosNegativosYAbonosPositivos() throws IOException {
+		String csv = """
+				fecha,descripcion,monto
+				2024-01-02,Supermercado,-45.00
+				2024-01-03,Sueldo,1500.00
+				2024-01-04,Farmacia,-12.30
+				""";
+		PerfilMontos perfil = perfilar(csv);
+		List<Movimiento> movimientos = leer(csv);
+
+		assertThat(perfil.signoCargo()).isEqualTo(-1);
+		assertThat(esAbono(perfil, movimientos.get(0))).isFalse();
+		assertThat(esAbono(perfil, movimientos.get(1))).isTrue();
+		assertThat(esAbono(perfil, movimientos.get(2))).isFalse();
+	}
+
+	@Test
+	void tarjetaConComprasPositivasYPagoNegativo() throws IOException {
+		String csv = """
+				fecha,descripcion,monto
+				2024-01-02,Supermercado,45.00
+				2024-01-03,Pago tarjeta,-300.00
+				2024-01-04,Farmacia,12.30
+				""";
+		PerfilMontos perfil = perfilar(csv);
+		List<Movimiento> movimientos = leer(csv);
+
+		assertThat(perfil.signoCargo()).isEqualTo(1);
+		assertThat(esAbono(perfil, movimientos.get(0))).isFalse();
+		assertThat(esAbono(perfil, movimientos.get(1))).isTrue();
+	}
+
+	@Test
+	void columnaDeTipoMandaSobreElSigno() throws IOException {
+		String csv = """
+				fecha;descripcion;monto;tipo
+				2024-01-02;Supermercado;45,00;D
+				2024-01-03;Transferencia recibida;300,00;C
+				2024-01-04;Farmacia;12,30;Cargo
+				""";
+		PerfilMontos perfil = perfilar(csv);
+		List<Movimiento> movimientos = leer(csv);
+
+		assertThat(movimientos).extracting(Movimiento::credito).containsExactly(false, true, false);
+		assertThat(perfil.signoCargo()).isEqualTo(1);
+		assertThat(perfil.decimal()).isEqualTo(',');
+	}
+
+	@Test
+	void columnasSeparadasDeCargosYAbonos() throws IOException {
+		List<Movimiento> movimientos = leer("""
+				fecha,descripcion,cargo,abono
+				2024-01-02,Supermercado,45.00,
+				2024-01-03,Sueldo,,1500.00
+				""");
+
+		assertThat(movimientos).extracting(Movimiento::credito).containsExactly(false, true);
+		assertThat(movimientos.get(1).monto()).isEqualTo("1500.00");
+	}
+
+	private static boolean esAbono(PerfilMontos perfil, Movimiento movimiento) {
+		return perfil.esAbono(movimiento, ImportacionService.parsearMonto(movimiento.monto(), perfil.decimal()));
+	}
+
+	private static PerfilMontos perfilar(String csv) throws IOException {
+		PerfilMontos perfil = new PerfilMontos(1_000);
+		LectorExtractos.leerCsv(entrada(csv), perfil);
+		return perfil;
+	}
+
+	private static List<Movimiento> leer(String csv) throws IOException {
+		List<Movimiento> movimientos = new ArrayList<>();
+		LectorExtractos.leerCsv(entrada(csv), movimientos::add);
+		return movimientos;
+	}
+
+	private static ByteArrayInputStream entrada(String csv) {
+		return new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8));
+	}
+}
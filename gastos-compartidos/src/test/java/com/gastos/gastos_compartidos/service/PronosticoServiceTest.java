@@ -0,0 +1,171 @@
+package com.gastos.gastos_compartidos.service;
+
+import com.gastos.gastos_compartidos.PostgresIntegrationTest;
+import com.gastos.gastos_compartidos.dto.GastoCreateDTO;
+import com.gastos.gastos_compartidos.entity.Categoria;
+import com.gastos.gastos_compartidos.entity.Usuario;
+import com.gastos.gastos_compartidos.repository.GastoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * El camino incremental de PronosticoService (registrarGasto, actualizarGasto y revertirGasto
+ * con su UPDATE de gastado y proyectado, o el recálculo del usuario cuando falta la fila) tiene
+ * que dejar lo mismo que recalcularUsuario desde cero y que la suma de gastos del período.
+ *
+ * Los gastos del test caen hoy o hace más de app.pronostico.dias-historia días: la tendencia solo
+ * mira la historia hasta ayer y el incremental no la toca (la recalcula el job diario). La
+ * historia se carga una vez al preparar, y así la tendencia no es cero y cuenta en proyectado.
+ */
+class PronosticoServiceTest extends PostgresIntegrationTest {
+
+	@Autowired
+	private PronosticoService pronosticoService;
+
+	@Autowired
+	private GastoService gastoService;
+
+	@Autowired
+	private GastoRepository gastoRepository;
+
+	private Usuario ana;
+	private Categoria comida;
+	private Categoria transporte;
+	private Categoria hogar;
+
+	private record Fila(Long categoriaId, LocalDate inicio, LocalDate fin, BigDecimal gastado, BigDecimal proyectado) {
+	}
+
+	@BeforeEach
+	void preparar() {
+		ana = crearUsuario(null);
+		comida = crearCategoria();
+		transporte = crearCategoria();
+		hogar = crearCategoria();
+		// Un gasto diario de comida y uno cada tres días de transporte en las últimas semanas
+		insertarGastos(ana.getId(), null, List.of(comida), 20, LocalDate.now().atStartOfDay(), Duration.ofDays(1));
+		insertarGastos(ana.getId(), null, List.of(transporte), 8, LocalDate.now().atStartOfDay(), Duration.ofDays(3));
+		pronosticoService.recalcularUsuario(ana.getId());
+	}
+
+	@Test
+	void incrementalCoincideConElRecalculo() {
+		// Crear en categorías que ya tienen filas: UPDATE directo
+		Long almuerzo = crear("Almuerzo", "35.50", comida, LocalDateTime.now());
+		Long taxi = crear("Taxi", "12.00", transporte, LocalDateTime.now());
+		verificar();
+
+		// Editar cambiando la categoría y el monto
+		editar(almuerzo, "Almuerzo", "41.00", transporte, LocalDateTime.now());
+		verificar();
+
+		// Editar moviéndolo a otro mes y a otra categoría, fuera de la ventana de historia
+		editar(taxi, "Taxi", "12.00", comida, LocalDateTime.now().minusMonths(4));
+		verificar();
+
+		// Y de vuelta al período en curso
+		editar(taxi, "Taxi", "15.00", comida, LocalDateTime.now());
+		verificar();
+
+		gastoService.eliminarGasto(almuerzo, ana.getId());
+		verificar();
+
+		// Una categoría sin filas todavía: registrarGasto recalcula el usuario
+		assertThat(filas()).noneMatch(fila -> hogar.getId().equals(fila.categoriaId()));
+		Long sillon = crear("Sillón", "320.00", hogar, LocalDateTime.now());
+		assertThat(filas()).anyMatch(fila -> hogar.getId().equals(fila.categoriaId()));
+		verificar();
+
+		// Editar hacia una categoría sin filas también cae en el recálculo
+		Categoria mascotas = crearCategoria();
+		editar(sillon, "Veterinaria", "80.00", mascotas, LocalDateTime.now());
+		verificar();
+	}
+
+	@Test
+	void recalcularTodosCoincideConRecalcularUsuario() {
+		crear("Almuerzo", "35.50", comida, LocalDateTime.now());
+		crear("Lámpara", "60.00", hogar, LocalDateTime.now());
+		Map<String, String> porUsuario = resumen(filas());
+
+		pronosticoService.recalcularTodos();
+
+		assertThat(resumen(filas())).isEqualTo(porUsuario);
+		filas().forEach(this::verificarContraGastos);
+	}
+
+	/**
+	 * Cada fila del incremental contra la suma de gastos de su período, y el conjunto completo
+	 * contra lo que deja recalcularUsuario. Las filas en cero que deja el incremental al vaciarse
+	 * una categoría el recálculo las borra: no cuentan.
+	 */
+	private void verificar() {
+		List<Fila> incremental = filas();
+		incremental.forEach(this::verificarContraGastos);
+
+		pronosticoService.recalcularUsuario(ana.getId());
+
+		assertThat(resumen(incremental)).isEqualTo(resumen(filas()));
+	}
+
+	private void verificarContraGastos(Fila fila) {
+		LocalDateTime desde = fila.inicio().atStartOfDay();
+		LocalDateTime hasta = fila.fin().atStartOfDay();
+		BigDecimal suma = fila.categoriaId() != null
+				? gastoRepository.sumarGastosPorCategoriaYRango(ana.getId(), fila.categoriaId(), desde, hasta)
+				: gastoRepository.sumarGastosTotalPorRango(ana.getId(), desde, hasta);
+		assertThat(fila.gastado()).as("gastado de %s entre %s y %s", fila.categoriaId(), desde, hasta)
+				.isEqualByComparingTo(suma != null ? suma : BigDecimal.ZERO);
+	}
+
+	private Map<String, String> resumen(List<Fila> filas) {
+		Map<String, String> porClave = new TreeMap<>();
+		for (Fila fila : filas) {
+			if (fila.gastado().signum() == 0 && fila.proyectado().signum() == 0) {
+				continue;
+			}
+			porClave.put((fila.categoriaId() != null ? fila.categoriaId() : "total") + " " + fila.inicio() + ".." + fila.fin(),
+					fila.gastado().setScale(2) + " / " + fila.proyectado().setScale(2));
+		}
+		return porClave;
+	}
+
+	private List<Fila> filas() {
+		return jdbcTemplate.query("""
+				SELECT categoria_id, inicio, fin, gastado, proyectado FROM pronostico_gasto WHERE usuario_id = ?
+				""", (fila, n) -> new Fila(
+				fila.getObject("categoria_id", Long.class),
+				fila.getDate("inicio").toLocalDate(),
+				fila.getDate("fin").toLocalDate(),
+				fila.getBigDecimal("gastado"),
+				fila.getBigDecimal("proyectado")), ana.getId());
+	}
+
+	private Long crear(String descripcion, String monto, Categoria categoria, LocalDateTime fecha) {
+		return gastoService.crearGasto(ana.getId(), gasto(descripcion, monto, categoria, fecha)).getId();
+	}
+
+	private void editar(Long gastoId, String descripcion, String monto, Categoria categoria, LocalDateTime fecha) {
+		gastoService.actualizarGasto(gastoId, ana.getId(), gasto(descripcion, monto, categoria, fecha));
+	}
+
+	private GastoCreateDTO gasto(String descripcion, String monto, Categoria categoria, LocalDateTime fecha) {
+		return GastoCreateDTO.builder()
+				.descripcion(descripcion)
+				.monto(new BigDecimal(monto))
+				.categoriaId(categoria.getId())
+				.fechaGasto(fecha)
+				.build();
+	}
+}
@@ -0,0 +1,127 @@
+package com.gastos.gastos_compartidos.service;
+
+import com.gastos.gastos_compartidos.PostgresIntegrationTest;
+import com.gastos.gastos_compartidos.config.CacheConfig;
+import com.gastos.gastos_compartidos.dto.GastoCreateDTO;
+import com.gastos.gastos_compartidos.dto.ReporteDTO;
+import com.gastos.gastos_compartidos.entity.Categoria;
+import com.gastos.gastos_compartidos.entity.Pareja;
+import com.gastos.gastos_compartidos.entity.Usuario;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Invalidación de la caché "reportes-mes" por las escrituras de gastos: mover un gasto de mes
+ * invalida el mes viejo y el nuevo al hacer commit y deja el resto en caché, y una escritura
+ * revertida no invalida nada. Los aciertos y fallos se leen de las estadísticas de Caffeine, como
+ * diferencia contra una foto previa porque la caché se comparte con los demás tests.
+ */
+class ReporteMensualCacheTest extends PostgresIntegrationTest {
+
+	// Meses cerrados: no vencen por TTL, solo salen por invalidación
+	private static final YearMonth ENERO = YearMonth.of(2025, 1);
+	private static final YearMonth FEBRERO = YearMonth.of(2025, 2);
+	private static final YearMonth MARZO = YearMonth.of(2025, 3);
+	private static final List<YearMonth> MESES = List.of(ENERO, FEBRERO, MARZO);
+
+	@Autowired
+	private ReporteService reporteService;
+
+	@Autowired
+	private GastoService gastoService;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	private Cache<Object, Object> cache;
+	private Pareja pareja;
+	private Usuario ana;
+	private Usuario beto;
+	private Categoria categoria;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	void preparar() {
+		cache = (Cache<Object, Object>) cacheManager.getCache(CacheConfig.REPORTES_MES).getNativeCache();
+		pareja = crearPareja();
+		ana = crearUsuario(pareja);
+		beto = crearUsuario(pareja);
+		categoria = crearCategoria();
+	}
+
+	@Test
+	void cambiarLaFechaInvalidaElMesViejoYElNuevo() {
+		Long gastoId = gastoService.crearGasto(ana.getId(), gasto(ENERO)).getId();
+
+		CacheStats antes = cache.stats();
+		MESES.forEach(this::reporte);
+		MESES.forEach(this::reporte);
+		assertThat(cache.stats().minus(antes).missCount()).isEqualTo(3);
+		assertThat(cache.stats().minus(antes).hitCount()).isEqualTo(3);
+
+		gastoService.actualizarGasto(gastoId, ana.getId(), gasto(FEBRERO));
+
+		assertThat(enCache(ENERO)).isFalse();
+		assertThat(enCache(FEBRERO)).isFalse();
+		assertThat(enCache(MARZO)).isTrue();
+
+		antes = cache.stats();
+		assertThat(reporte(ENERO).getCantidadGastos()).isZero();
+		assertThat(reporte(FEBRERO).getCantidadGastos()).isEqualTo(1);
+		assertThat(reporte(MARZO).getCantidadGastos()).isZero();
+		assertThat(cache.stats().minus(antes).missCount()).isEqualTo(2);
+		assertThat(cache.stats().minus(antes).hitCount()).isEqualTo(1);
+	}
+
+	@Test
+	void escrituraRevertidaNoInvalida() {
+		Long gastoId = gastoService.crearGasto(ana.getId(), gasto(ENERO)).getId();
+		MESES.forEach(this::reporte);
+
+		transactionTemplate.executeWithoutResult(estado -> {
+			gastoService.actualizarGasto(gastoId, ana.getId(), gasto(FEBRERO));
+			estado.setRollbackOnly();
+		});
+
+		MESES.forEach(mes -> assertThat(enCache(mes)).isTrue());
+		CacheStats antes = cache.stats();
+		assertThat(reporte(ENERO).getCantidadGastos()).isEqualTo(1);
+		assertThat(reporte(FEBRERO).getCantidadGastos()).isZero();
+		reporte(MARZO);
+		assertThat(cache.stats().minus(antes).hitCount()).isEqualTo(3);
+		assertThat(cache.stats().minus(antes).missCount()).isZero();
+	}
+
+	private ReporteDTO reporte(YearMonth mes) {
+		return reporteService.obtenerReporteMensual(pareja.getId(), mes.getYear(), mes.getMonthValue());
+	}
+
+	private boolean enCache(YearMonth mes) {
+		return cache.asMap().containsKey(new ReporteMensualCache.Clave(pareja.getId(), mes));
+	}
+
+	private GastoCreateDTO gasto(YearMonth mes) {
+		return GastoCreateDTO.builder()
+				.descripcion("Supermercado")
+				.monto(new BigDecimal("40.00"))
+				.categoriaId(categoria.getId())
+				.fechaGasto(mes.atDay(10).atTime(12, 0))
+				.split(Map.of(ana.getId(), new BigDecimal("20.00"), beto.getId(), new BigDecimal("20.00")))
+				.build();
+	}
+}
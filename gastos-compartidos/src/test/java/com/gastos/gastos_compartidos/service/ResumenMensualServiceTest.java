@@ -0,0 +1,196 @@
+package com.gastos.gastos_compartidos.service;
+
+import com.gastos.gastos_compartidos.PostgresIntegrationTest;
+import com.gastos.gastos_compartidos.dto.GastoCreateDTO;
+import com.gastos.gastos_compartidos.dto.ReporteDTO;
+import com.gastos.gastos_compartidos.entity.Categoria;
+import com.gastos.gastos_compartidos.entity.Pareja;
+import com.gastos.gastos_compartidos.entity.Usuario;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Los deltas que cada escritura aplica a resumen_gastos_mensual tienen que dejar el mismo estado
+ * que agregar los gastos desde cero: se crean, editan (cambiando mes, categoría, monto y split) y
+ * borran gastos de pareja e individuales por GastoService, y luego verificar no encuentra
+ * diferencias y el reporte mensual coincide con los totales calculados desde gastos y
+ * gasto_splits. La base se comparte con otros tests que insertan gastos por JDBC sin pasar por
+ * el resumen, así que solo se miran los ámbitos de este test.
+ */
+class ResumenMensualServiceTest extends PostgresIntegrationTest {
+
+	private static final YearMonth ENERO = YearMonth.of(2025, 1);
+	private static final YearMonth FEBRERO = YearMonth.of(2025, 2);
+
+	@Autowired
+	private ResumenMensualService resumenMensualService;
+
+	@Autowired
+	private ReporteService reporteService;
+
+	@Autowired
+	private GastoService gastoService;
+
+	private Pareja pareja;
+	private Usuario ana;
+	private Usuario beto;
+	private Usuario carla;
+	private Categoria comida;
+	private Categoria transporte;
+
+	@BeforeEach
+	void preparar() {
+		pareja = crearPareja();
+		ana = crearUsuario(pareja);
+		beto = crearUsuario(pareja);
+		carla = crearUsuario(null);
+		comida = crearCategoria();
+		transporte = crearCategoria();
+	}
+
+	@Test
+	void edicionesYBorradosNoDejanDiferencias() {
+		Long almuerzo = crear(ana, "Almuerzo", "100.00", comida, ENERO, "50.00", "50.00");
+		Long taxi = crear(beto, "Taxi", "80.00", transporte, ENERO, "40.00", "40.00");
+		Long cena = crear(ana, "Cena", "30.00", comida, FEBRERO, "15.00", "15.00");
+		Long bus = crear(beto, "Bus", "12.00", transporte, FEBRERO, "6.00", "6.00");
+		crear(ana, "Café", "4.50", comida, FEBRERO, null, null);
+		Long libro = crear(carla, "Libro", "20.00", comida, ENERO, null, null);
+		Long cine = crear(carla, "Cine", "9.00", transporte, FEBRERO, null, null);
+
+		// Cambia de mes, de categoría, de monto y de split a la vez
+		editar(almuerzo, ana, "Almuerzo", "120.00", transporte, FEBRERO, "60.00", "60.00");
+		// Mismo mes y categoría, solo cambia cuánto pagó cada uno
+		editar(taxi, beto, "Taxi", "80.00", transporte, ENERO, "30.00", "50.00");
+		editar(libro, carla, "Libro", "25.00", transporte, FEBRERO, null, null);
+		gastoService.eliminarGasto(cena, ana.getId());
+		gastoService.eliminarGasto(bus, beto.getId());
+		gastoService.eliminarGasto(cine, carla.getId());
+
+		assertThat(resumenMensualService.verificar(false))
+				.doesNotContain("pareja:" + pareja.getId(), "usuario:" + carla.getId());
+
+		for (YearMonth mes : List.of(ENERO, FEBRERO)) {
+			verificarReporte(mes);
+		}
+	}
+
+	@Test
+	void verificarDetectaUnResumenDesviadoYReconstruirLoCorrige() {
+		crear(ana, "Almuerzo", "100.00", comida, ENERO, "50.00", "50.00");
+		crear(carla, "Libro", "20.00", comida, ENERO, null, null);
+		jdbcTemplate.update("UPDATE resumen_gastos_mensual SET total = total + 1 WHERE pareja_id = ?",
+				pareja.getId());
+		jdbcTemplate.update("UPDATE resumen_gastos_mensual SET cantidad = cantidad + 1 "
+				+ "WHERE usuario_id = ? AND pareja_id IS NULL", carla.getId());
+
+		assertThat(resumenMensualService.verificar(false))
+				.contains("pareja:" + pareja.getId(), "usuario:" + carla.getId());
+
+		// Se reconstruye solo lo propio: verificar(true) repararía también los ámbitos de otros tests
+		resumenMensualService.reconstruir(pareja.getId());
+		resumenMensualService.reconstruirIndividual(carla.getId());
+		assertThat(resumenMensualService.verificar(false))
+				.doesNotContain("pareja:" + pareja.getId(), "usuario:" + carla.getId());
+		verificarReporte(ENERO);
+	}
+
+	/**
+	 * Compara el reporte armado desde el resumen con los mismos totales calculados directamente
+	 * sobre los gastos vigentes del mes.
+	 */
+	private void verificarReporte(YearMonth mes) {
+		ReporteDTO reporte = reporteService.generarReporteMensual(pareja.getId(), mes.getYear(), mes.getMonthValue());
+		LocalDateTime inicio = mes.atDay(1).atStartOfDay();
+		LocalDateTime fin = mes.plusMonths(1).atDay(1).atStartOfDay();
+
+		Map<String, Object> totales = jdbcTemplate.queryForMap("""
+				SELECT COALESCE(SUM(monto), 0) AS total, COUNT(*) AS cantidad FROM gastos
+				WHERE pareja_id = ? AND deleted_at IS NULL AND fecha_gasto >= ? AND fecha_gasto < ?
+				""", pareja.getId(), inicio, fin);
+		assertThat(reporte.getGastoTotalMes()).isEqualByComparingTo((BigDecimal) totales.get("total"));
+		assertThat(reporte.getCantidadGastos()).isEqualTo(((Number) totales.get("cantidad")).intValue());
+
+		Map<Long, BigDecimal> gastadoPorUsuario = sumaPorClave("""
+				SELECT usuario_id AS clave, SUM(monto) AS total FROM gastos
+				WHERE pareja_id = ? AND deleted_at IS NULL AND fecha_gasto >= ? AND fecha_gasto < ?
+				GROUP BY usuario_id
+				""", inicio, fin);
+		Map<Long, BigDecimal> pagadoPorUsuario = sumaPorClave("""
+				SELECT s.usuario_id AS clave, SUM(s.monto) AS total FROM gasto_splits s
+				JOIN gastos g ON g.id = s.gasto_id
+				WHERE g.pareja_id = ? AND g.deleted_at IS NULL AND g.fecha_gasto >= ? AND g.fecha_gasto < ?
+				  AND s.tipo = 'PAGO'
+				GROUP BY s.usuario_id
+				""", inicio, fin);
+		Usuario usuario1 = reporte.getNombreUsuario1().equals(ana.getNombre()) ? ana : beto;
+		Usuario usuario2 = usuario1 == ana ? beto : ana;
+		assertThat(reporte.getGastoUsuario1())
+				.isEqualByComparingTo(gastadoPorUsuario.getOrDefault(usuario1.getId(), BigDecimal.ZERO));
+		assertThat(reporte.getGastoUsuario2())
+				.isEqualByComparingTo(gastadoPorUsuario.getOrDefault(usuario2.getId(), BigDecimal.ZERO));
+		assertThat(reporte.getPagadoUsuario1())
+				.isEqualByComparingTo(pagadoPorUsuario.getOrDefault(usuario1.getId(), BigDecimal.ZERO));
+		assertThat(reporte.getPagadoUsuario2())
+				.isEqualByComparingTo(pagadoPorUsuario.getOrDefault(usuario2.getId(), BigDecimal.ZERO));
+
+		Map<String, String> esperadoPorCategoria = new HashMap<>();
+		jdbcTemplate.query("""
+				SELECT c.nombre, SUM(g.monto) AS total, COUNT(*) AS cantidad FROM gastos g
+				JOIN categorias c ON c.id = g.categoria_id
+				WHERE g.pareja_id = ? AND g.deleted_at IS NULL AND g.fecha_gasto >= ? AND g.fecha_gasto < ?
+				GROUP BY c.nombre
+				""", fila -> {
+			esperadoPorCategoria.put(fila.getString("nombre"),
+					fila.getBigDecimal("total").setScale(2) + " x " + fila.getInt("cantidad"));
+		}, pareja.getId(), inicio, fin);
+		assertThat(reporte.getGastosPorCategoria().stream().collect(Collectors.toMap(
+				ReporteDTO.CategoriaReporte::getNombre,
+				categoria -> categoria.getMonto().setScale(2) + " x " + categoria.getCantidad())))
+				.isEqualTo(esperadoPorCategoria);
+	}
+
+	private Map<Long, BigDecimal> sumaPorClave(String sql, LocalDateTime inicio, LocalDateTime fin) {
+		Map<Long, BigDecimal> sumas = new HashMap<>();
+		jdbcTemplate.query(sql, fila -> {
+			sumas.put(fila.getLong("clave"), fila.getBigDecimal("total"));
+		}, pareja.getId(), inicio, fin);
+		return sumas;
+	}
+
+	private Long crear(Usuario usuario, String descripcion, String monto, Categoria categoria, YearMonth mes,
+			String parteAna, String parteBeto) {
+		return gastoService.crearGasto(usuario.getId(),
+				gasto(descripcion, monto, categoria, mes, parteAna, parteBeto)).getId();
+	}
+
+	private void editar(Long gastoId, Usuario usuario, String descripcion, String monto, Categoria categoria,
+			YearMonth mes, String parteAna, String parteBeto) {
+		gastoService.actualizarGasto(gastoId, usuario.getId(),
+				gasto(descripcion, monto, categoria, mes, parteAna, parteBeto));
+	}
+
+	// Sin partes el gasto no se divide
+	private GastoCreateDTO gasto(String descripcion, String monto, Categoria categoria, YearMonth mes,
+			String parteAna, String parteBeto) {
+		return GastoCreateDTO.builder()
+				.descripcion(descripcion)
+				.monto(new BigDecimal(monto))
+				.categoriaId(categoria.getId())
+				.fechaGasto(mes.atDay(10).atTime(12, 0))
+				.split(parteAna == null ? null
+						: Map.of(ana.getId(), new BigDecimal(parteAna), beto.getId(), new BigDecimal(parteBeto)))
+				.build();
+	}
+}
@@ -0,0 +1,190 @@
+package com.gastos.gastos_compartidos.service;
+
+import com.gastos.gastos_compartidos.ContadorSentencias;
+import com.gastos.gastos_compartidos.PostgresIntegrationTest;
+import com.gastos.gastos_compartidos.dto.AbonoDeudaCreateDTO;
+import com.gastos.gastos_compartidos.dto.DeudaCreateDTO;
+import com.gastos.gastos_compartidos.dto.GastoCreateDTO;
+import com.gastos.gastos_compartidos.entity.Categoria;
+import com.gastos.gastos_compartidos.entity.Pareja;
+import com.gastos.gastos_compartidos.entity.TipoDeuda;
+import com.gastos.gastos_compartidos.entity.Usuario;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Fija cuántas sentencias cuestan los listados, el reporte mensual, las deudas y la edición de
+ * un gasto. Se mide con páginas (o meses, o parejas) de distinto tamaño: si el conteo cambia con
+ * la cantidad de filas, algo volvió a cargar o escribir fila por fila (N+1).
+ */
+class SentenciasPorEndpointTest extends PostgresIntegrationTest {
+
+	private static final Pattern UPDATE_SPLITS = Pattern.compile("(?i)\\bupdate\\s+gasto_splits\\b");
+
+	@Autowired
+	private GastoService gastoService;
+
+	@Autowired
+	private DeudaService deudaService;
+
+	@Autowired
+	private ReporteService reporteService;
+
+	private Pareja pareja;
+	private Usuario ana;
+	private Usuario beto;
+	private List<Categoria> categorias;
+
+	@BeforeEach
+	void preparar() {
+		pareja = crearPareja();
+		ana = crearUsuario(pareja);
+		beto = crearUsuario(pareja);
+		categorias = List.of(crearCategoria(), crearCategoria(), crearCategoria());
+	}
+
+	@Test
+	void listadoDeGastosNoDependeDelTamanoDePagina() {
+		crearGastos(60, YearMonth.now());
+
+		long pagina5 = medir(() -> gastoService.obtenerGastosPorUsuarioPaginado(ana.getId(), PageRequest.of(0, 5)));
+		long pagina40 = medir(() -> gastoService.obtenerGastosPorUsuarioPaginado(ana.getId(), PageRequest.of(0, 40)));
+
+		// usuario, página (usuario y categoría por join), count, splits y usuarios de los splits en batch
+		assertThat(pagina40).isEqualTo(pagina5);
+		assertThat(pagina40).isLessThanOrEqualTo(6);
+	}
+
+	@Test
+	void listadoDeGastosDeLaParejaNoDependeDelTamanoDePagina() {
+		crearGastos(60, YearMonth.now());
+
+		long pagina5 = medir(() -> gastoService.obtenerGastosPorParejaPaginado(pareja.getId(), PageRequest.of(0, 5)));
+		long pagina40 = medir(() -> gastoService.obtenerGastosPorParejaPaginado(pareja.getId(), PageRequest.of(0, 40)));
+
+		assertThat(pagina40).isEqualTo(pagina5);
+		assertThat(pagina40).isLessThanOrEqualTo(5);
+	}
+
+	@Test
+	void reporteMensualNoDependeDeLaCantidadDeGastos() {
+		YearMonth mesChico = YearMonth.now().minusMonths(2);
+		YearMonth mesGrande = YearMonth.now().minusMonths(1);
+		crearGastos(3, mesChico);
+		crearGastos(45, mesGrande);
+
+		long chico = medir(() -> reporteService.generarReporteMensual(pareja.getId(),
+				mesChico.getYear(), mesChico.getMonthValue()));
+		long grande = medir(() -> reporteService.generarReporteMensual(pareja.getId(),
+				mesGrande.getYear(), mesGrande.getMonthValue()));
+
+		// pareja, miembros y las dos agregaciones sobre resumen_gastos_mensual
+		assertThat(grande).isEqualTo(chico);
+		assertThat(grande).isLessThanOrEqualTo(5);
+	}
+
+	@Test
+	void listadoDeDeudasNoDependeDelTamanoDePagina() {
+		for (int i = 0; i < 50; i++) {
+			DeudaCreateDTO deuda = new DeudaCreateDTO();
+			deuda.setAcreedor("Banco " + i);
+			deuda.setTipo(TipoDeuda.TARJETA_CREDITO);
+			deuda.setMontoOriginal(new BigDecimal("1000.00"));
+			Long deudaId = deudaService.crearDeuda(ana.getId(), deuda).getId();
+
+			AbonoDeudaCreateDTO abono = new AbonoDeudaCreateDTO();
+			abono.setMonto(new BigDecimal("100.00"));
+			deudaService.registrarAbono(ana.getId(), deudaId, abono);
+		}
+
+		long pagina5 = medir(() -> deudaService.obtenerDeudasUsuarioPaginado(ana.getId(), false, PageRequest.of(0, 5)));
+		long pagina40 = medir(() -> deudaService.obtenerDeudasUsuarioPaginado(ana.getId(), false, PageRequest.of(0, 40)));
+
+		// página, count y los abonos de toda la página en un batch
+		assertThat(pagina40).isEqualTo(pagina5);
+		assertThat(pagina40).isLessThanOrEqualTo(3);
+	}
+
+	@Test
+	void editarUnGastoNoDependeDeLosMiembrosDelSplit() {
+		long dosMiembros = medirEdicion(2);
+		long diezMiembros = medirEdicion(10);
+
+		// Los splits cambian para todos los miembros: sus UPDATE y los upserts de balance van en un batch cada uno
+		assertThat(diezMiembros).isEqualTo(dosMiembros);
+		assertThat(ContadorSentencias.sqlBatches()).filteredOn(sql -> sql != null && UPDATE_SPLITS.matcher(sql).find())
+				.hasSize(1);
+		assertThat(ContadorSentencias.filasEnBatch()).isGreaterThanOrEqualTo(10);
+	}
+
+	@Test
+	void editarUnGastoSinCambiosNoActualizaSplits() {
+		Long gastoId = gastoService.crearGasto(ana.getId(), edicion(List.of(ana, beto), "10.00")).getId();
+
+		ContadorSentencias.reiniciar();
+		gastoService.actualizarGasto(gastoId, ana.getId(), edicion(List.of(ana, beto), "10.00"));
+
+		List<String> sql = new ArrayList<>(ContadorSentencias.sqlBatches());
+		ContadorSentencias.consultas().forEach(consulta -> sql.add(consulta.sql()));
+		assertThat(sql).noneMatch(sentencia -> sentencia != null && UPDATE_SPLITS.matcher(sentencia).find());
+	}
+
+	/**
+	 * Crea un gasto repartido en partes iguales entre los miembros de una pareja nueva y mide
+	 * una edición que cambia el monto de todos los splits.
+	 */
+	private long medirEdicion(int miembros) {
+		Pareja otra = crearPareja();
+		List<Usuario> usuarios = new ArrayList<>();
+		for (int i = 0; i < miembros; i++) {
+			usuarios.add(crearUsuario(otra));
+		}
+		Usuario registrador = usuarios.get(0);
+		Long gastoId = gastoService.crearGasto(registrador.getId(), edicion(usuarios, "10.00")).getId();
+
+		return medir(() -> gastoService.actualizarGasto(gastoId, registrador.getId(), edicion(usuarios, "25.00")));
+	}
+
+	private GastoCreateDTO edicion(List<Usuario> usuarios, String montoPorMiembro) {
+		BigDecimal parte = new BigDecimal(montoPorMiembro);
+		Map<Long, BigDecimal> split = new HashMap<>();
+		usuarios.forEach(usuario -> split.put(usuario.getId(), parte));
+		return GastoCreateDTO.builder()
+				.descripcion("Cena")
+				.monto(parte.multiply(BigDecimal.valueOf(usuarios.size())))
+				.categoriaId(categorias.get(0).getId())
+				.fechaGasto(YearMonth.now().atDay(1).atTime(12, 0))
+				.split(split)
+				.build();
+	}
+
+	private long medir(Runnable operacion) {
+		ContadorSentencias.reiniciar();
+		operacion.run();
+		return ContadorSentencias.sentencias();
+	}
+
+	private void crearGastos(int cantidad, YearMonth mes) {
+		for (int i = 0; i < cantidad; i++) {
+			gastoService.crearGasto(ana.getId(), GastoCreateDTO.builder()
+					.descripcion("Gasto " + i)
+					.monto(new BigDecimal("30.00"))
+					.categoriaId(categorias.get(i % categorias.size()).getId())
+					.fechaGasto(mes.atDay(1 + i % 28).atTime(12, 0))
+					.split(Map.of(ana.getId(), new BigDecimal("10.00"), beto.getId(), new BigDecimal("20.00")))
+					.build());
+		}
+	}
+}
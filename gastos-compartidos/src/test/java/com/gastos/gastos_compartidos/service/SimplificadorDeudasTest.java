@@ -0,0 +1,122 @@
+package com.gastos.gastos_compartidos.service;
+
+import com.gastos.gastos_compartidos.service.SimplificadorDeudas.Transferencia;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class SimplificadorDeudasTest {
+
+	@Test
+	void subgruposIndependientesAhorranTransferencias() {
+		// {-4, +4} y {-3, -2, +5} se saldan por separado: 3 transferencias; el voraz usa 4
+		long[] saldos = { -400, -300, -200, 500, 400 };
+
+		List<Transferencia> exacto = SimplificadorDeudas.simplificar(saldos);
+		List<Transferencia> voraz = SimplificadorDeudas.simplificarVoraz(saldos);
+
+		assertThat(exacto).hasSize(3);
+		assertThat(voraz).hasSize(4);
+		assertSaldaTodo(saldos, exacto);
+		assertSaldaTodo(saldos, voraz);
+	}
+
+	@Test
+	void exactoNuncaUsaMasTransferenciasQueElVoraz() {
+		Random random = new Random(42);
+		int mejoras = 0;
+		for (int caso = 0; caso < 2_000; caso++) {
+			long[] saldos = saldosConSubgrupos(random, 2 + random.nextInt(SimplificadorDeudas.MAX_EXACTO - 1));
+
+			List<Transferencia> exacto = SimplificadorDeudas.simplificar(saldos);
+			List<Transferencia> voraz = SimplificadorDeudas.simplificarVoraz(saldos);
+
+			assertSaldaTodo(saldos, exacto);
+			assertThat(exacto.size()).isLessThanOrEqualTo(voraz.size());
+			assertThat(exacto.size()).isLessThanOrEqualTo(Math.max(conSaldo(saldos) - 1, 0));
+			if (exacto.size() < voraz.size()) {
+				mejoras++;
+			}
+		}
+		assertThat(mejoras).isPositive();
+	}
+
+	@Test
+	void sinSaldosNoHayTransferencias() {
+		assertThat(SimplificadorDeudas.simplificar(new long[] { 0, 0, 0 })).isEmpty();
+	}
+
+	@Test
+	void grupoGrandeDeCincuentaMiembrosConCienMilSplits() {
+		Random random = new Random(7);
+		int miembros = 50;
+		long[] saldos = new long[miembros];
+		for (int i = 0; i < 100_000; i++) {
+			// Split DEBE: el miembro le debe el monto a quien registró el gasto
+			int registrador = random.nextInt(miembros);
+			int deudor = (registrador + 1 + random.nextInt(miembros - 1)) % miembros;
+			long centavos = 1 + random.nextInt(50_000);
+			saldos[registrador] += centavos;
+			saldos[deudor] -= centavos;
+		}
+
+		List<Transferencia> transferencias = assertTimeoutPreemptively(Duration.ofSeconds(1),
+				() -> SimplificadorDeudas.simplificar(saldos));
+
+		assertSaldaTodo(saldos, transferencias);
+		assertThat(transferencias.size()).isLessThanOrEqualTo(Math.max(conSaldo(saldos) - 1, 0));
+	}
+
+	/**
+	 * Saldos de un grupo armado con varios subgrupos que suman cero por separado, mezclados,
+	 * para que el óptimo a menudo sea menor que n - 1.
+	 */
+	private static long[] saldosConSubgrupos(Random random, int miembros) {
+		List<Long> saldos = new ArrayList<>();
+		while (saldos.size() < miembros) {
+			int tamano = Math.min(miembros - saldos.size(), 2 + random.nextInt(3));
+			if (tamano == 1) {
+				saldos.add(0L);
+				continue;
+			}
+			long suma = 0;
+			for (int i = 0; i < tamano - 1; i++) {
+				long saldo = (random.nextInt(20_000) - 10_000) * 100L;
+				saldos.add(saldo);
+				suma += saldo;
+			}
+			saldos.add(-suma);
+		}
+		Collections.shuffle(saldos, random);
+		return saldos.stream().mapToLong(Long::longValue).toArray();
+	}
+
+	private static void assertSaldaTodo(long[] saldos, List<Transferencia> transferencias) {
+		long[] restantes = saldos.clone();
+		for (Transferencia t : transferencias) {
+			assertThat(t.monto()).isPositive();
+			assertThat(saldos[t.deudor()]).isNegative();
+			assertThat(saldos[t.acreedor()]).isPositive();
+			restantes[t.deudor()] += t.monto();
+			restantes[t.acreedor()] -= t.monto();
+		}
+		assertThat(restantes).containsOnly(0L);
+	}
+
+	private static int conSaldo(long[] saldos) {
+		int cantidad = 0;
+		for (long saldo : saldos) {
+			if (saldo != 0) {
+				cantidad++;
+			}
+		}
+		return cantidad;
+	}
+}
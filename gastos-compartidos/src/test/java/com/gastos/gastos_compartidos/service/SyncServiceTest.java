@@ -0,0 +1,160 @@
+package com.gastos.gastos_compartidos.service;
+
+import com.gastos.gastos_compartidos.ContadorSentencias;
+import com.gastos.gastos_compartidos.PostgresIntegrationTest;
+import com.gastos.gastos_compartidos.dto.AbonoDeudaCreateDTO;
+import com.gastos.gastos_compartidos.dto.DeudaCreateDTO;
+import com.gastos.gastos_compartidos.dto.GastoResponseDTO;
+import com.gastos.gastos_compartidos.dto.SyncCambiosDTO;
+import com.gastos.gastos_compartidos.entity.Categoria;
+import com.gastos.gastos_compartidos.entity.Pareja;
+import com.gastos.gastos_compartidos.entity.TipoDeuda;
+import com.gastos.gastos_compartidos.entity.Usuario;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Sincronización incremental contra PostgreSQL: el primer pedido sin token es completo y cada
+ * pedido siguiente usa el token recibido. Un token cuyas versiones no cambiaron se resuelve con
+ * la única consulta a version_datos; los gastos borrados salen de deleted_at, las deudas y los
+ * abonos borrados de las lápidas de eliminaciones_sync, y cambiar de pareja invalida el token.
+ */
+class SyncServiceTest extends PostgresIntegrationTest {
+
+	@Autowired
+	private SyncService syncService;
+
+	@Autowired
+	private GastoService gastoService;
+
+	@Autowired
+	private DeudaService deudaService;
+
+	private Pareja pareja;
+	private Usuario ana;
+	private Usuario beto;
+	private List<Categoria> categorias;
+
+	@BeforeEach
+	void preparar() {
+		pareja = crearPareja();
+		ana = crearUsuario(pareja);
+		beto = crearUsuario(pareja);
+		categorias = List.of(crearCategoria());
+	}
+
+	@Test
+	void sinCambiosEsUnaSolaConsulta() {
+		insertarGastos(beto.getId(), pareja.getId(), categorias, 3, LocalDateTime.now(), Duration.ofMinutes(1));
+		String token = tokenInicial();
+
+		ContadorSentencias.reiniciar();
+		SyncCambiosDTO cambios = syncService.obtenerCambios(ana.getId(), token);
+
+		assertThat(cambios.isSinCambios()).isTrue();
+		assertThat(cambios.isCompleto()).isFalse();
+		assertThat(cambios.getToken()).isEqualTo(token);
+		assertThat(ContadorSentencias.sentencias()).isEqualTo(1);
+
+		// Un gasto nuevo de la pareja cambia la versión y el mismo token ya trae el gasto
+		insertarGastos(beto.getId(), pareja.getId(), categorias, 1, LocalDateTime.now(), Duration.ZERO);
+		Long nuevo = jdbcTemplate.queryForObject("SELECT MAX(id) FROM gastos WHERE usuario_id = ?", Long.class,
+				beto.getId());
+		SyncCambiosDTO siguientes = syncService.obtenerCambios(ana.getId(), token);
+		assertThat(siguientes.isSinCambios()).isFalse();
+		assertThat(siguientes.getGastos()).extracting(GastoResponseDTO::getId).contains(nuevo);
+	}
+
+	@Test
+	void gastoEliminadoLlegaEnGastosEliminados() {
+		insertarGastos(beto.getId(), pareja.getId(), categorias, 2, LocalDateTime.now(), Duration.ofMinutes(1));
+		Long gastoId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM gastos WHERE usuario_id = ?", Long.class,
+				beto.getId());
+		String token = tokenInicial();
+
+		gastoService.eliminarGasto(gastoId, beto.getId());
+
+		SyncCambiosDTO cambios = syncService.obtenerCambios(ana.getId(), token);
+		assertThat(cambios.isCompleto()).isFalse();
+		assertThat(cambios.getGastosEliminados()).containsExactly(gastoId);
+		assertThat(cambios.getGastos()).extracting(GastoResponseDTO::getId).doesNotContain(gastoId);
+	}
+
+	@Test
+	void deudaYAbonoBorradosLleganPorLasLapidas() {
+		Long deudaId = deudaService.crearDeuda(ana.getId(), deuda("Banco")).getId();
+		Long otraDeudaId = deudaService.crearDeuda(ana.getId(), deuda("Tarjeta")).getId();
+		Long abonoId = deudaService.registrarAbono(ana.getId(), deudaId, abono()).getId();
+		Long abonoDeOtraId = deudaService.registrarAbono(ana.getId(), otraDeudaId, abono()).getId();
+		String token = tokenInicial();
+
+		deudaService.eliminarAbono(ana.getId(), deudaId, abonoId);
+		// Borrar la deuda con su abono deja una lápida por cada uno
+		deudaService.eliminarDeuda(ana.getId(), otraDeudaId);
+
+		SyncCambiosDTO cambios = syncService.obtenerCambios(ana.getId(), token);
+		assertThat(cambios.isCompleto()).isFalse();
+		assertThat(cambios.getAbonosEliminados()).containsExactlyInAnyOrder(abonoId, abonoDeOtraId);
+		assertThat(cambios.getDeudasEliminadas()).containsExactly(otraDeudaId);
+
+		// Las lápidas son de Ana: Beto, con una deuda propia que cambia su versión, no las recibe
+		String tokenBeto = syncService.obtenerCambios(beto.getId(), null).getToken();
+		deudaService.crearDeuda(beto.getId(), deuda("Financiera"));
+		SyncCambiosDTO cambiosBeto = syncService.obtenerCambios(beto.getId(), tokenBeto);
+		assertThat(cambiosBeto.isSinCambios()).isFalse();
+		assertThat(cambiosBeto.getAbonosEliminados()).isEmpty();
+		assertThat(cambiosBeto.getDeudasEliminadas()).isEmpty();
+	}
+
+	@Test
+	void cambioDeParejaFuerzaSincronizacionCompleta() {
+		insertarGastos(beto.getId(), pareja.getId(), categorias, 2, LocalDateTime.now(), Duration.ofMinutes(1));
+		String token = tokenInicial();
+
+		Pareja otra = crearPareja();
+		jdbcTemplate.update("UPDATE usuarios SET pareja_id = ? WHERE id = ?", otra.getId(), ana.getId());
+
+		SyncCambiosDTO cambios = syncService.obtenerCambios(ana.getId(), token);
+		assertThat(cambios.isCompleto()).isTrue();
+		assertThat(cambios.isSinCambios()).isFalse();
+		// Completo: nada de lo anterior sigue valiendo, así que no se mandan ids eliminados
+		assertThat(cambios.getGastos()).isEmpty();
+		assertThat(cambios.getGastosEliminados()).isEmpty();
+
+		// Salir de la pareja también cambia el alcance
+		String sinPareja = cambios.getToken();
+		jdbcTemplate.update("UPDATE usuarios SET pareja_id = NULL WHERE id = ?", ana.getId());
+		assertThat(syncService.obtenerCambios(ana.getId(), sinPareja).isCompleto()).isTrue();
+	}
+
+	/**
+	 * Primera sincronización de Ana, sin token: siempre completa.
+	 */
+	private String tokenInicial() {
+		SyncCambiosDTO inicial = syncService.obtenerCambios(ana.getId(), null);
+		assertThat(inicial.isCompleto()).isTrue();
+		return inicial.getToken();
+	}
+
+	private DeudaCreateDTO deuda(String acreedor) {
+		DeudaCreateDTO dto = new DeudaCreateDTO();
+		dto.setAcreedor(acreedor);
+		dto.setTipo(TipoDeuda.OTRO);
+		dto.setMontoOriginal(new BigDecimal("1000.00"));
+		return dto;
+	}
+
+	private AbonoDeudaCreateDTO abono() {
+		AbonoDeudaCreateDTO dto = new AbonoDeudaCreateDTO();
+		dto.setMonto(new BigDecimal("100.00"));
+		return dto;
+	}
+}
@@ -0,0 +1,187 @@
+package com.gastos.gastos_compartidos.service;
+
+import com.gastos.gastos_compartidos.PostgresIntegrationTest;
+import com.gastos.gastos_compartidos.dto.GastoCreateDTO;
+import com.gastos.gastos_compartidos.entity.Categoria;
+import com.gastos.gastos_compartidos.entity.Pareja;
+import com.gastos.gastos_compartidos.entity.Usuario;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * ETag de GET /api/pagos/resumen contra los triggers de version_datos (V13 y V19). Cada test
+ * pide el resumen, confirma el 304 con If-None-Match, escribe en una de las tablas con
+ * trigger y vuelve a mandar el mismo ETag: tiene que responder 200 con uno nuevo. Las
+ * escrituras van por JDBC para que cada una toque una sola tabla.
+ */
+class VersionDatosServiceTest extends PostgresIntegrationTest {
+
+	private static final String RESUMEN = "/api/pagos/resumen";
+
+	@Autowired
+	private GastoService gastoService;
+
+	private Pareja pareja;
+	private Usuario ana;
+	private Usuario beto;
+	private Categoria categoria;
+
+	@BeforeEach
+	void preparar() {
+		pareja = crearPareja();
+		ana = crearUsuario(pareja);
+		beto = crearUsuario(pareja);
+		categoria = crearCategoria();
+	}
+
+	@Test
+	void gastoDeLaParejaInvalidaElEtag() throws Exception {
+		String etag = etagVigente();
+
+		gastoService.crearGasto(beto.getId(), GastoCreateDTO.builder()
+				.descripcion("Supermercado")
+				.monto(new BigDecimal("40.00"))
+				.categoriaId(categoria.getId())
+				.fechaGasto(LocalDateTime.now())
+				.split(Map.of(ana.getId(), new BigDecimal("20.00"), beto.getId(), new BigDecimal("20.00")))
+				.build());
+
+		assertThat(etagTrasEscritura(etag)).isNotEqualTo(etag);
+	}
+
+	@Test
+	void sinEscriturasElEtagSeMantiene() throws Exception {
+		String etag = etagVigente();
+
+		// Un gasto individual de otro usuario no toca la versión de Ana ni la de su pareja
+		insertarGastos(crearUsuario(null).getId(), null, List.of(categoria), 1, LocalDateTime.now(), Duration.ZERO);
+
+		mockMvc.perform(get(RESUMEN).header("If-None-Match", etag).with(como(ana)))
+				.andExpect(status().isNotModified());
+	}
+
+	@Test
+	void insertarEditarYBorrarGastos() throws Exception {
+		insertarGastos(beto.getId(), pareja.getId(), List.of(categoria), 1, LocalDateTime.now(), Duration.ZERO);
+		Long gastoId = ultimoGasto(beto);
+
+		verificarInvalidacion(() -> insertarGastos(beto.getId(), pareja.getId(), List.of(categoria), 1,
+				LocalDateTime.now(), Duration.ZERO));
+		verificarInvalidacion(() -> jdbcTemplate.update("UPDATE gastos SET monto = monto + 1 WHERE id = ?", gastoId));
+		verificarInvalidacion(() -> jdbcTemplate.update("DELETE FROM gastos WHERE id = ?", gastoId));
+	}
+
+	@Test
+	void splitDeUnGastoDeLaPareja() throws Exception {
+		insertarGastos(ana.getId(), pareja.getId(), List.of(categoria), 1, LocalDateTime.now(), Duration.ZERO);
+		Long gastoId = ultimoGasto(ana);
+
+		verificarInvalidacion(() -> jdbcTemplate.update("""
+				INSERT INTO gasto_splits (gasto_id, usuario_id, monto, tipo, fecha_creacion)
+				VALUES (?, ?, 10, 'DEBE', NOW())
+				""", gastoId, beto.getId()));
+	}
+
+	@Test
+	void pagoEntreLaPareja() throws Exception {
+		verificarInvalidacion(() -> jdbcTemplate.update("""
+				INSERT INTO pagos (pagador_id, receptor_id, pareja_id, monto, fecha_pago, fecha_creacion, fecha_actualizacion)
+				VALUES (?, ?, ?, 15, NOW(), NOW(), NOW())
+				""", beto.getId(), ana.getId(), pareja.getId()));
+	}
+
+	@Test
+	void presupuestoPropio() throws Exception {
+		verificarInvalidacion(() -> jdbcTemplate.update("""
+				INSERT INTO presupuestos (usuario_id, categoria_id, limite, periodo)
+				VALUES (?, ?, 500, 'MENSUAL')
+				""", ana.getId(), categoria.getId()));
+	}
+
+	@Test
+	void deudaYAbonoPropios() throws Exception {
+		verificarInvalidacion(() -> jdbcTemplate.update("""
+				INSERT INTO deudas (usuario_id, acreedor, tipo, monto_original, saldo_pendiente)
+				VALUES (?, 'Banco', 'OTRO', 1000, 1000)
+				""", ana.getId()));
+		Long deudaId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM deudas WHERE usuario_id = ?", Long.class,
+				ana.getId());
+
+		verificarInvalidacion(() -> jdbcTemplate.update("""
+				INSERT INTO abonos_deuda (deuda_id, monto, fecha_pago) VALUES (?, 100, CURRENT_DATE)
+				""", deudaId));
+	}
+
+	@Test
+	void gastoRecurrentePropio() throws Exception {
+		verificarInvalidacion(() -> jdbcTemplate.update("""
+				INSERT INTO gastos_recurrentes (descripcion, monto, usuario_id, categoria_id, frecuencia,
+				                                dia_ejecucion, fecha_inicio)
+				VALUES ('Alquiler', 800, ?, ?, 'MENSUAL', 1, CURRENT_DATE)
+				""", ana.getId(), categoria.getId()));
+	}
+
+	@Test
+	void pronosticoPropio() throws Exception {
+		LocalDate inicio = LocalDate.now().withDayOfMonth(1);
+		verificarInvalidacion(() -> jdbcTemplate.update("""
+				INSERT INTO pronostico_gasto (usuario_id, categoria_id, periodo, inicio, fin, gastado, proyectado)
+				VALUES (?, ?, 'MENSUAL', ?, ?, 10, 30)
+				""", ana.getId(), categoria.getId(), inicio, inicio.plusMonths(1)));
+	}
+
+	@Test
+	void cambioDeParejaDelCompanero() throws Exception {
+		// Un tercer miembro para que el resumen siga calculándose con dos cuando Beto sale
+		crearUsuario(pareja);
+		verificarInvalidacion(() -> jdbcTemplate.update("UPDATE usuarios SET pareja_id = NULL WHERE id = ?",
+				beto.getId()));
+	}
+
+	/**
+	 * Con el ETag vigente la respuesta es 304; tras la escritura el mismo ETag responde 200 con
+	 * uno nuevo, que a su vez vuelve a dar 304.
+	 */
+	private void verificarInvalidacion(Runnable escritura) throws Exception {
+		String etag = etagVigente();
+		escritura.run();
+		String nuevo = etagTrasEscritura(etag);
+		assertThat(nuevo).isNotEqualTo(etag);
+		mockMvc.perform(get(RESUMEN).header("If-None-Match", nuevo).with(como(ana)))
+				.andExpect(status().isNotModified());
+	}
+
+	private String etagVigente() throws Exception {
+		String etag = mockMvc.perform(get(RESUMEN).with(como(ana)))
+				.andExpect(status().isOk())
+				.andExpect(header().exists("ETag"))
+				.andReturn().getResponse().getHeader("ETag");
+		mockMvc.perform(get(RESUMEN).header("If-None-Match", etag).with(como(ana)))
+				.andExpect(status().isNotModified());
+		return etag;
+	}
+
+	private String etagTrasEscritura(String etag) throws Exception {
+		return mockMvc.perform(get(RESUMEN).header("If-None-Match", etag).with(como(ana)))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getHeader("ETag");
+	}
+
+	private Long ultimoGasto(Usuario usuario) {
+		return jdbcTemplate.queryForObject("SELECT MAX(id) FROM gastos WHERE usuario_id = ?", Long.class,
+				usuario.getId());
+	}
+}